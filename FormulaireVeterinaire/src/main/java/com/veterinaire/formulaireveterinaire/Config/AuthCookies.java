@@ -0,0 +1,34 @@
+package com.veterinaire.formulaireveterinaire.Config;
+
+import org.springframework.http.ResponseCookie;
+
+/**
+ * Builds the access_token cookie shared by login, logout and password reset.
+ */
+public final class AuthCookies {
+
+    public static final String ACCESS_TOKEN = "access_token";
+
+    private AuthCookies() {
+    }
+
+    public static ResponseCookie accessToken(String token) {
+        return ResponseCookie.from(ACCESS_TOKEN, token)
+                .httpOnly(true)
+                .secure(false) // ❌ false for localhost (http), ✅ true in production
+                .path("/")
+                .maxAge(60 * 60 * 24 * 7) // 7 days
+                .sameSite("Lax") // allow localhost:4200 → localhost:8061
+                .build();
+    }
+
+    public static ResponseCookie cleared() {
+        return ResponseCookie.from(ACCESS_TOKEN, "")
+                .httpOnly(true)
+                .secure(false)
+                .path("/")
+                .maxAge(0)
+                .sameSite("Lax")
+                .build();
+    }
+}
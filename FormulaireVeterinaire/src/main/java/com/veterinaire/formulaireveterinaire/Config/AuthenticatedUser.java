@@ -0,0 +1,44 @@
+package com.veterinaire.formulaireveterinaire.Config;
+
+import com.veterinaire.formulaireveterinaire.Enums.SubscriptionStatus;
+import com.veterinaire.formulaireveterinaire.serviceimpl.CustomUserDetailsService;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+
+/**
+ * Principal set by JwtAuthenticationFilter, injectable with @AuthenticationPrincipal.
+ * Carries what controllers and services need about the caller so they don't reload the user.
+ * @param userId The user's database ID.
+ * @param email The user's email, also the username.
+ * @param nom The user's last name, used in e-mails.
+ * @param isAdmin Whether the user has ROLE_ADMIN.
+ * @param status The user's subscription status.
+ * @param subscriptionEndDate End of the subscription, null when the user has none.
+ */
+public record AuthenticatedUser(
+        Long userId,
+        String email,
+        String nom,
+        boolean isAdmin,
+        SubscriptionStatus status,
+        LocalDateTime subscriptionEndDate
+) implements UserDetails {
+
+    @Override
+    public Collection<? extends GrantedAuthority> getAuthorities() {
+        return CustomUserDetailsService.authoritiesFor(isAdmin);
+    }
+
+    @Override
+    public String getPassword() {
+        return "";
+    }
+
+    @Override
+    public String getUsername() {
+        return email;
+    }
+}
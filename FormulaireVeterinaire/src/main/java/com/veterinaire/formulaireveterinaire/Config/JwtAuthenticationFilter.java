@@ -1,18 +1,15 @@
 package com.veterinaire.formulaireveterinaire.Config;
 
-import com.veterinaire.formulaireveterinaire.Enums.SubscriptionStatus;
-import com.veterinaire.formulaireveterinaire.DAO.SubscriptionRepository;
-import com.veterinaire.formulaireveterinaire.DAO.UserRepository;
-import com.veterinaire.formulaireveterinaire.entity.Subscription;
-import com.veterinaire.formulaireveterinaire.entity.User;
+import com.veterinaire.formulaireveterinaire.Enums.RouteAccess;
+import com.veterinaire.formulaireveterinaire.serviceimpl.SubscriptionEntitlementCache;
+import com.veterinaire.formulaireveterinaire.serviceimpl.SubscriptionEntitlementCache.Entitlement;
+import com.veterinaire.formulaireveterinaire.serviceimpl.TokenEpochRegistry;
 import jakarta.servlet.http.Cookie;
 import lombok.RequiredArgsConstructor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
-import org.springframework.security.core.userdetails.UserDetails;
-import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
@@ -22,9 +19,6 @@ import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import java.io.IOException;
-import java.time.LocalDateTime;
-import java.util.Arrays;
-import java.util.List;
 
 @Component
 @RequiredArgsConstructor
@@ -33,104 +27,94 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
     private static final Logger logger = LoggerFactory.getLogger(JwtAuthenticationFilter.class);
 
     private final JwtUtil jwtUtil;
-    private final UserDetailsService userDetailsService;
-    private final SubscriptionRepository subscriptionRepository;
-    private final UserRepository userRepository;
-
-    private static final List<String> PERMIT_ALL_ENDPOINTS = Arrays.asList(
-            "/api/login", "/api/users/register"
-    );
-
-    private static final List<String> SKIP_SUBSCRIPTION_CHECK_ENDPOINTS = Arrays.asList(
-            "/api/veterinaires/me",
-            "/api/veterinaires/all",
-            "/api/logout",
-            "/api/reset-password",
-            "/api/cart"
-    );
-
-
-
-
-
+    private final SubscriptionEntitlementCache entitlementCache;
+    private final TokenEpochRegistry tokenEpochRegistry;
+    private final RoutePolicyRegistry routePolicyRegistry;
 
     @Override
     protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
             throws ServletException, IOException {
 
         String requestURI = request.getRequestURI();
-        logger.debug("Processing request for URI: {}", requestURI);
-        logger.debug("Request method: {}", request.getMethod());
+        RouteAccess access = routePolicyRegistry.resolve(requestURI);
+        logger.debug("Processing {} request for URI: {} ({})", request.getMethod(), requestURI, access);
 
-        // Skip authentication for permitAll endpoints
-        boolean isPermitAll = PERMIT_ALL_ENDPOINTS.stream().anyMatch(requestURI::startsWith);
-        if (isPermitAll) {
-            logger.debug("Skipping authentication for permitAll endpoint: {}", requestURI);
+        // Public endpoints: no cookie parsing, no lookups
+        if (access == RouteAccess.PUBLIC) {
             filterChain.doFilter(request, response);
             return;
         }
+        // Optional endpoints (logout) go through anonymously when the token is missing, invalid or revoked
+        boolean optional = access == RouteAccess.OPTIONAL_AUTH;
 
-        String token = null;
-        String email = null;
+        JwtClaims claims = null;
 
-        // Extract token from cookies
+        // Extract and verify token from cookies
         Cookie[] cookies = request.getCookies();
         if (cookies != null) {
             for (Cookie cookie : cookies) {
-                if ("access_token".equals(cookie.getName())) {
-                    token = cookie.getValue();
+                if (AuthCookies.ACCESS_TOKEN.equals(cookie.getName())) {
                     try {
-                        email = jwtUtil.extractEmail(token);
+                        claims = jwtUtil.verify(cookie.getValue());
                     } catch (Exception e) {
                         logger.error("Invalid token: {}", e.getMessage());
-                        response.setStatus(HttpServletResponse.SC_UNAUTHORIZED);
-                        response.setContentType("application/json");
-                        response.getWriter().write("{\"error\": \"Invalid token format\"}");
-                        return;
+                        if (!optional) {
+                            writeError(response, HttpServletResponse.SC_UNAUTHORIZED, "Invalid token format");
+                            return;
+                        }
                     }
                     break;
                 }
             }
         }
 
-        if (email != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-            final String finalEmail = email; // ✅ make it effectively final
-
-            UserDetails userDetails = userDetailsService.loadUserByUsername(finalEmail);
-
-            if (userDetails != null && jwtUtil.validateToken(token, finalEmail)) {
-                User user = userRepository.findByEmail(finalEmail)
-                        .orElseThrow(() -> new RuntimeException("User not found: " + finalEmail));
+        if (claims != null && SecurityContextHolder.getContext().getAuthentication() == null) {
+            final String finalEmail = claims.email(); // ✅ make it effectively final
 
-                boolean skipSubscriptionCheck = SKIP_SUBSCRIPTION_CHECK_ENDPOINTS.stream()
-                        .anyMatch(requestURI::startsWith);
+            // Served from memory; the database is only hit on a cache miss
+            Entitlement entitlement = entitlementCache.get(finalEmail);
 
-                if (!user.isAdmin() && !skipSubscriptionCheck) {
-                    Subscription subscription = subscriptionRepository.findByUserEmail(finalEmail)
-                            .orElseThrow(() -> new RuntimeException("No subscription found for user: " + finalEmail));
-
-                    if (subscription.getEndDate().isBefore(LocalDateTime.now())) {
-                        logger.warn("Subscription expired for user: {}", finalEmail);
-                        response.setStatus(HttpServletResponse.SC_FORBIDDEN);
-                        response.setContentType("application/json");
-                        response.getWriter().write("{\"error\": \"Subscription expired\"}");
-                        return;
-                    }
+            if (claims.tokenEpoch() != tokenEpochRegistry.current(entitlement.userId())) {
+                logger.warn("Revoked token used for user: {}", finalEmail);
+                if (optional) {
+                    filterChain.doFilter(request, response);
                 } else {
-                    logger.debug("Skipping subscription check for endpoint {} or admin user", requestURI);
+                    writeError(response, HttpServletResponse.SC_UNAUTHORIZED, "Token revoked");
+                }
+                return;
+            }
+
+            if (!entitlement.isAdmin() && access == RouteAccess.SUBSCRIPTION_GATED) {
+                if (!entitlement.hasSubscription()) {
+                    logger.warn("No subscription found for user: {}", finalEmail);
+                    writeError(response, HttpServletResponse.SC_FORBIDDEN, "No subscription found");
+                    return;
                 }
 
-                UsernamePasswordAuthenticationToken authentication = new UsernamePasswordAuthenticationToken(
-                        userDetails, null, userDetails.getAuthorities());
-                authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
-                SecurityContextHolder.getContext().setAuthentication(authentication);
-                logger.debug("Authenticated user: {}", finalEmail);
+                if (entitlement.isSubscriptionExpired(System.currentTimeMillis())) {
+                    logger.warn("Subscription expired for user: {}", finalEmail);
+                    writeError(response, HttpServletResponse.SC_FORBIDDEN, "Subscription expired");
+                    return;
+                }
             } else {
-                logger.warn("Invalid token or user details for email: {}", finalEmail);
+                logger.debug("Skipping subscription check for endpoint {} or admin user", requestURI);
             }
+
+            AuthenticatedUser principal = entitlement.principal();
+            UsernamePasswordAuthenticationToken authentication = new UsernamePasswordAuthenticationToken(
+                    principal, null, principal.getAuthorities());
+            authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
+            SecurityContextHolder.getContext().setAuthentication(authentication);
+            logger.debug("Authenticated user: {}", finalEmail);
         }
 
 
         filterChain.doFilter(request, response);
     }
+
+    private static void writeError(HttpServletResponse response, int status, String message) throws IOException {
+        response.setStatus(status);
+        response.setContentType("application/json");
+        response.getWriter().write("{\"error\": \"" + message + "\"}");
+    }
 }
\ No newline at end of file
@@ -0,0 +1,15 @@
+package com.veterinaire.formulaireveterinaire.Config;
+
+/**
+ * Claims extracted from a JWT whose signature has already been verified.
+ * @param email The token subject.
+ * @param isAdmin The isAdmin claim set at login.
+ * @param tokenEpoch The user's token epoch when the token was issued.
+ * @param expiresAt Expiration time in epoch millis.
+ */
+public record JwtClaims(String email, boolean isAdmin, int tokenEpoch, long expiresAt) {
+
+    public boolean isExpired(long nowMillis) {
+        return expiresAt <= nowMillis;
+    }
+}
@@ -2,13 +2,18 @@ package com.veterinaire.formulaireveterinaire.Config;
 
 import io.jsonwebtoken.*;
 import io.jsonwebtoken.security.Keys;
+import jakarta.annotation.PostConstruct;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 import java.nio.charset.StandardCharsets;
 import java.security.Key;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
 
 @Component
@@ -17,13 +22,38 @@ public class JwtUtil {
     @Value("${jwt.secret}")
     private String secret;
 
+    @Value("${jwt.claims-cache.max-size:10000}")
+    private int claimsCacheMaxSize;
+
+    private Key signingKey;
+    private JwtParser parser;
+
+    // Verified claims keyed by the SHA-256 digest of the token, so a token is only parsed once.
+    // Access-ordered and bounded: a miss on a full cache evicts the least recently used token in O(1).
+    // Guarded by its own monitor; parsing happens outside it.
+    private final Map<String, JwtClaims> verifiedClaims = new LinkedHashMap<>(256, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, JwtClaims> eldest) {
+            return size() > claimsCacheMaxSize;
+        }
+    };
+
+    @PostConstruct
+    void init() {
+        signingKey = Keys.hmacShaKeyFor(secret.getBytes(StandardCharsets.UTF_8));
+        parser = Jwts.parserBuilder()
+                .setSigningKey(signingKey)
+                .build();
+    }
+
     private Key getSigningKey() {
-        return Keys.hmacShaKeyFor(secret.getBytes(StandardCharsets.UTF_8));
+        return signingKey;
     }
 
-    public String generateToken(String email, boolean isAdmin) {
+    public String generateToken(String email, boolean isAdmin, int tokenEpoch) {
         Map<String, Object> claims = new HashMap<>();
         claims.put("isAdmin", isAdmin);
+        claims.put("tokenEpoch", tokenEpoch);
         return Jwts.builder()
                 .setClaims(claims)
                 .setSubject(email)
@@ -43,31 +73,72 @@ public class JwtUtil {
 //                .compact();
 //    }
 
+    /**
+     * Verifies the token signature and expiration, parsing it at most once while it stays cached.
+     * @param token The compact JWT.
+     * @return The verified claims.
+     * @throws JwtException If the token is malformed, badly signed or expired.
+     */
+    public JwtClaims verify(String token) {
+        String digest = digest(token);
+        long now = System.currentTimeMillis();
+
+        JwtClaims cached;
+        synchronized (verifiedClaims) {
+            cached = verifiedClaims.get(digest);
+            if (cached != null && cached.isExpired(now)) {
+                verifiedClaims.remove(digest);
+                cached = null;
+            }
+        }
+        if (cached != null) {
+            return cached;
+        }
+
+        Claims body = parser.parseClaimsJws(token).getBody();
+        Date expiration = body.getExpiration();
+        if (expiration == null) {
+            throw new MalformedJwtException("Token has no expiration");
+        }
+
+        Integer tokenEpoch = body.get("tokenEpoch", Integer.class);
+        JwtClaims claims = new JwtClaims(
+                body.getSubject(),
+                Boolean.TRUE.equals(body.get("isAdmin", Boolean.class)),
+                tokenEpoch != null ? tokenEpoch : 0,
+                expiration.getTime());
+
+        synchronized (verifiedClaims) {
+            verifiedClaims.put(digest, claims);
+        }
+        return claims;
+    }
+
+    int cachedTokenCount() {
+        synchronized (verifiedClaims) {
+            return verifiedClaims.size();
+        }
+    }
+
     public String extractEmail(String token) {
-        return Jwts.parserBuilder()
-                .setSigningKey(getSigningKey())
-                .build()
-                .parseClaimsJws(token)
-                .getBody()
-                .getSubject();
+        return verify(token).email();
     }
 
     public boolean validateToken(String token, String email) {
         try {
-            String extractedEmail = extractEmail(token);
-            return (extractedEmail.equals(email) && !isTokenExpired(token));
+            return verify(token).email().equals(email);
         } catch (JwtException e) {
             return false;
         }
     }
 
-    private boolean isTokenExpired(String token) {
-        return Jwts.parserBuilder()
-                .setSigningKey(getSigningKey())
-                .build()
-                .parseClaimsJws(token)
-                .getBody()
-                .getExpiration()
-                .before(new Date());
+    private static String digest(String token) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256")
+                    .digest(token.getBytes(StandardCharsets.US_ASCII));
+            return Base64.getEncoder().withoutPadding().encodeToString(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
     }
 }
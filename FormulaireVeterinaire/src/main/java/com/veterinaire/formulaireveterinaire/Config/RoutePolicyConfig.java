@@ -0,0 +1,70 @@
+package com.veterinaire.formulaireveterinaire.Config;
+
+import com.veterinaire.formulaireveterinaire.Enums.RouteAccess;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.event.EventListener;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.mvc.method.RequestMappingInfo;
+import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerMapping;
+
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Single declaration of who may call which route. Read by SecurityConfig and JwtAuthenticationFilter.
+ */
+@Configuration
+public class RoutePolicyConfig {
+
+    private static final Logger logger = LoggerFactory.getLogger(RoutePolicyConfig.class);
+
+    @Bean
+    public RoutePolicyRegistry routePolicyRegistry() {
+        return RoutePolicyRegistry.builder(RouteAccess.SUBSCRIPTION_GATED)
+                .route(RouteAccess.PUBLIC,
+                        "/api/login",
+                        "/api/users/register",
+                        "/api/products",
+                        "/api/products/all",
+                        "/api/products/search",
+                        "/api/cabinets/all")
+                .route(RouteAccess.OPTIONAL_AUTH,
+                        "/api/logout")
+                .route(RouteAccess.AUTHENTICATED,
+                        "/api/reset-password",
+                        "/api/veterinaires/me",
+                        "/api/veterinaires/all",
+                        "/api/cart/**",
+                        "/api/orders/**")
+                .route(RouteAccess.ADMIN,
+                        "/api/users/**",
+                        "/api/orders/board/**",
+                        "/api/products/images/**",
+                        "/actuator/**")
+                .build();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void reportEffectivePolicies(ApplicationReadyEvent event) {
+        RoutePolicyRegistry registry = event.getApplicationContext().getBean(RoutePolicyRegistry.class);
+        RequestMappingHandlerMapping handlerMapping = event.getApplicationContext()
+                .getBean("requestMappingHandlerMapping", RequestMappingHandlerMapping.class);
+
+        Map<String, String> report = new TreeMap<>();
+        for (Map.Entry<RequestMappingInfo, HandlerMethod> entry : handlerMapping.getHandlerMethods().entrySet()) {
+            HandlerMethod handler = entry.getValue();
+            String methods = entry.getKey().getMethodsCondition().getMethods().isEmpty()
+                    ? "ANY" : entry.getKey().getMethodsCondition().getMethods().toString();
+            for (String pattern : entry.getKey().getPatternValues()) {
+                report.put(pattern + " " + methods, registry.resolve(pattern) + " ("
+                        + handler.getBeanType().getSimpleName() + "#" + handler.getMethod().getName() + ")");
+            }
+        }
+        logger.info("Effective route policies (default {}):", registry.getDefaultAccess());
+        report.forEach((route, policy) -> logger.info("  {} -> {}", route, policy));
+    }
+}
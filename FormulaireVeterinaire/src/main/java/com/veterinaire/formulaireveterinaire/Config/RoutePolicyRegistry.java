@@ -0,0 +1,143 @@
+package com.veterinaire.formulaireveterinaire.Config;
+
+import com.veterinaire.formulaireveterinaire.Enums.RouteAccess;
+import org.springframework.security.authorization.AuthenticatedAuthorizationManager;
+import org.springframework.security.authorization.AuthorityAuthorizationManager;
+import org.springframework.security.authorization.AuthorizationDecision;
+import org.springframework.security.authorization.AuthorizationManager;
+import org.springframework.security.authorization.AuthorizationResult;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.web.access.intercept.RequestAuthorizationContext;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Access policy per route, compiled into a trie of path segments so a lookup costs O(path length).
+ * Patterns are either exact ("/api/login") or a subtree ("/api/cart/**", which includes "/api/cart").
+ * The longest matching pattern wins; unmatched paths get the default access.
+ */
+public final class RoutePolicyRegistry {
+
+    private static final class Node {
+        private final Map<String, Node> children = new HashMap<>();
+        private RouteAccess exact;
+        private RouteAccess subtree;
+    }
+
+    private final Node root = new Node();
+    private final RouteAccess defaultAccess;
+    private final Map<String, RouteAccess> declaredRoutes;
+
+    private RoutePolicyRegistry(RouteAccess defaultAccess, Map<String, RouteAccess> declaredRoutes) {
+        this.defaultAccess = defaultAccess;
+        this.declaredRoutes = Collections.unmodifiableMap(declaredRoutes);
+        declaredRoutes.forEach(this::insert);
+    }
+
+    public static Builder builder(RouteAccess defaultAccess) {
+        return new Builder(defaultAccess);
+    }
+
+    public RouteAccess resolve(String path) {
+        Node node = root;
+        RouteAccess best = root.subtree != null ? root.subtree : defaultAccess;
+        int length = path.length();
+        int start = 0;
+        while (start < length) {
+            if (path.charAt(start) == '/') {
+                start++;
+                continue;
+            }
+            int end = path.indexOf('/', start);
+            if (end < 0) {
+                end = length;
+            }
+            node = node.children.get(path.substring(start, end));
+            if (node == null) {
+                return best;
+            }
+            if (node.subtree != null) {
+                best = node.subtree;
+            }
+            start = end;
+        }
+        return node.exact != null ? node.exact : best;
+    }
+
+    public RouteAccess getDefaultAccess() {
+        return defaultAccess;
+    }
+
+    public Map<String, RouteAccess> getDeclaredRoutes() {
+        return declaredRoutes;
+    }
+
+    /**
+     * Spring Security side of the same table, used as the single authorization rule of the filter chain.
+     */
+    public AuthorizationManager<RequestAuthorizationContext> authorizationManager() {
+        AuthorizationManager<RequestAuthorizationContext> authenticated = AuthenticatedAuthorizationManager.authenticated();
+        AuthorizationManager<RequestAuthorizationContext> admin = AuthorityAuthorizationManager.hasRole("ADMIN");
+        AuthorizationDecision granted = new AuthorizationDecision(true);
+        return new AuthorizationManager<>() {
+            @Override
+            public AuthorizationResult authorize(Supplier<Authentication> authentication, RequestAuthorizationContext context) {
+                return switch (resolve(context.getRequest().getRequestURI())) {
+                    case PUBLIC, OPTIONAL_AUTH -> granted;
+                    case AUTHENTICATED, SUBSCRIPTION_GATED -> authenticated.authorize(authentication, context);
+                    case ADMIN -> admin.authorize(authentication, context);
+                };
+            }
+
+            // Still abstract in Spring Security 6; AuthorizationFilter only calls authorize()
+            @Deprecated
+            @Override
+            public AuthorizationDecision check(Supplier<Authentication> authentication, RequestAuthorizationContext context) {
+                AuthorizationResult result = authorize(authentication, context);
+                return result instanceof AuthorizationDecision decision ? decision : new AuthorizationDecision(result.isGranted());
+            }
+        };
+    }
+
+    private void insert(String pattern, RouteAccess access) {
+        boolean subtree = pattern.endsWith("/**");
+        String path = subtree ? pattern.substring(0, pattern.length() - 3) : pattern;
+        Node node = root;
+        for (String segment : path.split("/")) {
+            if (!segment.isEmpty()) {
+                node = node.children.computeIfAbsent(segment, s -> new Node());
+            }
+        }
+        if (subtree) {
+            node.subtree = access;
+        } else {
+            node.exact = access;
+        }
+    }
+
+    public static final class Builder {
+        private final RouteAccess defaultAccess;
+        private final Map<String, RouteAccess> routes = new LinkedHashMap<>();
+
+        private Builder(RouteAccess defaultAccess) {
+            this.defaultAccess = defaultAccess;
+        }
+
+        public Builder route(RouteAccess access, String... patterns) {
+            for (String pattern : patterns) {
+                if (routes.putIfAbsent(pattern, access) != null) {
+                    throw new IllegalArgumentException("Route declared twice: " + pattern);
+                }
+            }
+            return this;
+        }
+
+        public RoutePolicyRegistry build() {
+            return new RoutePolicyRegistry(defaultAccess, new LinkedHashMap<>(routes));
+        }
+    }
+}
@@ -1,9 +1,8 @@
 package com.veterinaire.formulaireveterinaire.Config;
 
-import com.veterinaire.formulaireveterinaire.DAO.SubscriptionRepository;
-import com.veterinaire.formulaireveterinaire.DAO.UserRepository;
-import com.veterinaire.formulaireveterinaire.serviceimpl.CustomUserDetailsService;
 import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.authentication.AuthenticationManager;
@@ -24,17 +23,12 @@ import java.util.List;
 @EnableWebSecurity
 public class SecurityConfig {
 
-    private final JwtUtil jwtUtil;
-    private final CustomUserDetailsService userDetailsService;
-    private final SubscriptionRepository subscriptionRepository;
-    private final UserRepository userRepository;
+    private final JwtAuthenticationFilter jwtAuthenticationFilter;
+    private final RoutePolicyRegistry routePolicyRegistry;
 
-    public SecurityConfig(JwtUtil jwtUtil, CustomUserDetailsService userDetailsService,
-                          SubscriptionRepository subscriptionRepository, UserRepository userRepository) {
-        this.jwtUtil = jwtUtil;
-        this.userDetailsService = userDetailsService;
-        this.subscriptionRepository = subscriptionRepository;
-        this.userRepository = userRepository;
+    public SecurityConfig(JwtAuthenticationFilter jwtAuthenticationFilter, RoutePolicyRegistry routePolicyRegistry) {
+        this.jwtAuthenticationFilter = jwtAuthenticationFilter;
+        this.routePolicyRegistry = routePolicyRegistry;
     }
 
     @Bean
@@ -43,20 +37,9 @@ public class SecurityConfig {
                 .csrf(csrf -> csrf.disable())
                 .cors(cors -> cors.configurationSource(corsConfigurationSource()))
                 .sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
+                // Every rule lives in RoutePolicyConfig, shared with JwtAuthenticationFilter
                 .authorizeHttpRequests(auth -> auth
-                        .requestMatchers("/api/login", "/api/logout" ,"/api/users/register").permitAll()
-                        .requestMatchers("/api/reset-password").authenticated()
-                        .requestMatchers("/api/users/**").hasRole("ADMIN")
-                        .requestMatchers("/api/products/all").permitAll()
-                        .requestMatchers("/api/cabinets/all").permitAll()
-
-                     //  .requestMatchers("/api/veterinaires/update").permitAll()
-                        //.requestMatchers("/api/veterinaires/**").permitAll()
-
-
-
-
-                        .anyRequest().authenticated()
+                        .anyRequest().access(routePolicyRegistry.authorizationManager())
                 )
                 .exceptionHandling(ex -> ex
                         .authenticationEntryPoint((request, response, authException) -> {
@@ -72,13 +55,21 @@ public class SecurityConfig {
                 );
 
         http.addFilterBefore(
-                new JwtAuthenticationFilter(jwtUtil, userDetailsService, subscriptionRepository, userRepository),
+                jwtAuthenticationFilter,
                 UsernamePasswordAuthenticationFilter.class
         );
 
         return http.build();
     }
 
+    // The filter only runs inside the security chain, not a second time as a plain servlet filter
+    @Bean
+    public FilterRegistrationBean<JwtAuthenticationFilter> jwtAuthenticationFilterRegistration() {
+        FilterRegistrationBean<JwtAuthenticationFilter> registration = new FilterRegistrationBean<>(jwtAuthenticationFilter);
+        registration.setEnabled(false);
+        return registration;
+    }
+
     @Bean
     public CorsConfigurationSource corsConfigurationSource() {
         CorsConfiguration configuration = new CorsConfiguration();
@@ -94,8 +85,8 @@ public class SecurityConfig {
     }
 
     @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    public PasswordEncoder passwordEncoder(@Value("${login.bcrypt.strength:10}") int strength) {
+        return new BCryptPasswordEncoder(strength);
     }
 
     @Bean
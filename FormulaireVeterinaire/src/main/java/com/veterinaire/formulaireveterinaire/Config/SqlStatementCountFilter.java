@@ -0,0 +1,43 @@
+package com.veterinaire.formulaireveterinaire.Config;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+/**
+ * Wraps the whole request, security chain included, and logs how many SQL statements it executed.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+@RequiredArgsConstructor
+public class SqlStatementCountFilter extends OncePerRequestFilter {
+
+    private static final Logger logger = LoggerFactory.getLogger(SqlStatementCountFilter.class);
+
+    public static final String STATEMENT_COUNT_ATTRIBUTE = "sqlStatementCount";
+
+    private final SqlStatementCounter statementCounter;
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        statementCounter.reset();
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            int count = statementCounter.current();
+            request.setAttribute(STATEMENT_COUNT_ATTRIBUTE, count);
+            logger.debug("{} {} executed {} SQL statements", request.getMethod(), request.getRequestURI(), count);
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package com.veterinaire.formulaireveterinaire.Config;
+
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+/**
+ * Counts the SQL statements Hibernate prepares on the current thread.
+ * SqlStatementCountFilter resets it at the start of every request.
+ */
+@Component
+public class SqlStatementCounter implements StatementInspector, HibernatePropertiesCustomizer {
+
+    // StatementInspector is Serializable; the count itself lives in the ThreadLocal
+    private static final long serialVersionUID = 1L;
+
+    private static final ThreadLocal<int[]> COUNT = ThreadLocal.withInitial(() -> new int[1]);
+
+    @Override
+    public String inspect(String sql) {
+        COUNT.get()[0]++;
+        return sql;
+    }
+
+    @Override
+    public void customize(Map<String, Object> hibernateProperties) {
+        hibernateProperties.put(AvailableSettings.STATEMENT_INSPECTOR, this);
+    }
+
+    public void reset() {
+        COUNT.get()[0] = 0;
+    }
+
+    public int current() {
+        return COUNT.get()[0];
+    }
+}
@@ -3,9 +3,37 @@ package com.veterinaire.formulaireveterinaire.DAO.Cart;
 import com.veterinaire.formulaireveterinaire.Enums.OrderStatus;
 import com.veterinaire.formulaireveterinaire.entity.CartOrder;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.math.BigDecimal;
 import java.util.Optional;
 
 public interface CartOrderRepository extends JpaRepository<CartOrder, Long> {
     Optional<CartOrder> findByUserIdAndStatus(Long userId, OrderStatus status);
+
+    // Atomic total maintenance: concurrent deltas add up instead of overwriting each other
+    @Modifying
+    @Query("UPDATE CartOrder o SET o.totalAmount = o.totalAmount + :delta, o.version = o.version + 1, " +
+            "o.updatedAt = CURRENT_TIMESTAMP " +
+            "WHERE o.id = :id AND o.status = com.veterinaire.formulaireveterinaire.Enums.OrderStatus.CART")
+    int addToTotal(@Param("id") Long id, @Param("delta") BigDecimal delta);
+
+    // Same as addToTotal, but only if nothing touched the cart since the caller read it at this version
+    @Modifying
+    @Query("UPDATE CartOrder o SET o.totalAmount = o.totalAmount + :delta, o.version = o.version + 1, " +
+            "o.updatedAt = CURRENT_TIMESTAMP " +
+            "WHERE o.id = :id AND o.version = :version " +
+            "AND o.status = com.veterinaire.formulaireveterinaire.Enums.OrderStatus.CART")
+    int addToTotalIfUnchanged(@Param("id") Long id, @Param("version") Long version, @Param("delta") BigDecimal delta);
+
+    // Relies on the partial unique index ux_orders_user_cart (schema.sql): at most one CART per user
+    @Modifying
+    @Transactional
+    @Query(value = "INSERT INTO orders (user_id, status, total_amount, version, updated_at) " +
+            "VALUES (:userId, 'CART', 0, 0, now()) " +
+            "ON CONFLICT (user_id) WHERE status = 'CART' DO NOTHING", nativeQuery = true)
+    int insertCartIfAbsent(@Param("userId") Long userId);
 }
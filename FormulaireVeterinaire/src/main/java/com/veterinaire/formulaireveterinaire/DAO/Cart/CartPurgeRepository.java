@@ -0,0 +1,50 @@
+package com.veterinaire.formulaireveterinaire.DAO.Cart;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Set-based deletes for the abandoned-cart purge. Every call is a single statement, so each chunk
+ * runs in its own short transaction and never holds locks across the whole purge.
+ */
+@Repository
+@RequiredArgsConstructor
+public class CartPurgeRepository {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public record DeletedRows(int carts, int items) {
+    }
+
+    /** Next chunk of carts untouched since {@code idleBefore}, in id order after {@code afterId}. */
+    public List<Long> findIdleCarts(LocalDateTime idleBefore, long afterId, int limit) {
+        return jdbcTemplate.queryForList(
+                "SELECT id FROM orders WHERE status = 'CART' AND updated_at < ? AND id > ? ORDER BY id LIMIT ?",
+                Long.class, Timestamp.valueOf(idleBefore), afterId, limit);
+    }
+
+    /**
+     * Deletes the carts and their lines in one statement. The idle check is repeated so a cart
+     * used again since {@link #findIdleCarts} was read is kept.
+     */
+    public DeletedRows deleteCarts(List<Long> cartIds, LocalDateTime idleBefore) {
+        return jdbcTemplate.query(
+                "WITH carts AS (" +
+                        "DELETE FROM orders WHERE id = ANY(?) AND status = 'CART' AND updated_at < ? RETURNING id), " +
+                        "items AS (DELETE FROM order_items WHERE order_id IN (SELECT id FROM carts) RETURNING 1) " +
+                        "SELECT (SELECT count(*) FROM carts), (SELECT count(*) FROM items)",
+                ps -> {
+                    ps.setArray(1, ps.getConnection().createArrayOf("bigint", cartIds.toArray()));
+                    ps.setTimestamp(2, Timestamp.valueOf(idleBefore));
+                },
+                rs -> {
+                    rs.next();
+                    return new DeletedRows(rs.getInt(1), rs.getInt(2));
+                });
+    }
+}
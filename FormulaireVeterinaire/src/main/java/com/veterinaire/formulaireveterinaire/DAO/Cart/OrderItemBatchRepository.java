@@ -0,0 +1,62 @@
+package com.veterinaire.formulaireveterinaire.DAO.Cart;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.sql.Statement;
+import java.util.List;
+
+/**
+ * JDBC-batched writes on order_items, one round-trip per statement kind.
+ * Each method returns false when at least one row was not affected, i.e. a concurrent change.
+ */
+@Repository
+@RequiredArgsConstructor
+public class OrderItemBatchRepository {
+
+    public record NewLine(Long productId, int quantity, BigDecimal price) {}
+
+    public record QuantityChange(Long itemId, int expectedQuantity, int quantity) {}
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public boolean insertLines(Long orderId, List<NewLine> lines) {
+        if (lines.isEmpty()) {
+            return true;
+        }
+        return allApplied(jdbcTemplate.batchUpdate(
+                "INSERT INTO order_items (order_id, product_id, quantity, price) VALUES (?, ?, ?, ?) " +
+                        "ON CONFLICT (order_id, product_id) DO NOTHING",
+                lines.stream().map(l -> new Object[]{orderId, l.productId(), l.quantity(), l.price()}).toList()));
+    }
+
+    public boolean updateQuantities(List<QuantityChange> changes) {
+        if (changes.isEmpty()) {
+            return true;
+        }
+        return allApplied(jdbcTemplate.batchUpdate(
+                "UPDATE order_items SET quantity = ? WHERE id = ? AND quantity = ?",
+                changes.stream().map(c -> new Object[]{c.quantity(), c.itemId(), c.expectedQuantity()}).toList()));
+    }
+
+    public boolean deleteLines(List<Long> itemIds) {
+        if (itemIds.isEmpty()) {
+            return true;
+        }
+        return allApplied(jdbcTemplate.batchUpdate(
+                "DELETE FROM order_items WHERE id = ?",
+                itemIds.stream().map(id -> new Object[]{id}).toList()));
+    }
+
+    // The driver may report SUCCESS_NO_INFO for rewritten batches; only an explicit 0 is a miss
+    private static boolean allApplied(int[] counts) {
+        for (int count : counts) {
+            if (count == 0 || count == Statement.EXECUTE_FAILED) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
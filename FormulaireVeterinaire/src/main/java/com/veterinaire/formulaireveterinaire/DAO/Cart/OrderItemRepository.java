@@ -1,11 +1,58 @@
 package com.veterinaire.formulaireveterinaire.DAO.Cart;
 
+import com.veterinaire.formulaireveterinaire.DTO.Cart.CartLineDTO;
+import com.veterinaire.formulaireveterinaire.DTO.Order.OrderLineDTO;
 import com.veterinaire.formulaireveterinaire.entity.OrderItem;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.math.BigDecimal;
+import java.util.Collection;
 import java.util.List;
 
 public interface OrderItemRepository extends JpaRepository<OrderItem, Long> {
+
+    /** Row returned by {@link #upsertLine}: the merged line and the unit price it keeps. */
+    interface UpsertedLine {
+        Long getId();
+        Integer getQuantity();
+        BigDecimal getPrice();
+    }
+
     List<OrderItem> findByOrderId(Long orderId);
     void deleteByOrderId(Long orderId);
+
+    // Lines and their products in one statement, whatever the cart size
+    @Query("SELECT new com.veterinaire.formulaireveterinaire.DTO.Cart.CartLineDTO(" +
+            "i.id, i.productId, p.name, p.imageUrl, i.quantity, i.price) " +
+            "FROM OrderItem i LEFT JOIN Product p ON p.id = i.productId " +
+            "WHERE i.orderId = :orderId ORDER BY i.id")
+    List<CartLineDTO> findCartLines(@Param("orderId") Long orderId);
+
+    // Lines of a whole page of orders in one statement
+    @Query("SELECT new com.veterinaire.formulaireveterinaire.DTO.Order.OrderLineDTO(" +
+            "i.orderId, i.id, i.productId, p.name, p.imageUrl, i.quantity, i.price) " +
+            "FROM OrderItem i LEFT JOIN Product p ON p.id = i.productId " +
+            "WHERE i.orderId IN :orderIds ORDER BY i.orderId, i.id")
+    List<OrderLineDTO> findOrderLines(@Param("orderIds") Collection<Long> orderIds);
+
+    // Compare-and-set on the quantity the caller read, so the total delta stays exact
+    @Modifying
+    @Query("UPDATE OrderItem i SET i.quantity = :quantity WHERE i.id = :id AND i.quantity = :expected")
+    int updateQuantity(@Param("id") Long id, @Param("expected") Integer expected, @Param("quantity") Integer quantity);
+
+    @Modifying
+    @Query("DELETE FROM OrderItem i WHERE i.id = :id")
+    int deleteLine(@Param("id") Long id);
+
+    // Insert-or-increment on the (order_id, product_id) unique index from schema.sql.
+    // An existing line keeps its original unit price; only its quantity grows.
+    @Query(value = "INSERT INTO order_items (order_id, product_id, quantity, price) " +
+            "VALUES (:orderId, :productId, :quantity, :price) " +
+            "ON CONFLICT (order_id, product_id) DO UPDATE SET quantity = order_items.quantity + EXCLUDED.quantity " +
+            "RETURNING id, quantity, price", nativeQuery = true)
+    UpsertedLine upsertLine(@Param("orderId") Long orderId, @Param("productId") Long productId,
+                            @Param("quantity") Integer quantity, @Param("price") BigDecimal price);
 }
@@ -0,0 +1,24 @@
+package com.veterinaire.formulaireveterinaire.DAO.Cart;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+/**
+ * The shared "hi" half of order numbers (order_number_seq, created in schema.sql). Every call reserves
+ * a whole block of numbers for the calling node, see OrderNumberGenerator.
+ */
+@Repository
+@RequiredArgsConstructor
+public class OrderNumberSequence {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public long nextHi() {
+        Long hi = jdbcTemplate.queryForObject("SELECT nextval('order_number_seq')", Long.class);
+        if (hi == null) {
+            throw new IllegalStateException("order_number_seq returned no value");
+        }
+        return hi;
+    }
+}
@@ -0,0 +1,66 @@
+package com.veterinaire.formulaireveterinaire.DAO.Cart;
+
+import com.veterinaire.formulaireveterinaire.DTO.Order.OrderDTO;
+import com.veterinaire.formulaireveterinaire.DTO.Order.OrderSearchCriteria;
+import com.veterinaire.formulaireveterinaire.Enums.OrderStatus;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Keyset-paginated reads of confirmed orders, newest first. Only the filters actually given end up
+ * in the SQL so the planner can pick ix_orders_user_status_confirmed or ix_orders_confirmed (schema.sql).
+ */
+@Repository
+@RequiredArgsConstructor
+public class OrderQueryRepository {
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    public List<OrderDTO> findPage(OrderSearchCriteria criteria) {
+        StringBuilder sql = new StringBuilder(
+                "SELECT o.id, o.order_number, o.status, o.user_id, o.total_amount, o.confirmed_at, u.email, u.nom " +
+                "FROM orders o LEFT JOIN users u ON u.id = o.user_id " +
+                "WHERE o.confirmed_at IS NOT NULL AND o.status IN (:statuses)");
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("statuses", criteria.statuses().stream().map(OrderStatus::name).toList())
+                .addValue("limit", criteria.limit());
+
+        if (criteria.userId() != null) {
+            sql.append(" AND o.user_id = :userId");
+            params.addValue("userId", criteria.userId());
+        }
+        if (criteria.from() != null) {
+            sql.append(" AND o.confirmed_at >= :from");
+            params.addValue("from", criteria.from());
+        }
+        if (criteria.to() != null) {
+            sql.append(" AND o.confirmed_at < :to");
+            params.addValue("to", criteria.to());
+        }
+        if (criteria.after() != null) {
+            // Row comparison matches the index order exactly, no OR expansion
+            sql.append(" AND (o.confirmed_at, o.id) < (:afterConfirmedAt, :afterId)");
+            params.addValue("afterConfirmedAt", criteria.after().confirmedAt());
+            params.addValue("afterId", criteria.after().id());
+        }
+        sql.append(" ORDER BY o.confirmed_at DESC, o.id DESC LIMIT :limit");
+
+        return jdbcTemplate.query(sql.toString(), params, (rs, rowNum) -> {
+            OrderDTO order = new OrderDTO();
+            order.setId(rs.getLong("id"));
+            order.setOrderNumber(rs.getString("order_number"));
+            order.setStatus(OrderStatus.valueOf(rs.getString("status")));
+            order.setUserId(rs.getLong("user_id"));
+            order.setTotalAmount(rs.getBigDecimal("total_amount"));
+            order.setConfirmedAt(rs.getObject("confirmed_at", LocalDateTime.class));
+            order.setUserEmail(rs.getString("email"));
+            order.setUserNom(rs.getString("nom"));
+            return order;
+        });
+    }
+}
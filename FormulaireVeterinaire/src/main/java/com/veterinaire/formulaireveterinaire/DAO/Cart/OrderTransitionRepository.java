@@ -0,0 +1,61 @@
+package com.veterinaire.formulaireveterinaire.DAO.Cart;
+
+import com.veterinaire.formulaireveterinaire.Enums.OrderStatus;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Set-based order status changes: one UPDATE for the whole batch instead of a load and save per order,
+ * plus the append-only order_status_history written as a JDBC batch.
+ */
+@Repository
+@RequiredArgsConstructor
+public class OrderTransitionRepository {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Moves the orders still in {@code from} to {@code to}.
+     * @return The ids actually updated; the others were missing or not in {@code from}.
+     */
+    public List<Long> advance(List<Long> orderIds, OrderStatus from, OrderStatus to) {
+        return jdbcTemplate.query(
+                "UPDATE orders SET status = ?, version = version + 1 WHERE id = ANY(?) AND status = ? RETURNING id",
+                ps -> {
+                    ps.setString(1, to.name());
+                    ps.setArray(2, ps.getConnection().createArrayOf("bigint", orderIds.toArray()));
+                    ps.setString(3, from.name());
+                },
+                (rs, rowNum) -> rs.getLong(1));
+    }
+
+    /** Current status of the given orders; missing orders are absent from the map. */
+    public Map<Long, OrderStatus> findStatuses(List<Long> orderIds) {
+        Map<Long, OrderStatus> statuses = new HashMap<>();
+        jdbcTemplate.query("SELECT id, status FROM orders WHERE id = ANY(?)",
+                ps -> ps.setArray(1, ps.getConnection().createArrayOf("bigint", orderIds.toArray())),
+                rs -> {
+                    statuses.put(rs.getLong("id"), OrderStatus.valueOf(rs.getString("status")));
+                });
+        return statuses;
+    }
+
+    public void appendHistory(List<Long> orderIds, OrderStatus from, OrderStatus to,
+                              LocalDateTime changedAt, Long changedBy) {
+        if (orderIds.isEmpty()) {
+            return;
+        }
+        Timestamp at = Timestamp.valueOf(changedAt);
+        jdbcTemplate.batchUpdate(
+                "INSERT INTO order_status_history (order_id, from_status, to_status, changed_at, changed_by) " +
+                        "VALUES (?, ?, ?, ?, ?)",
+                orderIds.stream().map(id -> new Object[]{id, from.name(), to.name(), at, changedBy}).toList());
+    }
+}
@@ -0,0 +1,25 @@
+package com.veterinaire.formulaireveterinaire.DAO;
+
+import com.veterinaire.formulaireveterinaire.DTO.FinanceDigestRow;
+import com.veterinaire.formulaireveterinaire.entity.FinanceEvent;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface FinanceEventRepository extends JpaRepository<FinanceEvent, Long> {
+
+    // Everything the next digest reports, with the vet's name, in one query
+    @Query("SELECT new com.veterinaire.formulaireveterinaire.DTO.FinanceDigestRow(" +
+            "e.id, e.type, e.createdAt, e.reference, e.amount, e.endDate, u.nom, u.prenom, u.email) " +
+            "FROM FinanceEvent e LEFT JOIN User u ON u.id = e.userId " +
+            "WHERE e.digestedAt IS NULL ORDER BY e.type, e.createdAt, e.id")
+    List<FinanceDigestRow> findUndigested();
+
+    @Modifying
+    @Query("UPDATE FinanceEvent e SET e.digestedAt = :digestedAt WHERE e.id IN :ids AND e.digestedAt IS NULL")
+    int markDigested(@Param("ids") List<Long> ids, @Param("digestedAt") LocalDateTime digestedAt);
+}
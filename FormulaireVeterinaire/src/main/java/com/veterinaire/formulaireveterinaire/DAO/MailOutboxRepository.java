@@ -0,0 +1,49 @@
+package com.veterinaire.formulaireveterinaire.DAO;
+
+import com.veterinaire.formulaireveterinaire.entity.MailOutboxMessage;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface MailOutboxRepository extends JpaRepository<MailOutboxMessage, Long> {
+
+    // Due messages, including SENDING ones whose lease expired; SKIP LOCKED lets several dispatchers run
+    @Query(value = "SELECT id FROM mail_outbox " +
+            "WHERE status IN ('PENDING', 'SENDING') AND next_attempt_at <= :now " +
+            "ORDER BY next_attempt_at LIMIT :limit FOR UPDATE SKIP LOCKED", nativeQuery = true)
+    List<Long> lockDueIds(@Param("now") LocalDateTime now, @Param("limit") int limit);
+
+    @Modifying
+    @Query("UPDATE MailOutboxMessage m SET m.status = com.veterinaire.formulaireveterinaire.Enums.MailStatus.SENDING, " +
+            "m.nextAttemptAt = :leaseUntil WHERE m.id IN :ids")
+    int markSending(@Param("ids") List<Long> ids, @Param("leaseUntil") LocalDateTime leaseUntil);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE MailOutboxMessage m SET m.status = com.veterinaire.formulaireveterinaire.Enums.MailStatus.SENT, " +
+            "m.attempts = m.attempts + 1, m.sentAt = :sentAt, m.htmlBody = NULL, m.lastError = NULL WHERE m.id = :id")
+    int markSent(@Param("id") Long id, @Param("sentAt") LocalDateTime sentAt);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE MailOutboxMessage m SET m.status = com.veterinaire.formulaireveterinaire.Enums.MailStatus.PENDING, " +
+            "m.attempts = m.attempts + 1, m.nextAttemptAt = :nextAttemptAt, m.lastError = :error WHERE m.id = :id")
+    int markRetry(@Param("id") Long id, @Param("nextAttemptAt") LocalDateTime nextAttemptAt, @Param("error") String error);
+
+    // Dropped like a sent body: a dead welcome mail would otherwise keep its temporary password at rest
+    @Modifying
+    @Transactional
+    @Query("UPDATE MailOutboxMessage m SET m.status = com.veterinaire.formulaireveterinaire.Enums.MailStatus.DEAD, " +
+            "m.attempts = m.attempts + 1, m.htmlBody = NULL, m.lastError = :error WHERE m.id = :id")
+    int markDead(@Param("id") Long id, @Param("error") String error);
+
+    @Query("SELECT MIN(m.createdAt) FROM MailOutboxMessage m WHERE m.status IN " +
+            "(com.veterinaire.formulaireveterinaire.Enums.MailStatus.PENDING, " +
+            "com.veterinaire.formulaireveterinaire.Enums.MailStatus.SENDING)")
+    LocalDateTime findOldestUnsentCreatedAt();
+}
@@ -0,0 +1,47 @@
+package com.veterinaire.formulaireveterinaire.DAO;
+
+import com.veterinaire.formulaireveterinaire.entity.ProductPageValidator;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Page validators for the bulk re-scrape: read in one query at the start of a run and written back
+ * as a single JDBC batch of upserts at the end.
+ */
+@Repository
+@RequiredArgsConstructor
+public class ProductPageValidatorRepository {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public Map<Long, ProductPageValidator> findAllByProductId() {
+        Map<Long, ProductPageValidator> validators = new HashMap<>();
+        jdbcTemplate.query("SELECT product_id, details_url, etag, last_modified, fetched_at FROM product_page_validators",
+                rs -> {
+                    Timestamp fetchedAt = rs.getTimestamp("fetched_at");
+                    validators.put(rs.getLong("product_id"), new ProductPageValidator(rs.getLong("product_id"),
+                            rs.getString("details_url"), rs.getString("etag"), rs.getString("last_modified"),
+                            fetchedAt != null ? fetchedAt.toLocalDateTime() : null));
+                });
+        return validators;
+    }
+
+    public void saveAll(Collection<ProductPageValidator> validators) {
+        if (validators.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.batchUpdate(
+                "INSERT INTO product_page_validators (product_id, details_url, etag, last_modified, fetched_at) " +
+                        "VALUES (?, ?, ?, ?, ?) " +
+                        "ON CONFLICT (product_id) DO UPDATE SET details_url = EXCLUDED.details_url, " +
+                        "etag = EXCLUDED.etag, last_modified = EXCLUDED.last_modified, fetched_at = EXCLUDED.fetched_at",
+                validators.stream().map(v -> new Object[]{v.getProductId(), v.getDetailsUrl(), v.getEtag(),
+                        v.getLastModified(), Timestamp.valueOf(v.getFetchedAt())}).toList());
+    }
+}
@@ -0,0 +1,127 @@
+package com.veterinaire.formulaireveterinaire.DAO;
+
+import com.veterinaire.formulaireveterinaire.DTO.Product.ProductSearchCriteria;
+import com.veterinaire.formulaireveterinaire.Enums.Category;
+import com.veterinaire.formulaireveterinaire.Enums.ImageStatus;
+import com.veterinaire.formulaireveterinaire.Enums.ProductSort;
+import com.veterinaire.formulaireveterinaire.Enums.SubCategory;
+import com.veterinaire.formulaireveterinaire.entity.Product;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Keyset-paginated product listing. Only the filters actually given end up in the SQL, and each sort
+ * has a matching index in schema.sql (ix_products_category_sub_price, ix_products_price, ix_products_name);
+ * name prefixes use ix_products_name_prefix.
+ */
+@Repository
+@RequiredArgsConstructor
+public class ProductQueryRepository {
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    /**
+     * A listing row with the name key it was sorted on, as PostgreSQL computed it: lower() and Java's
+     * toLowerCase do not agree on every letter, and a cursor must compare exactly like the ORDER BY.
+     * @param sortKey lower(name) for the NAME sort, null for the others (their key is the price or id itself).
+     */
+    public record Row(Product product, String sortKey) {
+    }
+
+    public List<Row> findPage(ProductSearchCriteria criteria) {
+        String sortKey = criteria.sort() == ProductSort.NAME ? "lower(p.name)" : "NULL";
+        StringBuilder sql = new StringBuilder(
+                "SELECT p.id, p.name, p.description, p.price, p.image_url, p.category, p.sub_category, " +
+                "p.in_stock, p.details_url, p.image_status, " + sortKey + " AS sort_key FROM products p WHERE TRUE");
+        MapSqlParameterSource params = new MapSqlParameterSource().addValue("limit", criteria.limit());
+
+        if (criteria.category() != null) {
+            sql.append(" AND p.category = :category");
+            params.addValue("category", criteria.category().name());
+        }
+        if (criteria.subCategory() != null) {
+            sql.append(" AND p.sub_category = :subCategory");
+            params.addValue("subCategory", criteria.subCategory().name());
+        }
+        if (criteria.inStock() != null) {
+            sql.append(" AND p.in_stock = :inStock");
+            params.addValue("inStock", criteria.inStock());
+        }
+        if (criteria.minPrice() != null) {
+            sql.append(" AND p.price >= :minPrice");
+            params.addValue("minPrice", criteria.minPrice());
+        }
+        if (criteria.maxPrice() != null) {
+            sql.append(" AND p.price <= :maxPrice");
+            params.addValue("maxPrice", criteria.maxPrice());
+        }
+        if (criteria.namePrefix() != null) {
+            sql.append(" AND lower(p.name) LIKE :namePrefix ESCAPE '\\'");
+            params.addValue("namePrefix", likePrefix(criteria.namePrefix()));
+        }
+
+        String order = switch (criteria.sort()) {
+            case NAME -> {
+                keyset(sql, params, criteria, "(lower(p.name), p.id) > (:afterKey, :afterId)", null);
+                yield "lower(p.name), p.id";
+            }
+            case PRICE_ASC -> {
+                keyset(sql, params, criteria, "(p.price, p.id) > (:afterKey, :afterId)", BigDecimal.class);
+                yield "p.price, p.id";
+            }
+            case PRICE_DESC -> {
+                keyset(sql, params, criteria, "(p.price, p.id) < (:afterKey, :afterId)", BigDecimal.class);
+                yield "p.price DESC, p.id DESC";
+            }
+            case NEWEST -> {
+                keyset(sql, params, criteria, "p.id < :afterId", null);
+                yield "p.id DESC";
+            }
+        };
+        sql.append(" ORDER BY ").append(order).append(" LIMIT :limit");
+
+        return jdbcTemplate.query(sql.toString(), params, (rs, rowNum) -> {
+            Product product = new Product();
+            product.setId(rs.getLong("id"));
+            product.setName(rs.getString("name"));
+            product.setDescription(rs.getString("description"));
+            product.setPrice(rs.getBigDecimal("price"));
+            product.setImageUrl(rs.getString("image_url"));
+            product.setCategory(Category.valueOf(rs.getString("category")));
+            product.setSubCategory(SubCategory.valueOf(rs.getString("sub_category")));
+            product.setInStock(rs.getBoolean("in_stock"));
+            product.setDetailsUrl(rs.getString("details_url"));
+            // NULL only on rows from before enrichment, which schema.sql marks READY
+            String imageStatus = rs.getString("image_status");
+            product.setImageStatus(imageStatus != null ? ImageStatus.valueOf(imageStatus) : ImageStatus.READY);
+            return new Row(product, rs.getString("sort_key"));
+        });
+    }
+
+    // Row comparison matches the index order exactly, no OR expansion
+    private static void keyset(StringBuilder sql, MapSqlParameterSource params, ProductSearchCriteria criteria,
+                               String condition, Class<?> keyType) {
+        if (criteria.after() == null) {
+            return;
+        }
+        sql.append(" AND ").append(condition);
+        params.addValue("afterId", criteria.after().id());
+        params.addValue("afterKey", keyType == BigDecimal.class
+                ? new BigDecimal(criteria.after().key())
+                : criteria.after().key());
+    }
+
+    private static String likePrefix(String prefix) {
+        String escaped = prefix.toLowerCase(Locale.ROOT)
+                .replace("\\", "\\\\")
+                .replace("%", "\\%")
+                .replace("_", "\\_");
+        return escaped + "%";
+    }
+}
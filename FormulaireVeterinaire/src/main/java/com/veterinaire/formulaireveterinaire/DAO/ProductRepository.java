@@ -1,11 +1,35 @@
 package com.veterinaire.formulaireveterinaire.DAO;
 
+import com.veterinaire.formulaireveterinaire.Enums.Category;
+import com.veterinaire.formulaireveterinaire.Enums.ImageStatus;
+import com.veterinaire.formulaireveterinaire.Enums.SubCategory;
 import com.veterinaire.formulaireveterinaire.entity.Product;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 import java.util.List;
 
 public interface ProductRepository extends JpaRepository<Product, Long> {
-    List<Product> findByCategory(String category);
-    List<Product> findBySubCategory(String subCategory);
+    List<Product> findByCategory(Category category);
+    List<Product> findBySubCategory(SubCategory subCategory);
     List<Product> findByInStock(Boolean inStock);
+    List<Product> findByImageStatus(ImageStatus imageStatus);
+    List<Product> findByDetailsUrlIsNotNull();
+
+    // Only while still PENDING: an image set by hand in the meantime wins over the scraper
+    @Modifying
+    @Transactional
+    @Query("UPDATE Product p SET p.imageUrl = :imageUrl, p.imageStatus = :status " +
+            "WHERE p.id = :id AND p.imageStatus = com.veterinaire.formulaireveterinaire.Enums.ImageStatus.PENDING")
+    int completeImage(@Param("id") Long id, @Param("imageUrl") String imageUrl, @Param("status") ImageStatus status);
+
+    // Compare-and-set on the image the caller read, so a change made meanwhile (by hand, or by enrichment) wins
+    @Modifying
+    @Transactional
+    @Query(value = "UPDATE products SET image_url = :imageUrl, image_status = 'READY' " +
+            "WHERE id = :id AND image_url IS NOT DISTINCT FROM CAST(:expected AS varchar)", nativeQuery = true)
+    int updateImageIfUnchanged(@Param("id") Long id, @Param("expected") String expected,
+                               @Param("imageUrl") String imageUrl);
 }
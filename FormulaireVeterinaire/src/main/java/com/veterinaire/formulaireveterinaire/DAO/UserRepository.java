@@ -1,10 +1,13 @@
 package com.veterinaire.formulaireveterinaire.DAO;
 
+import com.veterinaire.formulaireveterinaire.DTO.AuthPrincipalDTO;
 import com.veterinaire.formulaireveterinaire.Enums.SubscriptionStatus;
 import com.veterinaire.formulaireveterinaire.entity.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
 import java.util.Optional;
@@ -17,4 +20,26 @@ public interface UserRepository extends JpaRepository<User, Long> {
 
     Optional<User> findByNumMatricule(String numMatricule);
 
+    // Single statement for the auth path: avoids loading the User entity and its eager one-to-one associations
+    @Query("SELECT new com.veterinaire.formulaireveterinaire.DTO.AuthPrincipalDTO(" +
+            "u.id, u.email, u.nom, u.password, u.isAdmin, u.status, u.tokenEpoch, s.endDate) " +
+            "FROM User u LEFT JOIN u.subscription s WHERE u.email = :email")
+    Optional<AuthPrincipalDTO> findAuthPrincipalByEmail(@Param("email") String email);
+
+    // Profile view: user and its one-to-one associations in one statement
+    @Query("SELECT u FROM User u LEFT JOIN FETCH u.subscription LEFT JOIN FETCH u.veterinaireProfile WHERE u.id = :id")
+    Optional<User> findWithSubscriptionById(@Param("id") Long id);
+
+    @Query("SELECT u.tokenEpoch FROM User u WHERE u.id = :id")
+    Optional<Integer> findTokenEpochById(@Param("id") Long id);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE User u SET u.password = :password WHERE u.id = :id")
+    int updatePassword(@Param("id") Long id, @Param("password") String password);
+
+    @Modifying
+    @Query("UPDATE User u SET u.tokenEpoch = u.tokenEpoch + 1 WHERE u.id = :id")
+    int incrementTokenEpoch(@Param("id") Long id);
+
 }
@@ -0,0 +1,20 @@
+package com.veterinaire.formulaireveterinaire.DTO;
+
+import com.veterinaire.formulaireveterinaire.Enums.SubscriptionStatus;
+
+import java.time.LocalDateTime;
+
+/**
+ * Everything the authentication path needs about a user, loaded in a single query.
+ * subscriptionEndDate is null when the user has no subscription.
+ */
+public record AuthPrincipalDTO(
+        Long id,
+        String email,
+        String nom,
+        String password,
+        boolean isAdmin,
+        SubscriptionStatus status,
+        int tokenEpoch,
+        LocalDateTime subscriptionEndDate
+) {}
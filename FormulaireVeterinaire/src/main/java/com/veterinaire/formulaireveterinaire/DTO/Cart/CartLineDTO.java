@@ -0,0 +1,21 @@
+package com.veterinaire.formulaireveterinaire.DTO.Cart;
+
+import java.math.BigDecimal;
+
+/**
+ * One cart line joined with its product, loaded for the whole cart in a single query.
+ * productName and imageUrl are null when the product has since been deleted.
+ */
+public record CartLineDTO(
+        Long itemId,
+        Long productId,
+        String productName,
+        String imageUrl,
+        Integer quantity,
+        BigDecimal price
+) {
+
+    public BigDecimal subTotal() {
+        return price.multiply(BigDecimal.valueOf(quantity));
+    }
+}
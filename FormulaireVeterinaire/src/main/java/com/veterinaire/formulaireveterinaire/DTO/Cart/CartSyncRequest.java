@@ -0,0 +1,19 @@
+package com.veterinaire.formulaireveterinaire.DTO.Cart;
+
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import lombok.Data;
+
+import java.util.Map;
+
+/**
+ * Full desired content of the cart (productId -> quantity) sent by offline clients.
+ * Products missing from the map, or with quantity 0, are removed.
+ */
+@Data
+public class CartSyncRequest {
+    @NotNull
+    @Size(max = 500)
+    private Map<@NotNull Long, @NotNull @Min(0) Integer> items;
+}
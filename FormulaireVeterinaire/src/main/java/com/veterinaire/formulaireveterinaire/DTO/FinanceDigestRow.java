@@ -0,0 +1,23 @@
+package com.veterinaire.formulaireveterinaire.DTO;
+
+import com.veterinaire.formulaireveterinaire.Enums.FinanceEventType;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * One pending finance event joined with its veterinarian, as listed in the digest.
+ * nom, prenom and email are null when the user has since been deleted.
+ */
+public record FinanceDigestRow(
+        Long eventId,
+        FinanceEventType type,
+        LocalDateTime createdAt,
+        String reference,
+        BigDecimal amount,
+        LocalDateTime endDate,
+        String nom,
+        String prenom,
+        String email
+) {
+}
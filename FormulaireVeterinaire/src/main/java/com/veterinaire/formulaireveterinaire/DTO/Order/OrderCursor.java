@@ -0,0 +1,28 @@
+package com.veterinaire.formulaireveterinaire.DTO.Order;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * Keyset position in the (confirmed_at DESC, id DESC) order, sent to clients as an opaque string.
+ */
+public record OrderCursor(LocalDateTime confirmedAt, Long id) {
+
+    public String encode() {
+        String raw = confirmedAt + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static OrderCursor decode(String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = raw.indexOf('|');
+            return new OrderCursor(LocalDateTime.parse(raw.substring(0, separator)),
+                    Long.parseLong(raw.substring(separator + 1)));
+        } catch (IllegalArgumentException | IndexOutOfBoundsException | DateTimeParseException e) {
+            throw new IllegalArgumentException("Curseur de pagination invalide");
+        }
+    }
+}
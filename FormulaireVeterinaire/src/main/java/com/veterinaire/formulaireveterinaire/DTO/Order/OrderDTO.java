@@ -0,0 +1,22 @@
+package com.veterinaire.formulaireveterinaire.DTO.Order;
+
+import com.veterinaire.formulaireveterinaire.DTO.Cart.CartItemDto;
+import com.veterinaire.formulaireveterinaire.Enums.OrderStatus;
+import lombok.Data;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Data
+public class OrderDTO {
+    private Long id;
+    private String orderNumber;
+    private OrderStatus status;
+    private Long userId;
+    private String userEmail;
+    private String userNom;
+    private BigDecimal totalAmount;
+    private LocalDateTime confirmedAt;
+    private List<CartItemDto> items;
+}
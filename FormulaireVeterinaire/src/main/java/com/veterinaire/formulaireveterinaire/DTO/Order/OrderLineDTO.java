@@ -0,0 +1,18 @@
+package com.veterinaire.formulaireveterinaire.DTO.Order;
+
+import java.math.BigDecimal;
+
+/**
+ * One line of a confirmed order with its product, loaded for a whole page of orders at once.
+ * productName and imageUrl are null when the product has since been deleted.
+ */
+public record OrderLineDTO(
+        Long orderId,
+        Long itemId,
+        Long productId,
+        String productName,
+        String imageUrl,
+        Integer quantity,
+        BigDecimal price
+) {
+}
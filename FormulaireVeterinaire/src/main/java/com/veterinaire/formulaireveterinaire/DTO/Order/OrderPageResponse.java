@@ -0,0 +1,15 @@
+package com.veterinaire.formulaireveterinaire.DTO.Order;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderPageResponse {
+    private List<OrderDTO> orders;
+    private String nextCursor;      // pass back as ?cursor= for the next page, null on the last page
+}
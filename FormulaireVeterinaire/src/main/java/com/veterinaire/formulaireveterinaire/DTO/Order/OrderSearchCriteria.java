@@ -0,0 +1,25 @@
+package com.veterinaire.formulaireveterinaire.DTO.Order;
+
+import com.veterinaire.formulaireveterinaire.Enums.OrderStatus;
+
+import java.time.LocalDateTime;
+import java.util.Set;
+
+/**
+ * Filters of the order history and the admin board. Every field but {@code limit} may be null or empty.
+ * @param statuses Only these statuses; all confirmed statuses when empty.
+ * @param from Confirmed at or after.
+ * @param to Confirmed before.
+ * @param userId Orders of this user only.
+ * @param after Keyset position: orders strictly older than this one.
+ * @param limit Maximum number of orders returned.
+ */
+public record OrderSearchCriteria(
+        Set<OrderStatus> statuses,
+        LocalDateTime from,
+        LocalDateTime to,
+        Long userId,
+        OrderCursor after,
+        int limit
+) {
+}
@@ -0,0 +1,22 @@
+package com.veterinaire.formulaireveterinaire.DTO.Order;
+
+import com.veterinaire.formulaireveterinaire.Enums.OrderStatus;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * Orders to move to {@code targetStatus}; each must currently be in the status just before it.
+ */
+@Data
+public class OrderTransitionRequest {
+    @NotEmpty
+    @Size(max = 1000)
+    private List<@NotNull Long> orderIds;
+
+    @NotNull
+    private OrderStatus targetStatus;
+}
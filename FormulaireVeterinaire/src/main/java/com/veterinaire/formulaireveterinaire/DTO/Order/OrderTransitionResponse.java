@@ -0,0 +1,17 @@
+package com.veterinaire.formulaireveterinaire.DTO.Order;
+
+import com.veterinaire.formulaireveterinaire.Enums.OrderStatus;
+
+import java.util.List;
+
+/**
+ * Outcome of a bulk transition: the orders moved and, for the others, why not.
+ */
+public record OrderTransitionResponse(
+        OrderStatus targetStatus,
+        List<Long> updated,
+        List<Rejected> rejected
+) {
+
+    public record Rejected(Long orderId, String reason) {}
+}
@@ -0,0 +1,40 @@
+package com.veterinaire.formulaireveterinaire.DTO.Product;
+
+import com.veterinaire.formulaireveterinaire.Enums.ProductSort;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Keyset position in a product listing, sent to clients as an opaque string. The sort is part of the
+ * cursor so a cursor cannot be replayed against another order. {@code key} is the sort column value
+ * (lower-cased name or plain price), unused for NEWEST.
+ */
+public record ProductCursor(ProductSort sort, String key, Long id) {
+
+    public String encode() {
+        String raw = sort.name() + "|" + (key != null ? key : "") + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static ProductCursor decode(String cursor, ProductSort expectedSort) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            // Names may contain '|': the sort ends at the first one, the id starts after the last one
+            int first = raw.indexOf('|');
+            int last = raw.lastIndexOf('|');
+            ProductSort sort = ProductSort.valueOf(raw.substring(0, first));
+            if (sort != expectedSort || first == last) {
+                throw new IllegalArgumentException();
+            }
+            String key = raw.substring(first + 1, last);
+            if (sort == ProductSort.PRICE_ASC || sort == ProductSort.PRICE_DESC) {
+                new BigDecimal(key);
+            }
+            return new ProductCursor(sort, key, Long.parseLong(raw.substring(last + 1)));
+        } catch (IllegalArgumentException | IndexOutOfBoundsException e) {
+            throw new IllegalArgumentException("Curseur de pagination invalide");
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package com.veterinaire.formulaireveterinaire.DTO.Product;
+
+import com.veterinaire.formulaireveterinaire.entity.Product;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductPageResponse {
+    private List<Product> products;
+    private String nextCursor;      // pass back as ?cursor= for the next page, null on the last page
+}
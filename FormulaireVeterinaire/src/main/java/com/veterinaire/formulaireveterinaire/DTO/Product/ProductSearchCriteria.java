@@ -0,0 +1,15 @@
+package com.veterinaire.formulaireveterinaire.DTO.Product;
+
+import com.veterinaire.formulaireveterinaire.Enums.Category;
+import com.veterinaire.formulaireveterinaire.Enums.ProductSort;
+import com.veterinaire.formulaireveterinaire.Enums.SubCategory;
+
+import java.math.BigDecimal;
+
+/**
+ * Filters of GET /api/products; null means "any". {@code limit} is the page size plus one.
+ */
+public record ProductSearchCriteria(Category category, SubCategory subCategory, Boolean inStock,
+                                    BigDecimal minPrice, BigDecimal maxPrice, String namePrefix,
+                                    ProductSort sort, ProductCursor after, int limit) {
+}
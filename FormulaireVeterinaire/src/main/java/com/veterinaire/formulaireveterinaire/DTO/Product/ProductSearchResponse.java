@@ -0,0 +1,22 @@
+package com.veterinaire.formulaireveterinaire.DTO.Product;
+
+import com.veterinaire.formulaireveterinaire.Enums.Category;
+import com.veterinaire.formulaireveterinaire.Enums.SubCategory;
+import com.veterinaire.formulaireveterinaire.entity.Product;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.Map;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductSearchResponse {
+    private List<Product> products;                     // best matches first
+    private int total;                                  // matches after the filters, beyond the returned page
+    private Map<Category, Integer> categories;          // facet counts over the text matches, before filters
+    private Map<SubCategory, Integer> subCategories;
+    private Map<Boolean, Integer> inStock;
+}
@@ -0,0 +1,14 @@
+package com.veterinaire.formulaireveterinaire.DTO.Product;
+
+import com.veterinaire.formulaireveterinaire.Enums.RescrapeState;
+
+import java.time.LocalDateTime;
+
+/**
+ * A bulk image re-scrape started by an admin, as returned by POST and GET /api/products/images/rescrape.
+ * @param report Set once the run is COMPLETED.
+ * @param error Set when the run FAILED.
+ */
+public record RescrapeJob(String id, RescrapeState state, LocalDateTime startedAt, LocalDateTime finishedAt,
+                          RescrapeReport report, String error) {
+}
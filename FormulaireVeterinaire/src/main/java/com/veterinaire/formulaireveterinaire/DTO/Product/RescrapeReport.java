@@ -0,0 +1,16 @@
+package com.veterinaire.formulaireveterinaire.DTO.Product;
+
+/**
+ * Outcome of a bulk image re-scrape.
+ * @param products Products with a detailsUrl.
+ * @param updated Products whose image changed, or that got one after a failed or pending scrape.
+ * @param unchanged Pages downloaded again that still point to the same image.
+ * @param notModified Pages the supplier answered 304 to, thanks to the stored validators.
+ * @param failed Pages that could not be fetched or had no usable image; their image is left as is.
+ * @param skipped New images not written because the product's image changed while the run was fetching.
+ * @param selectorCacheHits Pages where the host's cached selector found the image without the cascade.
+ * @param pagesPerSecond Pages fetched (304 included) per second of the whole run.
+ */
+public record RescrapeReport(int products, int updated, int unchanged, int notModified, int failed,
+                             int skipped, int selectorCacheHits, long elapsedMillis, double pagesPerSecond) {
+}
@@ -0,0 +1,9 @@
+package com.veterinaire.formulaireveterinaire.Enums;
+
+public enum FinanceEventType {
+    ORDER_CONFIRMED,         // checkout; reference = order number, amount = order total
+    SUBSCRIPTION_REQUESTED,  // plan chosen by the vet, payment still to arrange
+    SUBSCRIPTION_ASSIGNED,
+    SUBSCRIPTION_UPDATED,
+    SUBSCRIPTION_EXPIRING    // expiry reminder sent to the vet
+}
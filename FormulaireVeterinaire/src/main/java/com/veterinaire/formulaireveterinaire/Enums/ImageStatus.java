@@ -0,0 +1,11 @@
+package com.veterinaire.formulaireveterinaire.Enums;
+
+/**
+ * Where a product image comes from. PENDING products show the placeholder until the
+ * background enrichment scrapes their detailsUrl.
+ */
+public enum ImageStatus {
+    READY,
+    PENDING,
+    FAILED
+}
@@ -0,0 +1,8 @@
+package com.veterinaire.formulaireveterinaire.Enums;
+
+public enum MailStatus {
+    PENDING,  // waiting for its next attempt
+    SENDING,  // claimed by a dispatcher; reclaimed if the lease expires
+    SENT,
+    DEAD      // gave up after too many attempts or a permanent error
+}
@@ -2,5 +2,22 @@ package com.veterinaire.formulaireveterinaire.Enums;
 
 
 public enum OrderStatus {
-    CART, CONFIRMED, PROCESSING, SHIPPED, DELIVERED
+    CART, CONFIRMED, PROCESSING, SHIPPED, DELIVERED;
+
+    /**
+     * The only status an order may be in to move to this one, or null when no transition leads here
+     * (CART; CONFIRMED is only reached through checkout). Fulfilment is linear: CONFIRMED -> PROCESSING -> SHIPPED -> DELIVERED.
+     */
+    public OrderStatus requiredPrevious() {
+        return switch (this) {
+            case PROCESSING -> CONFIRMED;
+            case SHIPPED -> PROCESSING;
+            case DELIVERED -> SHIPPED;
+            case CART, CONFIRMED -> null;
+        };
+    }
+
+    public boolean canMoveTo(OrderStatus target) {
+        return target != null && target.requiredPrevious() == this;
+    }
 }
@@ -0,0 +1,11 @@
+package com.veterinaire.formulaireveterinaire.Enums;
+
+/**
+ * Orders offered by GET /api/products; each one is a keyset order ending on the id as tie-breaker.
+ */
+public enum ProductSort {
+    NAME,
+    PRICE_ASC,
+    PRICE_DESC,
+    NEWEST
+}
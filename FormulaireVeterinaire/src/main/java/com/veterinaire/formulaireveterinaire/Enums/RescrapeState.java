@@ -0,0 +1,10 @@
+package com.veterinaire.formulaireveterinaire.Enums;
+
+/**
+ * Progress of an admin bulk image re-scrape, which runs in the background.
+ */
+public enum RescrapeState {
+    RUNNING,
+    COMPLETED,
+    FAILED
+}
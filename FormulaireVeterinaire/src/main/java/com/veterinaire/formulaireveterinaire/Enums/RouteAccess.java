@@ -0,0 +1,9 @@
+package com.veterinaire.formulaireveterinaire.Enums;
+
+public enum RouteAccess {
+    PUBLIC,             // no authentication processing at all
+    OPTIONAL_AUTH,      // open to everyone, the user is resolved when a valid token is present
+    AUTHENTICATED,      // any logged-in user, subscription not checked
+    SUBSCRIPTION_GATED, // logged-in user with a running subscription (admins bypass the check)
+    ADMIN
+}
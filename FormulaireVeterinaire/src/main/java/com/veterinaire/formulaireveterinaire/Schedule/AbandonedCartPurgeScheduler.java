@@ -0,0 +1,29 @@
+package com.veterinaire.formulaireveterinaire.Schedule;
+
+import com.veterinaire.formulaireveterinaire.serviceimpl.AbandonedCartPurgeService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+@Component
+public class AbandonedCartPurgeScheduler {
+
+    private static final Logger logger = LoggerFactory.getLogger(AbandonedCartPurgeScheduler.class);
+
+    private final AbandonedCartPurgeService purgeService;
+
+    public AbandonedCartPurgeScheduler(AbandonedCartPurgeService purgeService) {
+        this.purgeService = purgeService;
+    }
+
+    @Scheduled(cron = "${cart.retention.cron:0 30 3 * * *}") // Daily at 3:30 by default
+    public void purgeAbandonedCarts() {
+        try {
+            purgeService.purge();
+        } catch (RuntimeException e) {
+            // Chunks already deleted stay deleted; the rest is picked up by the next run
+            logger.error("Abandoned cart purge failed: {}", e.getMessage(), e);
+        }
+    }
+}
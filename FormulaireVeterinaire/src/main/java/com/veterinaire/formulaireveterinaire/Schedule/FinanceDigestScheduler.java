@@ -0,0 +1,29 @@
+package com.veterinaire.formulaireveterinaire.Schedule;
+
+import com.veterinaire.formulaireveterinaire.serviceimpl.FinanceDigestService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+@Component
+public class FinanceDigestScheduler {
+
+    private static final Logger logger = LoggerFactory.getLogger(FinanceDigestScheduler.class);
+
+    private final FinanceDigestService financeDigestService;
+
+    public FinanceDigestScheduler(FinanceDigestService financeDigestService) {
+        this.financeDigestService = financeDigestService;
+    }
+
+    @Scheduled(cron = "${finance.digest.cron:0 0 7 * * *}") // Daily at 7:00 by default
+    public void sendFinanceDigest() {
+        try {
+            financeDigestService.sendDigest();
+        } catch (RuntimeException e) {
+            // Events stay undigested and are reported by the next run
+            logger.error("Finance digest failed: {}", e.getMessage(), e);
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package com.veterinaire.formulaireveterinaire.Schedule;
+
+import com.veterinaire.formulaireveterinaire.serviceimpl.ProductSearchIndex;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+@Component
+public class ProductSearchIndexScheduler {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProductSearchIndexScheduler.class);
+
+    private final ProductSearchIndex searchIndex;
+
+    public ProductSearchIndexScheduler(ProductSearchIndex searchIndex) {
+        this.searchIndex = searchIndex;
+    }
+
+    @Scheduled(initialDelayString = "${search.index.refresh-ms:300000}",
+            fixedDelayString = "${search.index.refresh-ms:300000}") // Every 5 minutes by default
+    public void refreshSearchIndex() {
+        try {
+            searchIndex.refresh();
+        } catch (RuntimeException e) {
+            // The index keeps serving its current content until the next run
+            logger.error("Product search index refresh failed: {}", e.getMessage(), e);
+        }
+    }
+}
@@ -1,25 +1,25 @@
 package com.veterinaire.formulaireveterinaire.Schedule;
 
+import com.veterinaire.formulaireveterinaire.Enums.FinanceEventType;
 import com.veterinaire.formulaireveterinaire.Enums.SubscriptionStatus;
 import com.veterinaire.formulaireveterinaire.DAO.SubscriptionRepository;
 import com.veterinaire.formulaireveterinaire.DAO.UserRepository;
 import com.veterinaire.formulaireveterinaire.entity.Subscription;
 import com.veterinaire.formulaireveterinaire.entity.User;
-import org.springframework.beans.factory.annotation.Value;
-import org.springframework.mail.javamail.JavaMailSender;
-import org.springframework.mail.javamail.MimeMessageHelper;
+import com.veterinaire.formulaireveterinaire.serviceimpl.EmailTemplateEngine;
+import com.veterinaire.formulaireveterinaire.serviceimpl.FinanceDigestService;
+import com.veterinaire.formulaireveterinaire.serviceimpl.SmtpBatchSender;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import jakarta.mail.MessagingException;
-import jakarta.mail.internet.MimeMessage;
-
 import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 @Component
@@ -27,22 +27,25 @@ public class ReminderScheduler {
 
     private final SubscriptionRepository subscriptionRepository;
     private final UserRepository userRepository;
-    private final JavaMailSender mailSender;
+    private final SmtpBatchSender batchSender;
+    private final EmailTemplateEngine templateEngine;
+    private final FinanceDigestService financeDigest;
 
     private static final Logger logger = LoggerFactory.getLogger(ReminderScheduler.class);
 
     // In-memory Set to track subscriptions for which reminders have been sent
     private final Set<Long> sentReminderIds = new HashSet<>();
 
-    public ReminderScheduler(SubscriptionRepository subscriptionRepository, UserRepository userRepository, JavaMailSender mailSender) {
+    public ReminderScheduler(SubscriptionRepository subscriptionRepository, UserRepository userRepository,
+                             SmtpBatchSender batchSender, EmailTemplateEngine templateEngine,
+                             FinanceDigestService financeDigest) {
         this.subscriptionRepository = subscriptionRepository;
         this.userRepository = userRepository;
-        this.mailSender = mailSender;
+        this.batchSender = batchSender;
+        this.templateEngine = templateEngine;
+        this.financeDigest = financeDigest;
     }
 
-    @Value("${finance.email}")
-    private String financeEmail;
-
    // @Scheduled(cron = "0 * * * * *") // Run every minute (for testing)
     @Scheduled(cron = "0 0 0 * * *") // Run daily at midnight
     public void checkExpiredSubscriptions() {
@@ -56,6 +59,9 @@ public class ReminderScheduler {
 
         LocalDateTime now = LocalDateTime.now();
         LocalDateTime oneWeekFromNow = now.plusDays(7);
+        // Reminders are collected first, then sent over a few reused SMTP connections
+        Map<Long, SmtpBatchSender.OutgoingMail> reminders = new LinkedHashMap<>();
+        Map<Long, Subscription> remindedSubscriptions = new HashMap<>();
 
         for (User user : users) {
             Subscription subscription = subscriptionRepository.findByUserEmail(user.getEmail()).orElse(null);
@@ -79,105 +85,38 @@ public class ReminderScheduler {
                 // user.setStatus(SubscriptionStatus.INACTIVE);
                 // userRepository.save(user);
             } else if (endDate.isBefore(oneWeekFromNow) && !sentReminderIds.contains(subscriptionId)) {
-                logger.info("Sending reminder for subscription ID {} to user {} ({})", subscriptionId, user.getPrenom(), user.getEmail());
-                try {
-                    sendReminderEmail(user.getEmail(), user.getPrenom(), subscriptionId, endDate);
-                    sentReminderIds.add(subscriptionId); // Mark reminder as sent
-                } catch (RuntimeException e) {
-                    logger.error("Failed to send reminder email for subscription ID {}: {}", subscriptionId, e.getMessage());
-                }
+                logger.info("Queuing reminder for subscription ID {} to user {} ({})", subscriptionId, user.getPrenom(), user.getEmail());
+                reminders.put(subscriptionId, buildReminderEmail(user.getEmail(), user.getPrenom(), endDate));
+                remindedSubscriptions.put(subscriptionId, subscription);
             } else {
                 logger.debug("Subscription ID {} for user {} ({}) is not due for reminder. End date: {}",
                         subscriptionId, user.getPrenom(), user.getEmail(), endDate);
             }
         }
-    }
 
-    private void sendReminderEmail(String email, String prenom, Long subscriptionId, LocalDateTime endDate) {
-        MimeMessage message = mailSender.createMimeMessage();
-        try {
-            MimeMessageHelper helper = new MimeMessageHelper(message, true, "UTF-8");
-            helper.setTo(email);
-            helper.setCc(financeEmail);
-            helper.setSubject("🔔 Rappel : Votre abonnement arrive à expiration");
-            helper.setFrom("damino.awadi@gmail.com");
-
-            String htmlContent = """
-            <!DOCTYPE html>
-            <html lang="fr">
-            <head>
-                <meta charset="UTF-8">
-                <style>
-                    body {
-                        font-family: Arial, sans-serif;
-                        background-color: #f8f9fa;
-                        margin: 0;
-                        padding: 0;
-                        color: #333333;
-                        line-height: 1.6;
-                    }
-                    .container {
-                        max-width: 600px;
-                        margin: 30px auto;
-                        background-color: #ffffff;
-                        border-radius: 10px;
-                        box-shadow: 0 2px 8px rgba(0,0,0,0.1);
-                        overflow: hidden;
-                    }
-                    .header {
-                        background-color: #007BFF;
-                        color: white;
-                        text-align: center;
-                        padding: 20px;
-                        font-size: 20px;
-                        font-weight: bold;
-                    }
-                    .content {
-                        padding: 25px;
-                    }
-                    .content p {
-                        margin-bottom: 15px;
-                    }
-                    .highlight {
-                        color: #007BFF;
-                        font-weight: bold;
-                    }
-                    .footer {
-                        background-color: #f1f1f1;
-                        text-align: center;
-                        padding: 15px;
-                        font-size: 13px;
-                        color: #555555;
-                    }
-                </style>
-            </head>
-            <body>
-                <div class="container">
-                    <div class="header">
-                        🔔 Rappel d'expiration d'abonnement
-                    </div>
-                    <div class="content">
-                        <p>Bonjour <strong>%s</strong>,</p>
-                        <p>Nous vous rappelons que votre abonnement sur la plateforme <span class="highlight">VitalFeed</span> arrivera à expiration le <strong>%s</strong>.</p>
-                        <p>⏳ Il vous reste moins de 7 jours pour le renouveler afin d’éviter toute interruption de service.</p>
-                        <p>Pour renouveler votre abonnement, veuillez vous connecter à votre espace client dès maintenant.</p>
-                        <p>Merci de votre confiance et de votre fidélité 💙</p>
-                        <p>Cordialement,<br><strong>L’équipe VitalFeed</strong></p>
-                    </div>
-                    <div class="footer">
-                        © 2025 VitalFeed – Tous droits réservés | Support : support@veterinaire.com
-                    </div>
-                </div>
-            </body>
-            </html>
-        """.formatted(prenom, subscriptionId, endDate.format(DateTimeFormatter.ofPattern("dd/MM/yyyy HH:mm")));
-
-            helper.setText(htmlContent, true);
-            mailSender.send(message);
-
-        } catch (MessagingException e) {
-            throw new RuntimeException("Erreur lors de l'envoi de l'email de rappel HTML", e);
+        if (!reminders.isEmpty()) {
+            Set<Long> sent = batchSender.sendAll(reminders);
+            sentReminderIds.addAll(sent); // Mark reminders as sent; failed ones are retried on the next run
+            // Finance gets the upcoming expirations in its digest instead of a CC on each reminder
+            for (Long subscriptionId : sent) {
+                Subscription subscription = remindedSubscriptions.get(subscriptionId);
+                financeDigest.recordSubscription(FinanceEventType.SUBSCRIPTION_EXPIRING, subscription.getUser().getId(),
+                        subscription.getSubscriptionType(), subscription.getEndDate());
+            }
+            if (sent.size() < reminders.size()) {
+                logger.error("Failed to send {} of {} reminder emails", reminders.size() - sent.size(), reminders.size());
+            }
         }
     }
 
+    private SmtpBatchSender.OutgoingMail buildReminderEmail(String email, String prenom, LocalDateTime endDate) {
+        String htmlContent = templateEngine.get("subscription-reminder").model()
+                .set("prenom", prenom)
+                .set("endDate", endDate)
+                .render();
+
+        return new SmtpBatchSender.OutgoingMail(email, null, "damino.awadi@gmail.com",
+                "🔔 Rappel : Votre abonnement arrive à expiration", htmlContent);
+    }
+
 }
\ No newline at end of file
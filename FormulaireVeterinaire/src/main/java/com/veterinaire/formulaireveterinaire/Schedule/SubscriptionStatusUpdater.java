@@ -6,6 +6,7 @@ import com.veterinaire.formulaireveterinaire.DAO.SubscriptionRepository;
 import com.veterinaire.formulaireveterinaire.DAO.UserRepository;
 import com.veterinaire.formulaireveterinaire.entity.Subscription;
 import com.veterinaire.formulaireveterinaire.entity.User;
+import com.veterinaire.formulaireveterinaire.serviceimpl.SubscriptionEntitlementCache;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 import org.slf4j.Logger;
@@ -18,11 +19,14 @@ public class SubscriptionStatusUpdater {
 
     private final SubscriptionRepository subscriptionRepository;
     private final UserRepository userRepository;
+    private final SubscriptionEntitlementCache entitlementCache;
     private static final Logger logger = LoggerFactory.getLogger(SubscriptionStatusUpdater.class);
 
-    public SubscriptionStatusUpdater(SubscriptionRepository subscriptionRepository, UserRepository userRepository) {
+    public SubscriptionStatusUpdater(SubscriptionRepository subscriptionRepository, UserRepository userRepository,
+                                     SubscriptionEntitlementCache entitlementCache) {
         this.subscriptionRepository = subscriptionRepository;
         this.userRepository = userRepository;
+        this.entitlementCache = entitlementCache;
     }
 
     //@Scheduled(cron = "0 * * * * *") // Run every minute (for testing)
@@ -54,5 +58,8 @@ public class SubscriptionStatusUpdater {
                 logger.debug("Subscription with ID {} is still active. End date: {}", subscription.getId(), endDate);
             }
         }
+
+        // Nightly resync of everything the subscription gate has cached
+        entitlementCache.invalidateAll();
     }
 }
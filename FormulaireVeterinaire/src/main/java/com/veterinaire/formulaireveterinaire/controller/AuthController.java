@@ -1,7 +1,9 @@
 package com.veterinaire.formulaireveterinaire.controller;
 
+import com.veterinaire.formulaireveterinaire.Config.AuthCookies;
 import com.veterinaire.formulaireveterinaire.DTO.LoginDTO;
 import com.veterinaire.formulaireveterinaire.service.AuthService;
+import com.veterinaire.formulaireveterinaire.serviceimpl.PasswordHashingService;
 import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 import org.springframework.http.HttpHeaders;
@@ -37,13 +39,7 @@ public class AuthController {
             boolean isAdmin = (boolean) authResult.get("isAdmin");
 
             // Create cookie for JWT
-            ResponseCookie cookie = ResponseCookie.from("access_token", token)
-                    .httpOnly(true)
-                    .secure(false) // ❌ false for localhost (http), ✅ true in production
-                    .path("/")
-                    .maxAge(60 * 60 * 24 * 7) // 7 days
-                    .sameSite("Lax") // allow localhost:4200 → localhost:8061
-                    .build();
+            ResponseCookie cookie = AuthCookies.accessToken(token);
 
             response.addHeader(HttpHeaders.SET_COOKIE, cookie.toString());
 
@@ -51,6 +47,11 @@ public class AuthController {
             responseBody.put("isAdmin", isAdmin);
             return ResponseEntity.ok(responseBody);
 
+        } catch (PasswordHashingService.SaturatedException e) {
+            // Fail fast during login bursts instead of queueing behind BCrypt
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER, "1")
+                    .body(Collections.singletonMap("error", e.getMessage()));
         } catch (RuntimeException e) {
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
                     .body(Collections.singletonMap("error", "Unauthorized: " + e.getMessage()));
@@ -58,14 +59,12 @@ public class AuthController {
     }
 
     @PostMapping("/logout")
-    public ResponseEntity<Void> logout(HttpServletResponse response) {
-        ResponseCookie cookie = ResponseCookie.from("access_token", "")
-                .httpOnly(true)
-                .secure(false)
-                .path("/")
-                .maxAge(0)
-                .sameSite("Lax")
-                .build();
+    public ResponseEntity<Void> logout(@AuthenticationPrincipal UserDetails userDetails, HttpServletResponse response) {
+        // Revoke server-side as well, so copies of the token stop working
+        if (userDetails != null) {
+            authService.logout(userDetails.getUsername());
+        }
+        ResponseCookie cookie = AuthCookies.cleared();
         response.addHeader(HttpHeaders.SET_COOKIE, cookie.toString());
         return ResponseEntity.ok().build();
     }
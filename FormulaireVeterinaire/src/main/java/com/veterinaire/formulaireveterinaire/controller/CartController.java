@@ -1,12 +1,15 @@
 package com.veterinaire.formulaireveterinaire.controller;
 
+import com.veterinaire.formulaireveterinaire.Config.AuthenticatedUser;
 import com.veterinaire.formulaireveterinaire.DTO.Cart.CartItemDto;
 import com.veterinaire.formulaireveterinaire.DTO.Cart.CartItemRequest;
 import com.veterinaire.formulaireveterinaire.DTO.Cart.CartResponse;
+import com.veterinaire.formulaireveterinaire.DTO.Cart.CartSyncRequest;
 import com.veterinaire.formulaireveterinaire.service.CartService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
 
 @RestController
@@ -17,44 +20,52 @@ public class CartController {
     private final CartService cartService;
 
     @GetMapping
-    public ResponseEntity<CartResponse> getCart(@RequestParam Long userId) {
-        return ResponseEntity.ok(cartService.getCart(userId));
+    public ResponseEntity<CartResponse> getCart(@AuthenticationPrincipal AuthenticatedUser user) {
+        return ResponseEntity.ok(cartService.getCart(user));
+    }
+
+    // Offline clients replace the whole cart in one call
+    @PutMapping
+    public ResponseEntity<CartResponse> syncCart(
+            @AuthenticationPrincipal AuthenticatedUser user,
+            @Valid @RequestBody CartSyncRequest req) {
+        return ResponseEntity.ok(cartService.syncCart(user, req));
     }
 
     @PostMapping("/items")
     public ResponseEntity<CartItemDto> addItem(
-            @RequestParam Long userId,
+            @AuthenticationPrincipal AuthenticatedUser user,
             @Valid @RequestBody CartItemRequest req) {
-        return ResponseEntity.ok(cartService.addItem(userId, req));
+        return ResponseEntity.ok(cartService.addItem(user, req));
     }
 
     @PutMapping("/items/{itemId}")
     public ResponseEntity<CartItemDto> updateItem(
-            @RequestParam Long userId,
+            @AuthenticationPrincipal AuthenticatedUser user,
             @PathVariable Long itemId,
             @RequestParam Integer quantity) {
-        CartItemDto updated = cartService.updateItem(userId, itemId, quantity);
+        CartItemDto updated = cartService.updateItem(user, itemId, quantity);
         return ResponseEntity.ok(updated);
     }
 
     @DeleteMapping("/items/{itemId}")
     public ResponseEntity<Void> removeItem(
-            @RequestParam Long userId,
+            @AuthenticationPrincipal AuthenticatedUser user,
             @PathVariable Long itemId) {
-        cartService.removeItem(userId, itemId);
+        cartService.removeItem(user, itemId);
         return ResponseEntity.noContent().build();
     }
 
     @DeleteMapping
-    public ResponseEntity<Void> clearCart(@RequestParam Long userId) {
-        cartService.clearCart(userId);
+    public ResponseEntity<Void> clearCart(@AuthenticationPrincipal AuthenticatedUser user) {
+        cartService.clearCart(user);
         return ResponseEntity.noContent().build();
     }
 
     @PostMapping("/orders/checkout")
     public ResponseEntity<String> checkout(
-            @RequestParam Long userId) {
-        String orderNumber = cartService.checkout(userId);
+            @AuthenticationPrincipal AuthenticatedUser user) {
+        String orderNumber = cartService.checkout(user);
         return ResponseEntity.ok(orderNumber);
     }
 }
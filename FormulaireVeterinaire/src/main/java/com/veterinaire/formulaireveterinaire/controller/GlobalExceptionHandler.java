@@ -1,10 +1,18 @@
 package com.veterinaire.formulaireveterinaire.controller;
 
+import com.veterinaire.formulaireveterinaire.DTO.Order.OrderTransitionResponse;
+import com.veterinaire.formulaireveterinaire.DTO.Product.RescrapeJob;
+import com.veterinaire.formulaireveterinaire.serviceimpl.OrderServiceImpl;
+import com.veterinaire.formulaireveterinaire.serviceimpl.PasswordHashingService;
+import com.veterinaire.formulaireveterinaire.serviceimpl.ProductImageRescrapeService;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.method.annotation.MethodArgumentTypeMismatchException;
 
 import java.util.HashMap;
 import java.util.Map;
@@ -21,6 +29,40 @@ public class GlobalExceptionHandler {
         return new ResponseEntity<>(errors, HttpStatus.BAD_REQUEST);
     }
 
+    // Password hashing pool saturated (login bursts)
+    @ExceptionHandler(PasswordHashingService.SaturatedException.class)
+    public ResponseEntity<Map<String, String>> handleHashingSaturated(PasswordHashingService.SaturatedException ex) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body(Map.of("error", ex.getMessage()));
+    }
+
+    // Concurrent cart/order write detected by @Version or a compare-and-set update
+    @ExceptionHandler(OptimisticLockingFailureException.class)
+    public ResponseEntity<Map<String, String>> handleConcurrentUpdate(OptimisticLockingFailureException ex) {
+        return ResponseEntity.status(HttpStatus.CONFLICT)
+                .body(Map.of("error", "Le panier a été modifié entre-temps, veuillez réessayer."));
+    }
+
+    // Board transition where every order was in a status that cannot reach the target
+    @ExceptionHandler(OrderServiceImpl.IllegalTransitionException.class)
+    public ResponseEntity<OrderTransitionResponse> handleIllegalTransition(OrderServiceImpl.IllegalTransitionException ex) {
+        return ResponseEntity.status(HttpStatus.CONFLICT).body(ex.getResponse());
+    }
+
+    // Image re-scrape requested while the previous one still runs: the running job comes back
+    @ExceptionHandler(ProductImageRescrapeService.AlreadyRunningException.class)
+    public ResponseEntity<RescrapeJob> handleRescrapeRunning(ProductImageRescrapeService.AlreadyRunningException ex) {
+        return ResponseEntity.status(HttpStatus.CONFLICT).body(ex.getJob());
+    }
+
+    // Typed query/path parameters (enums, numbers) that do not parse
+    @ExceptionHandler(MethodArgumentTypeMismatchException.class)
+    public ResponseEntity<Map<String, String>> handleTypeMismatch(MethodArgumentTypeMismatchException ex) {
+        return ResponseEntity.badRequest()
+                .body(Map.of("error", "Valeur invalide pour le paramètre " + ex.getName() + " : " + ex.getValue()));
+    }
+
     // Handle other runtime exceptions
     @ExceptionHandler(RuntimeException.class)
     public ResponseEntity<Map<String, String>> handleRuntimeException(RuntimeException ex) {
@@ -0,0 +1,58 @@
+package com.veterinaire.formulaireveterinaire.controller;
+
+import com.veterinaire.formulaireveterinaire.Config.AuthenticatedUser;
+import com.veterinaire.formulaireveterinaire.DTO.Order.OrderPageResponse;
+import com.veterinaire.formulaireveterinaire.DTO.Order.OrderTransitionRequest;
+import com.veterinaire.formulaireveterinaire.DTO.Order.OrderTransitionResponse;
+import com.veterinaire.formulaireveterinaire.Enums.OrderStatus;
+import com.veterinaire.formulaireveterinaire.service.OrderService;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDateTime;
+import java.util.Set;
+
+@RestController
+@RequestMapping("/api/orders")
+@RequiredArgsConstructor
+public class OrderController {
+
+    private final OrderService orderService;
+
+    // The caller's confirmed orders, newest first; follow nextCursor for older ones
+    @GetMapping
+    public ResponseEntity<OrderPageResponse> getMyOrders(
+            @AuthenticationPrincipal AuthenticatedUser user,
+            @RequestParam(required = false) Set<OrderStatus> status,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size) {
+        return ResponseEntity.ok(orderService.getOrderHistory(user, status, from, to, cursor, size));
+    }
+
+    // Admin board: every user's orders, optionally for one user
+    @GetMapping("/board")
+    public ResponseEntity<OrderPageResponse> getOrderBoard(
+            @RequestParam(required = false) Long userId,
+            @RequestParam(required = false) Set<OrderStatus> status,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size) {
+        return ResponseEntity.ok(orderService.getOrderBoard(userId, status, from, to, cursor, size));
+    }
+
+    // Fulfilment: moves many orders one step (e.g. PROCESSING -> SHIPPED); rejected ids come back with a reason,
+    // with 409 when no order moved because their status cannot reach the target
+    @PostMapping("/board/transitions")
+    public ResponseEntity<OrderTransitionResponse> transitionOrders(
+            @AuthenticationPrincipal AuthenticatedUser admin,
+            @Valid @RequestBody OrderTransitionRequest req) {
+        return ResponseEntity.ok(orderService.transitionOrders(admin, req));
+    }
+}
@@ -1,12 +1,27 @@
 package com.veterinaire.formulaireveterinaire.controller;
 
+import com.veterinaire.formulaireveterinaire.DTO.Product.ProductPageResponse;
+import com.veterinaire.formulaireveterinaire.DTO.Product.ProductSearchResponse;
+import com.veterinaire.formulaireveterinaire.DTO.Product.RescrapeJob;
+import com.veterinaire.formulaireveterinaire.Enums.Category;
+import com.veterinaire.formulaireveterinaire.Enums.ProductSort;
+import com.veterinaire.formulaireveterinaire.Enums.SubCategory;
 import com.veterinaire.formulaireveterinaire.entity.Product;
 import com.veterinaire.formulaireveterinaire.service.ProductService;
+import com.veterinaire.formulaireveterinaire.serviceimpl.CatalogCache;
+import com.veterinaire.formulaireveterinaire.serviceimpl.ProductImageRescrapeService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.math.BigDecimal;
+import java.net.URI;
 import java.util.List;
+import java.util.Locale;
 import java.util.Optional;
 
 @RestController
@@ -16,9 +31,105 @@ public class ProductController {
     @Autowired
     private ProductService productService;
 
+    @Autowired
+    private CatalogCache catalogCache;
+
+    @Autowired
+    private ProductImageRescrapeService rescrapeService;
+
+    // Combinable filters, sorted and keyset-paginated: pass nextCursor back as ?cursor= to scroll
+    @GetMapping
+    public ResponseEntity<ProductPageResponse> searchProducts(
+            @RequestParam(required = false) Category category,
+            @RequestParam(required = false) SubCategory subCategory,
+            @RequestParam(required = false) Boolean inStock,
+            @RequestParam(required = false) BigDecimal minPrice,
+            @RequestParam(required = false) BigDecimal maxPrice,
+            @RequestParam(required = false) String name,
+            @RequestParam(required = false) ProductSort sort,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size) {
+        return ResponseEntity.ok(productService.searchProducts(category, subCategory, inStock,
+                minPrice, maxPrice, name, sort, cursor, size));
+    }
+
+    // Ranked full-text search over name and description ("croquettes chat sterilise"), with facet counts
+    @GetMapping("/search")
+    public ResponseEntity<ProductSearchResponse> fullTextSearch(
+            @RequestParam String q,
+            @RequestParam(required = false) Category category,
+            @RequestParam(required = false) SubCategory subCategory,
+            @RequestParam(required = false) Boolean inStock,
+            @RequestParam(required = false) Integer size) {
+        return ResponseEntity.ok(productService.fullTextSearch(q, category, subCategory, inStock, size));
+    }
+
+    // Pre-serialized catalog: 304 when the client's copy is current, otherwise the cached (gzipped) bytes
     @GetMapping("/all")
-    public List<Product> getAllProducts() {
-        return productService.getAllProducts();
+    public ResponseEntity<byte[]> getAllProducts(
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        CatalogCache.Snapshot catalog = catalogCache.current();
+        HttpHeaders headers = new HttpHeaders();
+        headers.setETag(catalog.etag());
+        headers.setCacheControl(CacheControl.noCache());
+        headers.setVary(List.of(HttpHeaders.ACCEPT_ENCODING));
+
+        if (etagMatches(ifNoneMatch, catalog.etag())) {
+            return new ResponseEntity<>(headers, HttpStatus.NOT_MODIFIED);
+        }
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        if (acceptsGzip(acceptEncoding)) {
+            headers.set(HttpHeaders.CONTENT_ENCODING, "gzip");
+            return new ResponseEntity<>(catalog.gzip(), headers, HttpStatus.OK);
+        }
+        return new ResponseEntity<>(catalog.json(), headers, HttpStatus.OK);
+    }
+
+    // RFC 9110 Accept-Encoding: gzip (or x-gzip) with q > 0, or "*" with q > 0 when gzip is not listed
+    private static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        double gzipQuality = -1;
+        double anyQuality = -1;
+        for (String element : acceptEncoding.split(",")) {
+            String[] parts = element.split(";");
+            String coding = parts[0].trim().toLowerCase(Locale.ROOT);
+            double quality = 1;
+            for (int i = 1; i < parts.length; i++) {
+                String param = parts[i].trim();
+                if (param.length() > 2 && (param.charAt(0) == 'q' || param.charAt(0) == 'Q') && param.charAt(1) == '=') {
+                    try {
+                        quality = Double.parseDouble(param.substring(2).trim());
+                    } catch (NumberFormatException e) {
+                        quality = 0;
+                    }
+                }
+            }
+            if (coding.equals("gzip") || coding.equals("x-gzip")) {
+                gzipQuality = Math.max(gzipQuality, quality);
+            } else if (coding.equals("*")) {
+                anyQuality = quality;
+            }
+        }
+        return (gzipQuality >= 0 ? gzipQuality : anyQuality) > 0;
+    }
+
+    private static boolean etagMatches(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.trim();
+            if (tag.startsWith("W/")) {
+                tag = tag.substring(2);
+            }
+            if (tag.equals("*") || tag.equals(etag)) {
+                return true;
+            }
+        }
+        return false;
     }
 
     @GetMapping("/{id}")
@@ -43,6 +154,25 @@ public class ProductController {
         }
     }
 
+    // Admin bulk image refresh: runs in the background, poll the returned job until it is COMPLETED or FAILED
+    @PostMapping("/images/rescrape")
+    public ResponseEntity<RescrapeJob> rescrapeImages() {
+        RescrapeJob job = rescrapeService.start();
+        return ResponseEntity.accepted()
+                .location(URI.create("/api/products/images/rescrape/" + job.id()))
+                .body(job);
+    }
+
+    @GetMapping("/images/rescrape")
+    public ResponseEntity<RescrapeJob> getLatestRescrape() {
+        return ResponseEntity.of(rescrapeService.latest());
+    }
+
+    @GetMapping("/images/rescrape/{jobId}")
+    public ResponseEntity<RescrapeJob> getRescrape(@PathVariable String jobId) {
+        return ResponseEntity.of(rescrapeService.status(jobId));
+    }
+
     @DeleteMapping("/delete/{id}")
     public ResponseEntity<Void> deleteProduct(@PathVariable Long id) {
         productService.deleteProduct(id);
@@ -50,12 +180,12 @@ public class ProductController {
     }
 
     @GetMapping("/category/{category}")
-    public List<Product> getProductsByCategory(@PathVariable String category) {
+    public List<Product> getProductsByCategory(@PathVariable Category category) {
         return productService.getProductsByCategory(category);
     }
 
     @GetMapping("/subcategory/{subCategory}")
-    public List<Product> getProductsBySubCategory(@PathVariable String subCategory) {
+    public List<Product> getProductsBySubCategory(@PathVariable SubCategory subCategory) {
         return productService.getProductsBySubCategory(subCategory);
     }
 
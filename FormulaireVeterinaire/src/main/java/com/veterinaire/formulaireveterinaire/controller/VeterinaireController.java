@@ -1,17 +1,15 @@
 package com.veterinaire.formulaireveterinaire.controller;
 
+import com.veterinaire.formulaireveterinaire.Config.AuthenticatedUser;
 import com.veterinaire.formulaireveterinaire.DTO.UserDTO;
 import com.veterinaire.formulaireveterinaire.Enums.SubscriptionType;
 import com.veterinaire.formulaireveterinaire.entity.User;
 import com.veterinaire.formulaireveterinaire.service.UserService;
 import com.veterinaire.formulaireveterinaire.service.VeterinaireService;
-import jakarta.servlet.http.HttpServletRequest;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
-import org.springframework.security.core.Authentication;
-import org.springframework.security.core.context.SecurityContextHolder;
-import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 
@@ -26,8 +24,8 @@ public class VeterinaireController {
     }
 
     /**
-     * Updates the veterinary profile for a specific user with an optional image and subscription type.
-     * @param userId The ID of the user whose profile is being updated.
+     * Updates the veterinary profile of the logged-in user with an optional image and subscription type.
+     * @param principal The authenticated user whose profile is being updated.
      * @param image The image file to upload (optional).
      * @param subscriptionType The initial subscription type (optional).
      * @return Response with success message.
@@ -35,23 +33,21 @@ public class VeterinaireController {
 
     @PostMapping(value = "/update", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
     public ResponseEntity<String> updateVeterinaireProfile(
-            @RequestParam("userId") Long userId,
+            @AuthenticationPrincipal AuthenticatedUser principal,
             @RequestParam(value = "image", required = false) MultipartFile image,
             @RequestParam(value = "subscriptionType", required = false) SubscriptionType subscriptionType) {
 
-        String result = veterinaireService.updateVeterinaireProfile(userId, image, subscriptionType);
+        String result = veterinaireService.updateVeterinaireProfile(principal.userId(), image, subscriptionType);
         return ResponseEntity.ok(result);
     }
 
     @GetMapping("/me")
-    public ResponseEntity<UserDTO> getLoggedInVeterinaire(HttpServletRequest request) {
-        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
-        if (auth == null || !(auth.getPrincipal() instanceof UserDetails)) {
+    public ResponseEntity<UserDTO> getLoggedInVeterinaire(@AuthenticationPrincipal AuthenticatedUser principal) {
+        if (principal == null) {
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
         }
 
-        UserDetails userDetails = (UserDetails) auth.getPrincipal();
-        UserDTO userDTO = veterinaireService.getVeterinaireByEmail(userDetails.getUsername());
+        UserDTO userDTO = veterinaireService.getVeterinaireProfile(principal);
         return ResponseEntity.ok(userDTO); // subscription info included even if expired
     }
 
@@ -34,4 +34,13 @@ public class CartOrder {
 
     @Column(name = "confirmed_at")
     private LocalDateTime confirmedAt;        // NULL for carts
+
+    // Last change to the cart; the abandoned-cart purge goes by it
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+
+    // Bumped by every write, including the total deltas in CartOrderRepository
+    @Version
+    @Column(nullable = false, columnDefinition = "bigint default 0")
+    private Long version = 0L;
 }
\ No newline at end of file
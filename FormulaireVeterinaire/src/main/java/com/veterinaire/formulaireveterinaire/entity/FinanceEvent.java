@@ -0,0 +1,47 @@
+package com.veterinaire.formulaireveterinaire.entity;
+
+import com.veterinaire.formulaireveterinaire.Enums.FinanceEventType;
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Something the finance team should hear about, written in the business transaction and
+ * reported once by the daily digest instead of a CC on the customer's e-mail.
+ */
+@Entity
+@Table(name = "finance_events",
+        indexes = @Index(name = "ix_finance_events_digested", columnList = "digested_at, id"))
+@Data
+@NoArgsConstructor
+public class FinanceEvent {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 32)
+    private FinanceEventType type;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    @Column(length = 64)
+    private String reference;                 // order number or subscription type
+
+    @Column(precision = 12, scale = 2)
+    private BigDecimal amount;                // order total, NULL for subscriptions
+
+    @Column(name = "end_date")
+    private LocalDateTime endDate;            // subscription end, NULL for orders
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    @Column(name = "digested_at")
+    private LocalDateTime digestedAt;         // NULL until reported
+}
@@ -0,0 +1,50 @@
+package com.veterinaire.formulaireveterinaire.entity;
+
+import com.veterinaire.formulaireveterinaire.Enums.MailStatus;
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "mail_outbox",
+        indexes = @Index(name = "ix_mail_outbox_due", columnList = "status, next_attempt_at"))
+@Data
+@NoArgsConstructor
+public class MailOutboxMessage {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    private String recipient;
+
+    private String cc;                        // NULL when there is no copy
+
+    @Column(nullable = false, length = 500)
+    private String subject;
+
+    @Column(name = "html_body", columnDefinition = "text")
+    private String htmlBody;                  // cleared once sent or dead (may contain credentials)
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 16)
+    private MailStatus status = MailStatus.PENDING;
+
+    @Column(nullable = false)
+    private int attempts = 0;
+
+    @Column(name = "next_attempt_at", nullable = false)
+    private LocalDateTime nextAttemptAt;
+
+    @Column(name = "last_error", length = 1000)
+    private String lastError;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    @Column(name = "sent_at")
+    private LocalDateTime sentAt;
+}
@@ -0,0 +1,41 @@
+package com.veterinaire.formulaireveterinaire.entity;
+
+import com.veterinaire.formulaireveterinaire.Enums.OrderStatus;
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Append-only log of order status changes. Rows are inserted in JDBC batches by
+ * OrderTransitionRepository and never updated; the entity only declares the table.
+ */
+@Entity
+@Table(name = "order_status_history",
+        indexes = @Index(name = "ix_order_status_history_order", columnList = "order_id, changed_at"))
+@Data
+@NoArgsConstructor
+public class OrderStatusHistory {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "order_id", nullable = false)
+    private Long orderId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "from_status", nullable = false, length = 16)
+    private OrderStatus fromStatus;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "to_status", nullable = false, length = 16)
+    private OrderStatus toStatus;
+
+    @Column(name = "changed_at", nullable = false)
+    private LocalDateTime changedAt;
+
+    @Column(name = "changed_by")
+    private Long changedBy;                   // admin user id
+}
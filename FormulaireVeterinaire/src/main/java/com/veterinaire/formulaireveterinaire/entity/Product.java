@@ -2,6 +2,7 @@ package com.veterinaire.formulaireveterinaire.entity;
 
 
 import com.veterinaire.formulaireveterinaire.Enums.Category;
+import com.veterinaire.formulaireveterinaire.Enums.ImageStatus;
 import com.veterinaire.formulaireveterinaire.Enums.SubCategory;
 import jakarta.persistence.*;
 import lombok.Data;
@@ -28,6 +29,11 @@ public class Product {
     @Column(nullable = false)
     private String imageUrl;
 
+    // PENDING while ProductImageEnrichmentService scrapes detailsUrl; imageUrl holds a placeholder until then
+    @Enumerated(EnumType.STRING)
+    @Column(name = "image_status")
+    private ImageStatus imageStatus = ImageStatus.READY;
+
     @Enumerated(EnumType.STRING)
     @Column(nullable = false)
     private Category category;
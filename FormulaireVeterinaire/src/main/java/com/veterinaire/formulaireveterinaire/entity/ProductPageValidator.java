@@ -0,0 +1,37 @@
+package com.veterinaire.formulaireveterinaire.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * HTTP validators of the supplier page a product image was last scraped from, sent back as
+ * If-None-Match / If-Modified-Since by the bulk re-scrape so unchanged pages answer 304.
+ * Kept out of {@link Product} so they never show up in the catalog JSON.
+ */
+@Entity
+@Table(name = "product_page_validators")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductPageValidator {
+
+    @Id
+    @Column(name = "product_id")
+    private Long productId;
+
+    @Column(name = "details_url", nullable = false, length = 1000)
+    private String detailsUrl;                // validators only apply while the product still points here
+
+    @Column(length = 255)
+    private String etag;
+
+    @Column(name = "last_modified", length = 64)
+    private String lastModified;              // raw Last-Modified header, sent back as is
+
+    @Column(name = "fetched_at", nullable = false)
+    private LocalDateTime fetchedAt;
+}
@@ -53,6 +53,11 @@ public class User {
     @Column(nullable = false)
     private SubscriptionStatus status = SubscriptionStatus.INACTIVE;
 
+    // Bumped to revoke every JWT issued before (logout, password reset, deactivation).
+    // Only written by UserRepository.incrementTokenEpoch so a stale entity save cannot roll it back.
+    @Column(name = "token_epoch", nullable = false, updatable = false, columnDefinition = "integer default 0")
+    private int tokenEpoch = 0;
+
     @OneToOne(mappedBy = "user", cascade = CascadeType.ALL, orphanRemoval = true)
     private VeterinaireProfile veterinaireProfile;
 
@@ -11,4 +11,6 @@ public interface AuthService {
 
     ResponseEntity<String> resetPassword(Map<String, String> request, UserDetails userDetails);
 
+    void logout(String email);
+
 }
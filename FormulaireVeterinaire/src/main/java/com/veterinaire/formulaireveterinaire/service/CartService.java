@@ -1,16 +1,19 @@
 package com.veterinaire.formulaireveterinaire.service;
 
 
+import com.veterinaire.formulaireveterinaire.Config.AuthenticatedUser;
 import com.veterinaire.formulaireveterinaire.DTO.Cart.CartItemDto;
 import com.veterinaire.formulaireveterinaire.DTO.Cart.CartItemRequest;
 import com.veterinaire.formulaireveterinaire.DTO.Cart.CartResponse;
+import com.veterinaire.formulaireveterinaire.DTO.Cart.CartSyncRequest;
 
 
 public interface CartService {
-    CartResponse getCart(Long userId);
-    CartItemDto addItem(Long userId, CartItemRequest req);
-    CartItemDto updateItem(Long userId, Long itemId, Integer quantity);
-    void removeItem(Long userId, Long itemId);
-    void clearCart(Long userId);
-    String checkout(Long userId);
+    CartResponse getCart(AuthenticatedUser user);
+    CartItemDto addItem(AuthenticatedUser user, CartItemRequest req);
+    CartItemDto updateItem(AuthenticatedUser user, Long itemId, Integer quantity);
+    void removeItem(AuthenticatedUser user, Long itemId);
+    void clearCart(AuthenticatedUser user);
+    CartResponse syncCart(AuthenticatedUser user, CartSyncRequest req);
+    String checkout(AuthenticatedUser user);
 }
@@ -0,0 +1,18 @@
+package com.veterinaire.formulaireveterinaire.service;
+
+import com.veterinaire.formulaireveterinaire.Config.AuthenticatedUser;
+import com.veterinaire.formulaireveterinaire.DTO.Order.OrderPageResponse;
+import com.veterinaire.formulaireveterinaire.DTO.Order.OrderTransitionRequest;
+import com.veterinaire.formulaireveterinaire.DTO.Order.OrderTransitionResponse;
+import com.veterinaire.formulaireveterinaire.Enums.OrderStatus;
+
+import java.time.LocalDateTime;
+import java.util.Set;
+
+public interface OrderService {
+    OrderPageResponse getOrderHistory(AuthenticatedUser user, Set<OrderStatus> statuses,
+                                      LocalDateTime from, LocalDateTime to, String cursor, Integer size);
+    OrderPageResponse getOrderBoard(Long userId, Set<OrderStatus> statuses,
+                                    LocalDateTime from, LocalDateTime to, String cursor, Integer size);
+    OrderTransitionResponse transitionOrders(AuthenticatedUser admin, OrderTransitionRequest req);
+}
@@ -1,7 +1,14 @@
 package com.veterinaire.formulaireveterinaire.service;
 
+import com.veterinaire.formulaireveterinaire.DTO.Product.ProductPageResponse;
+import com.veterinaire.formulaireveterinaire.DTO.Product.ProductSearchResponse;
+import com.veterinaire.formulaireveterinaire.Enums.Category;
+import com.veterinaire.formulaireveterinaire.Enums.ProductSort;
+import com.veterinaire.formulaireveterinaire.Enums.SubCategory;
 import com.veterinaire.formulaireveterinaire.entity.Product;
 
+import java.math.BigDecimal;
+
 import java.util.*;
 
 public interface ProductService {
@@ -10,7 +17,12 @@ public interface ProductService {
     Product createProduct(Product product);
     Product updateProduct(Long id, Product product);
     void deleteProduct(Long id);
-    List<Product> getProductsByCategory(String category);
-    List<Product> getProductsBySubCategory(String subCategory);
+    List<Product> getProductsByCategory(Category category);
+    List<Product> getProductsBySubCategory(SubCategory subCategory);
     List<Product> getProductsByStockStatus(Boolean inStock);
+    ProductPageResponse searchProducts(Category category, SubCategory subCategory, Boolean inStock,
+                                       BigDecimal minPrice, BigDecimal maxPrice, String name,
+                                       ProductSort sort, String cursor, Integer size);
+    ProductSearchResponse fullTextSearch(String query, Category category, SubCategory subCategory,
+                                         Boolean inStock, Integer size);
 }
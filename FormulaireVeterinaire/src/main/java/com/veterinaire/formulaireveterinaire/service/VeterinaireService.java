@@ -1,4 +1,5 @@
 package com.veterinaire.formulaireveterinaire.service;
+import com.veterinaire.formulaireveterinaire.Config.AuthenticatedUser;
 import com.veterinaire.formulaireveterinaire.DTO.UserDTO;
 import com.veterinaire.formulaireveterinaire.Enums.SubscriptionType;
 import com.veterinaire.formulaireveterinaire.entity.User;
@@ -11,4 +12,6 @@ public interface VeterinaireService {
 
 
     UserDTO getVeterinaireByEmail(String email);
+
+    UserDTO getVeterinaireProfile(AuthenticatedUser principal);
 }
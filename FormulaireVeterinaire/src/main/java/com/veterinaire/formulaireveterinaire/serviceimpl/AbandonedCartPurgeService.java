@@ -0,0 +1,78 @@
+package com.veterinaire.formulaireveterinaire.serviceimpl;
+
+import com.veterinaire.formulaireveterinaire.DAO.Cart.CartPurgeRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Deletes carts (and their lines) nobody touched for {@code cart.retention.idle-days}. Walks the
+ * idle carts by id in chunks of {@code cart.retention.chunk-size}, one delete statement per chunk,
+ * so the job never runs a long transaction against the orders table.
+ */
+@Service
+public class AbandonedCartPurgeService {
+
+    private static final Logger logger = LoggerFactory.getLogger(AbandonedCartPurgeService.class);
+
+    private final CartPurgeRepository purgeRepository;
+    private final int idleDays;
+    private final int chunkSize;
+
+    private final Counter cartsDeleted;
+    private final Counter itemsDeleted;
+    private final Timer purgeTimer;
+
+    public AbandonedCartPurgeService(CartPurgeRepository purgeRepository, MeterRegistry meterRegistry,
+                                     @Value("${cart.retention.idle-days:30}") int idleDays,
+                                     @Value("${cart.retention.chunk-size:500}") int chunkSize) {
+        if (idleDays < 1 || chunkSize < 1) {
+            throw new IllegalArgumentException("cart.retention.idle-days and cart.retention.chunk-size must be positive");
+        }
+        this.purgeRepository = purgeRepository;
+        this.idleDays = idleDays;
+        this.chunkSize = chunkSize;
+        this.cartsDeleted = Counter.builder("cart.purge.deleted").tag("table", "orders").register(meterRegistry);
+        this.itemsDeleted = Counter.builder("cart.purge.deleted").tag("table", "order_items").register(meterRegistry);
+        this.purgeTimer = Timer.builder("cart.purge.duration").register(meterRegistry);
+    }
+
+    /** @return The rows deleted by this run. */
+    public CartPurgeRepository.DeletedRows purge() {
+        long started = System.nanoTime();
+        LocalDateTime idleBefore = LocalDateTime.now().minusDays(idleDays);
+        int carts = 0, items = 0, chunks = 0;
+        long afterId = 0;
+        try {
+            while (true) {
+                List<Long> ids = purgeRepository.findIdleCarts(idleBefore, afterId, chunkSize);
+                if (ids.isEmpty()) {
+                    break;
+                }
+                CartPurgeRepository.DeletedRows deleted = purgeRepository.deleteCarts(ids, idleBefore);
+                carts += deleted.carts();
+                items += deleted.items();
+                cartsDeleted.increment(deleted.carts());
+                itemsDeleted.increment(deleted.items());
+                chunks++;
+                if (ids.size() < chunkSize) {
+                    break;
+                }
+                afterId = ids.get(ids.size() - 1);
+            }
+        } finally {
+            purgeTimer.record(Duration.ofNanos(System.nanoTime() - started));
+        }
+        logger.info("Abandoned cart purge: {} carts and {} lines idle since {} deleted in {} chunks",
+                carts, items, idleBefore, chunks);
+        return new CartPurgeRepository.DeletedRows(carts, items);
+    }
+}
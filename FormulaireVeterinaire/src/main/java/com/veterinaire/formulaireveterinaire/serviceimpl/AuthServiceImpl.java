@@ -1,21 +1,19 @@
 package com.veterinaire.formulaireveterinaire.serviceimpl;
 
+import com.veterinaire.formulaireveterinaire.Config.AuthCookies;
 import com.veterinaire.formulaireveterinaire.Config.JwtUtil;
 import com.veterinaire.formulaireveterinaire.DAO.UserRepository;
+import com.veterinaire.formulaireveterinaire.DTO.AuthPrincipalDTO;
 import com.veterinaire.formulaireveterinaire.DTO.LoginDTO;
 
 import com.veterinaire.formulaireveterinaire.entity.User;
 import com.veterinaire.formulaireveterinaire.service.AuthService;
-import com.veterinaire.formulaireveterinaire.service.UserService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
-import org.springframework.security.authentication.AuthenticationManager;
-import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
-import org.springframework.security.core.Authentication;
-import org.springframework.security.core.AuthenticationException;
-import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 
 import java.util.HashMap;
@@ -24,51 +22,56 @@ import java.util.Map;
 @Service
 public class AuthServiceImpl implements AuthService {
 
-    private final AuthenticationManager authenticationManager;
+    private static final Logger logger = LoggerFactory.getLogger(AuthServiceImpl.class);
+
     private final JwtUtil jwtUtil;
     private final UserRepository userRepository;
-    private final UserService userService;
-    private final PasswordEncoder passwordEncoder;
+    private final PasswordHashingService passwordHashingService;
+    private final TokenEpochRegistry tokenEpochRegistry;
 
-    public AuthServiceImpl(AuthenticationManager authenticationManager, JwtUtil jwtUtil,
-                           UserRepository userRepository, UserService userService, PasswordEncoder passwordEncoder) {
-        this.authenticationManager = authenticationManager;
+    public AuthServiceImpl(JwtUtil jwtUtil, UserRepository userRepository,
+                           PasswordHashingService passwordHashingService, TokenEpochRegistry tokenEpochRegistry) {
         this.jwtUtil = jwtUtil;
         this.userRepository = userRepository;
-        this.userService = userService;
-        this.passwordEncoder = passwordEncoder;
+        this.passwordHashingService = passwordHashingService;
+        this.tokenEpochRegistry = tokenEpochRegistry;
     }
 
     @Override
     public Map<String, Object> login(LoginDTO loginDTO) {
-        try {
-            // Authenticate user with email and password
-            Authentication authentication = authenticationManager.authenticate(
-                    new UsernamePasswordAuthenticationToken(loginDTO.email(), loginDTO.password())
-            );
-            SecurityContextHolder.getContext().setAuthentication(authentication);
+        // Load user once: credentials, role and token epoch in a single query
+        AuthPrincipalDTO principal = userRepository.findAuthPrincipalByEmail(loginDTO.email()).orElse(null);
 
-            // Load user details
-            User user = userService.findByEmail(loginDTO.email())
-                    .orElseThrow(() -> new RuntimeException("User not found: " + loginDTO.email()));
+        // BCrypt runs on the bounded hashing pool; a dummy hash is checked when the user is unknown
+        String storedHash = principal != null ? principal.password() : null;
+        if (!passwordHashingService.matches(loginDTO.password(), storedHash)) {
+            throw new RuntimeException("Unauthorized: Bad credentials");
+        }
 
-            // For non-admin users (isAdmin = false), allow login regardless of status or subscription
-            // Admins (isAdmin = true) can always log in
-            // No checks for status or subscription expiration for non-admins
+        // Transparently move the stored hash to the configured BCrypt cost
+        if (passwordHashingService.needsRehash(storedHash)) {
+            try {
+                userRepository.updatePassword(principal.id(), passwordHashingService.encode(loginDTO.password()));
+                logger.info("Password rehashed with the configured BCrypt cost for user ID: {}", principal.id());
+            } catch (PasswordHashingService.SaturatedException e) {
+                logger.debug("Hashing pool saturated, rehash for user ID {} postponed", principal.id());
+            }
+        }
 
-            // Generate JWT token
-            String token = jwtUtil.generateToken(loginDTO.email(), user.isAdmin());
-            Map<String, Object> response = new HashMap<>();
-            response.put("token", token);
+        // For non-admin users (isAdmin = false), allow login regardless of status or subscription
+        // Admins (isAdmin = true) can always log in
+        // No checks for status or subscription expiration for non-admins
 
-            response.put("isAdmin", user.isAdmin());
+        // Generate JWT token
+        String token = jwtUtil.generateToken(principal.email(), principal.isAdmin(), principal.tokenEpoch());
+        Map<String, Object> response = new HashMap<>();
+        response.put("token", token);
 
-            response.put("userId", user.getId());
+        response.put("isAdmin", principal.isAdmin());
 
-            return response;
-        } catch (AuthenticationException e) {
-            throw new RuntimeException("Unauthorized: Bad credentials", e);
-        }
+        response.put("userId", principal.id());
+
+        return response;
     }
 
     @Override
@@ -96,15 +99,27 @@ public class AuthServiceImpl implements AuthService {
         }
 
         // ✅ Verify current password
-        if (!passwordEncoder.matches(currentPassword, user.getPassword())) {
+        if (!passwordHashingService.matches(currentPassword, user.getPassword())) {
             return ResponseEntity.status(HttpStatus.BAD_REQUEST)
                     .body("{\"error\": \"Current password is incorrect\"}");
         }
 
         // ✅ Save new password
-        user.setPassword(passwordEncoder.encode(newPassword));
+        user.setPassword(passwordHashingService.encode(newPassword));
         userRepository.save(user);
 
-        return ResponseEntity.ok("{\"message\": \"Mot de passe réinitialisé avec succès\"}");
+        // ✅ Revoke every other session, then hand this one a fresh token
+        tokenEpochRegistry.bump(user.getId());
+        String token = jwtUtil.generateToken(email, user.isAdmin(), tokenEpochRegistry.current(user.getId()));
+
+        return ResponseEntity.ok()
+                .header(HttpHeaders.SET_COOKIE, AuthCookies.accessToken(token).toString())
+                .body("{\"message\": \"Mot de passe réinitialisé avec succès\"}");
+    }
+
+    @Override
+    public void logout(String email) {
+        userRepository.findByEmail(email)
+                .ifPresent(user -> tokenEpochRegistry.bump(user.getId()));
     }
 }
@@ -1,36 +1,38 @@
 package com.veterinaire.formulaireveterinaire.serviceimpl;
 
+import com.veterinaire.formulaireveterinaire.Config.AuthenticatedUser;
 import com.veterinaire.formulaireveterinaire.DAO.ProductRepository;
-import com.veterinaire.formulaireveterinaire.DAO.UserRepository;
 import com.veterinaire.formulaireveterinaire.DTO.Cart.CartItemDto;
 import com.veterinaire.formulaireveterinaire.DTO.Cart.CartItemRequest;
+import com.veterinaire.formulaireveterinaire.DTO.Cart.CartLineDTO;
 import com.veterinaire.formulaireveterinaire.DTO.Cart.CartResponse;
+import com.veterinaire.formulaireveterinaire.DTO.Cart.CartSyncRequest;
 import com.veterinaire.formulaireveterinaire.entity.CartOrder;
 import com.veterinaire.formulaireveterinaire.entity.OrderItem;
 import com.veterinaire.formulaireveterinaire.Enums.OrderStatus;
 import com.veterinaire.formulaireveterinaire.DAO.Cart.CartOrderRepository;
+import com.veterinaire.formulaireveterinaire.DAO.Cart.OrderItemBatchRepository;
 import com.veterinaire.formulaireveterinaire.DAO.Cart.OrderItemRepository;
 import com.veterinaire.formulaireveterinaire.entity.Product;
-import com.veterinaire.formulaireveterinaire.entity.User;
 import com.veterinaire.formulaireveterinaire.service.CartService;
-import jakarta.mail.MessagingException;
-import jakarta.mail.internet.MimeMessage;
 import jakarta.persistence.EntityNotFoundException;
 import lombok.RequiredArgsConstructor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.beans.factory.annotation.Value;
-import org.springframework.mail.javamail.JavaMailSender;
-import org.springframework.mail.javamail.MimeMessageHelper;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
-import java.time.LocalDate;
 import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
-import java.util.UUID;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.concurrent.locks.ReentrantLock;
 
 @Service
 @RequiredArgsConstructor
@@ -38,59 +40,83 @@ public class CartServiceImpl implements CartService {
 
     private final CartOrderRepository cartOrderRepo;
     private final OrderItemRepository itemRepo;
-    private final UserRepository userRepo;
+    private final OrderItemBatchRepository itemBatchRepo;
     private final ProductRepository productRepo;
-    private final JavaMailSender mailSender;
-
-    @Value("${finance.email}")
-    private String financeEmail;
+    private final MailOutboxService mailOutbox;
+    private final EmailTemplateEngine templateEngine;
+    private final FinanceDigestService financeDigest;
+    private final OrderNumberGenerator orderNumbers;
 
     private static final Logger logger = LoggerFactory.getLogger(CartServiceImpl.class);
 
+    // Serializes cart creation per user inside this JVM; the database index covers other instances
+    private final StripedLocks cartCreationLocks = new StripedLocks(64);
+
     // --- Helper: Get or create CART ---
     private CartOrder getOrCreateCart(Long userId) {
-        return cartOrderRepo.findByUserIdAndStatus(userId, OrderStatus.CART)
-                .orElseGet(() -> {
-                    CartOrder cart = new CartOrder();
-                    cart.setUserId(userId);
-                    cart.setStatus(OrderStatus.CART);
-                    cart.setTotalAmount(BigDecimal.ZERO);
-                    return cartOrderRepo.save(cart);
-                });
+        Optional<CartOrder> existing = cartOrderRepo.findByUserIdAndStatus(userId, OrderStatus.CART);
+        if (existing.isPresent()) {
+            return existing.get();
+        }
+
+        ReentrantLock lock = cartCreationLocks.lockFor(userId);
+        lock.lock();
+        try {
+            existing = cartOrderRepo.findByUserIdAndStatus(userId, OrderStatus.CART);
+            if (existing.isPresent()) {
+                return existing.get();
+            }
+            // Concurrent creators (other threads or instances) end up on the same row
+            cartOrderRepo.insertCartIfAbsent(userId);
+            return cartOrderRepo.findByUserIdAndStatus(userId, OrderStatus.CART)
+                    .orElseThrow(() -> new IllegalStateException("Cart creation failed for user " + userId));
+        } finally {
+            lock.unlock();
+        }
     }
 
-    // --- Recalculate total ---
-    private void recalcTotal(Long orderId) {
-        List<OrderItem> items = itemRepo.findByOrderId(orderId);
-        BigDecimal total = items.stream()
-                .map(i -> i.getPrice().multiply(BigDecimal.valueOf(i.getQuantity())))
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
+    // --- Apply a total delta in one atomic UPDATE ---
+    private void adjustTotal(Long orderId, BigDecimal delta) {
+        if (delta.signum() == 0) {
+            return;
+        }
+        // 0 rows: the cart was checked out concurrently, roll the line change back
+        if (cartOrderRepo.addToTotal(orderId, delta) == 0) {
+            throw new ObjectOptimisticLockingFailureException(CartOrder.class, orderId);
+        }
+    }
 
-        CartOrder order = (CartOrder) cartOrderRepo.findById(orderId).orElseThrow();
-        order.setTotalAmount(total);
-        cartOrderRepo.save(order);
+    private static BigDecimal lineTotal(BigDecimal price, int quantity) {
+        return price.multiply(BigDecimal.valueOf(quantity));
+    }
+
+    // --- Map a joined cart line to the API DTO ---
+    private static CartItemDto toDto(CartLineDTO line) {
+        CartItemDto dto = new CartItemDto();
+        dto.setItemId(line.itemId());
+        dto.setProductId(line.productId());
+        dto.setProductName(line.productName());
+        dto.setImageUrl(line.imageUrl());
+        dto.setQuantity(line.quantity());
+        dto.setPrice(line.price());
+        dto.setSubTotal(line.subTotal());
+        return dto;
     }
 
     @Override
-    public CartResponse getCart(Long userId) {
-        CartOrder cart = getOrCreateCart(userId);
-        List<OrderItem> items = itemRepo.findByOrderId(cart.getId());
-
-        List<CartItemDto> dtos = items.stream().map(item -> {
-            // Fetch product
-            Product product = productRepo.findById(item.getProductId())
-                    .orElseThrow(() -> new EntityNotFoundException("Product not found: " + item.getProductId()));
-
-            CartItemDto dto = new CartItemDto();
-            dto.setItemId(item.getId());
-            dto.setProductId(item.getProductId());
-            dto.setProductName(product.getName());
-            dto.setImageUrl(product.getImageUrl());
-            dto.setQuantity(item.getQuantity());
-            dto.setPrice(item.getPrice());
-            dto.setSubTotal(item.getPrice().multiply(BigDecimal.valueOf(item.getQuantity())));
-            return dto;
-        }).toList();
+    public CartResponse getCart(AuthenticatedUser user) {
+        // Reading never creates a cart: the row only appears with the first write
+        Optional<CartOrder> existing = cartOrderRepo.findByUserIdAndStatus(user.userId(), OrderStatus.CART);
+        if (existing.isEmpty()) {
+            CartResponse empty = new CartResponse();
+            empty.setTotalAmount(BigDecimal.ZERO);
+            empty.setItems(List.of());
+            return empty;
+        }
+        CartOrder cart = existing.get();
+        List<CartItemDto> dtos = itemRepo.findCartLines(cart.getId()).stream()
+                .map(CartServiceImpl::toDto)
+                .toList();
 
         CartResponse resp = new CartResponse();
         resp.setCartId(cart.getId());
@@ -101,38 +127,33 @@ public class CartServiceImpl implements CartService {
 
     @Override
     @Transactional
-    public CartItemDto addItem(Long userId, CartItemRequest req) {
-        CartOrder cart = getOrCreateCart(userId);
+    public CartItemDto addItem(AuthenticatedUser user, CartItemRequest req) {
+        CartOrder cart = getOrCreateCart(user.userId());
 
         Product product = productRepo.findById(req.getProductId())
                 .orElseThrow(() -> new EntityNotFoundException("Product not found: " + req.getProductId()));
 
-        BigDecimal price = product.getPrice();
+        // Same product added again: the existing line is incremented instead of duplicated
+        OrderItemRepository.UpsertedLine line = itemRepo.upsertLine(
+                cart.getId(), req.getProductId(), req.getQuantity(), product.getPrice());
 
-        OrderItem item = new OrderItem();
-        item.setOrderId(cart.getId());
-        item.setProductId(req.getProductId());
-        item.setQuantity(req.getQuantity());
-        item.setPrice(price);
-        item = itemRepo.save(item);
-
-        recalcTotal(cart.getId());
+        adjustTotal(cart.getId(), lineTotal(line.getPrice(), req.getQuantity()));
 
         CartItemDto dto = new CartItemDto();
-        dto.setItemId(item.getId());
-        dto.setProductId(item.getProductId());
+        dto.setItemId(line.getId());
+        dto.setProductId(req.getProductId());
         dto.setProductName(product.getName());
         dto.setImageUrl(product.getImageUrl());
-        dto.setQuantity(item.getQuantity());
-        dto.setPrice(item.getPrice());
-        dto.setSubTotal(item.getPrice().multiply(BigDecimal.valueOf(item.getQuantity())));
+        dto.setQuantity(line.getQuantity());
+        dto.setPrice(line.getPrice());
+        dto.setSubTotal(lineTotal(line.getPrice(), line.getQuantity()));
         return dto;
     }
 
     @Override
     @Transactional
-    public CartItemDto updateItem(Long userId, Long itemId, Integer quantity) {
-        CartOrder cart = getOrCreateCart(userId);
+    public CartItemDto updateItem(AuthenticatedUser user, Long itemId, Integer quantity) {
+        CartOrder cart = getOrCreateCart(user.userId());
         OrderItem item = itemRepo.findById(itemId)
                 .orElseThrow(() -> new EntityNotFoundException("Cart item not found"));
 
@@ -141,14 +162,19 @@ public class CartServiceImpl implements CartService {
         }
 
         if (quantity <= 0) {
-            itemRepo.delete(item);
-            recalcTotal(cart.getId());
+            if (itemRepo.deleteLine(item.getId()) > 0) {
+                adjustTotal(cart.getId(), lineTotal(item.getPrice(), item.getQuantity()).negate());
+            }
             return null; // or throw
         }
 
+        int previousQuantity = item.getQuantity();
+        if (itemRepo.updateQuantity(item.getId(), previousQuantity, quantity) == 0) {
+            // Changed or removed by another request since we read it
+            throw new ObjectOptimisticLockingFailureException(OrderItem.class, item.getId());
+        }
         item.setQuantity(quantity);
-        itemRepo.save(item);
-        recalcTotal(cart.getId());
+        adjustTotal(cart.getId(), lineTotal(item.getPrice(), quantity - previousQuantity));
 
         CartItemDto dto = new CartItemDto();
         dto.setItemId(item.getId());
@@ -161,8 +187,8 @@ public class CartServiceImpl implements CartService {
 
     @Override
     @Transactional
-    public void removeItem(Long userId, Long itemId) {
-        CartOrder cart = getOrCreateCart(userId);
+    public void removeItem(AuthenticatedUser user, Long itemId) {
+        CartOrder cart = getOrCreateCart(user.userId());
         OrderItem item = itemRepo.findById(itemId)
                 .orElseThrow(() -> new EntityNotFoundException("Item not found"));
 
@@ -170,23 +196,94 @@ public class CartServiceImpl implements CartService {
             throw new IllegalArgumentException("Item does not belong to user's cart");
         }
 
-        itemRepo.delete(item);
-        recalcTotal(cart.getId());
+        if (itemRepo.deleteLine(item.getId()) > 0) {
+            adjustTotal(cart.getId(), lineTotal(item.getPrice(), item.getQuantity()).negate());
+        }
     }
 
     @Override
     @Transactional
-    public void clearCart(Long userId) {
-        CartOrder cart = getOrCreateCart(userId);
+    public void clearCart(AuthenticatedUser user) {
+        Optional<CartOrder> existing = cartOrderRepo.findByUserIdAndStatus(user.userId(), OrderStatus.CART);
+        if (existing.isEmpty()) {
+            return;
+        }
+        CartOrder cart = existing.get();
         itemRepo.deleteByOrderId(cart.getId());
         cart.setTotalAmount(BigDecimal.ZERO);
+        cart.setUpdatedAt(LocalDateTime.now());
         cartOrderRepo.save(cart);
     }
 
     @Override
     @Transactional
-    public String checkout(Long userId) {
-        CartOrder cart = cartOrderRepo.findByUserIdAndStatus(userId, OrderStatus.CART)
+    public CartResponse syncCart(AuthenticatedUser user, CartSyncRequest req) {
+        CartOrder cart = getOrCreateCart(user.userId());
+        Long cartVersion = cart.getVersion();
+
+        Map<Long, OrderItem> current = itemRepo.findByOrderId(cart.getId()).stream()
+                .collect(Collectors.toMap(OrderItem::getProductId, Function.identity()));
+
+        List<OrderItemBatchRepository.NewLine> inserts = new ArrayList<>();
+        List<OrderItemBatchRepository.QuantityChange> updates = new ArrayList<>();
+        List<Long> deletes = new ArrayList<>();
+        BigDecimal delta = BigDecimal.ZERO;
+
+        // Lines to drop or change
+        for (OrderItem item : current.values()) {
+            int wanted = req.getItems().getOrDefault(item.getProductId(), 0);
+            if (wanted == 0) {
+                deletes.add(item.getId());
+                delta = delta.subtract(lineTotal(item.getPrice(), item.getQuantity()));
+            } else if (wanted != item.getQuantity()) {
+                updates.add(new OrderItemBatchRepository.QuantityChange(item.getId(), item.getQuantity(), wanted));
+                delta = delta.add(lineTotal(item.getPrice(), wanted - item.getQuantity()));
+            }
+        }
+
+        // New lines: every unknown product priced with a single query
+        Map<Long, Integer> added = new HashMap<>();
+        req.getItems().forEach((productId, quantity) -> {
+            if (quantity > 0 && !current.containsKey(productId)) {
+                added.put(productId, quantity);
+            }
+        });
+        if (!added.isEmpty()) {
+            Map<Long, Product> products = productRepo.findAllById(added.keySet()).stream()
+                    .collect(Collectors.toMap(Product::getId, Function.identity()));
+            for (Map.Entry<Long, Integer> entry : added.entrySet()) {
+                Product product = products.get(entry.getKey());
+                if (product == null) {
+                    throw new EntityNotFoundException("Product not found: " + entry.getKey());
+                }
+                inserts.add(new OrderItemBatchRepository.NewLine(entry.getKey(), entry.getValue(), product.getPrice()));
+                delta = delta.add(lineTotal(product.getPrice(), entry.getValue()));
+            }
+        }
+
+        boolean applied = itemBatchRepo.deleteLines(deletes)
+                && itemBatchRepo.updateQuantities(updates)
+                && itemBatchRepo.insertLines(cart.getId(), inserts);
+        // Total applied once, and only if no other request changed the cart since it was read
+        if (!applied || cartOrderRepo.addToTotalIfUnchanged(cart.getId(), cartVersion, delta) == 0) {
+            throw new ObjectOptimisticLockingFailureException(CartOrder.class, cart.getId());
+        }
+        logger.debug("Cart {} synced: {} inserted, {} updated, {} deleted",
+                cart.getId(), inserts.size(), updates.size(), deletes.size());
+
+        CartResponse resp = new CartResponse();
+        resp.setCartId(cart.getId());
+        resp.setTotalAmount(cart.getTotalAmount().add(delta));
+        resp.setItems(itemRepo.findCartLines(cart.getId()).stream()
+                .map(CartServiceImpl::toDto)
+                .toList());
+        return resp;
+    }
+
+    @Override
+    @Transactional
+    public String checkout(AuthenticatedUser user) {
+        CartOrder cart = cartOrderRepo.findByUserIdAndStatus(user.userId(), OrderStatus.CART)
                 .orElseThrow(() -> new EntityNotFoundException("No cart found"));
 
         if (cart.getTotalAmount() == null || cart.getTotalAmount().compareTo(BigDecimal.ZERO) <= 0) {
@@ -195,168 +292,47 @@ public class CartServiceImpl implements CartService {
 
         // Confirm order
         cart.setStatus(OrderStatus.CONFIRMED);
-        String orderNumber = "ORD-" + UUID.randomUUID().toString().substring(0, 8).toUpperCase();
+        String orderNumber = orderNumbers.next();
         cart.setOrderNumber(orderNumber);
         cart.setConfirmedAt(LocalDateTime.now());
         cartOrderRepo.save(cart);
 
-        // Fetch user
-        User user = userRepo.findById(userId)
-                .orElseThrow(() -> new EntityNotFoundException("User not found"));
-
-        // SEND EMAIL
-        sendOrderConfirmationEmail(user, cart, financeEmail);
+        // SEND EMAIL; finance sees the order in its daily digest
+        sendOrderConfirmationEmail(user, cart);
+        financeDigest.recordOrder(user.userId(), orderNumber, cart.getTotalAmount());
 
         return orderNumber;
     }
 
-    private void sendOrderConfirmationEmail(User user, CartOrder order, String ccEmail) {
-        MimeMessage message = mailSender.createMimeMessage();
-        DateTimeFormatter formatter = DateTimeFormatter.ofPattern("dd/MM/yyyy HH:mm");
-        String orderDateStr = order.getConfirmedAt().format(formatter);
+    private void sendOrderConfirmationEmail(AuthenticatedUser user, CartOrder order) {
+        String nom = user.nom() != null ? user.nom() : "Cher client";
+
+        List<CartLineDTO> lines = itemRepo.findCartLines(order.getId());
+        EmailTemplate lineTemplate = templateEngine.get("order-confirmation-line");
+        StringBuilder itemsHtml = new StringBuilder(lines.size() * 800);
+
+        for (CartLineDTO line : lines) {
+            String productName = line.productName() != null ? line.productName() : "Produit #" + line.productId();
+            lineTemplate.model()
+                    .set("imageUrl", line.imageUrl() != null ? line.imageUrl() : "")
+                    .set("productName", productName)
+                    .set("quantity", line.quantity())
+                    .set("unitPrice", line.price())
+                    .set("subTotal", line.subTotal())
+                    .appendTo(itemsHtml);
+        }
 
-        try {
-            MimeMessageHelper helper = new MimeMessageHelper(message, true, "UTF-8");
-            helper.setTo(user.getEmail());
-            helper.setCc(ccEmail);
-            helper.setSubject("Commande Confirmée – VITALFEED");
-
-            String nom = user.getNom() != null ? user.getNom() : "Cher client";
-
-            List<OrderItem> items = itemRepo.findByOrderId(order.getId());
-            StringBuilder itemsHtml = new StringBuilder();
-
-            for (OrderItem item : items) {
-                Product product = productRepo.findById(item.getProductId())
-                        .orElseThrow(() -> new EntityNotFoundException("Product not found"));
-
-                String productName = product.getName();
-                String imageUrl = product.getImageUrl() != null ? product.getImageUrl() : "";
-                BigDecimal subTotal = item.getPrice().multiply(BigDecimal.valueOf(item.getQuantity()));
-                String unitPriceStr = String.format("%.2f", item.getPrice());
-                String subTotalStr = String.format("%.2f", subTotal);
-
-                itemsHtml.append("""
-                <tr style="border-bottom:1px solid #eee;">
-                    <td style="padding:12px; vertical-align:middle;">
-                        <img src="%s" alt="%s" style="width:60px; height:60px; object-fit:cover; border-radius:6px; float:left; margin-right:12px;">
-                        <div style="margin-left:72px;">
-                            <strong style="font-size:15px;">%s</strong>
-                        </div>
-                    </td>
-                    <td style="padding:12px; text-align:center; vertical-align:middle; font-weight:600;">%d</td>
-                    <td style="padding:12px; text-align:right; vertical-align:middle; font-weight:600;">%s TND</td>
-                    <td style="padding:12px; text-align:right; vertical-align:middle; font-weight:600;">%s TND</td>
-                </tr>
-                """.formatted(
-                        imageUrl,
-                        productName,
-                        productName,
-                        item.getQuantity(),
-                        unitPriceStr,
-                        subTotalStr
-                ));
-            }
+        String htmlContent = templateEngine.get("order-confirmation").model()
+                .set("nom", nom)
+                .set("orderNumber", order.getOrderNumber())
+                .set("confirmedAt", order.getConfirmedAt())
+                .set("items", itemsHtml)
+                .set("total", order.getTotalAmount())
+                .render();
 
-            String totalStr = String.format("%.2f", order.getTotalAmount());
-
-            String htmlContent = """
-<!DOCTYPE html>
-<html>
-<head>
-  <meta charset="UTF-8">
-  <title>Commande Confirmée – VITALFEED</title>
-</head>
-<body style="margin:0; padding:0; background-color:#f7f9fc; font-family:Segoe UI, Tahoma, Geneva, Verdana, sans-serif; color:#333;">
-  <table role="presentation" width="100%%" cellspacing="0" cellpadding="0" border="0">
-    <tr>
-      <td align="center" style="padding:30px 0;">
-        <table width="680" cellpadding="0" cellspacing="0" border="0" style="background:#ffffff; border-radius:12px; overflow:hidden;">
-          <!-- Header -->
-          <tr>
-            <td align="center" style="background-color:#00897B; color:#fff; padding:30px;">
-              <h1 style="margin:0; font-size:26px;">VITALFEED</h1>
-              <p style="margin:8px 0 0; font-size:14px;">Simplifiez et modernisez votre pratique vétérinaire</p>
-            </td>
-          </tr>
-
-          <!-- Content -->
-          <tr>
-            <td style="padding:40px;">
-              <p style="font-size:16px; line-height:1.6; margin-bottom:25px;">
-                <strong>Bonjour Dr %s,</strong><br>
-                Votre commande sur <strong>VITALFEED</strong> a été <strong>confirmée avec succès</strong>.<br>
-                Notre service financier vous contactera sous 24h pour finaliser le paiement.
-              </p>
-
-              <h3 style="color:#00897B; border-bottom:2px solid #e0f2f1; padding-bottom:6px; font-size:18px;">Détails de la commande</h3>
-              <table width="100%%" cellspacing="0" cellpadding="4" style="font-size:15px; margin-bottom:30px;">
-                <tr>
-                  <td><strong>Numéro de commande :</strong></td>
-                  <td align="right">%s</td>
-                </tr>
-                <tr>
-                  <td><strong>Date de confirmation :</strong></td>
-                  <td align="right">%s</td>
-                </tr>
-              </table>
-
-              <h3 style="color:#00897B; border-bottom:2px solid #e0f2f1; padding-bottom:6px; font-size:18px;">Produits commandés</h3>
-              <table width="100%%" cellpadding="0" cellspacing="0" border="0" style="border-collapse:collapse; font-size:15px;">
-                <thead>
-                  <tr style="background:#e0f2f1; color:#00695c;">
-                    <th align="left" style="padding:12px;">Produit</th>
-                    <th align="center" style="padding:12px;">Quantité</th>
-                    <th align="right" style="padding:12px;">Prix unitaire</th>
-                    <th align="right" style="padding:12px;">Sous-total</th>
-                  </tr>
-                </thead>
-                <tbody>
-                  %s
-                  <tr style="background:#e8f5e9; font-weight:700;">
-                    <td colspan="3" align="right" style="padding:15px;">Total :</td>
-                    <td align="right" style="padding:15px;">%s TND</td>
-                  </tr>
-                </tbody>
-              </table>
-
-              <p style="text-align:center; margin-top:35px; font-size:15px; color:#555;">Merci pour votre confiance !</p>
-              <p style="text-align:center; margin:20px 0 5px; font-weight:600;">Bien cordialement,</p>
-              <p style="text-align:center; margin:0; color:#00897B; font-weight:700;">L’équipe VITALFEED</p>
-            </td>
-          </tr>
-
-          <!-- Footer -->
-          <tr>
-            <td align="center" style="background:#f0f4f8; padding:20px; font-size:13px; color:#666;">
-              <p style="margin:0;">Cet e-mail a été envoyé automatiquement, merci de ne pas y répondre.</p>
-              <p style="margin:5px 0 0;">© %s VITALFEED – Tous droits réservés.</p>
-            </td>
-          </tr>
-        </table>
-      </td>
-    </tr>
-  </table>
-</body>
-</html>
-""".formatted(
-                    nom,
-                    order.getOrderNumber(),
-                    orderDateStr,
-                    itemsHtml.toString(),
-                    totalStr,
-                    String.valueOf(LocalDate.now().getYear())
-            );
-
-
-            helper.setText(htmlContent, true);
-            mailSender.send(message);
-
-            logger.info("Order confirmation email sent to {} with CC to {}", user.getEmail(), ccEmail);
-
-        } catch (MessagingException e) {
-            logger.error("Failed to send order email: {}", e.getMessage());
-            throw new RuntimeException("Erreur lors de l'envoi de l'email", e);
-        }
+        mailOutbox.enqueue(user.email(), null,
+                "Commande Confirmée – VITALFEED", htmlContent);
+
+        logger.info("Order confirmation email queued for {}", user.email());
     }
 }
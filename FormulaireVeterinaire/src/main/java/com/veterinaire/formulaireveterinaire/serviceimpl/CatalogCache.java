@@ -0,0 +1,122 @@
+package com.veterinaire.formulaireveterinaire.serviceimpl;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.veterinaire.formulaireveterinaire.DAO.ProductRepository;
+import com.veterinaire.formulaireveterinaire.entity.Product;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * The serialized product catalog served by /api/products/all. The snapshot holds the JSON and its gzip
+ * form, built once per catalog version: ProductServiceImpl bumps the version on every write, and the
+ * next read rebuilds with a single findAll. The ETag is a hash of the JSON, so it stays stable across
+ * restarts and instances. The TTL only exists so instances that did not see a write catch up.
+ */
+@Component
+public class CatalogCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(CatalogCache.class);
+
+    public record Snapshot(long version, int productCount, String etag, byte[] json, byte[] gzip,
+                           long builtAtNanos) {
+    }
+
+    private final ProductRepository productRepository;
+    private final ObjectMapper objectMapper;
+    private final long ttlNanos;
+    private final AtomicLong version = new AtomicLong();
+    private final LongAdder rebuilds = new LongAdder();
+    private volatile Snapshot snapshot;
+
+    public CatalogCache(ProductRepository productRepository, ObjectMapper objectMapper, MeterRegistry meterRegistry,
+                        @Value("${catalog.cache.ttl-seconds:300}") long ttlSeconds) {
+        this.productRepository = productRepository;
+        this.objectMapper = objectMapper;
+        this.ttlNanos = TimeUnit.SECONDS.toNanos(ttlSeconds);
+        FunctionCounter.builder("catalog.cache.rebuilds", rebuilds, LongAdder::sum).register(meterRegistry);
+    }
+
+    public Snapshot current() {
+        Snapshot current = snapshot;
+        if (isFresh(current)) {
+            return current;
+        }
+        synchronized (this) {
+            // Concurrent misses wait for one rebuild instead of each querying the database
+            current = snapshot;
+            if (isFresh(current)) {
+                return current;
+            }
+            // Read the version first: a write landing during the query makes this snapshot stale right away
+            long buildVersion = version.get();
+            current = build(buildVersion, productRepository.findAll());
+            snapshot = current;
+            rebuilds.increment();
+            logger.debug("Catalog snapshot v{} built: {} products, {} bytes ({} gzipped), ETag {}",
+                    buildVersion, current.productCount(), current.json().length, current.gzip().length, current.etag());
+            return current;
+        }
+    }
+
+    /** Marks the snapshot stale; inside a transaction, again after commit so a rebuild cannot see pre-commit data. */
+    public void invalidate() {
+        version.incrementAndGet();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    version.incrementAndGet();
+                }
+            });
+        }
+    }
+
+    private boolean isFresh(Snapshot current) {
+        return current != null
+                && current.version() == version.get()
+                && System.nanoTime() - current.builtAtNanos() < ttlNanos;
+    }
+
+    private Snapshot build(long buildVersion, List<Product> products) {
+        try {
+            byte[] json = objectMapper.writeValueAsBytes(products);
+            ByteArrayOutputStream gzipped = new ByteArrayOutputStream(json.length / 4 + 64);
+            try (GZIPOutputStream gzip = new GZIPOutputStream(gzipped)) {
+                gzip.write(json);
+            }
+            return new Snapshot(buildVersion, products.size(), etag(json), json, gzipped.toByteArray(), System.nanoTime());
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Cannot serialize the product catalog", e);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static String etag(byte[] json) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(json);
+            return "\"" + Base64.getUrlEncoder().withoutPadding().encodeToString(hash).substring(0, 22) + "\"";
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -2,7 +2,8 @@ package com.veterinaire.formulaireveterinaire.serviceimpl;
 
 
 import com.veterinaire.formulaireveterinaire.DAO.UserRepository;
-import com.veterinaire.formulaireveterinaire.entity.User;
+import com.veterinaire.formulaireveterinaire.DTO.AuthPrincipalDTO;
+import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
@@ -10,24 +11,45 @@ import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
 
 import java.util.Collections;
+import java.util.List;
 
 @Service
 public class CustomUserDetailsService implements UserDetailsService {
 
+    private static final List<GrantedAuthority> ADMIN_AUTHORITIES =
+            Collections.singletonList(new SimpleGrantedAuthority("ROLE_ADMIN"));
+    private static final List<GrantedAuthority> USER_AUTHORITIES =
+            Collections.singletonList(new SimpleGrantedAuthority("ROLE_USER"));
+
     private final UserRepository userRepository;
 
     public CustomUserDetailsService(UserRepository userRepository) {
         this.userRepository = userRepository;
     }
 
-    @Override
-    public UserDetails loadUserByUsername(String email) throws UsernameNotFoundException {
-        User user = userRepository.findByEmail(email)
+    /**
+     * Loads the credentials, role, status and subscription end date of a user in one query.
+     * @param email The user email.
+     * @return The authentication principal data.
+     */
+    public AuthPrincipalDTO loadPrincipal(String email) throws UsernameNotFoundException {
+        return userRepository.findAuthPrincipalByEmail(email)
                 .orElseThrow(() -> new UsernameNotFoundException("Utilisateur non trouvé: " + email));
-        String role = user.isAdmin() ? "ROLE_ADMIN" : "ROLE_USER";
+    }
+
+    public UserDetails toUserDetails(AuthPrincipalDTO principal) {
         return new org.springframework.security.core.userdetails.User(
-                user.getEmail(),
-                user.getPassword(),
-                Collections.singletonList(new SimpleGrantedAuthority(role)));
+                principal.email(),
+                principal.password(),
+                authoritiesFor(principal.isAdmin()));
+    }
+
+    public static List<GrantedAuthority> authoritiesFor(boolean isAdmin) {
+        return isAdmin ? ADMIN_AUTHORITIES : USER_AUTHORITIES;
+    }
+
+    @Override
+    public UserDetails loadUserByUsername(String email) throws UsernameNotFoundException {
+        return toUserDetails(loadPrincipal(email));
     }
 }
@@ -0,0 +1,150 @@
+package com.veterinaire.formulaireveterinaire.serviceimpl;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.Year;
+import java.time.temporal.TemporalAccessor;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A compiled e-mail template: literal segments with named slots between them.
+ * Built by {@link EmailTemplateEngine}; rendering only appends, nothing is parsed per send.
+ */
+public final class EmailTemplate {
+
+    // Builders larger than this are not kept by the thread after a render
+    private static final int MAX_RETAINED_CAPACITY = 64 * 1024;
+    private static final ThreadLocal<StringBuilder> BUFFER = ThreadLocal.withInitial(() -> new StringBuilder(8 * 1024));
+
+    private final String name;
+    // segments.length == gaps.length + 1: segments[0], gap 0, segments[1], gap 1, ...
+    private final String[] segments;
+    private final int[] gaps;
+    private final boolean[] rawGaps;
+    private final Map<String, Integer> slotIds;
+    private final int yearSlot;
+    private final int literalLength;
+
+    EmailTemplate(String name, String[] segments, int[] gaps, boolean[] rawGaps, Map<String, Integer> slotIds) {
+        this.name = name;
+        this.segments = segments;
+        this.gaps = gaps;
+        this.rawGaps = rawGaps;
+        this.slotIds = Map.copyOf(slotIds);
+        this.yearSlot = slotIds.getOrDefault("year", -1);
+        int length = 0;
+        for (String segment : segments) {
+            length += segment.length();
+        }
+        this.literalLength = length;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /** Slot names used by the template, included partials and the footer's year. */
+    public Set<String> getSlotNames() {
+        return slotIds.keySet();
+    }
+
+    /**
+     * Values for one render. The {@code year} slot, used by footers, is filled with the current year.
+     */
+    public Model model() {
+        return new Model();
+    }
+
+    public final class Model {
+
+        private final Object[] values = new Object[slotIds.size()];
+
+        private Model() {
+            if (yearSlot >= 0) {
+                values[yearSlot] = Year.now().getValue();
+            }
+        }
+
+        /**
+         * Sets a slot. CharSequences are HTML-escaped in {{name}} slots and copied as is in {{{name}}} ones,
+         * dates are written with {@link EmailTemplateEngine#DATE_TIME}, BigDecimals with two decimals.
+         */
+        public Model set(String slot, Object value) {
+            Integer id = slotIds.get(slot);
+            if (id == null) {
+                throw new IllegalArgumentException("Unknown slot '" + slot + "' in template " + name);
+            }
+            values[id] = value;
+            return this;
+        }
+
+        /** Renders into the calling thread's reusable builder. */
+        public String render() {
+            StringBuilder out = BUFFER.get();
+            out.setLength(0);
+            out.ensureCapacity(literalLength + 256);
+            appendTo(out);
+            String html = out.toString();
+            if (out.capacity() > MAX_RETAINED_CAPACITY) {
+                BUFFER.remove();
+            }
+            return html;
+        }
+
+        /** Renders at the end of {@code out}, e.g. to build repeated rows for a {{{raw}}} slot. */
+        public void appendTo(StringBuilder out) {
+            out.append(segments[0]);
+            for (int i = 0; i < gaps.length; i++) {
+                Object value = values[gaps[i]];
+                if (value == null) {
+                    throw new IllegalStateException("Slot '" + slotName(gaps[i]) + "' not set in template " + name);
+                }
+                appendValue(out, value, rawGaps[i]);
+                out.append(segments[i + 1]);
+            }
+        }
+    }
+
+    private static void appendValue(StringBuilder out, Object value, boolean raw) {
+        if (value instanceof TemporalAccessor temporal) {
+            EmailTemplateEngine.DATE_TIME.formatTo(temporal, out);
+        } else if (value instanceof BigDecimal amount) {
+            out.append(amount.setScale(2, RoundingMode.HALF_UP).toPlainString());
+        } else if (value instanceof CharSequence text) {
+            if (raw) {
+                out.append(text);
+            } else {
+                appendEscaped(out, text);
+            }
+        } else if (value instanceof Number || value instanceof Boolean) {
+            out.append(value);
+        } else if (raw) {
+            out.append(value);
+        } else {
+            appendEscaped(out, String.valueOf(value));
+        }
+    }
+
+    static void appendEscaped(StringBuilder out, CharSequence text) {
+        for (int i = 0, n = text.length(); i < n; i++) {
+            char c = text.charAt(i);
+            switch (c) {
+                case '&' -> out.append("&amp;");
+                case '<' -> out.append("&lt;");
+                case '>' -> out.append("&gt;");
+                case '"' -> out.append("&quot;");
+                case '\'' -> out.append("&#39;");
+                default -> out.append(c);
+            }
+        }
+    }
+
+    private String slotName(int id) {
+        return slotIds.entrySet().stream()
+                .filter(e -> e.getValue() == id)
+                .map(Map.Entry::getKey)
+                .findFirst()
+                .orElse("#" + id);
+    }
+}
@@ -0,0 +1,144 @@
+package com.veterinaire.formulaireveterinaire.serviceimpl;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.time.format.DateTimeFormatter;
+import java.util.*;
+
+/**
+ * Loads the e-mail templates under classpath:mail-templates/ once and compiles them into {@link EmailTemplate}s.
+ * Syntax: {{name}} is an HTML-escaped slot, {{{name}}} a raw one, and {{> _partial}} inlines a shared
+ * fragment (files starting with _, e.g. the header and footer) at compile time.
+ */
+@Component
+public class EmailTemplateEngine {
+
+    private static final Logger logger = LoggerFactory.getLogger(EmailTemplateEngine.class);
+
+    public static final DateTimeFormatter DATE_TIME = DateTimeFormatter.ofPattern("dd/MM/yyyy HH:mm");
+
+    private static final String LOCATION = "classpath*:mail-templates/*.html";
+
+    private final Map<String, EmailTemplate> templates;
+
+    public EmailTemplateEngine() {
+        Map<String, String> sources = new HashMap<>();
+        try {
+            for (Resource resource : new PathMatchingResourcePatternResolver().getResources(LOCATION)) {
+                String file = Objects.requireNonNull(resource.getFilename());
+                try (InputStream in = resource.getInputStream()) {
+                    sources.put(file.substring(0, file.length() - ".html".length()),
+                            new String(in.readAllBytes(), StandardCharsets.UTF_8));
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot load e-mail templates", e);
+        }
+        this.templates = compileAll(sources);
+        logger.info("Compiled {} e-mail templates: {}", templates.size(), new TreeSet<>(templates.keySet()));
+    }
+
+    public EmailTemplate get(String name) {
+        EmailTemplate template = templates.get(name);
+        if (template == null) {
+            throw new IllegalArgumentException("Unknown e-mail template: " + name);
+        }
+        return template;
+    }
+
+    /** Compiles every source whose name does not start with _; those are partials. */
+    static Map<String, EmailTemplate> compileAll(Map<String, String> sources) {
+        Map<String, EmailTemplate> compiled = new HashMap<>();
+        for (Map.Entry<String, String> source : sources.entrySet()) {
+            if (!source.getKey().startsWith("_")) {
+                compiled.put(source.getKey(), compile(source.getKey(), sources));
+            }
+        }
+        return Map.copyOf(compiled);
+    }
+
+    static EmailTemplate compile(String name, Map<String, String> sources) {
+        Compiler compiler = new Compiler(sources);
+        compiler.parse(name, new ArrayDeque<>());
+        return compiler.build(name);
+    }
+
+    // Parses a template and its partials into alternating literal segments and slots
+    private static final class Compiler {
+
+        private final Map<String, String> sources;
+        private final List<String> segments = new ArrayList<>();
+        private final List<Integer> gaps = new ArrayList<>();
+        private final List<Boolean> rawGaps = new ArrayList<>();
+        private final Map<String, Integer> slotIds = new LinkedHashMap<>();
+        private StringBuilder literal = new StringBuilder();
+
+        Compiler(Map<String, String> sources) {
+            this.sources = sources;
+        }
+
+        void parse(String name, Deque<String> includes) {
+            String source = sources.get(name);
+            if (source == null) {
+                throw new IllegalStateException("Unknown e-mail template or partial: " + name + " (from " + includes + ")");
+            }
+            if (includes.contains(name)) {
+                throw new IllegalStateException("Recursive partial " + name + " in " + includes);
+            }
+            includes.push(name);
+
+            int pos = 0;
+            while (true) {
+                int open = source.indexOf("{{", pos);
+                if (open < 0) {
+                    literal.append(source, pos, source.length());
+                    break;
+                }
+                literal.append(source, pos, open);
+
+                boolean raw = source.startsWith("{{{", open);
+                String close = raw ? "}}}" : "}}";
+                int start = open + (raw ? 3 : 2);
+                int end = source.indexOf(close, start);
+                if (end < 0) {
+                    throw new IllegalStateException("Unclosed tag at offset " + open + " in " + name);
+                }
+                String tag = source.substring(start, end).trim();
+                pos = end + close.length();
+
+                if (!raw && tag.startsWith(">")) {
+                    parse(tag.substring(1).trim(), includes);
+                    // A partial alone on its line brings its own line break
+                    if (pos < source.length() && source.charAt(pos) == '\n') {
+                        pos++;
+                    }
+                } else {
+                    segments.add(literal.toString());
+                    literal = new StringBuilder();
+                    gaps.add(slotIds.computeIfAbsent(tag, k -> slotIds.size()));
+                    rawGaps.add(raw);
+                }
+            }
+            includes.pop();
+        }
+
+        EmailTemplate build(String name) {
+            segments.add(literal.toString());
+            int[] gapArray = new int[gaps.size()];
+            boolean[] rawArray = new boolean[gaps.size()];
+            for (int i = 0; i < gapArray.length; i++) {
+                gapArray[i] = gaps.get(i);
+                rawArray[i] = rawGaps.get(i);
+            }
+            return new EmailTemplate(name, segments.toArray(String[]::new), gapArray, rawArray, slotIds);
+        }
+    }
+}
@@ -0,0 +1,172 @@
+package com.veterinaire.formulaireveterinaire.serviceimpl;
+
+import com.veterinaire.formulaireveterinaire.DAO.FinanceEventRepository;
+import com.veterinaire.formulaireveterinaire.DTO.FinanceDigestRow;
+import com.veterinaire.formulaireveterinaire.Enums.FinanceEventType;
+import com.veterinaire.formulaireveterinaire.Enums.SubscriptionType;
+import com.veterinaire.formulaireveterinaire.entity.FinanceEvent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Finance is told about orders and subscriptions through one digest e-mail per period rather than
+ * a CC on each customer e-mail. Events are recorded in the caller's transaction and reported
+ * by {@link #sendDigest()}, called from FinanceDigestScheduler.
+ */
+@Service
+public class FinanceDigestService {
+
+    private static final Logger logger = LoggerFactory.getLogger(FinanceDigestService.class);
+    // Keeps the IN list well under the driver's bind parameter limit
+    private static final int MARK_CHUNK = 1000;
+
+    private final FinanceEventRepository eventRepository;
+    private final MailOutboxService mailOutbox;
+    private final EmailTemplateEngine templateEngine;
+    private final String financeEmail;
+
+    public FinanceDigestService(FinanceEventRepository eventRepository, MailOutboxService mailOutbox,
+                                EmailTemplateEngine templateEngine,
+                                @Value("${finance.email}") String financeEmail) {
+        this.eventRepository = eventRepository;
+        this.mailOutbox = mailOutbox;
+        this.templateEngine = templateEngine;
+        this.financeEmail = financeEmail;
+    }
+
+    @Transactional
+    public void recordOrder(Long userId, String orderNumber, BigDecimal total) {
+        record(FinanceEventType.ORDER_CONFIRMED, userId, orderNumber, total, null);
+    }
+
+    @Transactional
+    public void recordSubscription(FinanceEventType type, Long userId, SubscriptionType subscriptionType,
+                                   LocalDateTime endDate) {
+        record(type, userId, subscriptionType.name(), null, endDate);
+    }
+
+    private void record(FinanceEventType type, Long userId, String reference, BigDecimal amount, LocalDateTime endDate) {
+        FinanceEvent event = new FinanceEvent();
+        event.setType(type);
+        event.setUserId(userId);
+        event.setReference(reference);
+        event.setAmount(amount);
+        event.setEndDate(endDate);
+        event.setCreatedAt(LocalDateTime.now());
+        eventRepository.save(event);
+    }
+
+    /**
+     * Queues one e-mail to finance with every event not reported yet and marks them reported.
+     * @return The number of events in the digest; 0 means no e-mail was sent.
+     */
+    @Transactional
+    public int sendDigest() {
+        List<FinanceDigestRow> rows = eventRepository.findUndigested();
+        if (rows.isEmpty()) {
+            logger.info("Finance digest: nothing to report");
+            return 0;
+        }
+
+        EmailTemplate rowTemplate = templateEngine.get("finance-digest-row");
+        StringBuilder orders = new StringBuilder();
+        StringBuilder subscriptions = new StringBuilder();
+        StringBuilder expirations = new StringBuilder();
+        int orderCount = 0, subscriptionCount = 0, expirationCount = 0;
+        BigDecimal orderTotal = BigDecimal.ZERO;
+        LocalDateTime from = rows.get(0).createdAt();
+        LocalDateTime to = from;
+        List<Long> ids = new ArrayList<>(rows.size());
+
+        for (FinanceDigestRow row : rows) {
+            ids.add(row.eventId());
+            if (row.createdAt().isBefore(from)) {
+                from = row.createdAt();
+            }
+            if (row.createdAt().isAfter(to)) {
+                to = row.createdAt();
+            }
+
+            EmailTemplate.Model model = rowTemplate.model()
+                    .set("date", row.createdAt())
+                    .set("vet", row.nom() != null ? "Dr " + row.nom() + " " + row.prenom() : "Utilisateur supprimé")
+                    .set("email", row.email() != null ? row.email() : "");
+            switch (row.type()) {
+                case ORDER_CONFIRMED -> {
+                    BigDecimal amount = row.amount() != null ? row.amount() : BigDecimal.ZERO;
+                    orderTotal = orderTotal.add(amount);
+                    orderCount++;
+                    model.set("label", "Commande " + row.reference())
+                            .set("detail", amount.setScale(2, RoundingMode.HALF_UP).toPlainString() + " TND")
+                            .appendTo(orders);
+                }
+                case SUBSCRIPTION_EXPIRING -> {
+                    expirationCount++;
+                    model.set("label", planLabel(row.reference()))
+                            .set("detail", "Fin le " + EmailTemplateEngine.DATE_TIME.format(row.endDate()))
+                            .appendTo(expirations);
+                }
+                default -> {
+                    subscriptionCount++;
+                    model.set("label", subscriptionLabel(row.type()) + " – " + planLabel(row.reference()))
+                            .set("detail", row.endDate() != null
+                                    ? "Fin le " + EmailTemplateEngine.DATE_TIME.format(row.endDate())
+                                    : "Paiement à finaliser")
+                            .appendTo(subscriptions);
+                }
+            }
+        }
+
+        String htmlContent = templateEngine.get("finance-digest").model()
+                .set("from", from)
+                .set("to", to)
+                .set("orderCount", orderCount)
+                .set("orderTotal", orderTotal)
+                .set("orders", orderCount > 0 ? orders : emptyRow(rowTemplate))
+                .set("subscriptionCount", subscriptionCount)
+                .set("subscriptions", subscriptionCount > 0 ? subscriptions : emptyRow(rowTemplate))
+                .set("expirationCount", expirationCount)
+                .set("expirations", expirationCount > 0 ? expirations : emptyRow(rowTemplate))
+                .render();
+
+        mailOutbox.enqueue(financeEmail, null,
+                "Récapitulatif financier – VITALFEED (" + rows.size() + " événements)", htmlContent);
+        LocalDateTime digestedAt = LocalDateTime.now();
+        for (int i = 0; i < ids.size(); i += MARK_CHUNK) {
+            eventRepository.markDigested(ids.subList(i, Math.min(i + MARK_CHUNK, ids.size())), digestedAt);
+        }
+
+        logger.info("Finance digest queued for {}: {} orders ({} TND), {} subscription changes, {} expirations",
+                financeEmail, orderCount, orderTotal, subscriptionCount, expirationCount);
+        return rows.size();
+    }
+
+    private static String subscriptionLabel(FinanceEventType type) {
+        return switch (type) {
+            case SUBSCRIPTION_REQUESTED -> "Demande";
+            case SUBSCRIPTION_ASSIGNED -> "Nouvel abonnement";
+            case SUBSCRIPTION_UPDATED -> "Abonnement modifié";
+            default -> type.name();
+        };
+    }
+
+    private static String planLabel(String subscriptionType) {
+        return subscriptionType != null ? subscriptionType.replace("_", " ") : "";
+    }
+
+    private static StringBuilder emptyRow(EmailTemplate rowTemplate) {
+        StringBuilder out = new StringBuilder();
+        rowTemplate.model().set("date", "").set("vet", "").set("email", "").set("label", "Aucun").set("detail", "")
+                .appendTo(out);
+        return out;
+    }
+}
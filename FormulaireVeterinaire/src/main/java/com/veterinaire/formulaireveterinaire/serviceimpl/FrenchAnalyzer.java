@@ -0,0 +1,109 @@
+package com.veterinaire.formulaireveterinaire.serviceimpl;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Turns French product text into index terms: lower case, accents and ligatures folded, elisions and
+ * stopwords dropped, and a light stemmer that merges plural and feminine forms
+ * ("Stérilisées" and "stérilisé" both become "sterilis", "chiennes" becomes "chien").
+ * Queries go through the same analysis as documents.
+ */
+final class FrenchAnalyzer {
+
+    private static final Set<String> STOPWORDS = Set.of(
+            "le", "la", "les", "un", "une", "des", "de", "du", "et", "ou", "au", "aux", "en", "pour", "par",
+            "sur", "dans", "avec", "sans", "ce", "ces", "cet", "cette", "son", "sa", "ses", "leur", "leurs",
+            "qui", "que", "est", "sont", "se", "ne", "pas", "plus", "tres", "il", "elle", "ils", "elles",
+            "vous", "nous", "votre", "vos", "notre", "nos");
+
+    private FrenchAnalyzer() {
+    }
+
+    static List<String> analyze(String text) {
+        List<String> terms = new ArrayList<>();
+        if (text == null) {
+            return terms;
+        }
+        StringBuilder token = new StringBuilder(16);
+        for (int i = 0, n = text.length(); i <= n; i++) {
+            char c = i < n ? text.charAt(i) : ' ';
+            if (!appendFolded(token, c) && !token.isEmpty()) {
+                addTerm(terms, token.toString());
+                token.setLength(0);
+            }
+        }
+        return terms;
+    }
+
+    private static void addTerm(List<String> terms, String token) {
+        boolean digit = Character.isDigit(token.charAt(0));
+        // Single letters are elisions (l', d') or noise; numbers such as "5" (kg) are kept
+        if ((token.length() < 2 && !digit) || STOPWORDS.contains(token)) {
+            return;
+        }
+        terms.add(stem(token));
+    }
+
+    static String stem(String term) {
+        for (int i = 0; i < term.length(); i++) {
+            if (Character.isDigit(term.charAt(i))) {
+                return term;
+            }
+        }
+        String t = term;
+        if (t.length() > 4 && t.endsWith("aux")) {
+            t = t.substring(0, t.length() - 3) + "al";         // animaux -> animal
+        } else if (t.length() > 3 && (t.endsWith("s") || t.endsWith("x"))) {
+            t = t.substring(0, t.length() - 1);
+        }
+        for (int i = 0; i < 2 && t.length() > 4 && t.endsWith("e"); i++) {
+            t = t.substring(0, t.length() - 1);                // stérilisée, stérilisé -> sterilis
+        }
+        int len = t.length();
+        if (len > 4 && t.charAt(len - 1) == t.charAt(len - 2) && !isVowel(t.charAt(len - 1))) {
+            t = t.substring(0, len - 1);                       // chienn -> chien, croquett -> croquet
+        }
+        return t;
+    }
+
+    // Appends the lower-cased, accent-free form of a letter or digit; false for separators
+    private static boolean appendFolded(StringBuilder out, char c) {
+        if (c < 128) {
+            if (c >= 'a' && c <= 'z' || c >= '0' && c <= '9') {
+                out.append(c);
+                return true;
+            }
+            if (c >= 'A' && c <= 'Z') {
+                out.append((char) (c + 32));
+                return true;
+            }
+            return false;
+        }
+        char lower = Character.toLowerCase(c);
+        switch (lower) {
+            case 'à', 'â', 'ä', 'á', 'ã', 'å' -> out.append('a');
+            case 'ç' -> out.append('c');
+            case 'é', 'è', 'ê', 'ë' -> out.append('e');
+            case 'î', 'ï', 'í', 'ì' -> out.append('i');
+            case 'ô', 'ö', 'ó', 'ò', 'õ' -> out.append('o');
+            case 'ù', 'û', 'ü', 'ú' -> out.append('u');
+            case 'ÿ' -> out.append('y');
+            case 'ñ' -> out.append('n');
+            case 'œ' -> out.append("oe");
+            case 'æ' -> out.append("ae");
+            default -> {
+                if (!Character.isLetterOrDigit(c)) {
+                    return false;
+                }
+                out.append(lower);
+            }
+        }
+        return true;
+    }
+
+    private static boolean isVowel(char c) {
+        return c == 'a' || c == 'e' || c == 'i' || c == 'o' || c == 'u' || c == 'y';
+    }
+}
@@ -0,0 +1,239 @@
+package com.veterinaire.formulaireveterinaire.serviceimpl;
+
+import com.veterinaire.formulaireveterinaire.DAO.MailOutboxRepository;
+import com.veterinaire.formulaireveterinaire.entity.MailOutboxMessage;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.mail.MessagingException;
+import jakarta.mail.internet.MimeMessage;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.mail.MailParseException;
+import org.springframework.mail.MailPreparationException;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.mail.javamail.MimeMessageHelper;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Sends the mail_outbox in the background: a poller claims due messages and a fixed worker pool
+ * delivers them. Failures are retried with exponential backoff, then dead-lettered.
+ */
+@Component
+public class MailOutboxDispatcher {
+
+    private static final Logger logger = LoggerFactory.getLogger(MailOutboxDispatcher.class);
+
+    private final MailOutboxService outboxService;
+    private final MailOutboxRepository outboxRepository;
+    private final JavaMailSender mailSender;
+    private final String senderEmail;
+    private final boolean enabled;
+    private final int workers;
+    private final int batchSize;
+    private final long pollIntervalMillis;
+    private final Duration lease;
+    private final int maxAttempts;
+    private final long backoffBaseMillis;
+    private final long backoffMaxMillis;
+
+    private final Semaphore wakeUp = new Semaphore(0);
+    private final AtomicLong lagSeconds = new AtomicLong();
+    private final Timer sendTimer;
+    private final Counter sentCounter;
+    private final Counter retryCounter;
+    private final Counter deadCounter;
+
+    private ExecutorService workerPool;
+    private Thread poller;
+    private volatile boolean running;
+
+    public MailOutboxDispatcher(MailOutboxService outboxService, MailOutboxRepository outboxRepository,
+                                JavaMailSender mailSender, MeterRegistry meterRegistry,
+                                @Value("${sender.email:}") String senderEmail,
+                                @Value("${mail.outbox.enabled:true}") boolean enabled,
+                                @Value("${mail.outbox.workers:4}") int workers,
+                                @Value("${mail.outbox.batch-size:20}") int batchSize,
+                                @Value("${mail.outbox.poll-interval-ms:5000}") long pollIntervalMillis,
+                                @Value("${mail.outbox.lease-seconds:300}") long leaseSeconds,
+                                @Value("${mail.outbox.max-attempts:8}") int maxAttempts,
+                                @Value("${mail.outbox.backoff-base-ms:30000}") long backoffBaseMillis,
+                                @Value("${mail.outbox.backoff-max-ms:3600000}") long backoffMaxMillis) {
+        this.outboxService = outboxService;
+        this.outboxRepository = outboxRepository;
+        this.mailSender = mailSender;
+        this.senderEmail = senderEmail;
+        this.enabled = enabled;
+        this.workers = workers;
+        this.batchSize = batchSize;
+        this.pollIntervalMillis = pollIntervalMillis;
+        this.lease = Duration.ofSeconds(leaseSeconds);
+        this.maxAttempts = maxAttempts;
+        this.backoffBaseMillis = backoffBaseMillis;
+        this.backoffMaxMillis = backoffMaxMillis;
+
+        this.sendTimer = Timer.builder("mail.outbox.send").publishPercentileHistogram().register(meterRegistry);
+        this.sentCounter = Counter.builder("mail.outbox.delivered").tag("result", "sent").register(meterRegistry);
+        this.retryCounter = Counter.builder("mail.outbox.delivered").tag("result", "retry").register(meterRegistry);
+        this.deadCounter = Counter.builder("mail.outbox.delivered").tag("result", "dead").register(meterRegistry);
+        Gauge.builder("mail.outbox.lag.seconds", lagSeconds, AtomicLong::get).register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            logger.info("Mail outbox dispatcher disabled");
+            return;
+        }
+        AtomicInteger threadIndex = new AtomicInteger();
+        workerPool = Executors.newFixedThreadPool(workers, r -> {
+            Thread t = new Thread(r, "mail-outbox-" + threadIndex.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+        running = true;
+        poller = new Thread(this::pollLoop, "mail-outbox-poller");
+        poller.setDaemon(true);
+        poller.start();
+        logger.info("Mail outbox dispatcher started with {} workers, batch size {}", workers, batchSize);
+    }
+
+    @PreDestroy
+    public void stop() {
+        running = false;
+        if (poller != null) {
+            poller.interrupt();
+        }
+        if (workerPool != null) {
+            workerPool.shutdown();
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onEnqueued(MailOutboxService.Enqueued event) {
+        wakeUp.release();
+    }
+
+    private void pollLoop() {
+        while (running) {
+            try {
+                // A full batch means more is probably due: keep draining without waiting
+                if (dispatchOnce() < batchSize) {
+                    wakeUp.tryAcquire(pollIntervalMillis, TimeUnit.MILLISECONDS);
+                    wakeUp.drainPermits();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                logger.error("Mail outbox poll failed: {}", e.getMessage());
+                try {
+                    Thread.sleep(pollIntervalMillis);
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * Claims one batch and delivers it on the worker pool (or the calling thread when not started).
+     * @return The number of messages claimed.
+     */
+    public int dispatchOnce() throws InterruptedException {
+        LocalDateTime oldest = outboxRepository.findOldestUnsentCreatedAt();
+        lagSeconds.set(oldest == null ? 0 : Math.max(0, Duration.between(oldest, LocalDateTime.now()).toSeconds()));
+
+        List<MailOutboxMessage> batch = outboxService.claimDue(batchSize, lease);
+        if (batch.isEmpty()) {
+            return 0;
+        }
+        if (workerPool == null) {
+            batch.forEach(this::deliver);
+            return batch.size();
+        }
+        CountDownLatch done = new CountDownLatch(batch.size());
+        for (MailOutboxMessage message : batch) {
+            workerPool.execute(() -> {
+                try {
+                    deliver(message);
+                } finally {
+                    done.countDown();
+                }
+            });
+        }
+        done.await();
+        return batch.size();
+    }
+
+    void deliver(MailOutboxMessage message) {
+        Timer.Sample sample = Timer.start();
+        try {
+            MimeMessage mime = mailSender.createMimeMessage();
+            MimeMessageHelper helper = new MimeMessageHelper(mime, true, "UTF-8");
+            if (!senderEmail.isBlank()) {
+                helper.setFrom(senderEmail);
+            }
+            helper.setTo(message.getRecipient());
+            if (message.getCc() != null) {
+                helper.setCc(message.getCc());
+            }
+            helper.setSubject(message.getSubject());
+            helper.setText(message.getHtmlBody(), true);
+            mailSender.send(mime);
+
+            outboxRepository.markSent(message.getId(), LocalDateTime.now());
+            sentCounter.increment();
+            logger.info("Mail {} sent to {}", message.getId(), message.getRecipient());
+        } catch (Exception e) {
+            fail(message, e);
+        } finally {
+            sample.stop(sendTimer);
+        }
+    }
+
+    private void fail(MailOutboxMessage message, Exception e) {
+        int attempt = message.getAttempts() + 1;
+        String error = truncate(e.getClass().getSimpleName() + ": " + e.getMessage());
+        // A message that cannot even be built will not get better with time
+        boolean permanent = e instanceof MailParseException || e instanceof MailPreparationException
+                || e instanceof MessagingException;
+        if (permanent || attempt >= maxAttempts) {
+            outboxRepository.markDead(message.getId(), error);
+            deadCounter.increment();
+            logger.error("Mail {} to {} dead-lettered after {} attempt(s): {}",
+                    message.getId(), message.getRecipient(), attempt, error);
+            return;
+        }
+        LocalDateTime nextAttempt = LocalDateTime.now().plus(Duration.ofMillis(backoffMillis(attempt)));
+        outboxRepository.markRetry(message.getId(), nextAttempt, error);
+        retryCounter.increment();
+        logger.warn("Mail {} to {} failed (attempt {}), retrying at {}: {}",
+                message.getId(), message.getRecipient(), attempt, nextAttempt, error);
+    }
+
+    // base * 2^(attempt-1), capped, with +/-20% jitter so failed bursts don't retry in lockstep
+    long backoffMillis(int attempt) {
+        long exponential = backoffBaseMillis << Math.min(attempt - 1, 30);
+        long capped = exponential <= 0 ? backoffMaxMillis : Math.min(exponential, backoffMaxMillis);
+        double jitter = 0.8 + ThreadLocalRandom.current().nextDouble() * 0.4;
+        return (long) (capped * jitter);
+    }
+
+    private static String truncate(String value) {
+        return value.length() <= 1000 ? value : value.substring(0, 1000);
+    }
+}
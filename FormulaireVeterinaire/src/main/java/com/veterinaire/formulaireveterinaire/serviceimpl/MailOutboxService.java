@@ -0,0 +1,69 @@
+package com.veterinaire.formulaireveterinaire.serviceimpl;
+
+import com.veterinaire.formulaireveterinaire.DAO.MailOutboxRepository;
+import com.veterinaire.formulaireveterinaire.entity.MailOutboxMessage;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Outgoing mail is written to the mail_outbox table in the caller's transaction and sent later
+ * by {@link MailOutboxDispatcher}: a rolled-back business change never sends mail, and a slow or
+ * failing SMTP server never holds a transaction open or rolls one back.
+ */
+@Service
+public class MailOutboxService {
+
+    private static final Logger logger = LoggerFactory.getLogger(MailOutboxService.class);
+
+    /** Published on enqueue; the dispatcher wakes up once the surrounding transaction commits. */
+    public record Enqueued(Long messageId) {}
+
+    private final MailOutboxRepository outboxRepository;
+    private final ApplicationEventPublisher eventPublisher;
+
+    public MailOutboxService(MailOutboxRepository outboxRepository, ApplicationEventPublisher eventPublisher) {
+        this.outboxRepository = outboxRepository;
+        this.eventPublisher = eventPublisher;
+    }
+
+    /**
+     * Queues an HTML e-mail. Joins the current transaction if there is one.
+     * @param cc Copy recipient, or null.
+     */
+    @Transactional
+    public void enqueue(String to, String cc, String subject, String htmlBody) {
+        LocalDateTime now = LocalDateTime.now();
+        MailOutboxMessage message = new MailOutboxMessage();
+        message.setRecipient(to);
+        message.setCc(cc);
+        message.setSubject(subject);
+        message.setHtmlBody(htmlBody);
+        message.setCreatedAt(now);
+        message.setNextAttemptAt(now);
+        message = outboxRepository.save(message);
+
+        eventPublisher.publishEvent(new Enqueued(message.getId()));
+        logger.debug("Mail {} queued for {}", message.getId(), to);
+    }
+
+    /**
+     * Claims up to {@code limit} due messages for {@code lease}; unfinished claims become due again afterwards.
+     */
+    @Transactional
+    public List<MailOutboxMessage> claimDue(int limit, Duration lease) {
+        LocalDateTime now = LocalDateTime.now();
+        List<Long> ids = outboxRepository.lockDueIds(now, limit);
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        outboxRepository.markSending(ids, now.plus(lease));
+        return outboxRepository.findAllById(ids);
+    }
+}
@@ -0,0 +1,122 @@
+package com.veterinaire.formulaireveterinaire.serviceimpl;
+
+import com.veterinaire.formulaireveterinaire.DAO.Cart.OrderNumberSequence;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+
+/**
+ * Hands out order numbers like ORD-2026-000123-K. The counter comes from a database sequence
+ * with hi/lo allocation: each nextval reserves {@code blockSize} numbers for this node, so
+ * checkouts only hit the sequence once per block and nodes never overlap. The counter is global,
+ * the year is only there for readability; the trailing letter is a check character.
+ *
+ * The block size must not change once numbers have been issued: hi * blockSize would then
+ * land in ranges already handed out.
+ */
+@Component
+public class OrderNumberGenerator {
+
+    private static final Logger logger = LoggerFactory.getLogger(OrderNumberGenerator.class);
+
+    // 23 letters (no I, O or U): a prime modulus above the digit count catches any single wrong
+    // digit and any swap of two digits
+    private static final char[] CHECK_LETTERS = "ABCDEFGHJKLMNPQRSTVWXYZ".toCharArray();
+    private static final int COUNTER_WIDTH = 6;
+
+    private final OrderNumberSequence sequence;
+    private final int blockSize;
+
+    private long next;
+    private long blockEnd;
+
+    public OrderNumberGenerator(OrderNumberSequence sequence,
+                                @Value("${order.number.block-size:100}") int blockSize) {
+        if (blockSize < 1) {
+            throw new IllegalArgumentException("order.number.block-size must be positive");
+        }
+        this.sequence = sequence;
+        this.blockSize = blockSize;
+    }
+
+    public String next() {
+        return format(LocalDate.now().getYear(), nextCounter());
+    }
+
+    synchronized long nextCounter() {
+        if (next == blockEnd) {
+            long hi = sequence.nextHi();
+            next = Math.multiplyExact(hi, (long) blockSize);
+            blockEnd = next + blockSize;
+            logger.debug("Reserved order numbers {}..{}", next, blockEnd - 1);
+        }
+        return next++;
+    }
+
+    static String format(int year, long counter) {
+        // "ORD-" + 4-digit year + "-" + zero-padded counter + "-" + check letter, built in one buffer
+        int counterDigits = Math.max(COUNTER_WIDTH, digits(counter));
+        char[] out = new char[4 + 4 + 1 + counterDigits + 2];
+        out[0] = 'O';
+        out[1] = 'R';
+        out[2] = 'D';
+        out[3] = '-';
+        writeDigits(out, 4, 4, year);
+        out[8] = '-';
+        writeDigits(out, 9, counterDigits, counter);
+        out[9 + counterDigits] = '-';
+        out[10 + counterDigits] = checkLetter(out, 4, 10 + counterDigits);
+        return new String(out);
+    }
+
+    /** True if the code is well-formed and its check letter matches. */
+    public static boolean isValid(String orderNumber) {
+        if (orderNumber == null || orderNumber.length() < 4 + 4 + 1 + COUNTER_WIDTH + 2
+                || !orderNumber.startsWith("ORD-") || orderNumber.charAt(8) != '-') {
+            return false;
+        }
+        int last = orderNumber.length() - 1;
+        if (orderNumber.charAt(last - 1) != '-') {
+            return false;
+        }
+        for (int i = 4; i < last - 1; i++) {
+            if (i != 8 && !Character.isDigit(orderNumber.charAt(i))) {
+                return false;
+            }
+        }
+        return checkLetter(orderNumber.toCharArray(), 4, last) == orderNumber.charAt(last);
+    }
+
+    // Weighted sum of the digits in [from, to), position weights 1, 2, 3... mod 23
+    private static char checkLetter(char[] chars, int from, int to) {
+        int sum = 0;
+        int weight = 1;
+        for (int i = from; i < to; i++) {
+            char c = chars[i];
+            if (c >= '0' && c <= '9') {
+                sum = (sum + weight * (c - '0')) % CHECK_LETTERS.length;
+                weight++;
+            }
+        }
+        return CHECK_LETTERS[sum];
+    }
+
+    private static void writeDigits(char[] out, int offset, int width, long value) {
+        for (int i = offset + width - 1; i >= offset; i--) {
+            out[i] = (char) ('0' + value % 10);
+            value /= 10;
+        }
+    }
+
+    private static int digits(long value) {
+        int digits = 1;
+        while (value >= 10) {
+            value /= 10;
+            digits++;
+        }
+        return digits;
+    }
+}
@@ -0,0 +1,170 @@
+package com.veterinaire.formulaireveterinaire.serviceimpl;
+
+import com.veterinaire.formulaireveterinaire.Config.AuthenticatedUser;
+import com.veterinaire.formulaireveterinaire.DAO.Cart.OrderItemRepository;
+import com.veterinaire.formulaireveterinaire.DAO.Cart.OrderQueryRepository;
+import com.veterinaire.formulaireveterinaire.DAO.Cart.OrderTransitionRepository;
+import com.veterinaire.formulaireveterinaire.DTO.Cart.CartItemDto;
+import com.veterinaire.formulaireveterinaire.DTO.Order.*;
+import com.veterinaire.formulaireveterinaire.Enums.OrderStatus;
+import com.veterinaire.formulaireveterinaire.service.OrderService;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.*;
+
+@Service
+@RequiredArgsConstructor
+public class OrderServiceImpl implements OrderService {
+
+    private static final Logger logger = LoggerFactory.getLogger(OrderServiceImpl.class);
+
+    static final int DEFAULT_PAGE_SIZE = 20;
+    static final int MAX_PAGE_SIZE = 100;
+    // Everything past checkout; carts are never listed
+    private static final Set<OrderStatus> CONFIRMED_STATUSES =
+            Collections.unmodifiableSet(EnumSet.complementOf(EnumSet.of(OrderStatus.CART)));
+
+    private final OrderQueryRepository orderQueryRepo;
+    private final OrderItemRepository itemRepo;
+    private final OrderTransitionRepository transitionRepo;
+
+    @Override
+    @Transactional(readOnly = true)
+    public OrderPageResponse getOrderHistory(AuthenticatedUser user, Set<OrderStatus> statuses,
+                                             LocalDateTime from, LocalDateTime to, String cursor, Integer size) {
+        return findPage(user.userId(), statuses, from, to, cursor, size);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public OrderPageResponse getOrderBoard(Long userId, Set<OrderStatus> statuses,
+                                           LocalDateTime from, LocalDateTime to, String cursor, Integer size) {
+        return findPage(userId, statuses, from, to, cursor, size);
+    }
+
+    @Override
+    @Transactional
+    public OrderTransitionResponse transitionOrders(AuthenticatedUser admin, OrderTransitionRequest req) {
+        OrderStatus target = req.getTargetStatus();
+        OrderStatus from = target.requiredPrevious();
+        if (from == null) {
+            throw new IllegalArgumentException("Aucune transition ne mène au statut " + target);
+        }
+        List<Long> requested = req.getOrderIds().stream().distinct().toList();
+
+        // One statement for the whole batch; the status guard makes it safe against concurrent moves
+        List<Long> updated = transitionRepo.advance(requested, from, target);
+        transitionRepo.appendHistory(updated, from, target, LocalDateTime.now(), admin.userId());
+
+        List<OrderTransitionResponse.Rejected> rejected = new ArrayList<>();
+        boolean illegalMove = false;
+        if (updated.size() < requested.size()) {
+            Set<Long> updatedIds = new HashSet<>(updated);
+            List<Long> missed = requested.stream().filter(id -> !updatedIds.contains(id)).toList();
+            Map<Long, OrderStatus> current = transitionRepo.findStatuses(missed);
+            for (Long id : missed) {
+                OrderStatus status = current.get(id);
+                String reason;
+                if (status == null) {
+                    reason = "Commande introuvable";
+                } else if (status.canMoveTo(target)) {
+                    // Reached the required status after the UPDATE ran: a concurrent move, not an illegal one
+                    reason = "Commande modifiée entre-temps, veuillez réessayer";
+                } else {
+                    reason = "Transition " + status + " -> " + target + " non autorisée";
+                    illegalMove = true;
+                }
+                rejected.add(new OrderTransitionResponse.Rejected(id, reason));
+            }
+        }
+        logger.info("Admin {} moved {} orders {} -> {} ({} rejected)",
+                admin.userId(), updated.size(), from, target, rejected.size());
+        OrderTransitionResponse response = new OrderTransitionResponse(target, updated, rejected);
+        // A partial batch still reports its rejections with 200; a batch that only asked for illegal moves is a conflict
+        if (updated.isEmpty() && illegalMove) {
+            throw new IllegalTransitionException(response);
+        }
+        return response;
+    }
+
+    private OrderPageResponse findPage(Long userId, Set<OrderStatus> statuses, LocalDateTime from,
+                                       LocalDateTime to, String cursor, Integer size) {
+        if (statuses != null && statuses.contains(OrderStatus.CART)) {
+            throw new IllegalArgumentException("Le statut CART ne correspond pas à une commande");
+        }
+        if (from != null && to != null && !from.isBefore(to)) {
+            throw new IllegalArgumentException("La date de début doit précéder la date de fin");
+        }
+        int pageSize = size == null ? DEFAULT_PAGE_SIZE : Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+
+        // One extra row tells whether there is a next page
+        List<OrderDTO> orders = orderQueryRepo.findPage(new OrderSearchCriteria(
+                statuses == null || statuses.isEmpty() ? CONFIRMED_STATUSES : statuses,
+                from, to, userId,
+                cursor == null || cursor.isBlank() ? null : OrderCursor.decode(cursor),
+                pageSize + 1));
+
+        String nextCursor = null;
+        if (orders.size() > pageSize) {
+            orders = orders.subList(0, pageSize);
+            OrderDTO last = orders.get(pageSize - 1);
+            nextCursor = new OrderCursor(last.getConfirmedAt(), last.getId()).encode();
+        }
+        attachItems(orders);
+        return new OrderPageResponse(orders, nextCursor);
+    }
+
+    // Lines of every order on the page from a single query
+    private void attachItems(List<OrderDTO> orders) {
+        if (orders.isEmpty()) {
+            return;
+        }
+        Map<Long, List<CartItemDto>> itemsByOrder = new HashMap<>();
+        for (OrderDTO order : orders) {
+            itemsByOrder.put(order.getId(), new ArrayList<>());
+        }
+        for (OrderLineDTO line : itemRepo.findOrderLines(itemsByOrder.keySet())) {
+            itemsByOrder.get(line.orderId()).add(toDto(line));
+        }
+        for (OrderDTO order : orders) {
+            order.setItems(itemsByOrder.get(order.getId()));
+        }
+    }
+
+    private static CartItemDto toDto(OrderLineDTO line) {
+        CartItemDto dto = new CartItemDto();
+        dto.setItemId(line.itemId());
+        dto.setProductId(line.productId());
+        dto.setQuantity(line.quantity());
+        dto.setProductName(line.productName());
+        dto.setImageUrl(line.imageUrl());
+        dto.setPrice(line.price());
+        dto.setSubTotal(line.price().multiply(BigDecimal.valueOf(line.quantity())));
+        return dto;
+    }
+
+    /**
+     * Thrown when no order of a bulk transition could move and at least one was in a status that
+     * cannot reach the target; mapped to 409 with the per-order reasons.
+     */
+    public static class IllegalTransitionException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        private final transient OrderTransitionResponse response;
+
+        public IllegalTransitionException(OrderTransitionResponse response) {
+            super("Aucune commande ne peut passer au statut " + response.targetStatus());
+            this.response = response;
+        }
+
+        public OrderTransitionResponse getResponse() {
+            return response;
+        }
+    }
+}
@@ -0,0 +1,136 @@
+package com.veterinaire.formulaireveterinaire.serviceimpl;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Runs BCrypt work on a dedicated, bounded pool so login bursts cannot occupy every request thread.
+ * When the queue is full the call fails fast with {@link SaturatedException}.
+ */
+@Component
+public class PasswordHashingService {
+
+    private static final Logger logger = LoggerFactory.getLogger(PasswordHashingService.class);
+
+    private final PasswordEncoder passwordEncoder;
+    private final ThreadPoolExecutor executor;
+    private final int bcryptStrength;
+    private final long timeoutMillis;
+    // Compared against when the user does not exist, so unknown emails cost the same as wrong passwords
+    private final String dummyHash;
+
+    private final Timer verifyTimer;
+    private final Timer encodeTimer;
+    private final Counter rejectedCounter;
+
+    public PasswordHashingService(PasswordEncoder passwordEncoder, MeterRegistry meterRegistry,
+                                  @Value("${login.bcrypt.strength:10}") int bcryptStrength,
+                                  @Value("${login.hashing.threads:0}") int threads,
+                                  @Value("${login.hashing.queue-capacity:64}") int queueCapacity,
+                                  @Value("${login.hashing.timeout-ms:5000}") long timeoutMillis) {
+        this.passwordEncoder = passwordEncoder;
+        this.bcryptStrength = bcryptStrength;
+        this.timeoutMillis = timeoutMillis;
+        this.dummyHash = passwordEncoder.encode("dummy-password");
+
+        int poolSize = threads > 0 ? threads : Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        AtomicInteger threadIndex = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(poolSize, poolSize, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                r -> {
+                    Thread t = new Thread(r, "password-hashing-" + threadIndex.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+
+        this.verifyTimer = Timer.builder("login.password.hash")
+                .tag("operation", "verify")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        this.encodeTimer = Timer.builder("login.password.hash")
+                .tag("operation", "encode")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        this.rejectedCounter = Counter.builder("login.password.hash.rejected").register(meterRegistry);
+        Gauge.builder("login.password.hash.queue", executor, e -> e.getQueue().size()).register(meterRegistry);
+
+        logger.info("Password hashing pool started with {} threads, queue capacity {}, BCrypt strength {}",
+                poolSize, queueCapacity, bcryptStrength);
+    }
+
+    public boolean matches(String rawPassword, String encodedPassword) {
+        String hash = encodedPassword != null ? encodedPassword : dummyHash;
+        boolean matches = submit(() -> verifyTimer.record(() -> passwordEncoder.matches(rawPassword, hash)));
+        return encodedPassword != null && matches;
+    }
+
+    public String encode(String rawPassword) {
+        return submit(() -> encodeTimer.record(() -> passwordEncoder.encode(rawPassword)));
+    }
+
+    /**
+     * True when the hash was produced with a BCrypt cost other than the configured one.
+     */
+    public boolean needsRehash(String encodedPassword) {
+        // BCrypt format: $2a$10$<salt+hash>
+        if (encodedPassword == null || encodedPassword.length() < 7 || encodedPassword.charAt(0) != '$') {
+            return false;
+        }
+        try {
+            return Integer.parseInt(encodedPassword.substring(4, 6)) != bcryptStrength;
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+
+    private <T> T submit(Supplier<T> task) {
+        Future<T> future;
+        try {
+            future = executor.submit(task::get);
+        } catch (RejectedExecutionException e) {
+            rejectedCounter.increment();
+            throw new SaturatedException("Service de connexion saturé, veuillez réessayer.");
+        }
+        try {
+            return future.get(timeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            rejectedCounter.increment();
+            throw new SaturatedException("Service de connexion saturé, veuillez réessayer.");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Password hashing interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Password hashing failed", e.getCause());
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdown();
+    }
+
+    /**
+     * Thrown when the hashing pool cannot take more work; mapped to 503 by the controllers.
+     */
+    public static class SaturatedException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        public SaturatedException(String message) {
+            super(message);
+        }
+    }
+}
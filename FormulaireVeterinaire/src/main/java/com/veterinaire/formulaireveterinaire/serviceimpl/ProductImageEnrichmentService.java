@@ -0,0 +1,248 @@
+package com.veterinaire.formulaireveterinaire.serviceimpl;
+
+import com.veterinaire.formulaireveterinaire.DAO.ProductRepository;
+import com.veterinaire.formulaireveterinaire.Enums.ImageStatus;
+import com.veterinaire.formulaireveterinaire.entity.Product;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.io.IOException;
+import java.net.URI;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Scrapes product images in the background so creating a product never waits on a supplier site.
+ * Products are saved with a placeholder image and {@link ImageStatus#PENDING}; a bounded worker pool
+ * scrapes their detailsUrl, at most {@code image.enrichment.per-host} pages at a time per host,
+ * retries network and 5xx failures with exponential backoff, then stores the image (READY) or gives up
+ * (FAILED). Products still PENDING at startup, e.g. after a restart, are queued again.
+ */
+@Service
+public class ProductImageEnrichmentService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProductImageEnrichmentService.class);
+
+    public static final String PLACEHOLDER_URL = "https://via.placeholder.com/300x300?text=No+Image";
+    static final String ERROR_PLACEHOLDER_URL = "https://via.placeholder.com/300x300?text=Error+Loading";
+    // A job whose host is at its limit goes back in the queue after this delay, without using an attempt
+    private static final long HOST_BUSY_DELAY_MS = 200;
+
+    private record Job(Long productId, String url, String host, int attempt) {
+
+        Job nextAttempt() {
+            return new Job(productId, url, host, attempt + 1);
+        }
+    }
+
+    private final ProductRepository productRepository;
+    private final ProductImageScraper scraper;
+    private final CatalogCache catalogCache;
+    private final ProductSearchIndex searchIndex;
+    private final int perHostLimit;
+    private final int maxAttempts;
+    private final long backoffBaseMillis;
+    private final long backoffMaxMillis;
+
+    private final ThreadPoolExecutor workers;
+    private final ScheduledExecutorService delays;
+    private final Map<String, Semaphore> hostPermits = new ConcurrentHashMap<>();
+    private final AtomicInteger delayed = new AtomicInteger();
+
+    private final Counter readyCounter;
+    private final Counter failedCounter;
+    private final Counter retryCounter;
+    private final Timer scrapeTimer;
+
+    public ProductImageEnrichmentService(ProductRepository productRepository, ProductImageScraper scraper,
+                                         CatalogCache catalogCache, ProductSearchIndex searchIndex,
+                                         MeterRegistry meterRegistry,
+                                         @Value("${image.enrichment.threads:4}") int threads,
+                                         @Value("${image.enrichment.per-host:2}") int perHostLimit,
+                                         @Value("${image.enrichment.queue-capacity:500}") int queueCapacity,
+                                         @Value("${image.enrichment.max-attempts:4}") int maxAttempts,
+                                         @Value("${image.enrichment.backoff-base-ms:2000}") long backoffBaseMillis,
+                                         @Value("${image.enrichment.backoff-max-ms:60000}") long backoffMaxMillis) {
+        this.productRepository = productRepository;
+        this.scraper = scraper;
+        this.catalogCache = catalogCache;
+        this.searchIndex = searchIndex;
+        this.perHostLimit = perHostLimit;
+        this.maxAttempts = maxAttempts;
+        this.backoffBaseMillis = backoffBaseMillis;
+        this.backoffMaxMillis = backoffMaxMillis;
+
+        AtomicInteger threadIndex = new AtomicInteger();
+        this.workers = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                r -> {
+                    Thread t = new Thread(r, "image-enrichment-" + threadIndex.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+        this.delays = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "image-enrichment-retry");
+            t.setDaemon(true);
+            return t;
+        });
+
+        this.readyCounter = Counter.builder("product.image.enrichment").tag("result", "ready").register(meterRegistry);
+        this.failedCounter = Counter.builder("product.image.enrichment").tag("result", "failed").register(meterRegistry);
+        this.retryCounter = Counter.builder("product.image.enrichment").tag("result", "retry").register(meterRegistry);
+        this.scrapeTimer = Timer.builder("product.image.scrape").register(meterRegistry);
+        Gauge.builder("product.image.enrichment.queue", workers, w -> w.getQueue().size())
+                .tag("state", "queued").register(meterRegistry);
+        Gauge.builder("product.image.enrichment.queue", delayed, AtomicInteger::get)
+                .tag("state", "delayed").register(meterRegistry);
+        Gauge.builder("product.image.enrichment.queue", workers, ThreadPoolExecutor::getActiveCount)
+                .tag("state", "active").register(meterRegistry);
+    }
+
+    /** The bounded worker pool, shared with bulk re-scrapes so both stay within image.enrichment.threads. */
+    Executor executor() {
+        return workers;
+    }
+
+    /** Permits of a supplier host, shared with bulk re-scrapes so both together stay within image.enrichment.per-host. */
+    Semaphore hostPermits(String host) {
+        return hostPermits.computeIfAbsent(host, h -> new Semaphore(perHostLimit));
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void resumePending() {
+        int count = 0;
+        for (Product product : productRepository.findByImageStatus(ImageStatus.PENDING)) {
+            enqueue(product.getId(), product.getDetailsUrl());
+            count++;
+        }
+        if (count > 0) {
+            logger.info("Resumed image enrichment for {} pending products", count);
+        }
+    }
+
+    /** Queues the scrape; inside a transaction only once it commits, so the worker sees the product. */
+    public void enqueue(Long productId, String detailsUrl) {
+        String host;
+        try {
+            host = URI.create(detailsUrl).getHost();
+        } catch (IllegalArgumentException | NullPointerException e) {
+            host = null;
+        }
+        if (host == null) {
+            logger.warn("Product {}: invalid detailsUrl {}, no image enrichment", productId, detailsUrl);
+            complete(productId, ERROR_PLACEHOLDER_URL, ImageStatus.FAILED);
+            return;
+        }
+        Job job = new Job(productId, detailsUrl, host, 1);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    submit(job);
+                }
+            });
+        } else {
+            submit(job);
+        }
+    }
+
+    private void submit(Job job) {
+        try {
+            workers.execute(() -> run(job));
+        } catch (RejectedExecutionException e) {
+            if (workers.isShutdown()) {
+                return;
+            }
+            // Queue full: try again later rather than dropping it; the product stays PENDING meanwhile
+            schedule(job, backoff(job.attempt()));
+        }
+    }
+
+    private void run(Job job) {
+        Semaphore permits = hostPermits(job.host());
+        if (!permits.tryAcquire()) {
+            schedule(job, HOST_BUSY_DELAY_MS);
+            return;
+        }
+        try {
+            long started = System.nanoTime();
+            String imageUrl = scraper.scrape(job.url());
+            scrapeTimer.record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+            if (imageUrl != null) {
+                complete(job.productId(), imageUrl, ImageStatus.READY);
+            } else {
+                logger.warn("Product {}: no image found on {}", job.productId(), job.url());
+                complete(job.productId(), PLACEHOLDER_URL, ImageStatus.FAILED);
+            }
+        } catch (ProductImageScraper.PermanentScrapeException e) {
+            logger.warn("Product {}: {}", job.productId(), e.getMessage());
+            complete(job.productId(), ERROR_PLACEHOLDER_URL, ImageStatus.FAILED);
+        } catch (IOException | RuntimeException e) {
+            if (job.attempt() >= maxAttempts) {
+                logger.error("Product {}: image scraping from {} failed after {} attempts: {}",
+                        job.productId(), job.url(), job.attempt(), e.getMessage());
+                complete(job.productId(), ERROR_PLACEHOLDER_URL, ImageStatus.FAILED);
+            } else {
+                long delay = backoff(job.attempt());
+                logger.debug("Product {}: attempt {} failed ({}), retrying in {} ms",
+                        job.productId(), job.attempt(), e.getMessage(), delay);
+                retryCounter.increment();
+                schedule(job.nextAttempt(), delay);
+            }
+        } finally {
+            permits.release();
+        }
+    }
+
+    private void complete(Long productId, String imageUrl, ImageStatus status) {
+        try {
+            if (productRepository.completeImage(productId, imageUrl, status) == 0) {
+                // Deleted, or given an image by hand in the meantime
+                return;
+            }
+            (status == ImageStatus.READY ? readyCounter : failedCounter).increment();
+            catalogCache.invalidate();
+            productRepository.findById(productId).ifPresent(searchIndex::index);
+        } catch (RuntimeException e) {
+            // Left PENDING: picked up again at the next startup
+            logger.error("Product {}: cannot store image result: {}", productId, e.getMessage(), e);
+        }
+    }
+
+    private void schedule(Job job, long delayMillis) {
+        delayed.incrementAndGet();
+        try {
+            delays.schedule(() -> {
+                delayed.decrementAndGet();
+                submit(job);
+            }, delayMillis, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            delayed.decrementAndGet();
+        }
+    }
+
+    // Exponential with equal jitter, so products from one failing host do not retry in lockstep
+    private long backoff(int attempt) {
+        long ceiling = Math.min(backoffMaxMillis, backoffBaseMillis << Math.min(attempt - 1, 20));
+        return ceiling / 2 + ThreadLocalRandom.current().nextLong(ceiling / 2 + 1);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        delays.shutdownNow();
+        workers.shutdownNow();
+    }
+}
@@ -0,0 +1,318 @@
+package com.veterinaire.formulaireveterinaire.serviceimpl;
+
+import com.veterinaire.formulaireveterinaire.DAO.ProductPageValidatorRepository;
+import com.veterinaire.formulaireveterinaire.DAO.ProductRepository;
+import com.veterinaire.formulaireveterinaire.DTO.Product.RescrapeJob;
+import com.veterinaire.formulaireveterinaire.DTO.Product.RescrapeReport;
+import com.veterinaire.formulaireveterinaire.Enums.ImageStatus;
+import com.veterinaire.formulaireveterinaire.Enums.RescrapeState;
+import com.veterinaire.formulaireveterinaire.entity.Product;
+import com.veterinaire.formulaireveterinaire.entity.ProductPageValidator;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.net.URI;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Refreshes the image of every product that has a detailsUrl. A run is started by an admin and goes on in
+ * the background on the image enrichment workers; at most one runs at a time. Pages are fetched in
+ * parallel, each host by at most {@code image.enrichment.per-host} requests at a time, counting the
+ * enrichment ones (both take the same host permits), with the validators
+ * stored by the previous run so unchanged pages answer 304 without a body. Changed images are written at
+ * the end, each only if the product still has the image the run read, followed by one catalog snapshot
+ * invalidation and a search index refresh of the updated products.
+ */
+@Service
+public class ProductImageRescrapeService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProductImageRescrapeService.class);
+
+    private final ProductRepository productRepository;
+    private final ProductPageValidatorRepository validatorRepository;
+    private final ProductImageScraper scraper;
+    private final CatalogCache catalogCache;
+    private final ProductSearchIndex searchIndex;
+    private final MeterRegistry meterRegistry;
+    private final ProductImageEnrichmentService enrichmentService;
+    private final Executor executor;
+    private final int perHostLimit;
+    private final Timer durationTimer;
+    private final AtomicBoolean running = new AtomicBoolean();
+    private volatile Job lastJob;
+
+    // New image for a product, and the one it had when the run read it
+    private record ImageChange(String expected, String imageUrl) {
+    }
+
+    // Results of one run, filled concurrently by the workers
+    private static class Tally {
+        final long started = System.nanoTime();
+        final AtomicInteger unchanged = new AtomicInteger();
+        final AtomicInteger notModified = new AtomicInteger();
+        final AtomicInteger failed = new AtomicInteger();
+        final AtomicInteger selectorCacheHits = new AtomicInteger();
+        final Map<Long, ImageChange> newImages = new ConcurrentHashMap<>();
+        final Queue<ProductPageValidator> validators = new ConcurrentLinkedQueue<>();
+        int products;
+        int hosts;
+    }
+
+    private static final class Job {
+        final String id = UUID.randomUUID().toString();
+        final LocalDateTime startedAt = LocalDateTime.now();
+        final CompletableFuture<RescrapeReport> result = new CompletableFuture<>();
+        volatile LocalDateTime finishedAt;
+
+        RescrapeJob view() {
+            if (!result.isDone()) {
+                return new RescrapeJob(id, RescrapeState.RUNNING, startedAt, null, null, null);
+            }
+            try {
+                return new RescrapeJob(id, RescrapeState.COMPLETED, startedAt, finishedAt, result.join(), null);
+            } catch (CompletionException e) {
+                Throwable cause = e.getCause() != null ? e.getCause() : e;
+                return new RescrapeJob(id, RescrapeState.FAILED, startedAt, finishedAt, null, cause.getMessage());
+            }
+        }
+    }
+
+    public ProductImageRescrapeService(ProductRepository productRepository,
+                                       ProductPageValidatorRepository validatorRepository,
+                                       ProductImageScraper scraper, CatalogCache catalogCache,
+                                       ProductSearchIndex searchIndex, MeterRegistry meterRegistry,
+                                       ProductImageEnrichmentService enrichmentService,
+                                       @Value("${image.enrichment.per-host:2}") int perHostLimit) {
+        this.productRepository = productRepository;
+        this.validatorRepository = validatorRepository;
+        this.scraper = scraper;
+        this.catalogCache = catalogCache;
+        this.searchIndex = searchIndex;
+        this.meterRegistry = meterRegistry;
+        this.enrichmentService = enrichmentService;
+        this.executor = enrichmentService.executor();
+        this.perHostLimit = perHostLimit;
+        this.durationTimer = Timer.builder("product.image.rescrape.duration").register(meterRegistry);
+    }
+
+    /**
+     * Starts a re-scrape in the background.
+     * @throws AlreadyRunningException While the previous run is not finished.
+     */
+    public RescrapeJob start() {
+        if (!running.compareAndSet(false, true)) {
+            Job current = lastJob;
+            throw new AlreadyRunningException(current != null ? current.view() : null);
+        }
+        Job job = new Job();
+        lastJob = job;
+        try {
+            CompletableFuture.supplyAsync(this::plan, executor)
+                    .thenCompose(this::fetchAll)
+                    .thenApply(this::finish)
+                    .whenComplete((report, error) -> {
+                        job.finishedAt = LocalDateTime.now();
+                        running.set(false);
+                        if (error != null) {
+                            Throwable cause = error instanceof CompletionException && error.getCause() != null
+                                    ? error.getCause() : error;
+                            logger.error("Image re-scrape {} failed: {}", job.id, cause.getMessage(), cause);
+                            job.result.completeExceptionally(cause);
+                        } else {
+                            job.result.complete(report);
+                        }
+                    });
+        } catch (RejectedExecutionException e) {
+            running.set(false);
+            throw new IllegalStateException("La file des images est pleine, réessayez plus tard");
+        }
+        logger.info("Image re-scrape {} started", job.id);
+        return job.view();
+    }
+
+    /** The job with this id, if it is the latest one. */
+    public Optional<RescrapeJob> status(String jobId) {
+        Job job = lastJob;
+        return job != null && job.id.equals(jobId) ? Optional.of(job.view()) : Optional.empty();
+    }
+
+    public Optional<RescrapeJob> latest() {
+        Job job = lastJob;
+        return job != null ? Optional.of(job.view()) : Optional.empty();
+    }
+
+    /** Completes with the report of the job, or exceptionally when it failed. */
+    CompletableFuture<RescrapeReport> completion(String jobId) {
+        Job job = lastJob;
+        if (job == null || !job.id.equals(jobId)) {
+            throw new IllegalArgumentException("Unknown re-scrape job " + jobId);
+        }
+        return job.result.copy();
+    }
+
+    // One queue per host, drained by at most perHostLimit tasks, so no host sees more than that at once
+    private Map<String, Queue<Product>> plan() {
+        List<Product> products = productRepository.findByDetailsUrlIsNotNull();
+        Map<String, Queue<Product>> byHost = new LinkedHashMap<>();
+        for (Product product : products) {
+            byHost.computeIfAbsent(hostOf(product.getDetailsUrl()), h -> new ConcurrentLinkedQueue<>()).add(product);
+        }
+        return byHost;
+    }
+
+    private CompletableFuture<Tally> fetchAll(Map<String, Queue<Product>> byHost) {
+        Map<Long, ProductPageValidator> validators = validatorRepository.findAllByProductId();
+        Tally tally = new Tally();
+        tally.products = byHost.values().stream().mapToInt(Queue::size).sum();
+        Queue<Product> invalid = byHost.remove(null);
+        if (invalid != null) {
+            tally.failed.addAndGet(invalid.size());
+        }
+        tally.hosts = byHost.size();
+
+        List<CompletableFuture<Void>> workers = new ArrayList<>();
+        for (Map.Entry<String, Queue<Product>> host : byHost.entrySet()) {
+            Queue<Product> queue = host.getValue();
+            Semaphore permits = enrichmentService.hostPermits(host.getKey());
+            for (int i = Math.min(perHostLimit, queue.size()); i > 0; i--) {
+                try {
+                    workers.add(CompletableFuture.runAsync(() -> drain(queue, permits, validators, tally), executor));
+                } catch (RejectedExecutionException e) {
+                    // Worker queue full: this thread drains the host itself, the others share it meanwhile
+                    drain(queue, permits, validators, tally);
+                }
+            }
+        }
+        return CompletableFuture.allOf(workers.toArray(CompletableFuture[]::new)).thenApply(done -> tally);
+    }
+
+    private RescrapeReport finish(Tally tally) {
+        List<Long> updated = new ArrayList<>();
+        int skipped = 0;
+        for (Map.Entry<Long, ImageChange> entry : tally.newImages.entrySet()) {
+            ImageChange change = entry.getValue();
+            if (productRepository.updateImageIfUnchanged(entry.getKey(), change.expected(), change.imageUrl()) > 0) {
+                updated.add(entry.getKey());
+            } else {
+                // Changed by hand, by enrichment or deleted since the run read it: that value wins
+                skipped++;
+            }
+        }
+        validatorRepository.saveAll(tally.validators);
+        if (!updated.isEmpty()) {
+            catalogCache.invalidate();
+            productRepository.findAllById(updated).forEach(searchIndex::index);
+        }
+
+        long elapsedNanos = System.nanoTime() - tally.started;
+        durationTimer.record(elapsedNanos, TimeUnit.NANOSECONDS);
+        record("updated", updated.size());
+        record("unchanged", tally.unchanged.get());
+        record("not_modified", tally.notModified.get());
+        record("failed", tally.failed.get());
+        record("skipped", skipped);
+
+        int fetched = tally.newImages.size() + tally.unchanged.get() + tally.notModified.get() + tally.failed.get();
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(elapsedNanos);
+        RescrapeReport report = new RescrapeReport(tally.products, updated.size(), tally.unchanged.get(),
+                tally.notModified.get(), tally.failed.get(), skipped, tally.selectorCacheHits.get(), elapsedMillis,
+                elapsedNanos > 0 ? fetched * 1e9 / elapsedNanos : 0);
+        logger.info("Image re-scrape: {} products on {} hosts in {} ms ({} pages/s): {} updated, {} unchanged, " +
+                        "{} not modified, {} failed, {} skipped, {} selector cache hits",
+                report.products(), tally.hosts, elapsedMillis, String.format(Locale.ROOT, "%.1f", report.pagesPerSecond()),
+                report.updated(), report.unchanged(), report.notModified(), report.failed(), report.skipped(),
+                report.selectorCacheHits());
+        return report;
+    }
+
+    // Each fetch holds one of the host's permits, so enrichment scrapes of the same host count against the limit
+    private void drain(Queue<Product> queue, Semaphore permits, Map<Long, ProductPageValidator> validators,
+                       Tally tally) {
+        Product product;
+        while ((product = queue.poll()) != null && !Thread.currentThread().isInterrupted()) {
+            String url = product.getDetailsUrl();
+            // A 304 only means "keep the current image", so validators are sent only when that image is the scraped one
+            ProductPageValidator previous = validators.get(product.getId());
+            boolean conditional = previous != null && url.equals(previous.getDetailsUrl())
+                    && product.getImageStatus() == ImageStatus.READY;
+            try {
+                permits.acquire();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            try {
+                ProductImageScraper.PageResult page;
+                try {
+                    page = conditional
+                            ? scraper.fetch(url, previous.getEtag(), previous.getLastModified())
+                            : scraper.fetch(url, null, null);
+                } finally {
+                    permits.release();
+                }
+                if (page.selectorCacheHit()) {
+                    tally.selectorCacheHits.incrementAndGet();
+                }
+                if (page.notModified()) {
+                    tally.notModified.incrementAndGet();
+                    continue;
+                }
+                if (page.imageUrl() == null) {
+                    tally.failed.incrementAndGet();
+                    continue;
+                }
+                if (page.etag() != null || page.lastModified() != null) {
+                    tally.validators.add(new ProductPageValidator(product.getId(), url, page.etag(),
+                            page.lastModified(), LocalDateTime.now()));
+                }
+                if (page.imageUrl().equals(product.getImageUrl()) && product.getImageStatus() == ImageStatus.READY) {
+                    tally.unchanged.incrementAndGet();
+                } else {
+                    tally.newImages.put(product.getId(), new ImageChange(product.getImageUrl(), page.imageUrl()));
+                }
+            } catch (IOException | RuntimeException e) {
+                logger.warn("Product {}: re-scrape of {} failed: {}", product.getId(), url, e.getMessage());
+                tally.failed.incrementAndGet();
+            }
+        }
+    }
+
+    private void record(String result, int count) {
+        meterRegistry.counter("product.image.rescrape.pages", "result", result).increment(count);
+    }
+
+    private static String hostOf(String url) {
+        try {
+            return URI.create(url).getHost();
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Thrown when a re-scrape is requested while another one runs; mapped to 409 with the running job.
+     */
+    public static class AlreadyRunningException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        private final transient RescrapeJob job;
+
+        public AlreadyRunningException(RescrapeJob job) {
+            super("Une mise à jour des images est déjà en cours");
+            this.job = job;
+        }
+
+        public RescrapeJob getJob() {
+            return job;
+        }
+    }
+}
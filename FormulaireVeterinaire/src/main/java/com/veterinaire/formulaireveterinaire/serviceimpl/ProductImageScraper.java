@@ -0,0 +1,207 @@
+package com.veterinaire.formulaireveterinaire.serviceimpl;
+
+import org.jsoup.Jsoup;
+import org.jsoup.nodes.Document;
+import org.jsoup.nodes.Element;
+import org.jsoup.select.Elements;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.HttpTimeoutException;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Finds the product image on a supplier product page (formerly inline in ProductServiceImpl).
+ * Selectors go from the Virbac file store down to "any image"; the first Virbac image wins.
+ * <p>
+ * Every page goes through one shared {@link HttpClient} (HTTP/2 when the server offers it, pooled
+ * keep-alive connections otherwise), and the selector that worked on a host is tried first on its
+ * next pages, so pages from the same site layout skip the fallback cascade.
+ */
+@Component
+public class ProductImageScraper {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProductImageScraper.class);
+
+    static final String USER_AGENT = "Mozilla/5.0 (Windows NT 10.0; Win64; x64) AppleWebKit/537.36 (KHTML, like Gecko) Chrome/91.0.4472.124 Safari/537.36";
+    static final String VIRBAC_FILES = "files/live/sites/virbac-tn/files";
+    static final String[] SELECTORS = {
+            "figure img, a img[src*='" + VIRBAC_FILES + "']",
+            "img[src*='" + VIRBAC_FILES + "']",
+            "img[src*='packshot'], img[class*='packshot'], img[alt*='product']",
+            "img[src*='product'], .product-image img, .main-image img, img[itemprop='image']",
+            "img[width>=200], img[height>=200]",
+            "img"
+    };
+
+    /** The page answered, but with a status a retry will not change (404, 410...). */
+    public static class PermanentScrapeException extends IOException {
+        private static final long serialVersionUID = 1L;
+
+        public PermanentScrapeException(String message) {
+            super(message);
+        }
+    }
+
+    /**
+     * Outcome of one page fetch.
+     * @param notModified The server answered 304 to the validators sent: the stored image is still current.
+     * @param imageUrl The absolute image URL, null when not modified or when the page has no usable image.
+     * @param etag Validators to send next time, null when the server gave none.
+     * @param selectorCacheHit The host's cached selector found the image without running the cascade.
+     */
+    public record PageResult(boolean notModified, String imageUrl, String etag, String lastModified,
+                             boolean selectorCacheHit) {
+    }
+
+    private record Match(String imageUrl, boolean cached) {
+    }
+
+    private final HttpClient httpClient;
+    private final Duration timeout;
+    // Host -> index in SELECTORS of the selector that last found an image there
+    private final Map<String, Integer> selectorByHost = new ConcurrentHashMap<>();
+
+    public ProductImageScraper(@Value("${image.enrichment.timeout-ms:10000}") int timeoutMillis) {
+        this.timeout = Duration.ofMillis(timeoutMillis);
+        this.httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_2)
+                .followRedirects(HttpClient.Redirect.NORMAL)
+                .connectTimeout(timeout)
+                .build();
+    }
+
+    /**
+     * @return The absolute image URL, or null when the page has no usable image.
+     * @throws PermanentScrapeException For 4xx answers other than 429.
+     * @throws IOException For network errors and 5xx answers, worth a retry.
+     */
+    public String scrape(String url) throws IOException {
+        return fetch(url, null, null).imageUrl();
+    }
+
+    /**
+     * Fetches the page, conditionally when validators from a previous fetch are given.
+     * @throws PermanentScrapeException For 4xx answers other than 429.
+     * @throws IOException For network errors and 5xx answers, worth a retry.
+     */
+    public PageResult fetch(String url, String etag, String lastModified) throws IOException {
+        URI uri;
+        try {
+            uri = URI.create(url);
+        } catch (IllegalArgumentException e) {
+            throw new PermanentScrapeException("Invalid URL " + url);
+        }
+        HttpRequest.Builder request = HttpRequest.newBuilder(uri)
+                .timeout(timeout)
+                // HTTP/2 is negotiated over TLS; on plain http the h2c upgrade attempt costs the connection reuse
+                .version("https".equalsIgnoreCase(uri.getScheme()) ? HttpClient.Version.HTTP_2 : HttpClient.Version.HTTP_1_1)
+                .header("User-Agent", USER_AGENT)
+                .header("Accept", "text/html,application/xhtml+xml");
+        if (etag != null) {
+            request.header("If-None-Match", etag);
+        }
+        if (lastModified != null) {
+            request.header("If-Modified-Since", lastModified);
+        }
+
+        HttpResponse<String> response = send(request.GET().build(), url);
+
+        int status = response.statusCode();
+        if (status == 304) {
+            return new PageResult(true, null, etag, lastModified, false);
+        }
+        if (status >= 400 && status < 500 && status != 429) {
+            throw new PermanentScrapeException("HTTP " + status + " for " + url);
+        }
+        if (status < 200 || status >= 300) {
+            throw new IOException("HTTP " + status + " for " + url);
+        }
+
+        Document doc = Jsoup.parse(response.body(), response.uri().toString());
+        Match match = findImage(doc, response.uri().getHost());
+        return new PageResult(false, match.imageUrl(),
+                response.headers().firstValue("ETag").orElse(null),
+                response.headers().firstValue("Last-Modified").orElse(null),
+                match.cached());
+    }
+
+    private HttpResponse<String> send(HttpRequest request, String url) throws IOException {
+        try {
+            try {
+                return httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+            } catch (HttpTimeoutException e) {
+                throw e;
+            } catch (IOException e) {
+                // Most likely a pooled connection the server closed while idle: a GET is safe to send again
+                logger.debug("Retrying {} after {}", url, e.getMessage());
+                return httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while fetching " + url, e);
+        }
+    }
+
+    private Match findImage(Document doc, String host) {
+        Integer cached = host != null ? selectorByHost.get(host) : null;
+        if (cached != null) {
+            String src = chooseImage(doc.select(SELECTORS[cached]), doc);
+            if (src != null) {
+                return new Match(src, true);
+            }
+        }
+        for (int i = 0; i < SELECTORS.length; i++) {
+            Elements images = doc.select(SELECTORS[i]);
+            if (images.isEmpty()) {
+                continue;
+            }
+            String src = chooseImage(images, doc);
+            // The catch-all is never cached: it would hide a more specific match on the next page
+            if (src != null && host != null && i < SELECTORS.length - 1) {
+                selectorByHost.put(host, i);
+            }
+            return new Match(src, false);
+        }
+        logger.warn("No suitable images found on page: {}", doc.location());
+        return new Match(null, false);
+    }
+
+    private static String chooseImage(Elements images, Document doc) {
+        if (images.isEmpty()) {
+            return null;
+        }
+        logger.debug("Found {} potential images on {}", images.size(), doc.location());
+
+        // Prioritize an image from the Virbac file store, else the first candidate
+        Element chosen = images.first();
+        for (Element img : images) {
+            if (imageSource(img).contains(VIRBAC_FILES)) {
+                chosen = img;
+                break;
+            }
+        }
+        String src = chosen.hasAttr("src") && !chosen.attr("src").isEmpty() ? chosen.absUrl("src") : chosen.absUrl("data-src");
+        // Verify it's an image URL
+        if (!src.isEmpty() && (src.endsWith(".png") || src.endsWith(".jpg"))) {
+            logger.debug("Selected scraped image URL: {}", src);
+            return src;
+        }
+        logger.warn("Selected URL {} is not a valid image, skipping", src);
+        return null;
+    }
+
+    private static String imageSource(Element img) {
+        String src = img.attr("src");
+        return src.isEmpty() ? img.attr("data-src") : src;
+    }
+}
@@ -0,0 +1,463 @@
+package com.veterinaire.formulaireveterinaire.serviceimpl;
+
+import com.veterinaire.formulaireveterinaire.DAO.ProductRepository;
+import com.veterinaire.formulaireveterinaire.Enums.Category;
+import com.veterinaire.formulaireveterinaire.Enums.SubCategory;
+import com.veterinaire.formulaireveterinaire.entity.Product;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory inverted index over product name and description, analyzed by {@link FrenchAnalyzer}.
+ * All query terms must match; hits are ranked with BM25 (name terms count {@value #NAME_WEIGHT} times)
+ * and come with facet counts per category, sub-category and stock status.
+ *
+ * Loaded once at startup and kept current by ProductServiceImpl's write paths. An update appends the
+ * product as a new document and marks the old one dead, so postings stay sorted by document and can be
+ * intersected with binary searches; dead documents are dropped by a compaction once they pile up.
+ * Writes made by other instances or directly in the database are picked up by {@link #refresh()}, which
+ * rebuilds only when the catalog's fingerprint differs from the indexed one.
+ */
+@Component
+public class ProductSearchIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProductSearchIndex.class);
+
+    static final int NAME_WEIGHT = 3;
+    private static final float K1 = 1.2f;
+    private static final float B = 0.75f;
+    private static final int COMPACT_MIN_DEAD = 1024;
+    // Above this many postings per candidate, candidates are looked up by binary search instead of a merge walk
+    private static final int MERGE_MAX_RATIO = 8;
+    private static final Category[] CATEGORIES = Category.values();
+    private static final SubCategory[] SUB_CATEGORIES = SubCategory.values();
+    private static final int IN_STOCK_BIT = 1 << 16;
+
+    public record Hit(Product product, float score) {
+    }
+
+    /**
+     * Facets count every document matching the text, before the category/stock filters,
+     * so clients can show how many results each filter would leave.
+     */
+    public record Result(List<Hit> hits, int total, Map<Category, Integer> categories,
+                         Map<SubCategory, Integer> subCategories, Map<Boolean, Integer> inStock) {
+    }
+
+    // Document ids and term frequencies of one term, in increasing document order
+    private static final class Postings {
+        int[] docs = new int[4];
+        int[] tfs = new int[4];
+        int size;
+        int live;
+
+        void add(int doc, int tf) {
+            if (size == docs.length) {
+                docs = Arrays.copyOf(docs, size * 2);
+                tfs = Arrays.copyOf(tfs, size * 2);
+            }
+            docs[size] = doc;
+            tfs[size] = tf;
+            size++;
+            live++;
+        }
+    }
+
+    private final ProductRepository productRepository;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final Map<String, Postings> terms = new HashMap<>();
+    private final Map<Long, Integer> docByProduct = new HashMap<>();
+    // Per document; products[doc] == null marks a dead document
+    private Product[] products = new Product[64];
+    private String[][] docTerms = new String[64][];
+    private int[] lengths = new int[64];
+    // Category ordinal + 1, sub-category ordinal + 1 << 8, IN_STOCK_BIT: facets without touching the products
+    private int[] facets = new int[64];
+    // BM25 length normalization per document, refreshed after every write since it depends on the average length
+    private float[] norms = new float[64];
+    private int docCount;
+    private int liveCount;
+    private long totalLength;
+    // Order-independent sum of the live documents' content hashes, kept up to date by add and remove
+    private long fingerprint;
+    // Incremented by every local write, so a refresh does not overwrite one made while it read the catalog
+    private long writes;
+
+    public ProductSearchIndex(ProductRepository productRepository) {
+        this.productRepository = productRepository;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        long started = System.nanoTime();
+        rebuild(productRepository.findAll());
+        logger.info("Product search index built: {} products, {} terms in {} ms",
+                liveCount, terms.size(), (System.nanoTime() - started) / 1_000_000);
+    }
+
+    /**
+     * Reloads the catalog and rebuilds the index if it no longer matches, e.g. after a write on another
+     * instance or a direct database edit.
+     * @return Whether the index was rebuilt.
+     */
+    public boolean refresh() {
+        long writesBefore;
+        lock.readLock().lock();
+        try {
+            writesBefore = writes;
+        } finally {
+            lock.readLock().unlock();
+        }
+        List<Product> catalog = productRepository.findAll();
+        long catalogFingerprint = 0;
+        for (Product product : catalog) {
+            catalogFingerprint += contentHash(product);
+        }
+
+        lock.writeLock().lock();
+        try {
+            if (writes != writesBefore) {
+                // A local write landed while the catalog was read: the next refresh compares again
+                return false;
+            }
+            if (catalogFingerprint == fingerprint && catalog.size() == liveCount) {
+                return false;
+            }
+            int before = liveCount;
+            clear();
+            for (Product product : catalog) {
+                add(product);
+            }
+            refreshNorms();
+            logger.info("Product search index out of date ({} indexed, {} in database), rebuilt", before, liveCount);
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void rebuild(Collection<Product> catalog) {
+        lock.writeLock().lock();
+        try {
+            clear();
+            for (Product product : catalog) {
+                add(product);
+            }
+            refreshNorms();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /** Adds the product, or replaces the version already indexed. */
+    public void index(Product product) {
+        lock.writeLock().lock();
+        try {
+            writes++;
+            remove(product.getId());
+            add(product);
+            compactIfNeeded();
+            refreshNorms();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void delete(Long productId) {
+        lock.writeLock().lock();
+        try {
+            writes++;
+            remove(productId);
+            compactIfNeeded();
+            refreshNorms();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return liveCount;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @param limit Maximum number of hits returned; {@link Result#total()} counts them all.
+     */
+    public Result search(String query, Category category, SubCategory subCategory, Boolean inStock, int limit) {
+        Set<String> queryTerms = new LinkedHashSet<>(FrenchAnalyzer.analyze(query));
+        if (queryTerms.isEmpty()) {
+            return emptyResult();
+        }
+
+        lock.readLock().lock();
+        try {
+            Postings[] lists = new Postings[queryTerms.size()];
+            int t = 0;
+            for (String term : queryTerms) {
+                Postings postings = terms.get(term);
+                if (postings == null) {
+                    return emptyResult();
+                }
+                lists[t++] = postings;
+            }
+            // Rarest term first: its documents are the only candidates
+            Arrays.sort(lists, Comparator.comparingInt(p -> p.live));
+
+            Postings first = lists[0];
+            int[] candidates = new int[first.live];
+            float[] scores = new float[first.live];
+            int count = 0;
+            float idf = idf(first.live);
+            for (int i = 0; i < first.size; i++) {
+                int doc = first.docs[i];
+                if (products[doc] != null) {
+                    candidates[count] = doc;
+                    scores[count] = bm25(idf, first.tfs[i], norms[doc]);
+                    count++;
+                }
+            }
+
+            for (int l = 1; l < lists.length && count > 0; l++) {
+                Postings postings = lists[l];
+                idf = idf(postings.live);
+                boolean merge = postings.size <= (long) count * MERGE_MAX_RATIO;
+                int from = 0;
+                int kept = 0;
+                for (int c = 0; c < count; c++) {
+                    int doc = candidates[c];
+                    int pos;
+                    if (merge) {
+                        while (from < postings.size && postings.docs[from] < doc) {
+                            from++;
+                        }
+                        pos = from < postings.size && postings.docs[from] == doc ? from : -from - 1;
+                    } else {
+                        pos = Arrays.binarySearch(postings.docs, from, postings.size, doc);
+                    }
+                    if (pos >= 0) {
+                        candidates[kept] = doc;
+                        scores[kept] = scores[c] + bm25(idf, postings.tfs[pos], norms[doc]);
+                        kept++;
+                        from = pos + 1;
+                    } else {
+                        from = -pos - 1;
+                    }
+                }
+                count = kept;
+            }
+
+            return collect(candidates, scores, count, category, subCategory, inStock, limit);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private Result collect(int[] candidates, float[] scores, int count, Category category,
+                           SubCategory subCategory, Boolean inStock, int limit) {
+        int[] categoryCounts = new int[CATEGORIES.length + 1];
+        int[] subCategoryCounts = new int[SUB_CATEGORIES.length + 1];
+        int inStockCount = 0;
+        int wantedCategory = category != null ? category.ordinal() + 1 : -1;
+        int wantedSubCategory = subCategory != null ? subCategory.ordinal() + 1 : -1;
+        int total = 0;
+        // Min-heap of the best matches so far, by candidate index
+        PriorityQueue<Integer> top = new PriorityQueue<>(Math.max(1, limit), (a, b) -> compareHits(a, b, candidates, scores));
+
+        for (int c = 0; c < count; c++) {
+            int packed = facets[candidates[c]];
+            int categoryKey = packed & 0xFF;
+            int subCategoryKey = (packed >>> 8) & 0xFF;
+            boolean available = (packed & IN_STOCK_BIT) != 0;
+            categoryCounts[categoryKey]++;
+            subCategoryCounts[subCategoryKey]++;
+            if (available) {
+                inStockCount++;
+            }
+            if ((wantedCategory >= 0 && categoryKey != wantedCategory)
+                    || (wantedSubCategory >= 0 && subCategoryKey != wantedSubCategory)
+                    || (inStock != null && available != inStock)) {
+                continue;
+            }
+            total++;
+            if (limit <= 0) {
+                continue;
+            }
+            if (top.size() < limit) {
+                top.add(c);
+            } else if (compareHits(c, top.peek(), candidates, scores) > 0) {
+                top.poll();
+                top.add(c);
+            }
+        }
+
+        Hit[] hits = new Hit[top.size()];
+        for (int i = hits.length - 1; i >= 0; i--) {
+            int c = top.poll();
+            hits[i] = new Hit(products[candidates[c]], scores[c]);
+        }
+        Map<Category, Integer> categoryFacet = new EnumMap<>(Category.class);
+        for (int i = 1; i < categoryCounts.length; i++) {
+            if (categoryCounts[i] > 0) {
+                categoryFacet.put(CATEGORIES[i - 1], categoryCounts[i]);
+            }
+        }
+        Map<SubCategory, Integer> subCategoryFacet = new EnumMap<>(SubCategory.class);
+        for (int i = 1; i < subCategoryCounts.length; i++) {
+            if (subCategoryCounts[i] > 0) {
+                subCategoryFacet.put(SUB_CATEGORIES[i - 1], subCategoryCounts[i]);
+            }
+        }
+        Map<Boolean, Integer> stockFacet = new LinkedHashMap<>();
+        stockFacet.put(true, inStockCount);
+        stockFacet.put(false, count - inStockCount);
+        return new Result(List.of(hits), total, categoryFacet, subCategoryFacet, stockFacet);
+    }
+
+    // Higher score wins; on equal scores the lower product id wins, for stable pages
+    private int compareHits(int a, int b, int[] candidates, float[] scores) {
+        int byScore = Float.compare(scores[a], scores[b]);
+        if (byScore != 0) {
+            return byScore;
+        }
+        return Long.compare(products[candidates[b]].getId(), products[candidates[a]].getId());
+    }
+
+    private float idf(int documentFrequency) {
+        return (float) Math.log(1 + (liveCount - documentFrequency + 0.5) / (documentFrequency + 0.5));
+    }
+
+    private static float bm25(float idf, int tf, float norm) {
+        return idf * tf * (K1 + 1) / (tf + norm);
+    }
+
+    // --- Write side, always under the write lock ---
+
+    private void add(Product product) {
+        Map<String, Integer> frequencies = new HashMap<>();
+        int length = 0;
+        for (String term : FrenchAnalyzer.analyze(product.getName())) {
+            frequencies.merge(term, NAME_WEIGHT, Integer::sum);
+            length += NAME_WEIGHT;
+        }
+        for (String term : FrenchAnalyzer.analyze(product.getDescription())) {
+            frequencies.merge(term, 1, Integer::sum);
+            length++;
+        }
+
+        int doc = docCount++;
+        if (doc == products.length) {
+            int capacity = products.length * 2;
+            products = Arrays.copyOf(products, capacity);
+            docTerms = Arrays.copyOf(docTerms, capacity);
+            lengths = Arrays.copyOf(lengths, capacity);
+            facets = Arrays.copyOf(facets, capacity);
+            norms = Arrays.copyOf(norms, capacity);
+        }
+        for (Map.Entry<String, Integer> entry : frequencies.entrySet()) {
+            terms.computeIfAbsent(entry.getKey(), k -> new Postings()).add(doc, entry.getValue());
+        }
+        products[doc] = copyOf(product);
+        docTerms[doc] = frequencies.keySet().toArray(String[]::new);
+        lengths[doc] = length;
+        facets[doc] = (product.getCategory() != null ? product.getCategory().ordinal() + 1 : 0)
+                | (product.getSubCategory() != null ? product.getSubCategory().ordinal() + 1 : 0) << 8
+                | (Boolean.TRUE.equals(product.getInStock()) ? IN_STOCK_BIT : 0);
+        docByProduct.put(product.getId(), doc);
+        liveCount++;
+        totalLength += length;
+        fingerprint += contentHash(products[doc]);
+    }
+
+    private void remove(Long productId) {
+        Integer doc = docByProduct.remove(productId);
+        if (doc == null) {
+            return;
+        }
+        for (String term : docTerms[doc]) {
+            Postings postings = terms.get(term);
+            if (--postings.live == 0) {
+                terms.remove(term);
+            }
+        }
+        fingerprint -= contentHash(products[doc]);
+        products[doc] = null;
+        docTerms[doc] = null;
+        liveCount--;
+        totalLength -= lengths[doc];
+    }
+
+    private void refreshNorms() {
+        float avgLength = liveCount > 0 ? (float) totalLength / liveCount : 1;
+        for (int doc = 0; doc < docCount; doc++) {
+            norms[doc] = K1 * (1 - B + B * lengths[doc] / avgLength);
+        }
+    }
+
+    private void compactIfNeeded() {
+        int dead = docCount - liveCount;
+        if (dead >= COMPACT_MIN_DEAD && dead > liveCount / 4) {
+            List<Product> live = new ArrayList<>(liveCount);
+            for (int doc = 0; doc < docCount; doc++) {
+                if (products[doc] != null) {
+                    live.add(products[doc]);
+                }
+            }
+            clear();
+            live.forEach(this::add);
+            logger.debug("Product search index compacted: {} dead documents dropped", dead);
+        }
+    }
+
+    private void clear() {
+        terms.clear();
+        docByProduct.clear();
+        Arrays.fill(products, 0, docCount, null);
+        Arrays.fill(docTerms, 0, docCount, null);
+        docCount = 0;
+        liveCount = 0;
+        totalLength = 0;
+        fingerprint = 0;
+    }
+
+    // The index keeps its own copy: the entity passed in may still be managed and modified later
+    private static Product copyOf(Product product) {
+        Product copy = new Product();
+        copy.setId(product.getId());
+        copy.setName(product.getName());
+        copy.setDescription(product.getDescription());
+        copy.setPrice(product.getPrice());
+        copy.setImageUrl(product.getImageUrl());
+        copy.setImageStatus(product.getImageStatus());
+        copy.setCategory(product.getCategory());
+        copy.setSubCategory(product.getSubCategory());
+        copy.setInStock(product.getInStock());
+        copy.setDetailsUrl(product.getDetailsUrl());
+        return copy;
+    }
+
+    // Every field a hit returns; the price without trailing zeros so 19.9 and 19.90 hash alike
+    private static long contentHash(Product product) {
+        long hash = Objects.hash(product.getId(), product.getName(), product.getDescription(),
+                product.getPrice() != null ? product.getPrice().stripTrailingZeros() : null,
+                product.getImageUrl(), product.getImageStatus(), product.getCategory(), product.getSubCategory(),
+                product.getInStock(), product.getDetailsUrl());
+        // Spread the 32-bit hash so that summing many of them rarely collides
+        hash *= 0x9E3779B97F4A7C15L;
+        return hash ^ (hash >>> 29);
+    }
+
+    private static Result emptyResult() {
+        return new Result(List.of(), 0, Map.of(), Map.of(), Map.of());
+    }
+}
@@ -1,16 +1,21 @@
 package com.veterinaire.formulaireveterinaire.serviceimpl;
+import com.veterinaire.formulaireveterinaire.DAO.ProductQueryRepository;
 import com.veterinaire.formulaireveterinaire.DAO.ProductRepository;
+import com.veterinaire.formulaireveterinaire.DTO.Product.ProductCursor;
+import com.veterinaire.formulaireveterinaire.DTO.Product.ProductPageResponse;
+import com.veterinaire.formulaireveterinaire.DTO.Product.ProductSearchCriteria;
+import com.veterinaire.formulaireveterinaire.DTO.Product.ProductSearchResponse;
+import com.veterinaire.formulaireveterinaire.Enums.Category;
+import com.veterinaire.formulaireveterinaire.Enums.ImageStatus;
+import com.veterinaire.formulaireveterinaire.Enums.ProductSort;
+import com.veterinaire.formulaireveterinaire.Enums.SubCategory;
 import com.veterinaire.formulaireveterinaire.entity.Product;
 import com.veterinaire.formulaireveterinaire.service.ProductService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
-import org.jsoup.Jsoup;
-import org.jsoup.nodes.Document;
-import org.jsoup.nodes.Element;
-import org.jsoup.select.Elements;
-import java.io.IOException;
+import java.math.BigDecimal;
 import java.util.List;
 import java.util.Optional;
 @Service
@@ -18,9 +23,26 @@ public class ProductServiceImpl implements ProductService {
 
     private static final Logger logger = LoggerFactory.getLogger(ProductServiceImpl.class);
 
+    static final int DEFAULT_PAGE_SIZE = 20;
+    static final int MAX_PAGE_SIZE = 100;
+    private static final int MAX_NAME_PREFIX = 100;
+    private static final int MAX_QUERY_LENGTH = 200;
+
     @Autowired
     private ProductRepository productRepository;
 
+    @Autowired
+    private CatalogCache catalogCache;
+
+    @Autowired
+    private ProductQueryRepository productQueryRepository;
+
+    @Autowired
+    private ProductSearchIndex searchIndex;
+
+    @Autowired
+    private ProductImageEnrichmentService imageEnrichment;
+
     @Override
     public List<Product> getAllProducts() {
         return productRepository.findAll();
@@ -33,114 +55,26 @@ public class ProductServiceImpl implements ProductService {
 
     @Override
     public Product createProduct(Product product) {
-        // If detailsUrl is provided and imageUrl is not set, attempt to scrape the image
-        if (product.getDetailsUrl() != null && (product.getImageUrl() == null || product.getImageUrl().isEmpty())) {
-            try {
-                String scrapedImageUrl = scrapeProductImage(product.getDetailsUrl());
-                if (scrapedImageUrl != null) {
-                    product.setImageUrl(scrapedImageUrl);
-                    logger.info("Successfully scraped image URL: {}", scrapedImageUrl);
-                } else {
-                    logger.warn("No image found on detailsUrl: {}", product.getDetailsUrl());
-                    // Set a default placeholder if no image found
-                    product.setImageUrl("https://via.placeholder.com/300x300?text=No+Image");
-                }
-            } catch (IOException e) {
-                logger.error("Error scraping image from {}: {}", product.getDetailsUrl(), e.getMessage());
-                // Fallback to placeholder
-                product.setImageUrl("https://via.placeholder.com/300x300?text=Error+Loading");
-            }
+        // The image is scraped from detailsUrl in the background; the product shows a placeholder until then
+        boolean scrape = needsScraping(product);
+        if (scrape) {
+            product.setImageUrl(ProductImageEnrichmentService.PLACEHOLDER_URL);
+            product.setImageStatus(ImageStatus.PENDING);
+        } else {
+            product.setImageStatus(ImageStatus.READY);
         }
 
-        return productRepository.save(product);
+        Product saved = productRepository.save(product);
+        catalogCache.invalidate();
+        searchIndex.index(saved);
+        if (scrape) {
+            imageEnrichment.enqueue(saved.getId(), saved.getDetailsUrl());
+        }
+        return saved;
     }
 
-    private String scrapeProductImage(String url) throws IOException {
-        try {
-            Document doc = Jsoup.connect(url)
-                    .userAgent("Mozilla/5.0 (Windows NT 10.0; Win64; x64) AppleWebKit/537.36 (KHTML, like Gecko) Chrome/91.0.4472.124 Safari/537.36")
-                    .timeout(10000) // 10-second timeout
-                    .get();
-
-            // Prioritize product images within figure or anchor tags
-            Elements images = doc.select("figure img, a img[src*='files/live/sites/virbac-tn/files']");
-
-            // Broader selectors if specific fails
-            if (images.isEmpty()) {
-                images = doc.select("img[src*='files/live/sites/virbac-tn/files']");
-            }
-            if (images.isEmpty()) {
-                images = doc.select("img[src*='packshot'], img[class*='packshot'], img[alt*='product']");
-            }
-            if (images.isEmpty()) {
-                images = doc.select("img[src*='product'], .product-image img, .main-image img, img[itemprop='image']");
-            }
-            if (images.isEmpty()) {
-                images = doc.select("img[width>=200], img[height>=200]");
-            }
-            if (images.isEmpty()) {
-                images = doc.select("img");
-            }
-
-            // Debug: Log all found images
-            logger.debug("Found {} potential images on {}", images.size(), url);
-            for (Element img : images) {
-                String src = img.attr("src");
-                String dataSrc = img.attr("data-src");
-                if (!src.isEmpty()) {
-                    logger.debug("Candidate image src: {}", src);
-                } else if (!dataSrc.isEmpty()) {
-                    logger.debug("Candidate image data-src: {}", dataSrc);
-                }
-                if (src.contains("files/live/sites/virbac-tn/files") || dataSrc.contains("files/live/sites/virbac-tn/files")) {
-                    logger.debug("Prioritized image candidate: {}", src.isEmpty() ? dataSrc : src);
-                }
-            }
-
-            if (!images.isEmpty()) {
-                Element firstImage = null;
-                // Prioritize an image with Virbac file path
-                for (Element img : images) {
-                    String src = img.attr("src");
-                    String dataSrc = img.attr("data-src");
-                    if (!src.isEmpty() && src.contains("files/live/sites/virbac-tn/files")) {
-                        firstImage = img;
-                        break;
-                    } else if (src.isEmpty() && !dataSrc.isEmpty() && dataSrc.contains("files/live/sites/virbac-tn/files")) {
-                        firstImage = img;
-                        src = dataSrc; // Use data-src if src is empty
-                        break;
-                    }
-                }
-                // Fallback to first image if no prioritized one
-                if (firstImage == null) {
-                    firstImage = images.first();
-                }
-
-                String src = firstImage.attr("src").isEmpty() ? firstImage.attr("data-src") : firstImage.attr("src");
-                // Make absolute URL
-                if (src.startsWith("/")) {
-                    src = "https://tn.virbac.com" + src;
-                } else if (!src.startsWith("http")) {
-                    String base = url.substring(0, url.lastIndexOf("/") + 1);
-                    src = base + src;
-                }
-                // Verify it's an image URL
-                if (!src.endsWith("/") && (src.endsWith(".png") || src.endsWith(".jpg"))) {
-                    logger.debug("Selected scraped image URL: {}", src);
-                    return src;
-                } else {
-                    logger.warn("Selected URL {} is not a valid image, skipping", src);
-                    return null;
-                }
-            }
-
-            logger.warn("No suitable images found on page: {}", url);
-            return null;
-        } catch (Exception e) {
-            logger.error("Failed to scrape image from {}: {}", url, e.getMessage());
-            throw new IOException("Failed to scrape image", e);
-        }
+    private static boolean needsScraping(Product product) {
+        return product.getDetailsUrl() != null && (product.getImageUrl() == null || product.getImageUrl().isEmpty());
     }
 
     @Override
@@ -151,12 +85,25 @@ public class ProductServiceImpl implements ProductService {
             updatedProduct.setName(product.getName());
             updatedProduct.setDescription(product.getDescription());
             updatedProduct.setPrice(product.getPrice());
-            updatedProduct.setImageUrl(product.getImageUrl());
             updatedProduct.setCategory(product.getCategory());
             updatedProduct.setSubCategory(product.getSubCategory());
             updatedProduct.setInStock(product.getInStock());
             updatedProduct.setDetailsUrl(product.getDetailsUrl());
-            return productRepository.save(updatedProduct);
+            boolean scrape = needsScraping(product);
+            if (scrape) {
+                updatedProduct.setImageUrl(ProductImageEnrichmentService.PLACEHOLDER_URL);
+                updatedProduct.setImageStatus(ImageStatus.PENDING);
+            } else {
+                updatedProduct.setImageUrl(product.getImageUrl());
+                updatedProduct.setImageStatus(ImageStatus.READY);
+            }
+            Product saved = productRepository.save(updatedProduct);
+            catalogCache.invalidate();
+            searchIndex.index(saved);
+            if (scrape) {
+                imageEnrichment.enqueue(saved.getId(), saved.getDetailsUrl());
+            }
+            return saved;
         }
         throw new RuntimeException("Product not found with id: " + id);
     }
@@ -164,15 +111,17 @@ public class ProductServiceImpl implements ProductService {
     @Override
     public void deleteProduct(Long id) {
         productRepository.deleteById(id);
+        catalogCache.invalidate();
+        searchIndex.delete(id);
     }
 
     @Override
-    public List<Product> getProductsByCategory(String category) {
+    public List<Product> getProductsByCategory(Category category) {
         return productRepository.findByCategory(category);
     }
 
     @Override
-    public List<Product> getProductsBySubCategory(String subCategory) {
+    public List<Product> getProductsBySubCategory(SubCategory subCategory) {
         return productRepository.findBySubCategory(subCategory);
     }
 
@@ -180,4 +129,54 @@ public class ProductServiceImpl implements ProductService {
     public List<Product> getProductsByStockStatus(Boolean inStock) {
         return productRepository.findByInStock(inStock);
     }
-}
\ No newline at end of file
+
+    @Override
+    public ProductPageResponse searchProducts(Category category, SubCategory subCategory, Boolean inStock,
+                                              BigDecimal minPrice, BigDecimal maxPrice, String name,
+                                              ProductSort sort, String cursor, Integer size) {
+        if (minPrice != null && maxPrice != null && minPrice.compareTo(maxPrice) > 0) {
+            throw new IllegalArgumentException("Le prix minimum doit être inférieur ou égal au prix maximum");
+        }
+        String namePrefix = name != null && !name.isBlank() ? name.strip() : null;
+        if (namePrefix != null && namePrefix.length() > MAX_NAME_PREFIX) {
+            throw new IllegalArgumentException("Le nom recherché ne doit pas dépasser " + MAX_NAME_PREFIX + " caractères");
+        }
+        ProductSort order = sort != null ? sort : ProductSort.NAME;
+        int pageSize = size == null ? DEFAULT_PAGE_SIZE : Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+        ProductCursor after = cursor != null && !cursor.isBlank() ? ProductCursor.decode(cursor, order) : null;
+
+        // One extra row tells whether another page exists without a COUNT query
+        List<ProductQueryRepository.Row> rows = productQueryRepository.findPage(new ProductSearchCriteria(category,
+                subCategory, inStock, minPrice, maxPrice, namePrefix, order, after, pageSize + 1));
+        boolean hasMore = rows.size() > pageSize;
+        List<ProductQueryRepository.Row> page = hasMore ? rows.subList(0, pageSize) : rows;
+        String nextCursor = hasMore ? cursorAfter(page.get(page.size() - 1), order).encode() : null;
+        return new ProductPageResponse(page.stream().map(ProductQueryRepository.Row::product).toList(), nextCursor);
+    }
+
+    @Override
+    public ProductSearchResponse fullTextSearch(String query, Category category, SubCategory subCategory,
+                                                Boolean inStock, Integer size) {
+        if (query == null || query.isBlank()) {
+            throw new IllegalArgumentException("Le texte recherché est obligatoire");
+        }
+        if (query.length() > MAX_QUERY_LENGTH) {
+            throw new IllegalArgumentException("Le texte recherché ne doit pas dépasser " + MAX_QUERY_LENGTH + " caractères");
+        }
+        int limit = size == null ? DEFAULT_PAGE_SIZE : Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+        ProductSearchIndex.Result result = searchIndex.search(query, category, subCategory, inStock, limit);
+        return new ProductSearchResponse(
+                result.hits().stream().map(ProductSearchIndex.Hit::product).toList(),
+                result.total(), result.categories(), result.subCategories(), result.inStock());
+    }
+
+    // The name key comes from the database, so the next page starts exactly where its ORDER BY stopped
+    private static ProductCursor cursorAfter(ProductQueryRepository.Row last, ProductSort sort) {
+        String key = switch (sort) {
+            case NAME -> last.sortKey();
+            case PRICE_ASC, PRICE_DESC -> last.product().getPrice().toPlainString();
+            case NEWEST -> null;
+        };
+        return new ProductCursor(sort, key, last.product().getId());
+    }
+}
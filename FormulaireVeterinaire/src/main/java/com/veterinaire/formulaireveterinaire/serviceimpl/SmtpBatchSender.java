@@ -0,0 +1,196 @@
+package com.veterinaire.formulaireveterinaire.serviceimpl;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.mail.MessagingException;
+import jakarta.mail.Transport;
+import jakarta.mail.internet.MimeMessage;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.mail.javamail.MimeMessageHelper;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Sends large batches of mail (scheduled jobs) over a few long-lived, authenticated SMTP connections
+ * instead of one connect/STARTTLS/AUTH cycle per message. Connections are recycled after a
+ * per-connection message cap, and a shared per-minute ceiling keeps us under provider throttling.
+ */
+@Component
+public class SmtpBatchSender {
+
+    private static final Logger logger = LoggerFactory.getLogger(SmtpBatchSender.class);
+
+    /** One message of a batch; cc and from may be null. */
+    public record OutgoingMail(String to, String cc, String from, String subject, String htmlBody) {}
+
+    private final JavaMailSenderImpl mailSender;
+    private final int connections;
+    private final int messagesPerConnection;
+    private final long intervalNanos;
+    private final Counter sentCounter;
+    private final Counter failedCounter;
+
+    // Next instant (System.nanoTime) at which a message may leave, shared by all connections
+    private long nextSendNanos = Long.MIN_VALUE;
+
+    public SmtpBatchSender(JavaMailSenderImpl mailSender, MeterRegistry meterRegistry,
+                           @Value("${mail.batch.connections:2}") int connections,
+                           @Value("${mail.batch.messages-per-connection:100}") int messagesPerConnection,
+                           @Value("${mail.batch.max-per-minute:600}") int maxPerMinute) {
+        this.mailSender = mailSender;
+        this.connections = Math.max(1, connections);
+        this.messagesPerConnection = Math.max(1, messagesPerConnection);
+        this.intervalNanos = maxPerMinute > 0 ? TimeUnit.MINUTES.toNanos(1) / maxPerMinute : 0;
+        this.sentCounter = Counter.builder("mail.batch.messages").tag("result", "sent").register(meterRegistry);
+        this.failedCounter = Counter.builder("mail.batch.messages").tag("result", "failed").register(meterRegistry);
+    }
+
+    /**
+     * Sends every message and blocks until the batch is done.
+     * @return The keys of the messages that were accepted by the SMTP server.
+     */
+    public <K> Set<K> sendAll(Map<K, OutgoingMail> messages) {
+        if (messages.isEmpty()) {
+            return Set.of();
+        }
+        Queue<Map.Entry<K, OutgoingMail>> queue = new ConcurrentLinkedQueue<>(messages.entrySet());
+        Set<K> sent = ConcurrentHashMap.newKeySet();
+        int workers = Math.min(connections, messages.size());
+
+        AtomicInteger threadIndex = new AtomicInteger();
+        ExecutorService pool = Executors.newFixedThreadPool(workers, r -> {
+            Thread t = new Thread(r, "smtp-batch-" + threadIndex.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+        long start = System.nanoTime();
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < workers; i++) {
+                futures.add(pool.submit(() -> drain(queue, sent)));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            logger.error("SMTP batch worker failed: {}", e.getCause().getMessage());
+        } finally {
+            pool.shutdownNow();
+        }
+
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        logger.info("SMTP batch: {}/{} messages sent in {} ms over {} connection(s)",
+                sent.size(), messages.size(), elapsedMillis, workers);
+        return sent;
+    }
+
+    // One worker: a single transport, reopened after the per-connection cap or a dropped connection.
+    // The connection is assumed open until a send fails: Transport.isConnected() costs an SMTP NOOP round trip.
+    private <K> void drain(Queue<Map.Entry<K, OutgoingMail>> queue, Set<K> sent) {
+        Transport transport = null;
+        int sentOnConnection = 0;
+        try {
+            Map.Entry<K, OutgoingMail> entry;
+            while ((entry = queue.poll()) != null && !Thread.currentThread().isInterrupted()) {
+                MimeMessage message;
+                try {
+                    message = build(entry.getValue());
+                } catch (MessagingException e) {
+                    failedCounter.increment();
+                    logger.error("Invalid batch message to {}: {}", entry.getValue().to(), e.getMessage());
+                    continue;
+                }
+
+                for (int attempt = 1; attempt <= 2; attempt++) {
+                    try {
+                        if (transport == null || sentOnConnection >= messagesPerConnection) {
+                            closeQuietly(transport);
+                            transport = null;
+                            transport = connect();
+                            sentOnConnection = 0;
+                        }
+                        awaitRateSlot();
+                        transport.sendMessage(message, message.getAllRecipients());
+                        sentOnConnection++;
+                        sent.add(entry.getKey());
+                        sentCounter.increment();
+                        break;
+                    } catch (MessagingException e) {
+                        // Retry once on a fresh connection if the server dropped us; a rejected message is not retried
+                        boolean connectionLost = transport == null || !transport.isConnected();
+                        if (connectionLost) {
+                            closeQuietly(transport);
+                            transport = null;
+                        }
+                        if (attempt == 2 || !connectionLost) {
+                            failedCounter.increment();
+                            logger.error("Batch message to {} failed: {}", entry.getValue().to(), e.getMessage());
+                            break;
+                        }
+                    }
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            closeQuietly(transport);
+        }
+    }
+
+    private MimeMessage build(OutgoingMail mail) throws MessagingException {
+        MimeMessage message = mailSender.createMimeMessage();
+        MimeMessageHelper helper = new MimeMessageHelper(message, true, "UTF-8");
+        if (mail.from() != null) {
+            helper.setFrom(mail.from());
+        }
+        helper.setTo(mail.to());
+        if (mail.cc() != null) {
+            helper.setCc(mail.cc());
+        }
+        helper.setSubject(mail.subject());
+        helper.setText(mail.htmlBody(), true);
+        message.saveChanges();
+        return message;
+    }
+
+    private Transport connect() throws MessagingException {
+        Transport transport = mailSender.getSession().getTransport(
+                mailSender.getProtocol() != null ? mailSender.getProtocol() : "smtp");
+        transport.connect(mailSender.getHost(), mailSender.getPort(), mailSender.getUsername(), mailSender.getPassword());
+        return transport;
+    }
+
+    private void awaitRateSlot() throws InterruptedException {
+        if (intervalNanos == 0) {
+            return;
+        }
+        long waitNanos;
+        synchronized (this) {
+            long now = System.nanoTime();
+            long slot = Math.max(nextSendNanos, now);
+            nextSendNanos = slot + intervalNanos;
+            waitNanos = slot - now;
+        }
+        if (waitNanos > 0) {
+            TimeUnit.NANOSECONDS.sleep(waitNanos);
+        }
+    }
+
+    private static void closeQuietly(Transport transport) {
+        if (transport != null) {
+            try {
+                transport.close();
+            } catch (MessagingException ignored) {
+                // already gone
+            }
+        }
+    }
+}
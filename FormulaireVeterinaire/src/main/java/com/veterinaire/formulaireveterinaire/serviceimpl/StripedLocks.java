@@ -0,0 +1,31 @@
+package com.veterinaire.formulaireveterinaire.serviceimpl;
+
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Fixed array of locks selected by key hash: requests for the same key serialize,
+ * different keys rarely contend, and memory stays constant whatever the number of keys.
+ */
+public class StripedLocks {
+
+    private final ReentrantLock[] stripes;
+    private final int mask;
+
+    /**
+     * @param minStripes Minimum number of locks, rounded up to a power of two.
+     */
+    public StripedLocks(int minStripes) {
+        int size = Integer.highestOneBit(Math.max(1, minStripes - 1)) << 1;
+        this.stripes = new ReentrantLock[size];
+        for (int i = 0; i < size; i++) {
+            stripes[i] = new ReentrantLock();
+        }
+        this.mask = size - 1;
+    }
+
+    public ReentrantLock lockFor(long key) {
+        int hash = Long.hashCode(key);
+        hash ^= (hash >>> 16);
+        return stripes[hash & mask];
+    }
+}
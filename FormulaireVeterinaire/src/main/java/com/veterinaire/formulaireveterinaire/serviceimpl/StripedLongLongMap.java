@@ -0,0 +1,176 @@
+package com.veterinaire.formulaireveterinaire.serviceimpl;
+
+/**
+ * Concurrent long -> long map without boxing. Keys are spread over a fixed array of stripes, each an
+ * open-addressing table with linear probing guarded by its own monitor, so a lookup allocates nothing
+ * and different keys rarely contend.
+ * Each stripe counts its removals: a caller reads {@link #generation} before loading a value and passes it
+ * to {@link #put}, which refuses the value if a key of the stripe was removed in between.
+ */
+final class StripedLongLongMap {
+
+    private static final int INITIAL_STRIPE_CAPACITY = 16;
+
+    private final Stripe[] stripes;
+    private final int mask;
+
+    /**
+     * @param minStripes Minimum number of stripes, rounded up to a power of two.
+     */
+    StripedLongLongMap(int minStripes) {
+        int size = Integer.highestOneBit(Math.max(1, minStripes - 1)) << 1;
+        this.stripes = new Stripe[size];
+        for (int i = 0; i < size; i++) {
+            stripes[i] = new Stripe();
+        }
+        this.mask = size - 1;
+    }
+
+    /** @return The value for the key, or {@code missing} when there is none. */
+    long get(long key, long missing) {
+        long hash = mix(key);
+        return stripeFor(hash).get(key, (int) hash, missing);
+    }
+
+    /** @return The removal count of the key's stripe, to hand to {@link #put} once the value is loaded. */
+    long generation(long key) {
+        return stripeFor(mix(key)).generation();
+    }
+
+    /**
+     * Maps the key to the value, replacing any previous one, unless a key of its stripe was removed since
+     * {@code generation} was read.
+     * @return Whether the value was stored.
+     */
+    boolean put(long key, long value, long generation) {
+        long hash = mix(key);
+        return stripeFor(hash).put(key, (int) hash, value, generation);
+    }
+
+    /** Removes the key if present; loads of any key of its stripe that started before are refused. */
+    void remove(long key) {
+        long hash = mix(key);
+        stripeFor(hash).remove(key, (int) hash);
+    }
+
+    int size() {
+        int size = 0;
+        for (Stripe stripe : stripes) {
+            size += stripe.size();
+        }
+        return size;
+    }
+
+    // High bits pick the stripe, low bits the slot inside it
+    private Stripe stripeFor(long hash) {
+        return stripes[(int) (hash >>> 40) & mask];
+    }
+
+    // MurmurHash3 finalizer: sequential user ids end up spread over stripes and slots
+    private static long mix(long key) {
+        key ^= key >>> 33;
+        key *= 0xff51afd7ed558ccdL;
+        key ^= key >>> 33;
+        key *= 0xc4ceb9fe1a85ec53L;
+        key ^= key >>> 33;
+        return key;
+    }
+
+    private static final class Stripe {
+
+        private long[] keys = new long[INITIAL_STRIPE_CAPACITY];
+        private long[] values = new long[INITIAL_STRIPE_CAPACITY];
+        private boolean[] used = new boolean[INITIAL_STRIPE_CAPACITY];
+        private int size;
+        private long generation;
+
+        synchronized long get(long key, int hash, long missing) {
+            int slot = find(key, hash);
+            return slot >= 0 ? values[slot] : missing;
+        }
+
+        synchronized long generation() {
+            return generation;
+        }
+
+        synchronized boolean put(long key, int hash, long value, long expectedGeneration) {
+            if (generation != expectedGeneration) {
+                return false;
+            }
+            int slot = find(key, hash);
+            if (slot >= 0) {
+                values[slot] = value;
+                return true;
+            }
+            if ((size + 1) * 4 > keys.length * 3) {
+                grow();
+            }
+            insert(key, hash, value);
+            size++;
+            return true;
+        }
+
+        synchronized void remove(long key, int hash) {
+            // Counted even when the key is absent: its load may still be in flight
+            generation++;
+            int hole = find(key, hash);
+            if (hole < 0) {
+                return;
+            }
+            used[hole] = false;
+            size--;
+            // Backward-shift deletion: pull later entries of the probe run into the hole
+            int m = keys.length - 1;
+            for (int j = (hole + 1) & m; used[j]; j = (j + 1) & m) {
+                int home = (int) mix(keys[j]) & m;
+                boolean reachable = hole <= j ? (home > hole && home <= j) : (home > hole || home <= j);
+                if (!reachable) {
+                    keys[hole] = keys[j];
+                    values[hole] = values[j];
+                    used[hole] = true;
+                    used[j] = false;
+                    hole = j;
+                }
+            }
+        }
+
+        synchronized int size() {
+            return size;
+        }
+
+        private int find(long key, int hash) {
+            int m = keys.length - 1;
+            for (int i = hash & m; used[i]; i = (i + 1) & m) {
+                if (keys[i] == key) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        private void insert(long key, int hash, long value) {
+            int m = keys.length - 1;
+            int i = hash & m;
+            while (used[i]) {
+                i = (i + 1) & m;
+            }
+            keys[i] = key;
+            values[i] = value;
+            used[i] = true;
+        }
+
+        private void grow() {
+            long[] oldKeys = keys;
+            long[] oldValues = values;
+            boolean[] oldUsed = used;
+            keys = new long[oldKeys.length * 2];
+            values = new long[oldKeys.length * 2];
+            used = new boolean[oldKeys.length * 2];
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldUsed[i]) {
+                    insert(oldKeys[i], (int) mix(oldKeys[i]), oldValues[i]);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,156 @@
+package com.veterinaire.formulaireveterinaire.serviceimpl;
+
+import com.veterinaire.formulaireveterinaire.Config.AuthenticatedUser;
+import com.veterinaire.formulaireveterinaire.DAO.UserRepository;
+import com.veterinaire.formulaireveterinaire.DTO.AuthPrincipalDTO;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * In-memory copy of what the subscription gate needs per user, keyed by email,
+ * together with the principal the filter hands to controllers.
+ * Entries are invalidated by the subscription write paths and expire after a TTL as a safety net.
+ */
+@Component
+public class SubscriptionEntitlementCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(SubscriptionEntitlementCache.class);
+
+    /** subscriptionEndMillis value for users without a subscription. */
+    public static final long NO_SUBSCRIPTION = Long.MIN_VALUE;
+
+    public record Entitlement(AuthenticatedUser principal, long subscriptionEndMillis, long loadedAtNanos) {
+
+        public long userId() {
+            return principal.userId();
+        }
+
+        public boolean isAdmin() {
+            return principal.isAdmin();
+        }
+
+        public boolean hasSubscription() {
+            return subscriptionEndMillis != NO_SUBSCRIPTION;
+        }
+
+        public boolean isSubscriptionExpired(long nowMillis) {
+            return subscriptionEndMillis < nowMillis;
+        }
+    }
+
+    private final UserRepository userRepository;
+    // Access-ordered and bounded: a miss on a full cache evicts the least recently used user in O(1).
+    // Guarded by its own monitor; the database load happens outside it.
+    private final Map<String, Entitlement> entries = new LinkedHashMap<>(256, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Entitlement> eldest) {
+            return size() > maxSize;
+        }
+    };
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final long ttlNanos;
+    private final int maxSize;
+
+    public SubscriptionEntitlementCache(UserRepository userRepository, MeterRegistry meterRegistry,
+                                        @Value("${entitlement.cache.ttl-seconds:300}") long ttlSeconds,
+                                        @Value("${entitlement.cache.max-size:50000}") int maxSize) {
+        this.userRepository = userRepository;
+        this.ttlNanos = TimeUnit.SECONDS.toNanos(ttlSeconds);
+        this.maxSize = maxSize;
+
+        FunctionCounter.builder("entitlement.cache.requests", hits, LongAdder::sum)
+                .tag("result", "hit").register(meterRegistry);
+        FunctionCounter.builder("entitlement.cache.requests", misses, LongAdder::sum)
+                .tag("result", "miss").register(meterRegistry);
+        Gauge.builder("entitlement.cache.size", this, SubscriptionEntitlementCache::size).register(meterRegistry);
+    }
+
+    /**
+     * Returns the cached entitlement for the user, loading it from the database on a miss.
+     * @throws UsernameNotFoundException If no user has this email.
+     */
+    public Entitlement get(String email) {
+        long now = System.nanoTime();
+        Entitlement entitlement;
+        synchronized (entries) {
+            entitlement = entries.get(email);
+        }
+        if (entitlement != null && now - entitlement.loadedAtNanos() < ttlNanos) {
+            hits.increment();
+            return entitlement;
+        }
+        misses.increment();
+
+        AuthPrincipalDTO principal = userRepository.findAuthPrincipalByEmail(email)
+                .orElseThrow(() -> new UsernameNotFoundException("Utilisateur non trouvé: " + email));
+        AuthenticatedUser authenticatedUser = new AuthenticatedUser(principal.id(), principal.email(), principal.nom(),
+                principal.isAdmin(), principal.status(), principal.subscriptionEndDate());
+        entitlement = new Entitlement(authenticatedUser, toEpochMillis(principal.subscriptionEndDate()), now);
+
+        synchronized (entries) {
+            entries.put(email, entitlement);
+        }
+        return entitlement;
+    }
+
+    /**
+     * Drops the entry for this user, again after commit when called inside a transaction
+     * so a concurrent reload cannot cache pre-commit data.
+     */
+    public void invalidate(String email) {
+        if (email == null) {
+            return;
+        }
+        remove(email);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    remove(email);
+                }
+            });
+        }
+        logger.debug("Entitlement cache invalidated for {}", email);
+    }
+
+    public void invalidateAll() {
+        synchronized (entries) {
+            entries.clear();
+        }
+        logger.debug("Entitlement cache cleared");
+    }
+
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    private void remove(String email) {
+        synchronized (entries) {
+            entries.remove(email);
+        }
+    }
+
+    private static long toEpochMillis(LocalDateTime dateTime) {
+        return dateTime == null
+                ? NO_SUBSCRIPTION
+                : dateTime.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+}
@@ -0,0 +1,72 @@
+package com.veterinaire.formulaireveterinaire.serviceimpl;
+
+import com.veterinaire.formulaireveterinaire.DAO.UserRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Current token epoch per user id. A JWT is only accepted while its tokenEpoch claim
+ * matches, so bumping the epoch revokes every token issued before.
+ * Values are loaded lazily from users.token_epoch and kept in memory, in a primitive map:
+ * the lookup runs on every authenticated request and allocates nothing. A local bump drops the value
+ * at once; bumps made on another instance are picked up when the value expires after the TTL.
+ */
+@Component
+public class TokenEpochRegistry {
+
+    private static final Logger logger = LoggerFactory.getLogger(TokenEpochRegistry.class);
+    private static final long MISSING = -1;
+    // Load times are kept in tenths of a second since startup, in the high half of each value
+    private static final long TICK_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+
+    private final UserRepository userRepository;
+    // user id -> load tick << 32 | epoch
+    private final StripedLongLongMap epochs = new StripedLongLongMap(64);
+    private final long origin = System.nanoTime();
+    private final long ttlTicks;
+
+    public TokenEpochRegistry(UserRepository userRepository,
+                              @Value("${token.epoch.cache.ttl-seconds:30}") long ttlSeconds) {
+        this.userRepository = userRepository;
+        this.ttlTicks = TimeUnit.SECONDS.toNanos(ttlSeconds) / TICK_NANOS;
+    }
+
+    public int current(long userId) {
+        long now = (System.nanoTime() - origin) / TICK_NANOS;
+        long entry = epochs.get(userId, MISSING);
+        if (entry != MISSING && now - (entry >>> 32) < ttlTicks) {
+            return (int) entry;
+        }
+        long generation = epochs.generation(userId);
+        int epoch = userRepository.findTokenEpochById(userId).orElse(0);
+        // Refused when a bump happened during the load: the value read may predate it, the next call reloads
+        epochs.put(userId, now << 32 | (epoch & 0xFFFFFFFFL), generation);
+        return epoch;
+    }
+
+    /**
+     * Increments the user's epoch, revoking all tokens issued so far.
+     */
+    @Transactional
+    public void bump(long userId) {
+        userRepository.incrementTokenEpoch(userId);
+        epochs.remove(userId);
+        // A request racing the commit could reload the old value, drop it again once committed
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    epochs.remove(userId);
+                }
+            });
+        }
+        logger.info("Token epoch bumped for user ID: {}", userId);
+    }
+}
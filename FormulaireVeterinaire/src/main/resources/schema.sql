@@ -0,0 +1,82 @@
+-- Runs after Hibernate's ddl-auto update (spring.jpa.defer-datasource-initialization=true).
+-- Every statement must be idempotent: this file is executed on each startup.
+
+-- One line per product in an order: merge duplicate lines into the oldest one, then enforce it
+UPDATE order_items i
+SET quantity = d.total_quantity
+FROM (SELECT MIN(id) AS keep_id, SUM(quantity) AS total_quantity
+      FROM order_items
+      GROUP BY order_id, product_id
+      HAVING COUNT(*) > 1) d
+WHERE i.id = d.keep_id;
+
+DELETE FROM order_items i
+USING order_items k
+WHERE i.order_id = k.order_id
+  AND i.product_id = k.product_id
+  AND i.id > k.id;
+
+CREATE UNIQUE INDEX IF NOT EXISTS ux_order_items_order_product ON order_items (order_id, product_id);
+
+-- One open cart per user: fold the lines of extra CART rows into the oldest cart, drop the extras, then enforce it
+INSERT INTO order_items (order_id, product_id, quantity, price)
+SELECT k.keep_id, i.product_id, SUM(i.quantity), MIN(i.price)
+FROM order_items i
+JOIN orders o ON o.id = i.order_id AND o.status = 'CART'
+JOIN (SELECT user_id, MIN(id) AS keep_id
+      FROM orders
+      WHERE status = 'CART'
+      GROUP BY user_id
+      HAVING COUNT(*) > 1) k ON k.user_id = o.user_id AND o.id <> k.keep_id
+GROUP BY k.keep_id, i.product_id
+ON CONFLICT (order_id, product_id) DO UPDATE SET quantity = order_items.quantity + EXCLUDED.quantity;
+
+DELETE FROM order_items i
+USING orders o, orders k
+WHERE i.order_id = o.id
+  AND o.status = 'CART'
+  AND k.user_id = o.user_id
+  AND k.status = 'CART'
+  AND k.id < o.id;
+
+DELETE FROM orders o
+USING orders k
+WHERE o.status = 'CART'
+  AND k.user_id = o.user_id
+  AND k.status = 'CART'
+  AND k.id < o.id;
+
+CREATE UNIQUE INDEX IF NOT EXISTS ux_orders_user_cart ON orders (user_id) WHERE status = 'CART';
+
+-- Stored totals of open carts must match their lines after the merges above
+UPDATE orders o
+SET total_amount = t.total
+FROM (SELECT order_id, SUM(price * quantity) AS total
+      FROM order_items
+      GROUP BY order_id) t
+WHERE o.id = t.order_id
+  AND o.status = 'CART'
+  AND o.total_amount IS DISTINCT FROM t.total;
+
+-- Order history and admin board (OrderQueryRepository): keyset on (confirmed_at, id), newest first
+CREATE INDEX IF NOT EXISTS ix_orders_user_status_confirmed ON orders (user_id, status, confirmed_at DESC, id DESC);
+CREATE INDEX IF NOT EXISTS ix_orders_confirmed ON orders (confirmed_at DESC, id DESC) WHERE confirmed_at IS NOT NULL;
+
+-- Order numbers (OrderNumberGenerator): each value reserves a block of order.number.block-size numbers
+CREATE SEQUENCE IF NOT EXISTS order_number_seq START WITH 1 INCREMENT BY 1;
+
+-- Abandoned-cart purge (CartPurgeRepository): carts from before updated_at existed get a full retention period
+UPDATE orders SET updated_at = now() WHERE status = 'CART' AND updated_at IS NULL;
+CREATE INDEX IF NOT EXISTS ix_orders_cart_activity ON orders (id, updated_at) WHERE status = 'CART';
+
+-- Product listing (ProductQueryRepository): one index per sort, equality filters first; lower(name) prefix search
+CREATE INDEX IF NOT EXISTS ix_products_category_sub_price ON products (category, sub_category, price, id);
+CREATE INDEX IF NOT EXISTS ix_products_price ON products (price, id);
+CREATE INDEX IF NOT EXISTS ix_products_name ON products (lower(name), id);
+CREATE INDEX IF NOT EXISTS ix_products_name_prefix ON products (lower(name) text_pattern_ops);
+
+-- Products created before asynchronous image enrichment already have their final image
+UPDATE products SET image_status = 'READY' WHERE image_status IS NULL;
+
+-- Mail outbox (MailOutboxRepository): bodies of messages dead-lettered before markDead dropped them
+UPDATE mail_outbox SET html_body = NULL WHERE status = 'DEAD' AND html_body IS NOT NULL;
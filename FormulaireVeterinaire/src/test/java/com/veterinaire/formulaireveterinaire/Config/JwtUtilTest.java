@@ -0,0 +1,82 @@
+package com.veterinaire.formulaireveterinaire.Config;
+
+import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.security.Keys;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Date;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Verified-claims cache: hits skip parsing, expired entries are not served, the size stays bounded.
+ */
+class JwtUtilTest {
+
+    private static final String SECRET = "0123456789abcdef0123456789abcdef0123456789abcdef";
+
+    private JwtUtil jwtUtil;
+
+    @BeforeEach
+    void setUp() {
+        jwtUtil = new JwtUtil();
+        ReflectionTestUtils.setField(jwtUtil, "secret", SECRET);
+        ReflectionTestUtils.setField(jwtUtil, "claimsCacheMaxSize", 2);
+        jwtUtil.init();
+    }
+
+    @Test
+    void secondVerificationIsServedFromTheCache() {
+        String token = jwtUtil.generateToken("vet@clinic.tn", false, 3);
+
+        JwtClaims first = jwtUtil.verify(token);
+        JwtClaims second = jwtUtil.verify(token);
+
+        assertSame(first, second);
+        assertEquals("vet@clinic.tn", first.email());
+        assertEquals(3, first.tokenEpoch());
+        assertEquals(1, jwtUtil.cachedTokenCount());
+    }
+
+    @Test
+    void expiredCachedTokenIsParsedAgainAndRejected() throws Exception {
+        String token = token("vet@clinic.tn", System.currentTimeMillis() + 1200);
+        jwtUtil.verify(token);
+        assertEquals(1, jwtUtil.cachedTokenCount());
+
+        Thread.sleep(1500);
+
+        assertThrows(ExpiredJwtException.class, () -> jwtUtil.verify(token));
+        assertEquals(0, jwtUtil.cachedTokenCount());
+    }
+
+    @Test
+    void fullCacheEvictsTheLeastRecentlyUsedToken() {
+        String a = jwtUtil.generateToken("a@clinic.tn", false, 0);
+        String b = jwtUtil.generateToken("b@clinic.tn", false, 0);
+        String c = jwtUtil.generateToken("c@clinic.tn", false, 0);
+        JwtClaims claimsA = jwtUtil.verify(a);
+        JwtClaims claimsB = jwtUtil.verify(b);
+        jwtUtil.verify(a);
+
+        jwtUtil.verify(c);
+
+        assertEquals(2, jwtUtil.cachedTokenCount());
+        assertSame(claimsA, jwtUtil.verify(a));
+        assertNotSame(claimsB, jwtUtil.verify(b));
+    }
+
+    private static String token(String email, long expiresAtMillis) {
+        return Jwts.builder()
+                .setSubject(email)
+                .setIssuedAt(new Date())
+                .setExpiration(new Date(expiresAtMillis))
+                .signWith(Keys.hmacShaKeyFor(SECRET.getBytes(StandardCharsets.UTF_8)), SignatureAlgorithm.HS256)
+                .compact();
+    }
+}
@@ -0,0 +1,93 @@
+package com.veterinaire.formulaireveterinaire.Config;
+
+import com.veterinaire.formulaireveterinaire.Enums.RouteAccess;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.authorization.AuthorizationManager;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.authority.AuthorityUtils;
+import org.springframework.security.web.access.intercept.RequestAuthorizationContext;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Route resolution over the application's own policy table, and the Spring Security rule built from it.
+ */
+class RoutePolicyRegistryTest {
+
+    private final RoutePolicyRegistry registry = new RoutePolicyConfig().routePolicyRegistry();
+
+    @ParameterizedTest
+    @CsvSource({
+            // Exact patterns match only themselves
+            "/api/products, PUBLIC",
+            "/api/products/all, PUBLIC",
+            "/api/products/42, SUBSCRIPTION_GATED",
+            "/api/login/extra, SUBSCRIPTION_GATED",
+            // Subtree patterns include their root and everything below
+            "/api/cart, AUTHENTICATED",
+            "/api/cart/items/3, AUTHENTICATED",
+            "/api/cartography, SUBSCRIPTION_GATED",
+            "//api//cart/, AUTHENTICATED",
+            // The longer subtree wins over the one it is nested in
+            "/api/orders/history, AUTHENTICATED",
+            "/api/orders/board, ADMIN",
+            "/api/orders/board/17/status, ADMIN",
+            "/api/products/images/rescrape, ADMIN",
+            // Anything undeclared falls back to the default
+            "/api/veterinaires/5, SUBSCRIPTION_GATED",
+            "/, SUBSCRIPTION_GATED",
+            "/unknown, SUBSCRIPTION_GATED"
+    })
+    void resolvesTheLongestMatchingPattern(String path, RouteAccess expected) {
+        assertEquals(expected, registry.resolve(path));
+    }
+
+    @Test
+    void exactPatternTakesPrecedenceOverASubtreeOnTheSamePath() {
+        RoutePolicyRegistry policies = RoutePolicyRegistry.builder(RouteAccess.ADMIN)
+                .route(RouteAccess.AUTHENTICATED, "/api/shop/**")
+                .route(RouteAccess.PUBLIC, "/api/shop")
+                .build();
+
+        assertEquals(RouteAccess.PUBLIC, policies.resolve("/api/shop"));
+        assertEquals(RouteAccess.AUTHENTICATED, policies.resolve("/api/shop/1"));
+        assertEquals(RouteAccess.ADMIN, policies.resolve("/api"));
+    }
+
+    @Test
+    void rejectsARouteDeclaredTwice() {
+        RoutePolicyRegistry.Builder builder = RoutePolicyRegistry.builder(RouteAccess.ADMIN)
+                .route(RouteAccess.PUBLIC, "/api/login");
+
+        assertThrows(IllegalArgumentException.class, () -> builder.route(RouteAccess.ADMIN, "/api/login"));
+    }
+
+    @Test
+    void authorizationManagerDeniesByDefaultAndRequiresAdminOnTheBoard() {
+        AuthorizationManager<RequestAuthorizationContext> manager = registry.authorizationManager();
+        Authentication anonymous = new AnonymousAuthenticationToken("key", "anonymousUser",
+                AuthorityUtils.createAuthorityList("ROLE_ANONYMOUS"));
+        Authentication vet = UsernamePasswordAuthenticationToken.authenticated("vet@clinic.tn", null,
+                AuthorityUtils.createAuthorityList("ROLE_USER"));
+        Authentication admin = UsernamePasswordAuthenticationToken.authenticated("admin@vitalfeed.tn", null,
+                AuthorityUtils.createAuthorityList("ROLE_ADMIN"));
+
+        assertTrue(granted(manager, anonymous, "/api/products"));
+        assertFalse(granted(manager, anonymous, "/api/not-declared"));
+        assertTrue(granted(manager, vet, "/api/not-declared"));
+        assertTrue(granted(manager, vet, "/api/orders/history"));
+        assertFalse(granted(manager, vet, "/api/orders/board/17/status"));
+        assertTrue(granted(manager, admin, "/api/orders/board/17/status"));
+    }
+
+    private static boolean granted(AuthorizationManager<RequestAuthorizationContext> manager,
+                                   Authentication authentication, String uri) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", uri);
+        return manager.authorize(() -> authentication, new RequestAuthorizationContext(request)).isGranted();
+    }
+}
@@ -0,0 +1,140 @@
+package com.veterinaire.formulaireveterinaire.Config;
+
+import com.veterinaire.formulaireveterinaire.DAO.UserRepository;
+import com.veterinaire.formulaireveterinaire.serviceimpl.SubscriptionEntitlementCache;
+import com.veterinaire.formulaireveterinaire.serviceimpl.TokenEpochRegistry;
+import com.veterinaire.formulaireveterinaire.support.ScriptedDataSource;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.servlet.http.Cookie;
+import org.hibernate.cfg.AvailableSettings;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.data.jpa.repository.support.JpaRepositoryFactory;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.orm.jpa.LocalContainerEntityManagerFactoryBean;
+import org.springframework.orm.jpa.SharedEntityManagerCreator;
+import org.springframework.orm.jpa.vendor.HibernateJpaVendorAdapter;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Statements per authenticated request, counted by SqlStatementCountFilter around the JWT filter.
+ * The UserRepository is the real Spring Data one on Hibernate, registered with SqlStatementCounter as in
+ * the application, over a scripted JDBC connection: what is counted is the SQL Hibernate prepares, so
+ * lazy loads or a lookup per association or per user fail here.
+ */
+class SqlStatementCountFilterTest {
+
+    private static final SqlStatementCounter statementCounter = new SqlStatementCounter();
+    private static ScriptedDataSource dataSource;
+    private static EntityManagerFactory entityManagerFactory;
+    private static UserRepository userRepository;
+
+    private SqlStatementCountFilter countFilter;
+    private JwtAuthenticationFilter jwtFilter;
+    private JwtUtil jwtUtil;
+
+    @BeforeAll
+    static void startHibernate() {
+        dataSource = new ScriptedDataSource((sql, parameters) -> {
+            if (sql.contains(" from users ") && sql.endsWith(".email=?")) {
+                String email = (String) parameters.get(0);
+                return List.<Object[]>of(new Object[]{(long) Math.abs(email.hashCode()), email, "Ben Salah", "hash",
+                        false, "ACTIVE", 0, LocalDateTime.now().plusMonths(1)});
+            }
+            if (sql.startsWith("select u1_0.token_epoch from users ")) {
+                return List.<Object[]>of(new Object[]{0});
+            }
+            throw new AssertionError("unexpected statement: " + sql);
+        });
+        Map<String, Object> properties = new HashMap<>();
+        properties.put(AvailableSettings.DIALECT, "org.hibernate.dialect.PostgreSQLDialect");
+        properties.put("hibernate.boot.allow_jdbc_metadata_access", "false");
+        statementCounter.customize(properties);
+
+        LocalContainerEntityManagerFactoryBean factory = new LocalContainerEntityManagerFactoryBean();
+        factory.setDataSource(dataSource);
+        factory.setPackagesToScan("com.veterinaire.formulaireveterinaire.entity");
+        factory.setJpaVendorAdapter(new HibernateJpaVendorAdapter());
+        factory.setJpaPropertyMap(properties);
+        factory.afterPropertiesSet();
+        entityManagerFactory = factory.getObject();
+        userRepository = new JpaRepositoryFactory(SharedEntityManagerCreator.createSharedEntityManager(entityManagerFactory))
+                .getRepository(UserRepository.class);
+    }
+
+    @AfterAll
+    static void stopHibernate() {
+        entityManagerFactory.close();
+    }
+
+    @BeforeEach
+    void setUp() {
+        dataSource.prepared().clear();
+        jwtUtil = new JwtUtil();
+        ReflectionTestUtils.setField(jwtUtil, "secret", "0123456789abcdef0123456789abcdef0123456789abcdef");
+        ReflectionTestUtils.setField(jwtUtil, "claimsCacheMaxSize", 1000);
+        jwtUtil.init();
+
+        countFilter = new SqlStatementCountFilter(statementCounter);
+        jwtFilter = new JwtAuthenticationFilter(jwtUtil,
+                new SubscriptionEntitlementCache(userRepository, new SimpleMeterRegistry(), 300, 1000),
+                new TokenEpochRegistry(userRepository, 300),
+                new RoutePolicyConfig().routePolicyRegistry());
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {1, 10, 50})
+    void statementsPerRequestStayFlatWhateverTheNumberOfUsers(int userCount) throws Exception {
+        int total = 0;
+        for (int u = 0; u < userCount; u++) {
+            String token = jwtUtil.generateToken("vet" + u + "@clinic.tn", false, 0);
+            for (int r = 0; r < 3; r++) {
+                int statements = request("/api/orders/history", token);
+                // Cold: principal projection + token epoch; warm: served from memory
+                assertEquals(r == 0 ? 2 : 0, statements, "user " + u + ", request " + r);
+                total += statements;
+            }
+        }
+        assertEquals(2 * userCount, total);
+        assertEquals(total, dataSource.prepared().size());
+        // The subscription comes in the same statement as the user, not in a load of its own
+        assertTrue(dataSource.prepared().get(0).contains(" left join subscriptions "), dataSource.prepared().get(0));
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"/api/products", "/api/products/all"})
+    void publicRoutesRunNoStatements(String uri) throws Exception {
+        assertEquals(0, request(uri, jwtUtil.generateToken("vet@clinic.tn", false, 0)));
+    }
+
+    private int request(String uri, String token) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", uri);
+        request.setCookies(new Cookie(AuthCookies.ACCESS_TOKEN, token));
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        countFilter.doFilter(request, response, (rq, rs) -> jwtFilter.doFilter(rq, rs, (rq2, rs2) -> { }));
+
+        assertEquals(200, response.getStatus());
+        SecurityContextHolder.clearContext();
+        return (int) request.getAttribute(SqlStatementCountFilter.STATEMENT_COUNT_ATTRIBUTE);
+    }
+}
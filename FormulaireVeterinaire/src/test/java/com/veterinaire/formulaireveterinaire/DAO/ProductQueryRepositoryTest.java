@@ -0,0 +1,101 @@
+package com.veterinaire.formulaireveterinaire.DAO;
+
+import com.veterinaire.formulaireveterinaire.DTO.Product.ProductSearchCriteria;
+import com.veterinaire.formulaireveterinaire.Enums.Category;
+import com.veterinaire.formulaireveterinaire.Enums.ImageStatus;
+import com.veterinaire.formulaireveterinaire.Enums.ProductSort;
+import com.veterinaire.formulaireveterinaire.Enums.SubCategory;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentMatchers;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+
+import java.math.BigDecimal;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Rows of the product listing mapped back to products, image status and sort key included.
+ */
+class ProductQueryRepositoryTest {
+
+    private final NamedParameterJdbcTemplate jdbcTemplate = mock(NamedParameterJdbcTemplate.class);
+    private final List<String> statements = new ArrayList<>();
+
+    @Test
+    void pageReportsTheImageStatusOfEachProduct() throws SQLException {
+        returning(row(1L, "PENDING"), row(2L, "FAILED"), row(3L, "READY"), row(4L, null));
+
+        List<ProductQueryRepository.Row> page = new ProductQueryRepository(jdbcTemplate).findPage(
+                new ProductSearchCriteria(null, null, null, null, null, null, ProductSort.NEWEST, null, 21));
+
+        assertTrue(statements.get(0).contains("p.image_status"), statements.get(0));
+        assertEquals(ImageStatus.PENDING, page.get(0).product().getImageStatus());
+        assertEquals(ImageStatus.FAILED, page.get(1).product().getImageStatus());
+        assertEquals(ImageStatus.READY, page.get(2).product().getImageStatus());
+        assertEquals(ImageStatus.READY, page.get(3).product().getImageStatus());
+        assertEquals("Produit 1", page.get(0).product().getName());
+        assertNull(page.get(0).sortKey());
+    }
+
+    @Test
+    void nameSortReturnsTheKeyComputedByTheDatabase() throws SQLException {
+        Map<String, Object> row = row(1L, "READY");
+        row.put("sort_key", "produit 1");
+        returning(row);
+
+        List<ProductQueryRepository.Row> page = new ProductQueryRepository(jdbcTemplate).findPage(
+                new ProductSearchCriteria(null, null, null, null, null, null, ProductSort.NAME, null, 21));
+
+        assertTrue(statements.get(0).contains("lower(p.name) AS sort_key"), statements.get(0));
+        assertTrue(statements.get(0).endsWith("ORDER BY lower(p.name), p.id LIMIT :limit"), statements.get(0));
+        assertEquals("produit 1", page.get(0).sortKey());
+    }
+
+    @SafeVarargs
+    private void returning(Map<String, Object>... rows) {
+        when(jdbcTemplate.query(anyString(), any(SqlParameterSource.class),
+                ArgumentMatchers.<RowMapper<ProductQueryRepository.Row>>any())).thenAnswer(inv -> {
+            statements.add(inv.getArgument(0));
+            RowMapper<ProductQueryRepository.Row> mapper = inv.getArgument(2);
+            List<ProductQueryRepository.Row> page = new ArrayList<>();
+            for (int i = 0; i < rows.length; i++) {
+                page.add(mapper.mapRow(resultSet(rows[i]), i));
+            }
+            return page;
+        });
+    }
+
+    private static Map<String, Object> row(long id, String imageStatus) {
+        Map<String, Object> row = new HashMap<>();
+        row.put("id", id);
+        row.put("name", "Produit " + id);
+        row.put("description", "Description");
+        row.put("price", new BigDecimal("19.90"));
+        row.put("image_url", "https://img.example/" + id + ".jpg");
+        row.put("category", Category.values()[0].name());
+        row.put("sub_category", SubCategory.values()[0].name());
+        row.put("in_stock", true);
+        row.put("details_url", null);
+        row.put("image_status", imageStatus);
+        return row;
+    }
+
+    private static ResultSet resultSet(Map<String, Object> row) throws SQLException {
+        ResultSet rs = mock(ResultSet.class);
+        when(rs.getLong(anyString())).thenAnswer(inv -> (Long) row.get(inv.<String>getArgument(0)));
+        when(rs.getString(anyString())).thenAnswer(inv -> (String) row.get(inv.<String>getArgument(0)));
+        when(rs.getBigDecimal(anyString())).thenAnswer(inv -> (BigDecimal) row.get(inv.<String>getArgument(0)));
+        when(rs.getBoolean(anyString())).thenAnswer(inv -> (Boolean) row.get(inv.<String>getArgument(0)));
+        return rs;
+    }
+}
@@ -0,0 +1,280 @@
+package com.veterinaire.formulaireveterinaire.jmh;
+
+import com.veterinaire.formulaireveterinaire.serviceimpl.EmailTemplate;
+import com.veterinaire.formulaireveterinaire.serviceimpl.EmailTemplateEngine;
+import org.openjdk.jmh.annotations.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compiled templates versus the former text blocks rendered with String.formatted and a
+ * DateTimeFormatter built per call. Only compiled with -Pjmh, see pom.xml.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EmailTemplateBenchmark {
+
+    record Line(String name, String imageUrl, int quantity, BigDecimal price) {}
+
+    @Param({"1", "20"})
+    int lineCount;
+
+    private EmailTemplate updateTemplate;
+    private EmailTemplate orderTemplate;
+    private EmailTemplate lineTemplate;
+    private final List<Line> lines = new ArrayList<>();
+    private final LocalDateTime startDate = LocalDateTime.of(2026, 3, 1, 9, 30);
+    private final LocalDateTime endDate = LocalDateTime.of(2026, 6, 1, 9, 30);
+
+    @Setup
+    public void setUp() {
+        EmailTemplateEngine engine = new EmailTemplateEngine();
+        updateTemplate = engine.get("subscription-update");
+        orderTemplate = engine.get("order-confirmation");
+        lineTemplate = engine.get("order-confirmation-line");
+        for (int i = 0; i < lineCount; i++) {
+            lines.add(new Line("Croquettes chat adulte " + i, "https://cdn.vitalfeed.tn/p/" + i + ".png",
+                    1 + i % 4, new BigDecimal("24.90").add(BigDecimal.valueOf(i))));
+        }
+    }
+
+    @Benchmark
+    public String subscriptionUpdateTemplate() {
+        return updateTemplate.model()
+                .set("nom", "Ben Salah")
+                .set("subscriptionType", "THREE MONTHS")
+                .set("startDate", startDate)
+                .set("endDate", endDate)
+                .set("financeEmail", "finance@vitalfeed.tn")
+                .render();
+    }
+
+    @Benchmark
+    public String subscriptionUpdateFormatted() {
+        DateTimeFormatter formatter = DateTimeFormatter.ofPattern("dd/MM/yyyy HH:mm");
+        String ccEmail = "finance@vitalfeed.tn";
+        return """
+        <html>
+        <body style="margin:0; padding:0; background-color:#f4f6f8; font-family:'Segoe UI', Roboto, Helvetica, Arial, sans-serif; color:#333;">
+            <table align="center" width="100%%" cellpadding="0" cellspacing="0" style="max-width:650px; margin:auto; background-color:#ffffff; border-radius:10px; overflow:hidden; box-shadow:0 4px 10px rgba(0,0,0,0.05);">
+                
+                <tr>
+                    <td style="background-color:#00897B; padding:25px 40px; text-align:center;">
+                        <h1 style="margin:0; color:#ffffff; font-size:24px; letter-spacing:0.5px;">VITALFEED</h1>
+                        <p style="color:#dff9f3; margin:5px 0 0; font-size:14px;">Simplifiez et modernisez votre pratique vétérinaire dès aujourd’hui</p>
+                    </td>
+                </tr>
+
+                <tr>
+                    <td style="padding:40px;">
+                    
+                        <h2 style="color:#2c3e50; font-size:20px;">Bonjour Dr <span style="color:#00897B; font-weight:600;">%s</span>,</h2>
+                        <p style="font-size:15px; line-height:1.6; margin-top:10px;">
+                            Nous vous confirmons que votre <strong>abonnement</strong> à notre plateforme <strong>VITALFEED</strong> a été mis à jour avec succès.
+                        </p>
+
+                        <div style="margin-top:25px;">
+                            <h3 style="font-size:17px; color:#00897B; font-weight:600; border-bottom:2px solid #eaf0f6; padding-bottom:6px;">Détails de l’abonnement</h3>
+                            <table width="100%%" cellpadding="0" cellspacing="0" style="margin-top:10px; border-collapse:collapse; font-size:14px;">
+                                <tr>
+                                    <td style="padding:8px; color:#555;">Type d’abonnement :</td>
+                                    <td style="padding:8px; text-align:right; font-weight:600;">%s</td>
+                                </tr>
+                                <tr style="background-color:#f9fbfd;">
+                                    <td style="padding:8px; color:#555;">Date de début :</td>
+                                    <td style="padding:8px; text-align:right; font-weight:600;">%s</td>
+                                </tr>
+                                <tr>
+                                    <td style="padding:8px; color:#555;">Date de fin :</td>
+                                    <td style="padding:8px; text-align:right; font-weight:600;">%s</td>
+                                </tr>
+                            </table>
+                        </div>
+
+                        <div style="margin-top:25px; font-size:15px; line-height:1.6;">
+                            <p>Pour toute question relative à la facturation ou au paiement, notre service financier est disponible à :</p>
+                            <p style="margin-top:8px;">
+                                <a href="mailto:%s" style="color:#00897B; font-weight:600; text-decoration:none;">%s</a>
+                            </p>
+                        </div>
+
+                        <div style="margin-top:35px;">
+                            <p style="font-size:15px;">Nous vous remercions de votre confiance et restons à votre disposition pour toute assistance complémentaire.</p>
+                            <p style="margin-top:20px; font-weight:600;">Bien cordialement,</p>
+                            <p style="margin-top:5px; color:#00897B; font-weight:700;">L’équipe VITALFEED</p>
+                        </div>
+                    </td>
+                </tr>
+
+                <tr>
+                    <td style="background-color:#f0f3f7; padding:15px 30px; text-align:center; font-size:12px; color:#777;">
+                        Cet e-mail a été envoyé automatiquement, merci de ne pas y répondre directement.<br>
+                        © %s VITALFEED – Tous droits réservés.
+                    </td>
+                </tr>
+            </table>
+        </body>
+        </html>
+        """.formatted(
+                "Ben Salah",
+                "THREE MONTHS",
+                startDate.format(formatter),
+                endDate.format(formatter),
+                ccEmail,
+                ccEmail,
+                String.valueOf(LocalDate.now().getYear())
+        );
+    }
+
+    @Benchmark
+    public String orderConfirmationTemplate() {
+        StringBuilder itemsHtml = new StringBuilder(lines.size() * 800);
+        BigDecimal total = BigDecimal.ZERO;
+        for (Line line : lines) {
+            BigDecimal subTotal = line.price().multiply(BigDecimal.valueOf(line.quantity()));
+            total = total.add(subTotal);
+            lineTemplate.model()
+                    .set("imageUrl", line.imageUrl())
+                    .set("productName", line.name())
+                    .set("quantity", line.quantity())
+                    .set("unitPrice", line.price())
+                    .set("subTotal", subTotal)
+                    .appendTo(itemsHtml);
+        }
+        return orderTemplate.model()
+                .set("nom", "Ben Salah")
+                .set("orderNumber", "ORD-2026-000123")
+                .set("confirmedAt", endDate)
+                .set("items", itemsHtml)
+                .set("total", total)
+                .render();
+    }
+
+    @Benchmark
+    public String orderConfirmationFormatted() {
+        DateTimeFormatter formatter = DateTimeFormatter.ofPattern("dd/MM/yyyy HH:mm");
+        StringBuilder itemsHtml = new StringBuilder();
+        BigDecimal total = BigDecimal.ZERO;
+        for (Line line : lines) {
+            BigDecimal subTotal = line.price().multiply(BigDecimal.valueOf(line.quantity()));
+            total = total.add(subTotal);
+            itemsHtml.append("""
+                <tr style="border-bottom:1px solid #eee;">
+                    <td style="padding:12px; vertical-align:middle;">
+                        <img src="%s" alt="%s" style="width:60px; height:60px; object-fit:cover; border-radius:6px; float:left; margin-right:12px;">
+                        <div style="margin-left:72px;">
+                            <strong style="font-size:15px;">%s</strong>
+                        </div>
+                    </td>
+                    <td style="padding:12px; text-align:center; vertical-align:middle; font-weight:600;">%d</td>
+                    <td style="padding:12px; text-align:right; vertical-align:middle; font-weight:600;">%s TND</td>
+                    <td style="padding:12px; text-align:right; vertical-align:middle; font-weight:600;">%s TND</td>
+                </tr>
+                """.formatted(
+                    line.imageUrl(),
+                    line.name(),
+                    line.name(),
+                    line.quantity(),
+                    String.format("%.2f", line.price()),
+                    String.format("%.2f", subTotal)
+            ));
+        }
+        return """
+<!DOCTYPE html>
+<html>
+<head>
+  <meta charset="UTF-8">
+  <title>Commande Confirmée – VITALFEED</title>
+</head>
+<body style="margin:0; padding:0; background-color:#f7f9fc; font-family:Segoe UI, Tahoma, Geneva, Verdana, sans-serif; color:#333;">
+  <table role="presentation" width="100%%" cellspacing="0" cellpadding="0" border="0">
+    <tr>
+      <td align="center" style="padding:30px 0;">
+        <table width="680" cellpadding="0" cellspacing="0" border="0" style="background:#ffffff; border-radius:12px; overflow:hidden;">
+          <!-- Header -->
+          <tr>
+            <td align="center" style="background-color:#00897B; color:#fff; padding:30px;">
+              <h1 style="margin:0; font-size:26px;">VITALFEED</h1>
+              <p style="margin:8px 0 0; font-size:14px;">Simplifiez et modernisez votre pratique vétérinaire</p>
+            </td>
+          </tr>
+
+          <!-- Content -->
+          <tr>
+            <td style="padding:40px;">
+              <p style="font-size:16px; line-height:1.6; margin-bottom:25px;">
+                <strong>Bonjour Dr %s,</strong><br>
+                Votre commande sur <strong>VITALFEED</strong> a été <strong>confirmée avec succès</strong>.<br>
+                Notre service financier vous contactera sous 24h pour finaliser le paiement.
+              </p>
+
+              <h3 style="color:#00897B; border-bottom:2px solid #e0f2f1; padding-bottom:6px; font-size:18px;">Détails de la commande</h3>
+              <table width="100%%" cellspacing="0" cellpadding="4" style="font-size:15px; margin-bottom:30px;">
+                <tr>
+                  <td><strong>Numéro de commande :</strong></td>
+                  <td align="right">%s</td>
+                </tr>
+                <tr>
+                  <td><strong>Date de confirmation :</strong></td>
+                  <td align="right">%s</td>
+                </tr>
+              </table>
+
+              <h3 style="color:#00897B; border-bottom:2px solid #e0f2f1; padding-bottom:6px; font-size:18px;">Produits commandés</h3>
+              <table width="100%%" cellpadding="0" cellspacing="0" border="0" style="border-collapse:collapse; font-size:15px;">
+                <thead>
+                  <tr style="background:#e0f2f1; color:#00695c;">
+                    <th align="left" style="padding:12px;">Produit</th>
+                    <th align="center" style="padding:12px;">Quantité</th>
+                    <th align="right" style="padding:12px;">Prix unitaire</th>
+                    <th align="right" style="padding:12px;">Sous-total</th>
+                  </tr>
+                </thead>
+                <tbody>
+                  %s
+                  <tr style="background:#e8f5e9; font-weight:700;">
+                    <td colspan="3" align="right" style="padding:15px;">Total :</td>
+                    <td align="right" style="padding:15px;">%s TND</td>
+                  </tr>
+                </tbody>
+              </table>
+
+              <p style="text-align:center; margin-top:35px; font-size:15px; color:#555;">Merci pour votre confiance !</p>
+              <p style="text-align:center; margin:20px 0 5px; font-weight:600;">Bien cordialement,</p>
+              <p style="text-align:center; margin:0; color:#00897B; font-weight:700;">L’équipe VITALFEED</p>
+            </td>
+          </tr>
+
+          <!-- Footer -->
+          <tr>
+            <td align="center" style="background:#f0f4f8; padding:20px; font-size:13px; color:#666;">
+              <p style="margin:0;">Cet e-mail a été envoyé automatiquement, merci de ne pas y répondre.</p>
+              <p style="margin:5px 0 0;">© %s VITALFEED – Tous droits réservés.</p>
+            </td>
+          </tr>
+        </table>
+      </td>
+    </tr>
+  </table>
+</body>
+</html>
+""".formatted(
+                "Ben Salah",
+                "ORD-2026-000123",
+                endDate.format(formatter),
+                itemsHtml.toString(),
+                String.format("%.2f", total),
+                String.valueOf(LocalDate.now().getYear())
+        );
+    }
+}
@@ -0,0 +1,105 @@
+package com.veterinaire.formulaireveterinaire.jmh;
+
+import com.veterinaire.formulaireveterinaire.Enums.Category;
+import com.veterinaire.formulaireveterinaire.Enums.SubCategory;
+import com.veterinaire.formulaireveterinaire.entity.Product;
+import com.veterinaire.formulaireveterinaire.serviceimpl.ProductSearchIndex;
+import org.openjdk.jmh.annotations.*;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Full-text queries against the in-memory index over a synthetic 50k-product catalog, next to the
+ * substring scan a LIKE '%…%' on name and description amounts to. Only compiled with -Pjmh, see pom.xml.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ProductSearchBenchmark {
+
+    private static final String[] NAME_WORDS = {
+            "Croquettes", "Pâtée", "Friandises", "Complément", "Shampooing", "Vermifuge", "Antiparasitaire",
+            "Litière", "Test rapide", "Sachets", "Barres", "Os à mâcher", "Huile", "Gel", "Spray"};
+    private static final String[] QUALIFIERS = {
+            "chat", "chaton", "chien", "chiot", "stérilisé", "senior", "adulte", "digestion", "articulations",
+            "peau sensible", "poulet", "saumon", "agneau", "sans céréales", "light", "urinaire", "dentaire"};
+    private static final String[] FILLER = {
+            "formule", "équilibrée", "riche", "protéines", "vitamines", "minéraux", "qualité", "vétérinaire",
+            "recommandé", "quotidien", "naturel", "goût", "appétence", "fibres", "oméga", "pelage", "brillant",
+            "défenses", "immunitaires", "poids", "idéal", "croissance", "énergie", "muscles", "os", "dents"};
+
+    @Param({"50000"})
+    int catalogSize;
+
+    private ProductSearchIndex index;
+    private List<Product> catalog;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        catalog = new ArrayList<>(catalogSize);
+        for (long id = 1; id <= catalogSize; id++) {
+            StringBuilder name = new StringBuilder(NAME_WORDS[random.nextInt(NAME_WORDS.length)]);
+            for (int q = 0; q < 2; q++) {
+                name.append(' ').append(QUALIFIERS[random.nextInt(QUALIFIERS.length)]);
+            }
+            StringBuilder description = new StringBuilder();
+            for (int w = 0; w < 60; w++) {
+                String[] words = w % 5 == 0 ? QUALIFIERS : FILLER;
+                description.append(words[random.nextInt(words.length)]).append(w % 12 == 11 ? ". " : " ");
+            }
+            Product product = new Product();
+            product.setId(id);
+            product.setName(name + " " + id);
+            product.setDescription(description.toString());
+            product.setPrice(BigDecimal.valueOf(500 + random.nextInt(20000), 2));
+            product.setImageUrl("https://img.example/" + id + ".jpg");
+            product.setCategory(Category.values()[random.nextInt(Category.values().length)]);
+            product.setSubCategory(SubCategory.values()[random.nextInt(SubCategory.values().length)]);
+            product.setInStock(random.nextInt(10) > 1);
+            catalog.add(product);
+        }
+        index = new ProductSearchIndex(null);
+        index.rebuild(catalog);
+    }
+
+    @Benchmark
+    public ProductSearchIndex.Result threeTerms() {
+        return index.search("croquettes chat sterilise", null, null, null, 20);
+    }
+
+    @Benchmark
+    public ProductSearchIndex.Result threeTermsFiltered() {
+        return index.search("croquettes chat sterilise", Category.CHAT, SubCategory.ALIMENT, true, 20);
+    }
+
+    @Benchmark
+    public ProductSearchIndex.Result commonTerm() {
+        return index.search("protéines", null, null, null, 20);
+    }
+
+    @Benchmark
+    public ProductSearchIndex.Result rareTerms() {
+        return index.search("shampooing peau sensible", null, null, null, 20);
+    }
+
+    @Benchmark
+    public int substringScanBaseline() {
+        int matches = 0;
+        for (Product product : catalog) {
+            String text = (product.getName() + " " + product.getDescription()).toLowerCase(Locale.ROOT);
+            if (text.contains("croquettes") && text.contains("chat") && text.contains("stérilisé")) {
+                matches++;
+            }
+        }
+        return matches;
+    }
+}
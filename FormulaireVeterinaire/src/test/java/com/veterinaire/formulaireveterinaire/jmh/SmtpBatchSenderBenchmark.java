@@ -0,0 +1,89 @@
+package com.veterinaire.formulaireveterinaire.jmh;
+
+import com.veterinaire.formulaireveterinaire.serviceimpl.SmtpBatchSender;
+import com.veterinaire.formulaireveterinaire.serviceimpl.SmtpBatchSender.OutgoingMail;
+import com.veterinaire.formulaireveterinaire.support.FakeSmtpServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.mail.MessagingException;
+import jakarta.mail.internet.MimeMessage;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.mail.javamail.MimeMessageHelper;
+
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Messages per second for a reminder run: one JavaMailSender.send per message versus SmtpBatchSender,
+ * against a local SMTP sink that charges a cost per connection (TCP + TLS + AUTH) and per command
+ * (network round trip). Only compiled with -Pjmh, see pom.xml.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 5)
+@Fork(1)
+public class SmtpBatchSenderBenchmark {
+
+    private static final int MESSAGES = 100;
+
+    @Param({"40"})
+    long connectMillis;
+
+    @Param({"0", "2"})
+    long commandMillis;
+
+    @Param({"1", "4"})
+    int connections;
+
+    private FakeSmtpServer smtp;
+    private JavaMailSenderImpl mailSender;
+    private SmtpBatchSender batchSender;
+    private final Map<Long, OutgoingMail> batch = new LinkedHashMap<>();
+
+    @Setup
+    public void setUp() throws IOException {
+        smtp = new FakeSmtpServer();
+        smtp.setGreetingDelayMillis(connectMillis);
+        smtp.setCommandDelayMillis(commandMillis);
+        mailSender = new JavaMailSenderImpl();
+        mailSender.setHost("127.0.0.1");
+        mailSender.setPort(smtp.getPort());
+        batchSender = new SmtpBatchSender(mailSender, new SimpleMeterRegistry(), connections, 100, 0);
+        for (long id = 1; id <= MESSAGES; id++) {
+            batch.put(id, new OutgoingMail("vet" + id + "@example.com", "finance@example.com",
+                    "noreply@example.com", "Rappel " + id, "<p>Votre abonnement expire bientôt.</p>"));
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        smtp.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(MESSAGES)
+    public int perMessageSend() throws MessagingException {
+        for (OutgoingMail mail : batch.values()) {
+            MimeMessage message = mailSender.createMimeMessage();
+            MimeMessageHelper helper = new MimeMessageHelper(message, true, "UTF-8");
+            helper.setFrom(mail.from());
+            helper.setTo(mail.to());
+            helper.setCc(mail.cc());
+            helper.setSubject(mail.subject());
+            helper.setText(mail.htmlBody(), true);
+            mailSender.send(message);
+        }
+        return batch.size();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(MESSAGES)
+    public Set<Long> batchSend() {
+        return batchSender.sendAll(batch);
+    }
+}
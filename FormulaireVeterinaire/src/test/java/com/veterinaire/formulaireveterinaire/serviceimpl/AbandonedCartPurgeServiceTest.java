@@ -0,0 +1,64 @@
+package com.veterinaire.formulaireveterinaire.serviceimpl;
+
+import com.veterinaire.formulaireveterinaire.DAO.Cart.CartPurgeRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Walks idle carts by id, one delete per chunk, and reports what it removed.
+ */
+class AbandonedCartPurgeServiceTest {
+
+    private final CartPurgeRepository purgeRepository = mock(CartPurgeRepository.class);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final AbandonedCartPurgeService purgeService =
+            new AbandonedCartPurgeService(purgeRepository, meterRegistry, 30, 3);
+
+    @Test
+    void deletesChunkByChunkAfterTheLastSeenId() {
+        when(purgeRepository.findIdleCarts(any(), eq(0L), eq(3))).thenReturn(List.of(4L, 9L, 12L));
+        when(purgeRepository.findIdleCarts(any(), eq(12L), eq(3))).thenReturn(List.of(15L, 20L, 21L));
+        when(purgeRepository.findIdleCarts(any(), eq(21L), eq(3))).thenReturn(List.of(30L));
+        // 20 was used again in between: only two carts of the second chunk go
+        when(purgeRepository.deleteCarts(eq(List.of(4L, 9L, 12L)), any()))
+                .thenReturn(new CartPurgeRepository.DeletedRows(3, 5));
+        when(purgeRepository.deleteCarts(eq(List.of(15L, 20L, 21L)), any()))
+                .thenReturn(new CartPurgeRepository.DeletedRows(2, 0));
+        when(purgeRepository.deleteCarts(eq(List.of(30L)), any()))
+                .thenReturn(new CartPurgeRepository.DeletedRows(1, 2));
+
+        CartPurgeRepository.DeletedRows deleted = purgeService.purge();
+
+        assertEquals(new CartPurgeRepository.DeletedRows(6, 7), deleted);
+        // A short chunk is the last one: no extra lookup
+        verify(purgeRepository, times(3)).findIdleCarts(any(), anyLong(), anyInt());
+        assertEquals(6, meterRegistry.get("cart.purge.deleted").tag("table", "orders").counter().count());
+        assertEquals(7, meterRegistry.get("cart.purge.deleted").tag("table", "order_items").counter().count());
+        assertEquals(1, meterRegistry.get("cart.purge.duration").timer().count());
+    }
+
+    @Test
+    void usesTheSameCutoffForLookupAndDelete() {
+        List<Long> ids = LongStream.rangeClosed(1, 2).boxed().toList();
+        when(purgeRepository.findIdleCarts(any(), eq(0L), eq(3))).thenReturn(ids);
+        when(purgeRepository.deleteCarts(anyList(), any())).thenReturn(new CartPurgeRepository.DeletedRows(2, 0));
+        LocalDateTime before = LocalDateTime.now().minusDays(30);
+
+        purgeService.purge();
+
+        ArgumentCaptor<LocalDateTime> cutoff = ArgumentCaptor.forClass(LocalDateTime.class);
+        verify(purgeRepository).findIdleCarts(cutoff.capture(), eq(0L), eq(3));
+        verify(purgeRepository).deleteCarts(eq(ids), eq(cutoff.getValue()));
+        assertFalse(cutoff.getValue().isBefore(before));
+        assertTrue(cutoff.getValue().isBefore(LocalDateTime.now().minusDays(29)));
+    }
+}
@@ -0,0 +1,95 @@
+package com.veterinaire.formulaireveterinaire.serviceimpl;
+
+import com.veterinaire.formulaireveterinaire.Config.JwtUtil;
+import com.veterinaire.formulaireveterinaire.DAO.UserRepository;
+import com.veterinaire.formulaireveterinaire.DTO.AuthPrincipalDTO;
+import com.veterinaire.formulaireveterinaire.DTO.LoginDTO;
+import com.veterinaire.formulaireveterinaire.Enums.SubscriptionStatus;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Login through the hashing pool with real BCrypt at low cost: rehash on a cost change, and the same
+ * BCrypt work whether or not the account exists.
+ */
+class AuthServiceImplTest {
+
+    private final UserRepository userRepository = mock(UserRepository.class);
+    private final JwtUtil jwtUtil = mock(JwtUtil.class);
+    private BCryptPasswordEncoder encoder;
+    private PasswordHashingService hashing;
+    private AuthServiceImpl authService;
+
+    @AfterEach
+    void tearDown() {
+        hashing.shutdown();
+    }
+
+    @Test
+    void loginRehashesWhenTheConfiguredCostChanged() {
+        authService(5);
+        storedUser(new BCryptPasswordEncoder(4).encode("secret"));
+
+        Map<String, Object> result = authService.login(new LoginDTO("vet@clinic.tn", "secret"));
+
+        assertEquals("token", result.get("token"));
+        ArgumentCaptor<String> rehashed = ArgumentCaptor.forClass(String.class);
+        verify(userRepository).updatePassword(eq(7L), rehashed.capture());
+        assertTrue(rehashed.getValue().startsWith("$2a$05$"), rehashed.getValue());
+        assertTrue(encoder.matches("secret", rehashed.getValue()));
+    }
+
+    @Test
+    void loginKeepsAHashWithTheConfiguredCost() {
+        authService(4);
+        storedUser(new BCryptPasswordEncoder(4).encode("secret"));
+
+        authService.login(new LoginDTO("vet@clinic.tn", "secret"));
+
+        verify(userRepository, never()).updatePassword(anyLong(), anyString());
+    }
+
+    @Test
+    void unknownEmailStillRunsOneBcryptCheckAtTheConfiguredCost() {
+        authService(4);
+        when(userRepository.findAuthPrincipalByEmail("ghost@clinic.tn")).thenReturn(Optional.empty());
+        storedUser(encoder.encode("secret"));
+        clearInvocations(encoder);
+
+        RuntimeException unknown = assertThrows(RuntimeException.class,
+                () -> authService.login(new LoginDTO("ghost@clinic.tn", "secret")));
+        RuntimeException wrongPassword = assertThrows(RuntimeException.class,
+                () -> authService.login(new LoginDTO("vet@clinic.tn", "wrong")));
+
+        // Same message and same BCrypt work either way, so neither the answer nor its timing tells them apart
+        assertEquals(wrongPassword.getMessage(), unknown.getMessage());
+        ArgumentCaptor<String> hashes = ArgumentCaptor.forClass(String.class);
+        verify(encoder, times(2)).matches(any(), hashes.capture());
+        assertTrue(hashes.getAllValues().get(0).startsWith("$2a$04$"), hashes.getAllValues().get(0));
+        assertTrue(hashes.getAllValues().get(1).startsWith("$2a$04$"), hashes.getAllValues().get(1));
+        verify(userRepository, never()).updatePassword(anyLong(), anyString());
+        verifyNoInteractions(jwtUtil);
+    }
+
+    private void authService(int strength) {
+        encoder = spy(new BCryptPasswordEncoder(strength));
+        hashing = new PasswordHashingService(encoder, new SimpleMeterRegistry(), strength, 1, 8, 5000);
+        authService = new AuthServiceImpl(jwtUtil, userRepository, hashing, mock(TokenEpochRegistry.class));
+        when(jwtUtil.generateToken(anyString(), anyBoolean(), anyInt())).thenReturn("token");
+    }
+
+    private void storedUser(String hash) {
+        when(userRepository.findAuthPrincipalByEmail("vet@clinic.tn")).thenReturn(Optional.of(
+                new AuthPrincipalDTO(7L, "vet@clinic.tn", "Ben Salah", hash, false, SubscriptionStatus.ACTIVE, 0, null)));
+    }
+}
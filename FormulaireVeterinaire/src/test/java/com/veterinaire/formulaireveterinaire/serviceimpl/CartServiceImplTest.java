@@ -0,0 +1,484 @@
+package com.veterinaire.formulaireveterinaire.serviceimpl;
+
+import com.veterinaire.formulaireveterinaire.Config.AuthenticatedUser;
+import com.veterinaire.formulaireveterinaire.DAO.Cart.CartOrderRepository;
+import com.veterinaire.formulaireveterinaire.DAO.Cart.OrderItemBatchRepository;
+import com.veterinaire.formulaireveterinaire.DAO.Cart.OrderItemRepository;
+import com.veterinaire.formulaireveterinaire.DAO.Cart.OrderNumberSequence;
+import com.veterinaire.formulaireveterinaire.DAO.ProductRepository;
+import com.veterinaire.formulaireveterinaire.DTO.Cart.CartItemDto;
+import com.veterinaire.formulaireveterinaire.DTO.Cart.CartItemRequest;
+import com.veterinaire.formulaireveterinaire.DTO.Cart.CartLineDTO;
+import com.veterinaire.formulaireveterinaire.DTO.Cart.CartResponse;
+import com.veterinaire.formulaireveterinaire.DTO.Cart.CartSyncRequest;
+import com.veterinaire.formulaireveterinaire.Enums.OrderStatus;
+import com.veterinaire.formulaireveterinaire.Enums.SubscriptionStatus;
+import com.veterinaire.formulaireveterinaire.entity.CartOrder;
+import com.veterinaire.formulaireveterinaire.entity.OrderItem;
+import com.veterinaire.formulaireveterinaire.entity.Product;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.*;
+
+/**
+ * Cart reads must cost the same number of repository calls whatever the cart size, reads must not
+ * create a cart, and concurrent first writes must not create several carts. Line changes move the
+ * total by their own delta and conflict instead of overwriting a concurrent change; a sync applies
+ * its whole diff in a fixed number of batches.
+ */
+class CartServiceImplTest {
+
+    private static final long USER_ID = 42L;
+    private static final long CART_ID = 7L;
+
+    private CartOrderRepository cartOrderRepo;
+    private OrderItemRepository itemRepo;
+    private OrderItemBatchRepository itemBatchRepo;
+    private ProductRepository productRepo;
+    private MailOutboxService mailOutbox;
+    private FinanceDigestService financeDigest;
+    private CartServiceImpl cartService;
+    private AuthenticatedUser user;
+
+    @BeforeEach
+    void setUp() {
+        cartOrderRepo = mock(CartOrderRepository.class);
+        itemRepo = mock(OrderItemRepository.class);
+        itemBatchRepo = mock(OrderItemBatchRepository.class);
+        productRepo = mock(ProductRepository.class);
+        mailOutbox = mock(MailOutboxService.class);
+        financeDigest = mock(FinanceDigestService.class);
+        cartService = new CartServiceImpl(cartOrderRepo, itemRepo, itemBatchRepo,
+                productRepo, mailOutbox, new EmailTemplateEngine(), financeDigest,
+                new OrderNumberGenerator(mock(OrderNumberSequence.class), 100));
+        user = new AuthenticatedUser(USER_ID, "vet@clinic.tn", "Ben Salah", false, SubscriptionStatus.ACTIVE, null);
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {1, 30, 200})
+    void getCartLoadsAllLinesWithOneQuery(int lineCount) {
+        CartOrder cart = cart(lineCount);
+        when(cartOrderRepo.findByUserIdAndStatus(USER_ID, OrderStatus.CART)).thenReturn(Optional.of(cart));
+        when(itemRepo.findCartLines(CART_ID)).thenReturn(lines(lineCount));
+
+        CartResponse response = cartService.getCart(user);
+
+        assertEquals(lineCount, response.getItems().size());
+        assertEquals(new BigDecimal("2.50"), response.getItems().get(0).getSubTotal());
+        verify(cartOrderRepo, times(1)).findByUserIdAndStatus(USER_ID, OrderStatus.CART);
+        verify(itemRepo, times(1)).findCartLines(CART_ID);
+        verifyNoMoreInteractions(cartOrderRepo, itemRepo);
+        verifyNoInteractions(productRepo);
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {1, 30, 200})
+    void checkoutEmailLoadsAllLinesWithOneQuery(int lineCount) {
+        CartOrder cart = cart(lineCount);
+        when(cartOrderRepo.findByUserIdAndStatus(USER_ID, OrderStatus.CART)).thenReturn(Optional.of(cart));
+        when(itemRepo.findCartLines(CART_ID)).thenReturn(lines(lineCount));
+
+        cartService.checkout(user);
+
+        verify(itemRepo, times(1)).findCartLines(CART_ID);
+        verify(cartOrderRepo, times(1)).save(any(CartOrder.class));
+        verify(mailOutbox, times(1)).enqueue(eq("vet@clinic.tn"), isNull(), anyString(), anyString());
+        verify(financeDigest, times(1)).recordOrder(eq(USER_ID), anyString(), any(BigDecimal.class));
+        verifyNoInteractions(productRepo);
+    }
+
+    @Test
+    void concurrentFirstWritesCreateExactlyOneCart() throws Exception {
+        // Stands in for the orders table and its partial unique index on (user_id) WHERE status = 'CART'
+        Map<Long, CartOrder> openCarts = new ConcurrentHashMap<>();
+        AtomicLong ids = new AtomicLong(CART_ID);
+        AtomicInteger insertAttempts = new AtomicInteger();
+        when(cartOrderRepo.findByUserIdAndStatus(USER_ID, OrderStatus.CART))
+                .thenAnswer(inv -> Optional.ofNullable(openCarts.get(USER_ID)));
+        when(cartOrderRepo.insertCartIfAbsent(USER_ID)).thenAnswer(inv -> {
+            insertAttempts.incrementAndGet();
+            CartOrder created = new CartOrder();
+            created.setId(ids.getAndIncrement());
+            created.setUserId(USER_ID);
+            return openCarts.putIfAbsent(USER_ID, created) == null ? 1 : 0;
+        });
+        Product product = new Product();
+        product.setId(100L);
+        product.setPrice(new BigDecimal("2.50"));
+        when(productRepo.findById(100L)).thenReturn(Optional.of(product));
+        Set<Long> usedCartIds = ConcurrentHashMap.newKeySet();
+        OrderItemRepository.UpsertedLine line = mock(OrderItemRepository.UpsertedLine.class);
+        when(line.getQuantity()).thenReturn(1);
+        when(line.getPrice()).thenReturn(product.getPrice());
+        when(itemRepo.upsertLine(any(), eq(100L), eq(1), any())).thenAnswer(inv -> {
+            usedCartIds.add(inv.getArgument(0));
+            return line;
+        });
+        when(cartOrderRepo.addToTotal(any(), any())).thenReturn(1);
+
+        int threads = 64;
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> adds = new ArrayList<>();
+        try {
+            for (int i = 0; i < threads; i++) {
+                adds.add(pool.submit(() -> {
+                    start.await();
+                    CartItemRequest req = new CartItemRequest();
+                    req.setProductId(100L);
+                    req.setQuantity(1);
+                    return cartService.addItem(user, req);
+                }));
+            }
+            start.countDown();
+
+            for (Future<?> add : adds) {
+                add.get(10, TimeUnit.SECONDS);
+            }
+            assertEquals(Set.of(CART_ID), usedCartIds);
+        } finally {
+            pool.shutdownNow();
+        }
+        assertEquals(1, openCarts.size());
+        // The per-user stripe lets only one thread reach the INSERT
+        assertEquals(1, insertAttempts.get());
+    }
+
+    @Test
+    void readingWithoutCartDoesNotCreateOne() {
+        when(cartOrderRepo.findByUserIdAndStatus(USER_ID, OrderStatus.CART)).thenReturn(Optional.empty());
+
+        CartResponse response = cartService.getCart(user);
+        cartService.clearCart(user);
+
+        assertNull(response.getCartId());
+        assertEquals(BigDecimal.ZERO, response.getTotalAmount());
+        assertTrue(response.getItems().isEmpty());
+        verify(cartOrderRepo, never()).insertCartIfAbsent(any());
+        verifyNoInteractions(itemRepo);
+    }
+
+    @Test
+    void concurrentAddsApplyTheirDeltasWithoutLosingAny() throws Exception {
+        // Stands in for the cart row: total_amount = total_amount + :delta, applied atomically
+        AtomicReference<BigDecimal> storedTotal = new AtomicReference<>(BigDecimal.ZERO);
+        AtomicInteger storedQuantity = new AtomicInteger();
+        when(cartOrderRepo.findByUserIdAndStatus(USER_ID, OrderStatus.CART)).thenReturn(Optional.of(cart(0)));
+        when(productRepo.findById(100L)).thenReturn(Optional.of(product(100L, "2.50")));
+        when(itemRepo.upsertLine(eq(CART_ID), eq(100L), any(), any())).thenAnswer(inv ->
+                upserted(1L, storedQuantity.addAndGet(inv.getArgument(2)), inv.getArgument(3)));
+        when(cartOrderRepo.addToTotal(eq(CART_ID), any())).thenAnswer(inv -> {
+            storedTotal.accumulateAndGet(inv.getArgument(1), BigDecimal::add);
+            return 1;
+        });
+
+        int threads = 32;
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> adds = new ArrayList<>();
+        try {
+            for (int i = 0; i < threads; i++) {
+                adds.add(pool.submit(() -> {
+                    start.await();
+                    return cartService.addItem(user, itemRequest(100L, 1));
+                }));
+            }
+            start.countDown();
+            for (Future<?> add : adds) {
+                add.get(10, TimeUnit.SECONDS);
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+
+        assertEquals(new BigDecimal("80.00"), storedTotal.get());
+        assertEquals(threads, storedQuantity.get());
+        // Each add costs its own delta; nothing reloads the lines or saves the whole order
+        verify(cartOrderRepo, times(threads)).addToTotal(CART_ID, new BigDecimal("2.50"));
+        verify(itemRepo, never()).findByOrderId(any());
+        verify(cartOrderRepo, never()).save(any());
+    }
+
+    @Test
+    void quantityChangeAppliesOnlyTheDifference() {
+        when(cartOrderRepo.findByUserIdAndStatus(USER_ID, OrderStatus.CART)).thenReturn(Optional.of(cart(0)));
+        when(itemRepo.findById(11L)).thenReturn(Optional.of(item(11L, 100L, 3, "2.50")));
+        when(itemRepo.updateQuantity(11L, 3, 5)).thenReturn(1);
+        when(cartOrderRepo.addToTotal(CART_ID, new BigDecimal("5.00"))).thenReturn(1);
+
+        CartItemDto dto = cartService.updateItem(user, 11L, 5);
+
+        assertEquals(5, dto.getQuantity());
+        assertEquals(new BigDecimal("12.50"), dto.getSubTotal());
+        verify(cartOrderRepo).addToTotal(CART_ID, new BigDecimal("5.00"));
+    }
+
+    @Test
+    void staleQuantityConflictsThenSucceedsOnRetryWithTheFreshValue() {
+        when(cartOrderRepo.findByUserIdAndStatus(USER_ID, OrderStatus.CART)).thenReturn(Optional.of(cart(0)));
+        // Read at 3, but another tab already moved the line to 4
+        when(itemRepo.findById(11L)).thenReturn(Optional.of(item(11L, 100L, 3, "2.50")))
+                .thenReturn(Optional.of(item(11L, 100L, 4, "2.50")));
+        when(itemRepo.updateQuantity(11L, 3, 5)).thenReturn(0);
+        when(itemRepo.updateQuantity(11L, 4, 5)).thenReturn(1);
+        when(cartOrderRepo.addToTotal(eq(CART_ID), any())).thenReturn(1);
+
+        assertThrows(ObjectOptimisticLockingFailureException.class, () -> cartService.updateItem(user, 11L, 5));
+        verify(cartOrderRepo, never()).addToTotal(any(), any());
+
+        cartService.updateItem(user, 11L, 5);
+
+        verify(cartOrderRepo, times(1)).addToTotal(CART_ID, new BigDecimal("2.50"));
+    }
+
+    @Test
+    void lineChangeOnACartCheckedOutMeanwhileConflicts() {
+        when(cartOrderRepo.findByUserIdAndStatus(USER_ID, OrderStatus.CART)).thenReturn(Optional.of(cart(0)));
+        when(itemRepo.findById(11L)).thenReturn(Optional.of(item(11L, 100L, 3, "2.50")));
+        when(itemRepo.deleteLine(11L)).thenReturn(1);
+        // The total UPDATE only matches carts still in CART status
+        when(cartOrderRepo.addToTotal(eq(CART_ID), any())).thenReturn(0);
+
+        assertThrows(ObjectOptimisticLockingFailureException.class, () -> cartService.removeItem(user, 11L));
+    }
+
+    @Test
+    void repeatedAddsMergeIntoOneLineAtItsOriginalPrice() {
+        // Stands in for order_items and its (order_id, product_id) unique index
+        Map<Long, OrderItem> linesByProduct = new ConcurrentHashMap<>();
+        when(cartOrderRepo.findByUserIdAndStatus(USER_ID, OrderStatus.CART)).thenReturn(Optional.of(cart(0)));
+        when(productRepo.findById(100L)).thenReturn(Optional.of(product(100L, "2.50")))
+                .thenReturn(Optional.of(product(100L, "3.00")));
+        when(itemRepo.upsertLine(eq(CART_ID), any(), any(), any())).thenAnswer(inv -> {
+            Long productId = inv.getArgument(1);
+            int quantity = inv.getArgument(2);
+            OrderItem line = linesByProduct.merge(productId,
+                    item(linesByProduct.size() + 1L, productId, quantity, inv.<BigDecimal>getArgument(3).toPlainString()),
+                    (existing, excluded) -> {
+                        existing.setQuantity(existing.getQuantity() + excluded.getQuantity());
+                        return existing;
+                    });
+            return upserted(line.getId(), line.getQuantity(), line.getPrice());
+        });
+        when(cartOrderRepo.addToTotal(eq(CART_ID), any())).thenReturn(1);
+
+        CartItemDto first = cartService.addItem(user, itemRequest(100L, 1));
+        CartItemDto second = cartService.addItem(user, itemRequest(100L, 2));
+
+        assertEquals(1, linesByProduct.size());
+        assertEquals(first.getItemId(), second.getItemId());
+        assertEquals(3, second.getQuantity());
+        assertEquals(new BigDecimal("2.50"), second.getPrice());
+        assertEquals(new BigDecimal("7.50"), second.getSubTotal());
+        verify(cartOrderRepo).addToTotal(CART_ID, new BigDecimal("2.50"));
+        verify(cartOrderRepo).addToTotal(CART_ID, new BigDecimal("5.00"));
+    }
+
+    @Test
+    void upsertIncrementsTheExistingLineOnTheUniqueIndex() throws Exception {
+        String sql = OrderItemRepository.class
+                .getMethod("upsertLine", Long.class, Long.class, Integer.class, BigDecimal.class)
+                .getAnnotation(Query.class).value();
+
+        assertTrue(sql.contains("ON CONFLICT (order_id, product_id) DO UPDATE "
+                + "SET quantity = order_items.quantity + EXCLUDED.quantity"), sql);
+        assertFalse(sql.contains("price = EXCLUDED"), "an existing line keeps its unit price");
+        assertTrue(sql.endsWith("RETURNING id, quantity, price"), sql);
+    }
+
+    @Test
+    void syncDiffsTheDesiredLinesIntoDeleteUpdateAndInsertBatches() {
+        CartOrder cart = cart(0);
+        cart.setTotalAmount(new BigDecimal("15.00"));
+        cart.setVersion(4L);
+        when(cartOrderRepo.findByUserIdAndStatus(USER_ID, OrderStatus.CART)).thenReturn(Optional.of(cart));
+        when(itemRepo.findByOrderId(CART_ID)).thenReturn(List.of(
+                item(1L, 101L, 2, "2.50"),   // kept as is
+                item(2L, 102L, 1, "2.50"),   // 1 -> 5
+                item(3L, 103L, 3, "2.50"),   // sent with quantity 0
+                item(4L, 104L, 1, "2.50"))); // missing from the request
+        when(productRepo.findAllById(any())).thenReturn(List.of(product(105L, "4.00")));
+        stubBatches(true);
+        when(cartOrderRepo.addToTotalIfUnchanged(eq(CART_ID), eq(4L), any())).thenReturn(1);
+
+        CartResponse response = cartService.syncCart(user, syncRequest(Map.of(101L, 2, 102L, 5, 103L, 0, 105L, 2)));
+
+        verify(itemBatchRepo).deleteLines(argThat(ids -> Set.copyOf(ids).equals(Set.of(3L, 4L))));
+        verify(itemBatchRepo).updateQuantities(List.of(new OrderItemBatchRepository.QuantityChange(2L, 1, 5)));
+        verify(itemBatchRepo).insertLines(CART_ID,
+                List.of(new OrderItemBatchRepository.NewLine(105L, 2, new BigDecimal("4.00"))));
+        verify(productRepo).findAllById(Set.of(105L));
+        // -7.50 -2.50 removed, +10.00 for 102, +8.00 for 105
+        verify(cartOrderRepo).addToTotalIfUnchanged(CART_ID, 4L, new BigDecimal("8.00"));
+        assertEquals(new BigDecimal("23.00"), response.getTotalAmount());
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {1, 30, 200})
+    void syncCostsTheSameNumberOfRoundTripsWhateverTheCartSize(int lineCount) {
+        when(cartOrderRepo.findByUserIdAndStatus(USER_ID, OrderStatus.CART)).thenReturn(Optional.of(cart(lineCount)));
+        List<OrderItem> stored = new ArrayList<>();
+        Map<Long, Integer> wanted = new HashMap<>();
+        List<Product> newProducts = new ArrayList<>();
+        for (long i = 1; i <= lineCount; i++) {
+            stored.add(item(i, 100 + i, 1, "2.50"));
+            // A third deleted, a third updated, a third kept; as many new products
+            if (i % 3 != 0) {
+                wanted.put(100 + i, (int) (i % 3));
+            }
+            wanted.put(1000 + i, 1);
+            newProducts.add(product(1000 + i, "1.00"));
+        }
+        when(itemRepo.findByOrderId(CART_ID)).thenReturn(stored);
+        when(productRepo.findAllById(any())).thenReturn(newProducts);
+        stubBatches(true);
+        when(cartOrderRepo.addToTotalIfUnchanged(eq(CART_ID), any(), any())).thenReturn(1);
+
+        cartService.syncCart(user, syncRequest(wanted));
+
+        verify(cartOrderRepo, times(1)).findByUserIdAndStatus(USER_ID, OrderStatus.CART);
+        verify(itemRepo, times(1)).findByOrderId(CART_ID);
+        verify(productRepo, times(1)).findAllById(any());
+        verify(itemBatchRepo, times(1)).deleteLines(any());
+        verify(itemBatchRepo, times(1)).updateQuantities(any());
+        verify(itemBatchRepo, times(1)).insertLines(eq(CART_ID), any());
+        verify(cartOrderRepo, times(1)).addToTotalIfUnchanged(eq(CART_ID), any(), any());
+        verify(itemRepo, times(1)).findCartLines(CART_ID);
+        verifyNoMoreInteractions(cartOrderRepo, itemRepo, productRepo, itemBatchRepo);
+    }
+
+    @Test
+    void syncConflictsWhenTheCartVersionMovedSinceItWasRead() {
+        CartOrder cart = cart(1);
+        cart.setVersion(4L);
+        when(cartOrderRepo.findByUserIdAndStatus(USER_ID, OrderStatus.CART)).thenReturn(Optional.of(cart));
+        when(itemRepo.findByOrderId(CART_ID)).thenReturn(List.of(item(1L, 101L, 1, "2.50")));
+        stubBatches(true);
+        // Another request bumped the version between the read and the total update
+        when(cartOrderRepo.addToTotalIfUnchanged(eq(CART_ID), eq(4L), any())).thenReturn(0);
+
+        assertThrows(ObjectOptimisticLockingFailureException.class,
+                () -> cartService.syncCart(user, syncRequest(Map.of(101L, 3))));
+        verify(itemRepo, never()).findCartLines(any());
+    }
+
+    @Test
+    void syncConflictsWithoutTouchingTheTotalWhenABatchMissesARow() {
+        when(cartOrderRepo.findByUserIdAndStatus(USER_ID, OrderStatus.CART)).thenReturn(Optional.of(cart(1)));
+        when(itemRepo.findByOrderId(CART_ID)).thenReturn(List.of(item(1L, 101L, 1, "2.50")));
+        stubBatches(true);
+        // The line was removed by another request before the batch ran
+        when(itemBatchRepo.updateQuantities(any())).thenReturn(false);
+
+        assertThrows(ObjectOptimisticLockingFailureException.class,
+                () -> cartService.syncCart(user, syncRequest(Map.of(101L, 3))));
+        verify(itemBatchRepo, never()).insertLines(any(), any());
+        verify(cartOrderRepo, never()).addToTotalIfUnchanged(any(), any(), any());
+    }
+
+    private void stubBatches(boolean applied) {
+        when(itemBatchRepo.deleteLines(any())).thenReturn(applied);
+        when(itemBatchRepo.updateQuantities(any())).thenReturn(applied);
+        when(itemBatchRepo.insertLines(any(), any())).thenReturn(applied);
+    }
+
+    private static CartSyncRequest syncRequest(Map<Long, Integer> items) {
+        CartSyncRequest req = new CartSyncRequest();
+        req.setItems(items);
+        return req;
+    }
+
+    private static CartOrder cart(int lineCount) {
+        CartOrder cart = new CartOrder();
+        cart.setId(CART_ID);
+        cart.setUserId(USER_ID);
+        cart.setStatus(OrderStatus.CART);
+        cart.setTotalAmount(new BigDecimal("2.50").multiply(BigDecimal.valueOf(lineCount)));
+        return cart;
+    }
+
+    private static Product product(long id, String price) {
+        Product product = new Product();
+        product.setId(id);
+        product.setName("Produit " + id);
+        product.setPrice(new BigDecimal(price));
+        return product;
+    }
+
+    private static OrderItem item(long id, long productId, int quantity, String price) {
+        OrderItem item = new OrderItem();
+        item.setId(id);
+        item.setOrderId(CART_ID);
+        item.setProductId(productId);
+        item.setQuantity(quantity);
+        item.setPrice(new BigDecimal(price));
+        return item;
+    }
+
+    private static CartItemRequest itemRequest(long productId, int quantity) {
+        CartItemRequest req = new CartItemRequest();
+        req.setProductId(productId);
+        req.setQuantity(quantity);
+        return req;
+    }
+
+    private static OrderItemRepository.UpsertedLine upserted(long id, int quantity, BigDecimal price) {
+        return new OrderItemRepository.UpsertedLine() {
+            @Override
+            public Long getId() {
+                return id;
+            }
+
+            @Override
+            public Integer getQuantity() {
+                return quantity;
+            }
+
+            @Override
+            public BigDecimal getPrice() {
+                return price;
+            }
+        };
+    }
+
+    private static List<CartLineDTO> lines(int lineCount) {
+        List<CartLineDTO> lines = new ArrayList<>(lineCount);
+        for (long i = 1; i <= lineCount; i++) {
+            lines.add(new CartLineDTO(i, 100 + i, "Produit " + i, "https://img.example/" + i + ".jpg",
+                    1, new BigDecimal("2.50")));
+        }
+        return lines;
+    }
+}
@@ -0,0 +1,149 @@
+package com.veterinaire.formulaireveterinaire.serviceimpl;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.veterinaire.formulaireveterinaire.DAO.ProductRepository;
+import com.veterinaire.formulaireveterinaire.Enums.Category;
+import com.veterinaire.formulaireveterinaire.Enums.SubCategory;
+import com.veterinaire.formulaireveterinaire.controller.ProductController;
+import com.veterinaire.formulaireveterinaire.entity.Product;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * One findAll per catalog change, whatever the number of polls, and 304s for clients already up to date.
+ */
+class CatalogCacheTest {
+
+    private ProductRepository productRepository;
+    private CatalogCache catalogCache;
+    private final List<Product> products = new CopyOnWriteArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        productRepository = mock(ProductRepository.class);
+        when(productRepository.findAll()).thenAnswer(inv -> new ArrayList<>(products));
+        catalogCache = new CatalogCache(productRepository, new ObjectMapper(), new SimpleMeterRegistry(), 300);
+        products.add(product(1L, "Croquettes chat adulte"));
+        products.add(product(2L, "Vermifuge chien"));
+    }
+
+    @Test
+    void concurrentPollsShareOneQueryUntilTheNextChange() throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(16);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<CatalogCache.Snapshot>> polls = new ArrayList<>();
+        try {
+            for (int i = 0; i < 200; i++) {
+                polls.add(pool.submit(() -> {
+                    start.await();
+                    return catalogCache.current();
+                }));
+            }
+            start.countDown();
+            for (Future<CatalogCache.Snapshot> poll : polls) {
+                assertEquals(2, poll.get(10, TimeUnit.SECONDS).productCount());
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+        verify(productRepository, times(1)).findAll();
+
+        String etag = catalogCache.current().etag();
+        products.add(product(3L, "Shampooing"));
+        catalogCache.invalidate();
+
+        CatalogCache.Snapshot changed = catalogCache.current();
+        catalogCache.current();
+        assertEquals(3, changed.productCount());
+        assertNotEquals(etag, changed.etag());
+        verify(productRepository, times(2)).findAll();
+    }
+
+    @Test
+    void gzipAndJsonCarryTheSameCatalog() throws IOException {
+        CatalogCache.Snapshot snapshot = catalogCache.current();
+
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(snapshot.gzip()))) {
+            assertArrayEquals(snapshot.json(), in.readAllBytes());
+        }
+        assertTrue(new String(snapshot.json()).contains("\"name\":\"Vermifuge chien\""));
+        // Same content, same tag: an invalidation without a real change still lets clients revalidate
+        catalogCache.invalidate();
+        assertEquals(snapshot.etag(), catalogCache.current().etag());
+    }
+
+    @Test
+    void endpointAnswersNotModifiedForTheCurrentTag() {
+        ProductController controller = new ProductController();
+        ReflectionTestUtils.setField(controller, "catalogCache", catalogCache);
+        String etag = catalogCache.current().etag();
+
+        ResponseEntity<byte[]> notModified = controller.getAllProducts("\"stale\", W/" + etag, "gzip");
+        ResponseEntity<byte[]> gzipped = controller.getAllProducts("\"stale\"", "gzip, deflate, br");
+        ResponseEntity<byte[]> plain = controller.getAllProducts(null, null);
+
+        assertEquals(HttpStatus.NOT_MODIFIED, notModified.getStatusCode());
+        assertNull(notModified.getBody());
+        assertEquals(etag, notModified.getHeaders().getETag());
+        assertEquals("gzip", gzipped.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING));
+        assertArrayEquals(catalogCache.current().gzip(), gzipped.getBody());
+        assertNull(plain.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING));
+        assertArrayEquals(catalogCache.current().json(), plain.getBody());
+    }
+
+    @ParameterizedTest
+    @CsvSource(delimiter = '|', value = {
+            "gzip                      | true",
+            "deflate, GZIP;q=0.5       | true",
+            "x-gzip                    | true",
+            "*                         | true",
+            "br;q=1.0, *;q=0.1         | true",
+            "gzip;q=0                  | false",
+            "gzip ; q=0.000, deflate   | false",
+            "*, gzip;q=0               | false",
+            "*;q=0                     | false",
+            "gzipped, deflate          | false",
+            "identity                  | false",
+            "gzip;q=abc                | false"
+    })
+    void endpointCompressesOnlyWhenGzipIsAcceptable(String acceptEncoding, boolean gzipped) {
+        ProductController controller = new ProductController();
+        ReflectionTestUtils.setField(controller, "catalogCache", catalogCache);
+
+        ResponseEntity<byte[]> response = controller.getAllProducts(null, acceptEncoding);
+
+        assertEquals(gzipped ? "gzip" : null, response.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING));
+        assertArrayEquals(gzipped ? catalogCache.current().gzip() : catalogCache.current().json(), response.getBody());
+    }
+
+    private static Product product(Long id, String name) {
+        Product product = new Product();
+        product.setId(id);
+        product.setName(name);
+        product.setDescription("Description ".repeat(50));
+        product.setPrice(new BigDecimal("19.90"));
+        product.setImageUrl("https://img.example/" + id + ".jpg");
+        product.setCategory(Category.values()[0]);
+        product.setSubCategory(SubCategory.values()[0]);
+        product.setInStock(true);
+        return product;
+    }
+}
@@ -0,0 +1,90 @@
+package com.veterinaire.formulaireveterinaire.serviceimpl;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.time.Year;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Compiles the bundled e-mail templates and renders them.
+ */
+class EmailTemplateEngineTest {
+
+    private final EmailTemplateEngine engine = new EmailTemplateEngine();
+
+    @Test
+    void everyTemplateRendersWithoutLeftoverTags() {
+        for (String name : new String[] {"order-confirmation", "order-confirmation-line", "subscription-confirmation",
+                "subscription-update", "subscription-request", "subscription-reminder", "welcome"}) {
+            EmailTemplate template = engine.get(name);
+            EmailTemplate.Model model = template.model();
+            template.getSlotNames().forEach(slot -> model.set(slot, "x"));
+
+            String html = model.render();
+
+            assertFalse(html.contains("{{"), name);
+            assertFalse(html.contains("}}"), name);
+            assertFalse(html.contains("%s"), name);
+        }
+    }
+
+    @Test
+    void partialsAreInlinedAndYearIsFilled() {
+        String html = engine.get("subscription-update").model()
+                .set("nom", "Ben Salah")
+                .set("subscriptionType", "THREE MONTHS")
+                .set("startDate", LocalDateTime.of(2026, 3, 1, 9, 30))
+                .set("endDate", LocalDateTime.of(2026, 6, 1, 9, 30))
+                .set("financeEmail", "finance@vitalfeed.tn")
+                .render();
+
+        assertTrue(html.startsWith("<html>"));
+        assertTrue(html.contains("Simplifiez et modernisez votre pratique vétérinaire"));
+        assertTrue(html.contains("© " + Year.now().getValue() + " VITALFEED"));
+        assertTrue(html.contains(">01/03/2026 09:30<"));
+        assertTrue(html.contains("href=\"mailto:finance@vitalfeed.tn\""));
+        assertTrue(html.stripTrailing().endsWith("</html>"));
+    }
+
+    @Test
+    void escapesValuesExceptInRawSlots() {
+        StringBuilder rows = new StringBuilder();
+        engine.get("order-confirmation-line").model()
+                .set("imageUrl", "https://cdn.example.com/a.png?w=60&h=60")
+                .set("productName", "Croquettes <Chat> \"Adulte\"")
+                .set("quantity", 3)
+                .set("unitPrice", new BigDecimal("12.5"))
+                .set("subTotal", new BigDecimal("37.499"))
+                .appendTo(rows);
+
+        String html = engine.get("order-confirmation").model()
+                .set("nom", "O'Neil & Fils")
+                .set("orderNumber", "ORD-1")
+                .set("confirmedAt", LocalDateTime.of(2026, 1, 2, 3, 4))
+                .set("items", rows)
+                .set("total", new BigDecimal("37.50"))
+                .render();
+
+        assertTrue(html.contains("Bonjour Dr O&#39;Neil &amp; Fils,"));
+        assertTrue(html.contains("src=\"https://cdn.example.com/a.png?w=60&amp;h=60\""));
+        assertTrue(html.contains("Croquettes &lt;Chat&gt; &quot;Adulte&quot;"));
+        assertTrue(html.contains(">12.50 TND<"));
+        assertTrue(html.contains(">37.50 TND<"));
+        assertTrue(html.contains("<tr style=\"border-bottom:1px solid #eee;\">"));
+    }
+
+    @Test
+    void reportsUnknownAndMissingSlots() {
+        EmailTemplate template = engine.get("subscription-reminder");
+
+        assertThrows(IllegalArgumentException.class, () -> template.model().set("subscriptionId", 1L));
+        assertThrows(IllegalStateException.class, () -> template.model().set("prenom", "Sami").render());
+        assertThrows(IllegalArgumentException.class, () -> engine.get("missing"));
+        assertThrows(IllegalStateException.class,
+                () -> EmailTemplateEngine.compile("a", Map.of("a", "{{> _b}}", "_b", "{{> a}}")));
+    }
+}
@@ -0,0 +1,91 @@
+package com.veterinaire.formulaireveterinaire.serviceimpl;
+
+import com.veterinaire.formulaireveterinaire.DAO.FinanceEventRepository;
+import com.veterinaire.formulaireveterinaire.DTO.FinanceDigestRow;
+import com.veterinaire.formulaireveterinaire.Enums.FinanceEventType;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Builds the finance digest from the pending events.
+ */
+class FinanceDigestServiceTest {
+
+    private static final LocalDateTime DAY = LocalDateTime.of(2026, 5, 4, 0, 0);
+
+    private FinanceEventRepository eventRepository;
+    private MailOutboxService mailOutbox;
+    private FinanceDigestService digestService;
+
+    @BeforeEach
+    void setUp() {
+        eventRepository = mock(FinanceEventRepository.class);
+        mailOutbox = mock(MailOutboxService.class);
+        digestService = new FinanceDigestService(eventRepository, mailOutbox, new EmailTemplateEngine(),
+                "finance@vitalfeed.tn");
+    }
+
+    @Test
+    void aggregatesPendingEventsIntoOneMail() {
+        when(eventRepository.findUndigested()).thenReturn(List.of(
+                row(1, FinanceEventType.ORDER_CONFIRMED, 8, "ORD-A", new BigDecimal("120.00"), null),
+                row(2, FinanceEventType.ORDER_CONFIRMED, 15, "ORD-B", new BigDecimal("30.5"), null),
+                row(3, FinanceEventType.SUBSCRIPTION_ASSIGNED, 10, "THREE_MONTHS", null, DAY.plusMonths(3)),
+                row(4, FinanceEventType.SUBSCRIPTION_REQUESTED, 11, "ONE_MONTH", null, null),
+                row(5, FinanceEventType.SUBSCRIPTION_EXPIRING, 0, "SIX_MONTHS", null, DAY.plusDays(5))));
+
+        assertEquals(5, digestService.sendDigest());
+
+        ArgumentCaptor<String> html = ArgumentCaptor.forClass(String.class);
+        verify(mailOutbox, times(1)).enqueue(eq("finance@vitalfeed.tn"), isNull(), anyString(), html.capture());
+        assertTrue(html.getValue().contains("Commandes confirmées (2) – 150.50 TND"));
+        assertTrue(html.getValue().contains("Commande ORD-A"));
+        assertTrue(html.getValue().contains("Abonnements nouveaux ou modifiés (2)"));
+        assertTrue(html.getValue().contains("Nouvel abonnement – THREE MONTHS"));
+        assertTrue(html.getValue().contains("Paiement à finaliser"));
+        assertTrue(html.getValue().contains("Expirations à venir (1)"));
+        assertTrue(html.getValue().contains("Fin le 09/05/2026 00:00"));
+        assertTrue(html.getValue().contains("du <strong>04/05/2026 00:00</strong> au <strong>04/05/2026 15:00</strong>"));
+        verify(eventRepository).markDigested(eq(List.of(1L, 2L, 3L, 4L, 5L)), any(LocalDateTime.class));
+    }
+
+    @Test
+    void sendsNothingWithoutEvents() {
+        when(eventRepository.findUndigested()).thenReturn(List.of());
+
+        assertEquals(0, digestService.sendDigest());
+
+        verifyNoInteractions(mailOutbox);
+        verify(eventRepository, never()).markDigested(anyList(), any());
+    }
+
+    @Test
+    void marksLargeDigestsInChunks() {
+        List<FinanceDigestRow> rows = new ArrayList<>();
+        for (long id = 1; id <= 2500; id++) {
+            rows.add(row(id, FinanceEventType.ORDER_CONFIRMED, 9, "ORD-" + id, BigDecimal.ONE, null));
+        }
+        when(eventRepository.findUndigested()).thenReturn(rows);
+
+        digestService.sendDigest();
+
+        verify(mailOutbox, times(1)).enqueue(anyString(), isNull(), anyString(), anyString());
+        verify(eventRepository, times(3)).markDigested(anyList(), any(LocalDateTime.class));
+    }
+
+    private static FinanceDigestRow row(long id, FinanceEventType type, int hour, String reference,
+                                        BigDecimal amount, LocalDateTime endDate) {
+        return new FinanceDigestRow(id, type, DAY.plusHours(hour), reference, amount, endDate,
+                "Ben Salah", "Sami", "vet" + id + "@clinic.tn");
+    }
+}
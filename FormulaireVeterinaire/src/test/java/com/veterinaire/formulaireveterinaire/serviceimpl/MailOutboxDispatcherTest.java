@@ -0,0 +1,144 @@
+package com.veterinaire.formulaireveterinaire.serviceimpl;
+
+import com.veterinaire.formulaireveterinaire.DAO.MailOutboxRepository;
+import com.veterinaire.formulaireveterinaire.entity.MailOutboxMessage;
+import com.veterinaire.formulaireveterinaire.support.FakeSmtpServer;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.mail.Message;
+import jakarta.mail.internet.MimeMessage;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Delivers outbox messages to an in-process SMTP server.
+ */
+class MailOutboxDispatcherTest {
+
+    private static final int MAX_ATTEMPTS = 3;
+
+    private FakeSmtpServer smtp;
+    private MailOutboxService outboxService;
+    private MailOutboxRepository outboxRepository;
+    private MeterRegistry meterRegistry;
+    private MailOutboxDispatcher dispatcher;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        smtp = new FakeSmtpServer();
+        outboxService = mock(MailOutboxService.class);
+        outboxRepository = mock(MailOutboxRepository.class);
+        meterRegistry = new SimpleMeterRegistry();
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        if (dispatcher != null) {
+            dispatcher.stop();
+        }
+        smtp.close();
+    }
+
+    @Test
+    void workersDeliverClaimedBatchAndMarkItSent() throws Exception {
+        List<MailOutboxMessage> batch = new ArrayList<>();
+        for (long id = 1; id <= 12; id++) {
+            batch.add(message(id, 0));
+        }
+        when(outboxService.claimDue(anyInt(), any(Duration.class))).thenReturn(batch).thenReturn(List.of());
+        dispatcher = dispatcher(true);
+
+        dispatcher.start();
+
+        assertTrue(smtp.awaitMessages(12, 10_000));
+        for (long id = 1; id <= 12; id++) {
+            verify(outboxRepository, timeout(5_000)).markSent(eq(id), any(LocalDateTime.class));
+        }
+        MimeMessage first = smtp.getMessages().get(0).toMimeMessage();
+        assertTrue(first.getSubject().startsWith("Commande Confirmée"));
+        assertEquals("finance@vitalfeed.tn", first.getRecipients(Message.RecipientType.CC)[0].toString());
+        Set<String> recipients = smtp.getMessages().stream()
+                .flatMap(m -> m.recipients().stream())
+                .collect(Collectors.toSet());
+        assertTrue(recipients.contains("<vet1@clinic.tn>"));
+        assertEquals(12.0, meterRegistry.counter("mail.outbox.delivered", "result", "sent").count());
+        verify(outboxRepository, never()).markRetry(anyLong(), any(), anyString());
+    }
+
+    @Test
+    void smtpFailureIsRetriedWithBackoffThenDeadLettered() throws Exception {
+        smtp.setRecipientReply("451 4.3.0 Try again later");
+        dispatcher = dispatcher(false);
+        MailOutboxMessage fresh = message(1L, 0);
+        MailOutboxMessage lastChance = message(2L, MAX_ATTEMPTS - 1);
+        when(outboxService.claimDue(anyInt(), any(Duration.class))).thenReturn(List.of(fresh, lastChance));
+
+        assertEquals(2, dispatcher.dispatchOnce());
+
+        verify(outboxRepository).markRetry(eq(1L), argThat(next -> next.isAfter(LocalDateTime.now())),
+                contains("451"));
+        verify(outboxRepository).markDead(eq(2L), contains("451"));
+        verify(outboxRepository, never()).markSent(anyLong(), any());
+        assertTrue(smtp.getMessages().isEmpty());
+        assertEquals(1.0, meterRegistry.counter("mail.outbox.delivered", "result", "retry").count());
+        assertEquals(1.0, meterRegistry.counter("mail.outbox.delivered", "result", "dead").count());
+    }
+
+    @Test
+    void finalStatesDropTheStoredBody() throws Exception {
+        // Welcome mails carry a temporary password: neither a sent nor a dead message may keep it
+        for (String method : List.of("markSent", "markDead")) {
+            String jpql = Arrays.stream(MailOutboxRepository.class.getMethods())
+                    .filter(m -> m.getName().equals(method))
+                    .findFirst().orElseThrow()
+                    .getAnnotation(Query.class).value();
+            assertTrue(jpql.contains("m.htmlBody = NULL"), method + ": " + jpql);
+        }
+    }
+
+    @Test
+    void backoffGrowsExponentiallyUpToTheCap() {
+        dispatcher = dispatcher(false);
+        long first = dispatcher.backoffMillis(1);
+        long third = dispatcher.backoffMillis(3);
+        assertTrue(first >= 800 && first <= 1_200, "first retry ~1s, was " + first);
+        assertTrue(third >= 3_200 && third <= 4_800, "third retry ~4s, was " + third);
+        assertTrue(dispatcher.backoffMillis(40) <= 72_000, "capped at 60s +20% jitter");
+    }
+
+    private MailOutboxDispatcher dispatcher(boolean enabled) {
+        JavaMailSenderImpl mailSender = new JavaMailSenderImpl();
+        mailSender.setHost("127.0.0.1");
+        mailSender.setPort(smtp.getPort());
+        return new MailOutboxDispatcher(outboxService, outboxRepository, mailSender, meterRegistry,
+                "noreply@vitalfeed.tn", enabled, 4, 20, 50, 300, MAX_ATTEMPTS, 1_000, 60_000);
+    }
+
+    private static MailOutboxMessage message(long id, int attempts) {
+        MailOutboxMessage message = new MailOutboxMessage();
+        message.setId(id);
+        message.setRecipient("vet" + id + "@clinic.tn");
+        message.setCc("finance@vitalfeed.tn");
+        message.setSubject("Commande Confirmée – VITALFEED");
+        message.setHtmlBody("<html><body><p>Commande n°" + id + "</p></body></html>");
+        message.setAttempts(attempts);
+        message.setCreatedAt(LocalDateTime.now());
+        message.setNextAttemptAt(LocalDateTime.now());
+        return message;
+    }
+}
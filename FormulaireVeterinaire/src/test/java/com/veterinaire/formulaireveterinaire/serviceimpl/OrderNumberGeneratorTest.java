@@ -0,0 +1,101 @@
+package com.veterinaire.formulaireveterinaire.serviceimpl;
+
+import com.veterinaire.formulaireveterinaire.DAO.Cart.OrderNumberSequence;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Hi/lo order numbers: unique across threads and nodes sharing one sequence, with a working check letter.
+ */
+class OrderNumberGeneratorTest {
+
+    @Test
+    void formatsReadableCodesWithCheckLetter() {
+        String code = OrderNumberGenerator.format(2026, 123);
+
+        assertTrue(code.matches("ORD-2026-000123-[A-Z]"), code);
+        assertTrue(OrderNumberGenerator.isValid(code));
+        assertTrue(OrderNumberGenerator.format(2026, 12_345_678).matches("ORD-2026-12345678-[A-Z]"));
+        assertFalse(OrderNumberGenerator.isValid("ORD-1A2B3C4D"));
+        assertFalse(OrderNumberGenerator.isValid(null));
+    }
+
+    @Test
+    void checkLetterCatchesTyposAndSwaps() {
+        String code = OrderNumberGenerator.format(2026, 480_517);
+        char[] chars = code.toCharArray();
+        for (int i = 4; i < chars.length - 2; i++) {
+            if (chars[i] == '-') {
+                continue;
+            }
+            char original = chars[i];
+            for (char d = '0'; d <= '9'; d++) {
+                if (d != original) {
+                    chars[i] = d;
+                    assertFalse(OrderNumberGenerator.isValid(new String(chars)), new String(chars));
+                }
+            }
+            chars[i] = original;
+        }
+
+        // 2026-480517 -> 2026-408517
+        assertFalse(OrderNumberGenerator.isValid(code.substring(0, 10) + "08" + code.substring(12)));
+    }
+
+    @Test
+    void noDuplicatesAcrossThreadsAndNodes() throws Exception {
+        int nodes = 3, threadsPerNode = 4, perThread = 2_000, blockSize = 50;
+        AtomicLong hi = new AtomicLong();
+        AtomicInteger sequenceCalls = new AtomicInteger();
+        OrderNumberSequence sharedSequence = new OrderNumberSequence(null) {
+            @Override
+            public long nextHi() {
+                sequenceCalls.incrementAndGet();
+                return hi.incrementAndGet();
+            }
+        };
+
+        ExecutorService pool = Executors.newFixedThreadPool(nodes * threadsPerNode);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<List<String>>> results = new ArrayList<>();
+        try {
+            for (int n = 0; n < nodes; n++) {
+                // One generator per simulated node, all on the same sequence
+                OrderNumberGenerator node = new OrderNumberGenerator(sharedSequence, blockSize);
+                for (int t = 0; t < threadsPerNode; t++) {
+                    results.add(pool.submit(() -> {
+                        start.await();
+                        List<String> codes = new ArrayList<>(perThread);
+                        for (int i = 0; i < perThread; i++) {
+                            codes.add(node.next());
+                        }
+                        return codes;
+                    }));
+                }
+            }
+            start.countDown();
+
+            Set<String> seen = ConcurrentHashMap.newKeySet();
+            for (Future<List<String>> result : results) {
+                for (String code : result.get(30, TimeUnit.SECONDS)) {
+                    assertTrue(seen.add(code), "duplicate " + code);
+                    assertTrue(OrderNumberGenerator.isValid(code), code);
+                }
+            }
+            int total = nodes * threadsPerNode * perThread;
+            assertEquals(total, seen.size());
+            // One sequence round trip per block, plus at most one partly used block per node
+            assertTrue(sequenceCalls.get() <= total / blockSize + nodes, "calls: " + sequenceCalls.get());
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+}
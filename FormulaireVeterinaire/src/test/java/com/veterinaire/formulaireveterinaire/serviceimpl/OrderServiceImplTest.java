@@ -0,0 +1,195 @@
+package com.veterinaire.formulaireveterinaire.serviceimpl;
+
+import com.veterinaire.formulaireveterinaire.Config.AuthenticatedUser;
+import com.veterinaire.formulaireveterinaire.DAO.Cart.OrderItemRepository;
+import com.veterinaire.formulaireveterinaire.DAO.Cart.OrderQueryRepository;
+import com.veterinaire.formulaireveterinaire.DAO.Cart.OrderTransitionRepository;
+import com.veterinaire.formulaireveterinaire.DTO.Order.*;
+import com.veterinaire.formulaireveterinaire.Enums.OrderStatus;
+import com.veterinaire.formulaireveterinaire.Enums.SubscriptionStatus;
+import com.veterinaire.formulaireveterinaire.controller.GlobalExceptionHandler;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * Keyset paging of confirmed orders with their lines fetched in one query, and bulk board transitions.
+ */
+class OrderServiceImplTest {
+
+    private static final Long USER_ID = 7L;
+    private static final LocalDateTime NOON = LocalDateTime.of(2026, 4, 1, 12, 0, 0, 123_456_000);
+
+    private OrderQueryRepository orderQueryRepo;
+    private OrderItemRepository itemRepo;
+    private OrderTransitionRepository transitionRepo;
+    private OrderServiceImpl orderService;
+    private AuthenticatedUser user;
+
+    @BeforeEach
+    void setUp() {
+        orderQueryRepo = mock(OrderQueryRepository.class);
+        itemRepo = mock(OrderItemRepository.class);
+        transitionRepo = mock(OrderTransitionRepository.class);
+        orderService = new OrderServiceImpl(orderQueryRepo, itemRepo, transitionRepo);
+        user = new AuthenticatedUser(USER_ID, "vet@clinic.tn", "Ben Salah", false, SubscriptionStatus.ACTIVE, null);
+    }
+
+    @Test
+    void historyPageEmbedsLinesFromOneQueryAndReturnsCursor() {
+        when(orderQueryRepo.findPage(any())).thenReturn(orders(11));
+        when(itemRepo.findOrderLines(anyCollection())).thenAnswer(inv -> {
+            List<OrderLineDTO> lines = new ArrayList<>();
+            for (Long orderId : inv.<Collection<Long>>getArgument(0)) {
+                lines.add(new OrderLineDTO(orderId, orderId * 10, 1L, "Croquettes", null, 2, new BigDecimal("9.50")));
+                lines.add(new OrderLineDTO(orderId, orderId * 10 + 1, 2L, null, null, 1, new BigDecimal("3.00")));
+            }
+            return lines;
+        });
+
+        OrderPageResponse page = orderService.getOrderHistory(user, null, null, null, null, 10);
+
+        ArgumentCaptor<OrderSearchCriteria> criteria = ArgumentCaptor.forClass(OrderSearchCriteria.class);
+        verify(orderQueryRepo).findPage(criteria.capture());
+        assertEquals(USER_ID, criteria.getValue().userId());
+        assertEquals(11, criteria.getValue().limit());
+        assertFalse(criteria.getValue().statuses().contains(OrderStatus.CART));
+        verify(itemRepo, times(1)).findOrderLines(anyCollection());
+
+        assertEquals(10, page.getOrders().size());
+        assertTrue(page.getOrders().stream().allMatch(o -> o.getItems().size() == 2));
+        assertEquals(new BigDecimal("19.00"), page.getOrders().get(0).getItems().get(0).getSubTotal());
+
+        OrderDTO last = page.getOrders().get(9);
+        OrderCursor cursor = OrderCursor.decode(page.getNextCursor());
+        assertEquals(last.getConfirmedAt(), cursor.confirmedAt());
+        assertEquals(last.getId(), cursor.id());
+    }
+
+    @Test
+    void lastPageHasNoCursorAndPassesTheKeysetAndFilters() {
+        String cursor = new OrderCursor(NOON, 42L).encode();
+        when(orderQueryRepo.findPage(any())).thenReturn(orders(3));
+        when(itemRepo.findOrderLines(anyCollection())).thenReturn(List.of());
+
+        OrderPageResponse page = orderService.getOrderBoard(USER_ID, Set.of(OrderStatus.SHIPPED),
+                NOON.minusDays(30), NOON, cursor, 500);
+
+        ArgumentCaptor<OrderSearchCriteria> criteria = ArgumentCaptor.forClass(OrderSearchCriteria.class);
+        verify(orderQueryRepo).findPage(criteria.capture());
+        assertEquals(new OrderCursor(NOON, 42L), criteria.getValue().after());
+        assertEquals(Set.of(OrderStatus.SHIPPED), criteria.getValue().statuses());
+        assertEquals(OrderServiceImpl.MAX_PAGE_SIZE + 1, criteria.getValue().limit());
+        assertNull(page.getNextCursor());
+        assertEquals(3, page.getOrders().size());
+    }
+
+    @Test
+    void rejectsCartStatusAndBadCursor() {
+        assertThrows(IllegalArgumentException.class,
+                () -> orderService.getOrderHistory(user, Set.of(OrderStatus.CART), null, null, null, null));
+        assertThrows(IllegalArgumentException.class,
+                () -> orderService.getOrderHistory(user, null, null, null, "not-a-cursor", null));
+        verifyNoInteractions(orderQueryRepo, itemRepo);
+    }
+
+    @Test
+    void bulkTransitionUpdatesInOneStatementAndExplainsRejections() {
+        AuthenticatedUser admin = new AuthenticatedUser(1L, "admin@vitalfeed.tn", "Admin", true, null, null);
+        OrderTransitionRequest req = new OrderTransitionRequest();
+        req.setOrderIds(List.of(10L, 11L, 12L, 10L, 13L));
+        req.setTargetStatus(OrderStatus.SHIPPED);
+        when(transitionRepo.advance(List.of(10L, 11L, 12L, 13L), OrderStatus.PROCESSING, OrderStatus.SHIPPED))
+                .thenReturn(List.of(10L, 12L));
+        when(transitionRepo.findStatuses(List.of(11L, 13L))).thenReturn(Map.of(11L, OrderStatus.CONFIRMED));
+
+        OrderTransitionResponse response = orderService.transitionOrders(admin, req);
+
+        assertEquals(List.of(10L, 12L), response.updated());
+        assertEquals(List.of(
+                new OrderTransitionResponse.Rejected(11L, "Transition CONFIRMED -> SHIPPED non autorisée"),
+                new OrderTransitionResponse.Rejected(13L, "Commande introuvable")), response.rejected());
+        verify(transitionRepo).appendHistory(eq(List.of(10L, 12L)), eq(OrderStatus.PROCESSING),
+                eq(OrderStatus.SHIPPED), any(LocalDateTime.class), eq(1L));
+    }
+
+    @Test
+    void batchOfOnlyIllegalMovesConflicts() {
+        AuthenticatedUser admin = new AuthenticatedUser(1L, "admin@vitalfeed.tn", "Admin", true, null, null);
+        OrderTransitionRequest req = new OrderTransitionRequest();
+        req.setOrderIds(List.of(20L, 21L));
+        req.setTargetStatus(OrderStatus.DELIVERED);
+        when(transitionRepo.advance(List.of(20L, 21L), OrderStatus.SHIPPED, OrderStatus.DELIVERED)).thenReturn(List.of());
+        when(transitionRepo.findStatuses(List.of(20L, 21L)))
+                .thenReturn(Map.of(20L, OrderStatus.CONFIRMED, 21L, OrderStatus.DELIVERED));
+
+        OrderServiceImpl.IllegalTransitionException ex = assertThrows(OrderServiceImpl.IllegalTransitionException.class,
+                () -> orderService.transitionOrders(admin, req));
+
+        assertEquals(List.of(
+                new OrderTransitionResponse.Rejected(20L, "Transition CONFIRMED -> DELIVERED non autorisée"),
+                new OrderTransitionResponse.Rejected(21L, "Transition DELIVERED -> DELIVERED non autorisée")),
+                ex.getResponse().rejected());
+        ResponseEntity<OrderTransitionResponse> response = new GlobalExceptionHandler().handleIllegalTransition(ex);
+        assertEquals(HttpStatus.CONFLICT, response.getStatusCode());
+        assertSame(ex.getResponse(), response.getBody());
+    }
+
+    @Test
+    void orderThatReachedTheRequiredStatusMeanwhileIsNotAnIllegalMove() {
+        AuthenticatedUser admin = new AuthenticatedUser(1L, "admin@vitalfeed.tn", "Admin", true, null, null);
+        OrderTransitionRequest req = new OrderTransitionRequest();
+        req.setOrderIds(List.of(30L));
+        req.setTargetStatus(OrderStatus.PROCESSING);
+        when(transitionRepo.advance(List.of(30L), OrderStatus.CONFIRMED, OrderStatus.PROCESSING)).thenReturn(List.of());
+        when(transitionRepo.findStatuses(List.of(30L))).thenReturn(Map.of(30L, OrderStatus.CONFIRMED));
+
+        OrderTransitionResponse response = orderService.transitionOrders(admin, req);
+
+        assertTrue(response.updated().isEmpty());
+        assertEquals(List.of(new OrderTransitionResponse.Rejected(30L, "Commande modifiée entre-temps, veuillez réessayer")),
+                response.rejected());
+    }
+
+    @Test
+    void rejectsTargetsWithoutIncomingTransition() {
+        OrderTransitionRequest req = new OrderTransitionRequest();
+        req.setOrderIds(List.of(1L));
+        req.setTargetStatus(OrderStatus.CONFIRMED);
+
+        assertThrows(IllegalArgumentException.class, () -> orderService.transitionOrders(user, req));
+        verify(transitionRepo, never()).advance(anyList(), any(), any());
+    }
+
+    private static List<OrderDTO> orders(int count) {
+        List<OrderDTO> orders = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            OrderDTO order = new OrderDTO();
+            order.setId(100L - i);
+            order.setOrderNumber("ORD-" + i);
+            order.setStatus(OrderStatus.CONFIRMED);
+            order.setUserId(USER_ID);
+            order.setTotalAmount(new BigDecimal("22.00"));
+            order.setConfirmedAt(NOON.minusHours(i));
+            orders.add(order);
+        }
+        return orders;
+    }
+}
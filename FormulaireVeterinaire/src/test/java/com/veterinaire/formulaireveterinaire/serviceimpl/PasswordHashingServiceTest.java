@@ -0,0 +1,120 @@
+package com.veterinaire.formulaireveterinaire.serviceimpl;
+
+import com.veterinaire.formulaireveterinaire.Config.JwtUtil;
+import com.veterinaire.formulaireveterinaire.DAO.UserRepository;
+import com.veterinaire.formulaireveterinaire.DTO.AuthPrincipalDTO;
+import com.veterinaire.formulaireveterinaire.DTO.LoginDTO;
+import com.veterinaire.formulaireveterinaire.Enums.SubscriptionStatus;
+import com.veterinaire.formulaireveterinaire.controller.AuthController;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * The bounded hashing pool: a full queue or a slow hash fails fast and login answers 503.
+ */
+class PasswordHashingServiceTest {
+
+    private final CountDownLatch hashing = new CountDownLatch(1);
+    private final CountDownLatch release = new CountDownLatch(1);
+    private PasswordEncoder slowEncoder;
+    private MeterRegistry meterRegistry;
+    private ExecutorService callers;
+    private PasswordHashingService service;
+
+    @BeforeEach
+    void setUp() {
+        slowEncoder = mock(PasswordEncoder.class);
+        when(slowEncoder.encode(anyString())).thenReturn("$2a$10$dummy");
+        when(slowEncoder.matches(any(), any())).thenAnswer(inv -> {
+            hashing.countDown();
+            return release.await(10, TimeUnit.SECONDS);
+        });
+        meterRegistry = new SimpleMeterRegistry();
+        callers = Executors.newFixedThreadPool(2);
+    }
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        callers.shutdownNow();
+        if (service != null) {
+            service.shutdown();
+        }
+    }
+
+    @Test
+    void fullQueueFailsFastAndLoginAnswers503() throws Exception {
+        // One thread busy, one call queued: the third has nowhere to go
+        service = new PasswordHashingService(slowEncoder, meterRegistry, 10, 1, 1, 10_000);
+        Future<Boolean> running = callers.submit(() -> service.matches("a", "hash"));
+        assertTrue(hashing.await(5, TimeUnit.SECONDS));
+        Future<Boolean> queued = callers.submit(() -> service.matches("b", "hash"));
+        awaitQueued(1);
+
+        long started = System.nanoTime();
+        assertThrows(PasswordHashingService.SaturatedException.class, () -> service.matches("c", "hash"));
+        assertTrue(System.nanoTime() - started < TimeUnit.SECONDS.toNanos(1), "rejection should not wait");
+
+        UserRepository userRepository = mock(UserRepository.class);
+        when(userRepository.findAuthPrincipalByEmail("vet@clinic.tn")).thenReturn(Optional.of(
+                new AuthPrincipalDTO(7L, "vet@clinic.tn", "Ben Salah", "hash", false, SubscriptionStatus.ACTIVE, 0, null)));
+        AuthController controller = new AuthController(new AuthServiceImpl(mock(JwtUtil.class), userRepository,
+                service, mock(TokenEpochRegistry.class)));
+        MockHttpServletResponse servletResponse = new MockHttpServletResponse();
+
+        ResponseEntity<Map<String, Object>> response =
+                controller.login(new LoginDTO("vet@clinic.tn", "secret"), servletResponse);
+
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, response.getStatusCode());
+        assertEquals("1", response.getHeaders().getFirst(HttpHeaders.RETRY_AFTER));
+        assertNull(servletResponse.getHeader(HttpHeaders.SET_COOKIE));
+        assertEquals(2.0, meterRegistry.get("login.password.hash.rejected").counter().count());
+
+        release.countDown();
+        assertTrue(running.get(5, TimeUnit.SECONDS));
+        assertTrue(queued.get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void hashSlowerThanTheTimeoutIsRejected() throws Exception {
+        service = new PasswordHashingService(slowEncoder, meterRegistry, 10, 1, 8, 100);
+
+        assertThrows(PasswordHashingService.SaturatedException.class, () -> service.matches("a", "hash"));
+        assertEquals(1.0, meterRegistry.get("login.password.hash.rejected").counter().count());
+    }
+
+    @Test
+    void onlyHashesWithAnotherCostNeedARehash() {
+        service = new PasswordHashingService(new BCryptPasswordEncoder(4), meterRegistry, 4, 1, 8, 5000);
+
+        assertFalse(service.needsRehash(new BCryptPasswordEncoder(4).encode("secret")));
+        assertTrue(service.needsRehash(new BCryptPasswordEncoder(5).encode("secret")));
+        assertFalse(service.needsRehash(null));
+        assertFalse(service.needsRehash("plain-text"));
+    }
+
+    private void awaitQueued(int count) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (meterRegistry.get("login.password.hash.queue").gauge().value() < count) {
+            assertTrue(System.nanoTime() < deadline, "call not queued");
+            Thread.sleep(5);
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package com.veterinaire.formulaireveterinaire.serviceimpl;
+
+import com.veterinaire.formulaireveterinaire.DAO.ProductRepository;
+import com.veterinaire.formulaireveterinaire.Enums.ImageStatus;
+import com.veterinaire.formulaireveterinaire.entity.Product;
+import com.veterinaire.formulaireveterinaire.support.FixtureHttpServer;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Scrapes fixture pages from a local HTTP server in the background.
+ */
+class ProductImageEnrichmentServiceTest {
+
+    private static final String PAGE = "<html><body><figure><img src='/files/live/sites/virbac-tn/files/p%d.png'>"
+            + "</figure><img src='/logo.png'></body></html>";
+
+    private FixtureHttpServer http;
+    private ProductRepository productRepository;
+    private CatalogCache catalogCache;
+    private ProductSearchIndex searchIndex;
+    private MeterRegistry meterRegistry;
+    private ProductImageEnrichmentService enrichment;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        http = new FixtureHttpServer();
+        productRepository = mock(ProductRepository.class);
+        catalogCache = mock(CatalogCache.class);
+        searchIndex = mock(ProductSearchIndex.class);
+        meterRegistry = new SimpleMeterRegistry();
+        when(productRepository.completeImage(anyLong(), anyString(), any())).thenReturn(1);
+        when(productRepository.findById(anyLong())).thenAnswer(inv -> Optional.of(new Product()));
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (enrichment != null) {
+            enrichment.shutdown();
+        }
+        http.close();
+    }
+
+    @Test
+    void storesTheScrapedImageAndRefreshesReaders() {
+        http.page("/p/1", PAGE.formatted(1));
+        enrichment = service(4, 2, 3);
+
+        enrichment.enqueue(1L, http.url("/p/1"));
+
+        verify(productRepository, timeout(5000)).completeImage(1L,
+                http.url("/files/live/sites/virbac-tn/files/p1.png"), ImageStatus.READY);
+        verify(catalogCache, timeout(5000)).invalidate();
+        verify(searchIndex, timeout(5000)).index(any(Product.class));
+    }
+
+    @Test
+    void retriesServerErrorsAndGivesUpOnNotFound() {
+        http.page("/p/1", PAGE.formatted(1)).failNext("/p/1", 2, 503);
+        enrichment = service(2, 2, 4);
+
+        enrichment.enqueue(1L, http.url("/p/1"));
+        enrichment.enqueue(2L, http.url("/missing"));
+
+        verify(productRepository, timeout(5000)).completeImage(eq(1L), endsWith("/p1.png"), eq(ImageStatus.READY));
+        verify(productRepository, timeout(5000)).completeImage(2L,
+                ProductImageEnrichmentService.ERROR_PLACEHOLDER_URL, ImageStatus.FAILED);
+        assertEquals(3, http.hits("/p/1"));
+        assertEquals(1, http.hits("/missing"));
+        assertEquals(2.0, meterRegistry.get("product.image.enrichment").tag("result", "retry").counter().count());
+    }
+
+    @Test
+    void marksFailedOnceAttemptsAreUsedUp() {
+        http.page("/p/1", PAGE.formatted(1)).failNext("/p/1", 10, 500);
+        enrichment = service(2, 2, 3);
+
+        enrichment.enqueue(1L, http.url("/p/1"));
+
+        verify(productRepository, timeout(5000)).completeImage(1L,
+                ProductImageEnrichmentService.ERROR_PLACEHOLDER_URL, ImageStatus.FAILED);
+        assertEquals(3, http.hits("/p/1"));
+    }
+
+    @Test
+    void keepsConcurrentRequestsPerHostUnderTheLimit() {
+        http.delay(50);
+        for (int i = 1; i <= 12; i++) {
+            http.page("/p/" + i, PAGE.formatted(i));
+        }
+        enrichment = service(6, 2, 3);
+
+        for (long i = 1; i <= 12; i++) {
+            enrichment.enqueue(i, http.url("/p/" + i));
+        }
+
+        verify(productRepository, timeout(10000).times(12)).completeImage(anyLong(), anyString(), eq(ImageStatus.READY));
+        assertTrue(http.getMaxConcurrentRequests() <= 2, "max " + http.getMaxConcurrentRequests());
+    }
+
+    @Test
+    void resumesPendingProductsAtStartup() {
+        http.page("/p/5", PAGE.formatted(5));
+        Product pending = new Product();
+        pending.setId(5L);
+        pending.setDetailsUrl(http.url("/p/5"));
+        when(productRepository.findByImageStatus(ImageStatus.PENDING)).thenReturn(List.of(pending));
+        enrichment = service(2, 2, 3);
+
+        enrichment.resumePending();
+
+        verify(productRepository, timeout(5000)).completeImage(eq(5L), endsWith("/p5.png"), eq(ImageStatus.READY));
+    }
+
+    private ProductImageEnrichmentService service(int threads, int perHost, int maxAttempts) {
+        return new ProductImageEnrichmentService(productRepository, new ProductImageScraper(2000), catalogCache,
+                searchIndex, meterRegistry, threads, perHost, 100, maxAttempts, 20, 100);
+    }
+}
@@ -0,0 +1,253 @@
+package com.veterinaire.formulaireveterinaire.serviceimpl;
+
+import com.veterinaire.formulaireveterinaire.DAO.ProductPageValidatorRepository;
+import com.veterinaire.formulaireveterinaire.DAO.ProductRepository;
+import com.veterinaire.formulaireveterinaire.DTO.Product.RescrapeJob;
+import com.veterinaire.formulaireveterinaire.DTO.Product.RescrapeReport;
+import com.veterinaire.formulaireveterinaire.Enums.ImageStatus;
+import com.veterinaire.formulaireveterinaire.Enums.RescrapeState;
+import com.veterinaire.formulaireveterinaire.controller.GlobalExceptionHandler;
+import com.veterinaire.formulaireveterinaire.entity.Product;
+import com.veterinaire.formulaireveterinaire.entity.ProductPageValidator;
+import com.veterinaire.formulaireveterinaire.support.FixtureHttpServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+
+import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Re-scrapes a fixture catalog served by a local HTTP server, twice, the second run with the
+ * validators the first one stored. Runs go on in the background on the enrichment workers.
+ */
+class ProductImageRescrapeServiceTest {
+
+    private static final String PAGE = "<html><body><div class='teaser'><img src='/logo.jpg'></div>"
+            + "<figure><img src='/files/live/sites/virbac-tn/files/p%d.png'></figure></body></html>";
+
+    private FixtureHttpServer http;
+    private ProductRepository productRepository;
+    private ProductPageValidatorRepository validatorRepository;
+    private CatalogCache catalogCache;
+    private ProductImageEnrichmentService enrichment;
+    private ProductImageRescrapeService rescrape;
+    private final Map<Long, ProductPageValidator> stored = new HashMap<>();
+    private final List<Product> catalog = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() throws Exception {
+        http = new FixtureHttpServer();
+        productRepository = mock(ProductRepository.class);
+        validatorRepository = mock(ProductPageValidatorRepository.class);
+        catalogCache = mock(CatalogCache.class);
+        // Detached copies, as a query would return: later changes to the catalog do not reach a running scrape
+        when(productRepository.findByDetailsUrlIsNotNull()).thenAnswer(inv -> catalog.stream()
+                .map(p -> product(p.getId(), p.getDetailsUrl(), p.getImageUrl())).toList());
+        when(validatorRepository.findAllByProductId()).thenAnswer(inv -> new HashMap<>(stored));
+        doAnswer(inv -> {
+            for (ProductPageValidator v : inv.<Collection<ProductPageValidator>>getArgument(0)) {
+                stored.put(v.getProductId(), v);
+            }
+            return null;
+        }).when(validatorRepository).saveAll(anyCollection());
+        // Written back to the catalog only if the image is still the one read, like the real compare-and-set
+        when(productRepository.updateImageIfUnchanged(anyLong(), any(), anyString())).thenAnswer(inv -> {
+            for (Product p : catalog) {
+                if (p.getId().equals(inv.getArgument(0)) && Objects.equals(p.getImageUrl(), inv.getArgument(1))) {
+                    p.setImageUrl(inv.getArgument(2));
+                    return 1;
+                }
+            }
+            return 0;
+        });
+        ProductImageScraper scraper = new ProductImageScraper(2000);
+        enrichment = new ProductImageEnrichmentService(productRepository, scraper, catalogCache,
+                mock(ProductSearchIndex.class), new SimpleMeterRegistry(), 6, 2, 500, 4, 2000, 60000);
+        rescrape = new ProductImageRescrapeService(productRepository, validatorRepository, scraper, catalogCache,
+                mock(ProductSearchIndex.class), new SimpleMeterRegistry(), enrichment, 2);
+    }
+
+    @AfterEach
+    void tearDown() {
+        enrichment.shutdown();
+        http.close();
+    }
+
+    @Test
+    void updatesImagesThenSkipsUnchangedPagesWithConditionalGets() throws Exception {
+        for (long id = 1; id <= 20; id++) {
+            http.page("/p/" + id, PAGE.formatted(id));
+            catalog.add(product(id, http.url("/p/" + id), id <= 5 ? imageOf(id) : "https://old.example/x.png"));
+        }
+        http.page("/p/21", "<html><body><p>Plus disponible</p></body></html>");
+        catalog.add(product(21L, http.url("/p/21"), "https://old.example/21.png"));
+        catalog.add(product(22L, http.url("/gone"), "https://old.example/22.png"));
+
+        RescrapeReport first = rescrapeAll();
+
+        assertEquals(22, first.products());
+        assertEquals(15, first.updated());
+        assertEquals(5, first.unchanged());
+        assertEquals(0, first.notModified());
+        assertEquals(2, first.failed());
+        assertTrue(first.selectorCacheHits() > 0, "later pages use the host's selector");
+        assertTrue(first.pagesPerSecond() > 0);
+        assertEquals(0, first.skipped());
+        verify(productRepository).updateImageIfUnchanged(6L, "https://old.example/x.png", imageOf(6));
+        verify(productRepository, never()).updateImageIfUnchanged(eq(1L), any(), anyString());
+        verify(productRepository, never()).updateImageIfUnchanged(eq(21L), any(), anyString());
+        verify(catalogCache, times(1)).invalidate();
+        assertEquals(20, stored.size());
+        assertEquals("https://old.example/21.png", catalog.get(20).getImageUrl());
+        // 22 pages over pooled keep-alive connections
+        assertTrue(http.getConnectionCount() <= 4, "connections: " + http.getConnectionCount());
+
+        http.page("/p/3", PAGE.formatted(300));
+        RescrapeReport second = rescrapeAll();
+
+        assertEquals(19, second.notModified());
+        assertEquals(1, second.updated());
+        assertEquals(2, second.failed());
+        assertEquals(1, http.notModified("/p/1"));
+        assertEquals(imageOf(300), catalog.get(2).getImageUrl());
+    }
+
+    @Test
+    void keepsEachHostUnderItsLimit() throws Exception {
+        http.delay(40);
+        for (long id = 1; id <= 16; id++) {
+            http.page("/p/" + id, PAGE.formatted(id));
+            catalog.add(product(id, http.url("/p/" + id), "https://old.example/x.png"));
+        }
+
+        RescrapeReport report = rescrapeAll();
+
+        assertEquals(16, report.updated());
+        assertEquals(2, http.getMaxConcurrentRequests());
+    }
+
+    @Test
+    void sharesTheHostLimitWithEnrichment() throws Exception {
+        http.delay(40);
+        for (long id = 1; id <= 24; id++) {
+            http.page("/p/" + id, PAGE.formatted(id));
+        }
+        for (long id = 1; id <= 16; id++) {
+            catalog.add(product(id, http.url("/p/" + id), "https://old.example/x.png"));
+        }
+
+        RescrapeJob job = rescrape.start();
+        // New products of the same supplier created while the re-scrape runs
+        for (long id = 17; id <= 24; id++) {
+            enrichment.enqueue(id, http.url("/p/" + id));
+        }
+        rescrape.completion(job.id()).get(30, TimeUnit.SECONDS);
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+        for (long id = 17; id <= 24 && System.nanoTime() < deadline; id++) {
+            while (http.hits("/p/" + id) == 0 && System.nanoTime() < deadline) {
+                Thread.sleep(20);
+            }
+        }
+
+        for (long id = 17; id <= 24; id++) {
+            assertEquals(1, http.hits("/p/" + id), "enrichment of product " + id);
+        }
+        assertEquals(2, http.getMaxConcurrentRequests());
+    }
+
+    @Test
+    void imageChangedDuringTheRunIsNotOverwritten() throws Exception {
+        for (long id = 1; id <= 3; id++) {
+            http.page("/p/" + id, PAGE.formatted(id));
+            catalog.add(product(id, http.url("/p/" + id), "https://old.example/" + id + ".png"));
+        }
+        // An admin sets product 2's image by hand once the run has read the catalog
+        when(validatorRepository.findAllByProductId()).thenAnswer(inv -> {
+            catalog.get(1).setImageUrl("https://manual.example/2.png");
+            return new HashMap<>(stored);
+        });
+
+        RescrapeReport report = rescrapeAll();
+
+        assertEquals(2, report.updated());
+        assertEquals(1, report.skipped());
+        assertEquals("https://manual.example/2.png", catalog.get(1).getImageUrl());
+        assertEquals(imageOf(1), catalog.get(0).getImageUrl());
+        verify(productRepository).updateImageIfUnchanged(2L, "https://old.example/2.png", imageOf(2));
+    }
+
+    @Test
+    void runsInTheBackgroundOneAtATime() throws Exception {
+        http.delay(100);
+        for (long id = 1; id <= 4; id++) {
+            http.page("/p/" + id, PAGE.formatted(id));
+            catalog.add(product(id, http.url("/p/" + id), "https://old.example/x.png"));
+        }
+        List<String> readBy = new ArrayList<>();
+        when(validatorRepository.findAllByProductId()).thenAnswer(inv -> {
+            readBy.add(Thread.currentThread().getName());
+            return new HashMap<>(stored);
+        });
+
+        RescrapeJob started = rescrape.start();
+
+        assertEquals(RescrapeState.RUNNING, started.state());
+        ProductImageRescrapeService.AlreadyRunningException rejected = assertThrows(
+                ProductImageRescrapeService.AlreadyRunningException.class, rescrape::start);
+        assertEquals(started.id(), rejected.getJob().id());
+        assertEquals(HttpStatus.CONFLICT, new GlobalExceptionHandler().handleRescrapeRunning(rejected).getStatusCode());
+
+        RescrapeReport report = rescrape.completion(started.id()).get(30, TimeUnit.SECONDS);
+        RescrapeJob done = rescrape.status(started.id()).orElseThrow();
+        assertEquals(RescrapeState.COMPLETED, done.state());
+        assertEquals(report, done.report());
+        assertNotNull(done.finishedAt());
+        assertTrue(readBy.get(0).startsWith("image-enrichment-"), readBy.get(0));
+        assertTrue(rescrape.status("unknown").isEmpty());
+
+        // Finished: the next run is accepted
+        RescrapeJob next = rescrape.start();
+        assertNotEquals(started.id(), next.id());
+        rescrape.completion(next.id()).get(30, TimeUnit.SECONDS);
+        assertEquals(next.id(), rescrape.latest().orElseThrow().id());
+    }
+
+    @Test
+    void failedRunIsReportedAndReleasesTheLock() throws Exception {
+        when(productRepository.findByDetailsUrlIsNotNull()).thenThrow(new IllegalStateException("database down"));
+
+        RescrapeJob started = rescrape.start();
+
+        assertThrows(ExecutionException.class, () -> rescrape.completion(started.id()).get(30, TimeUnit.SECONDS));
+        RescrapeJob failed = rescrape.status(started.id()).orElseThrow();
+        assertEquals(RescrapeState.FAILED, failed.state());
+        assertEquals("database down", failed.error());
+        assertNotNull(rescrape.start());
+    }
+
+    private RescrapeReport rescrapeAll() throws Exception {
+        return rescrape.completion(rescrape.start().id()).get(30, TimeUnit.SECONDS);
+    }
+
+    private String imageOf(long id) {
+        return http.url("/files/live/sites/virbac-tn/files/p" + id + ".png");
+    }
+
+    private static Product product(long id, String detailsUrl, String imageUrl) {
+        Product product = new Product();
+        product.setId(id);
+        product.setName("Produit " + id);
+        product.setDetailsUrl(detailsUrl);
+        product.setImageUrl(imageUrl);
+        product.setImageStatus(ImageStatus.READY);
+        return product;
+    }
+}
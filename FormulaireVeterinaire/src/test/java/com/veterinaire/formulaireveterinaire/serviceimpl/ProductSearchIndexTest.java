@@ -0,0 +1,175 @@
+package com.veterinaire.formulaireveterinaire.serviceimpl;
+
+import com.veterinaire.formulaireveterinaire.DAO.ProductRepository;
+import com.veterinaire.formulaireveterinaire.Enums.Category;
+import com.veterinaire.formulaireveterinaire.Enums.SubCategory;
+import com.veterinaire.formulaireveterinaire.entity.Product;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * French analysis, BM25 ranking, facets, incremental updates and database refreshes of the product search index.
+ */
+class ProductSearchIndexTest {
+
+    private ProductSearchIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new ProductSearchIndex(null);
+        index.rebuild(List.of(
+                product(1L, "Croquettes Chat Stérilisé", "Aliment complet pour chats stérilisés adultes.",
+                        Category.CHAT, SubCategory.ALIMENT, true),
+                product(2L, "Croquettes chaton", "Croissance du chaton, riche en protéines. Convient aux chattes stérilisées.",
+                        Category.CHAT, SubCategory.ALIMENT, false),
+                product(3L, "Croquettes chien adulte", "Pour chiens et chiennes adultes de toutes tailles.",
+                        Category.CHIEN, SubCategory.ALIMENT, true),
+                product(4L, "Complément articulaire", "Soutient les articulations du chat et du chien âgé.",
+                        Category.CHAT, SubCategory.COMPLEMENT, true)));
+    }
+
+    @Test
+    void analysisFoldsAccentsDropsStopwordsAndMergesForms() {
+        assertEquals(List.of("croquet", "chat", "sterilis"), FrenchAnalyzer.analyze("Croquettes pour CHATS stérilisées"));
+        assertEquals(List.of("chien", "animal", "oeuf", "5kg"), FrenchAnalyzer.analyze("l'aliment des chiennes, animaux; œufs 5kg")
+                .subList(1, 5));
+        assertEquals(FrenchAnalyzer.analyze("stérilisé"), FrenchAnalyzer.analyze("STERILISEES"));
+    }
+
+    @Test
+    void allTermsMustMatchAndNameMatchesRankFirst() {
+        ProductSearchIndex.Result result = index.search("croquettes chat sterilise", null, null, null, 10);
+
+        // 2 only mentions "chattes stérilisées" in its description
+        assertEquals(List.of(1L, 2L), ids(result));
+
+        ProductSearchIndex.Result chat = index.search("chat", null, null, null, 10);
+        // Name hit (x3) beats description-only hits
+        assertEquals(1L, ids(chat).get(0));
+        assertEquals(List.of(1L, 2L, 4L), ids(chat).stream().sorted().toList());
+        assertTrue(index.search("croquettes licorne", null, null, null, 10).hits().isEmpty());
+    }
+
+    @Test
+    void facetsCountTextMatchesWhileFiltersNarrowHits() {
+        ProductSearchIndex.Result result = index.search("croquettes", Category.CHAT, null, true, 10);
+
+        assertEquals(List.of(1L), ids(result));
+        assertEquals(1, result.total());
+        assertEquals(2, result.categories().get(Category.CHAT));
+        assertEquals(1, result.categories().get(Category.CHIEN));
+        assertEquals(3, result.subCategories().get(SubCategory.ALIMENT));
+        assertEquals(2, result.inStock().get(true));
+        assertEquals(1, result.inStock().get(false));
+
+        ProductSearchIndex.Result limited = index.search("croquettes", null, null, null, 2);
+        assertEquals(2, limited.hits().size());
+        assertEquals(3, limited.total());
+    }
+
+    @Test
+    void updatesAndDeletesApplyImmediately() {
+        index.index(product(3L, "Pâtée chien senior", "Pour chiens âgés.", Category.CHIEN, SubCategory.ALIMENT, true));
+        index.delete(1L);
+
+        assertEquals(List.of(2L), ids(index.search("croquettes chat", null, null, null, 10)));
+        assertEquals(List.of(3L), ids(index.search("patee", null, null, null, 10)));
+        assertTrue(index.search("croquettes chien", null, null, null, 10).hits().isEmpty());
+        assertEquals(3, index.size());
+    }
+
+    @Test
+    void compactionKeepsResultsIntact() {
+        List<Product> catalog = new ArrayList<>();
+        for (long id = 1; id <= 3000; id++) {
+            catalog.add(product(id, "Produit " + id, "Croquettes chat", Category.CHAT, SubCategory.ALIMENT, true));
+        }
+        index.rebuild(catalog);
+        for (long id = 1; id <= 2000; id++) {
+            index.index(product(id, "Produit " + id, "Croquettes chien", Category.CHIEN, SubCategory.ALIMENT, true));
+        }
+
+        assertEquals(1000, index.search("chat", null, null, null, 0).total());
+        assertEquals(2000, index.search("croquettes chien", null, null, null, 5).total());
+        assertEquals(3000, index.size());
+    }
+
+    @Test
+    void refreshRebuildsOnlyWhenTheDatabaseChanged() {
+        // Stands in for the products table, edited behind the index's back
+        List<Product> table = new ArrayList<>();
+        table.add(product(1L, "Croquettes chat", "Aliment complet.", Category.CHAT, SubCategory.ALIMENT, true));
+        table.add(product(2L, "Croquettes chien", "Aliment complet.", Category.CHIEN, SubCategory.ALIMENT, true));
+        ProductRepository repository = mock(ProductRepository.class);
+        when(repository.findAll()).thenAnswer(inv -> table.stream().map(ProductSearchIndexTest::copy).toList());
+        ProductSearchIndex shared = new ProductSearchIndex(repository);
+        shared.load();
+
+        assertFalse(shared.refresh());
+
+        // Written through this instance: indexed right away, and the next refresh has nothing to do
+        Product local = product(3L, "Pâtée chat", "Aliment humide.", Category.CHAT, SubCategory.ALIMENT, true);
+        local.setPrice(new BigDecimal("10.0"));
+        table.add(local);
+        shared.index(local);
+        assertFalse(shared.refresh());
+
+        // Written elsewhere: another instance, or an UPDATE run by hand
+        table.get(0).setName("Croquettes chat stérilisé");
+        table.remove(1);
+        assertTrue(shared.refresh());
+        assertEquals(List.of(1L), ids(shared.search("sterilise", null, null, null, 10)));
+        assertTrue(shared.search("chien", null, null, null, 10).hits().isEmpty());
+        assertEquals(2, shared.size());
+        assertFalse(shared.refresh());
+    }
+
+    @Test
+    void refreshYieldsToALocalWriteMadeWhileItReadTheCatalog() {
+        ProductRepository repository = mock(ProductRepository.class);
+        ProductSearchIndex shared = new ProductSearchIndex(repository);
+        Product before = product(1L, "Croquettes chat", "Aliment.", Category.CHAT, SubCategory.ALIMENT, true);
+        Product after = product(1L, "Pâtée chat", "Aliment.", Category.CHAT, SubCategory.ALIMENT, true);
+        when(repository.findAll()).thenAnswer(inv -> {
+            // The snapshot is read, then this instance saves a newer version before the refresh applies it
+            shared.index(after);
+            return List.of(before);
+        });
+
+        assertFalse(shared.refresh());
+
+        assertEquals(List.of(1L), ids(shared.search("patee", null, null, null, 10)));
+    }
+
+    private static Product copy(Product product) {
+        Product copy = product(product.getId(), product.getName(), product.getDescription(),
+                product.getCategory(), product.getSubCategory(), product.getInStock());
+        copy.setPrice(product.getPrice().setScale(2));
+        return copy;
+    }
+
+    private static List<Long> ids(ProductSearchIndex.Result result) {
+        return result.hits().stream().map(hit -> hit.product().getId()).toList();
+    }
+
+    private static Product product(Long id, String name, String description, Category category,
+                                   SubCategory subCategory, boolean inStock) {
+        Product product = new Product();
+        product.setId(id);
+        product.setName(name);
+        product.setDescription(description);
+        product.setPrice(new BigDecimal("10.00"));
+        product.setImageUrl("https://img.example/" + id + ".jpg");
+        product.setCategory(category);
+        product.setSubCategory(subCategory);
+        product.setInStock(inStock);
+        return product;
+    }
+}
@@ -0,0 +1,117 @@
+package com.veterinaire.formulaireveterinaire.serviceimpl;
+
+import com.veterinaire.formulaireveterinaire.DAO.ProductQueryRepository;
+import com.veterinaire.formulaireveterinaire.DTO.Product.ProductCursor;
+import com.veterinaire.formulaireveterinaire.DTO.Product.ProductPageResponse;
+import com.veterinaire.formulaireveterinaire.DTO.Product.ProductSearchCriteria;
+import com.veterinaire.formulaireveterinaire.Enums.Category;
+import com.veterinaire.formulaireveterinaire.Enums.ProductSort;
+import com.veterinaire.formulaireveterinaire.Enums.SubCategory;
+import com.veterinaire.formulaireveterinaire.entity.Product;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * Filter combination, page size bounds and cursors of the product listing.
+ */
+class ProductServiceImplTest {
+
+    private ProductQueryRepository productQueryRepository;
+    private ProductServiceImpl productService;
+
+    @BeforeEach
+    void setUp() {
+        productQueryRepository = mock(ProductQueryRepository.class);
+        productService = new ProductServiceImpl();
+        ReflectionTestUtils.setField(productService, "productQueryRepository", productQueryRepository);
+    }
+
+    @Test
+    void combinesFiltersAndReturnsCursorOfTheLastRow() {
+        when(productQueryRepository.findPage(any())).thenReturn(rows(4));
+
+        ProductPageResponse page = productService.searchProducts(Category.CHAT, SubCategory.ALIMENT, true,
+                new BigDecimal("10"), new BigDecimal("50"), "  Croq ", ProductSort.PRICE_DESC, null, 3);
+
+        ArgumentCaptor<ProductSearchCriteria> criteria = ArgumentCaptor.forClass(ProductSearchCriteria.class);
+        verify(productQueryRepository).findPage(criteria.capture());
+        assertEquals(new ProductSearchCriteria(Category.CHAT, SubCategory.ALIMENT, true,
+                new BigDecimal("10"), new BigDecimal("50"), "Croq", ProductSort.PRICE_DESC, null, 4), criteria.getValue());
+
+        assertEquals(3, page.getProducts().size());
+        ProductCursor cursor = ProductCursor.decode(page.getNextCursor(), ProductSort.PRICE_DESC);
+        assertEquals("12.50", cursor.key());
+        assertEquals(3L, cursor.id());
+    }
+
+    @Test
+    void nameCursorSurvivesSeparatorsAndFeedsTheNextQuery() {
+        String cursor = new ProductCursor(ProductSort.NAME, "a|b", 9L).encode();
+        when(productQueryRepository.findPage(any())).thenReturn(rows(2));
+
+        ProductPageResponse page = productService.searchProducts(null, null, null, null, null, null,
+                null, cursor, 500);
+
+        ArgumentCaptor<ProductSearchCriteria> criteria = ArgumentCaptor.forClass(ProductSearchCriteria.class);
+        verify(productQueryRepository).findPage(criteria.capture());
+        assertEquals(new ProductCursor(ProductSort.NAME, "a|b", 9L), criteria.getValue().after());
+        assertEquals(ProductServiceImpl.MAX_PAGE_SIZE + 1, criteria.getValue().limit());
+        assertNull(page.getNextCursor());
+    }
+
+    @Test
+    void nameCursorUsesTheKeyTheDatabaseSortedOn() {
+        // PostgreSQL's lower() may differ from Java's toLowerCase, e.g. for 'İ': the cursor keeps the database value
+        List<ProductQueryRepository.Row> rows = products(3).stream()
+                .map(p -> new ProductQueryRepository.Row(p, "db:" + p.getId())).toList();
+        rows.get(1).product().setName("İLAÇ");
+        when(productQueryRepository.findPage(any())).thenReturn(rows);
+
+        ProductPageResponse page = productService.searchProducts(null, null, null, null, null, null,
+                ProductSort.NAME, null, 2);
+
+        ProductCursor cursor = ProductCursor.decode(page.getNextCursor(), ProductSort.NAME);
+        assertEquals("db:2", cursor.key());
+        assertEquals(2L, cursor.id());
+        assertEquals("İLAÇ", page.getProducts().get(1).getName());
+    }
+
+    @Test
+    void rejectsInvertedPriceRangeAndForeignCursor() {
+        String nameCursor = new ProductCursor(ProductSort.NAME, "x", 1L).encode();
+
+        assertThrows(IllegalArgumentException.class, () -> productService.searchProducts(null, null, null,
+                new BigDecimal("5"), new BigDecimal("1"), null, null, null, null));
+        assertThrows(IllegalArgumentException.class, () -> productService.searchProducts(null, null, null,
+                null, null, null, ProductSort.PRICE_ASC, nameCursor, null));
+        assertThrows(IllegalArgumentException.class, () -> productService.searchProducts(null, null, null,
+                null, null, null, ProductSort.PRICE_ASC, new ProductCursor(ProductSort.PRICE_ASC, "abc", 1L).encode(), null));
+        verifyNoInteractions(productQueryRepository);
+    }
+
+    private static List<ProductQueryRepository.Row> rows(int count) {
+        return products(count).stream().map(p -> new ProductQueryRepository.Row(p, null)).toList();
+    }
+
+    private static List<Product> products(int count) {
+        List<Product> products = new ArrayList<>();
+        for (long i = 1; i <= count; i++) {
+            Product product = new Product();
+            product.setId(i);
+            product.setName("Croquettes " + i);
+            product.setPrice(new BigDecimal("20.00").subtract(new BigDecimal("2.50").multiply(BigDecimal.valueOf(i))));
+            products.add(product);
+        }
+        return products;
+    }
+}
@@ -0,0 +1,118 @@
+package com.veterinaire.formulaireveterinaire.serviceimpl;
+
+import com.veterinaire.formulaireveterinaire.serviceimpl.SmtpBatchSender.OutgoingMail;
+import com.veterinaire.formulaireveterinaire.support.FakeSmtpServer;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Sends reminder-sized batches to an in-process SMTP server.
+ */
+class SmtpBatchSenderTest {
+
+    private FakeSmtpServer smtp;
+    private JavaMailSenderImpl mailSender;
+    private MeterRegistry meterRegistry;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        smtp = new FakeSmtpServer();
+        mailSender = new JavaMailSenderImpl();
+        mailSender.setHost("127.0.0.1");
+        mailSender.setPort(smtp.getPort());
+        meterRegistry = new SimpleMeterRegistry();
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        smtp.close();
+    }
+
+    @Test
+    void reusesConnectionsUpToTheCap() {
+        SmtpBatchSender sender = new SmtpBatchSender(mailSender, meterRegistry, 2, 10, 0);
+
+        Set<Long> sent = sender.sendAll(batch(50));
+
+        assertEquals(50, sent.size());
+        assertEquals(50, smtp.getMessages().size());
+        // 50 messages at 10 per connection: 5 connections in total, however they are split between the 2 workers
+        assertTrue(smtp.getConnectionCount() >= 5 && smtp.getConnectionCount() <= 6,
+                "connections opened: " + smtp.getConnectionCount());
+        Set<String> recipients = smtp.getMessages().stream()
+                .flatMap(m -> m.recipients().stream())
+                .collect(Collectors.toSet());
+        assertTrue(recipients.contains("<vet1@example.com>"));
+        assertTrue(recipients.contains("<finance@example.com>"));
+        assertEquals(50.0, meterRegistry.get("mail.batch.messages").tag("result", "sent").counter().count());
+    }
+
+    @Test
+    void doesNotProbeTheConnectionBetweenMessages() {
+        SmtpBatchSender sender = new SmtpBatchSender(mailSender, meterRegistry, 1, 100, 0);
+
+        assertEquals(20, sender.sendAll(batch(20)).size());
+
+        assertEquals(1, smtp.getConnectionCount());
+        assertEquals(20, smtp.getCommandCount("DATA"));
+        assertEquals(0, smtp.getCommandCount("NOOP"));
+        assertEquals(0, smtp.getCommandCount("RSET"));
+    }
+
+    @Test
+    void reconnectsWhenTheServerDropsTheConnection() {
+        smtp.setMessagesPerConnection(3);
+        SmtpBatchSender sender = new SmtpBatchSender(mailSender, meterRegistry, 1, 100, 0);
+
+        Set<Long> sent = sender.sendAll(batch(10));
+
+        assertEquals(10, sent.size());
+        assertEquals(10, smtp.getMessages().size());
+        assertEquals(4, smtp.getConnectionCount());
+    }
+
+    @Test
+    void respectsThePerMinuteCeiling() {
+        // 1200/min = one message every 50 ms across all connections
+        SmtpBatchSender sender = new SmtpBatchSender(mailSender, meterRegistry, 3, 100, 1200);
+
+        long start = System.nanoTime();
+        Set<Long> sent = sender.sendAll(batch(10));
+        long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+
+        assertEquals(10, sent.size());
+        // The first message leaves immediately, the other 9 wait for their slot
+        assertTrue(elapsedMillis >= 9 * 50 - 20, "batch took " + elapsedMillis + " ms");
+    }
+
+    @Test
+    void rejectedMessagesAreNotReportedAsSent() {
+        smtp.setRecipientReply("550 5.1.1 Mailbox unavailable");
+        SmtpBatchSender sender = new SmtpBatchSender(mailSender, meterRegistry, 1, 100, 0);
+
+        Set<Long> sent = sender.sendAll(batch(3));
+
+        assertTrue(sent.isEmpty());
+        assertEquals(3.0, meterRegistry.get("mail.batch.messages").tag("result", "failed").counter().count());
+    }
+
+    static Map<Long, OutgoingMail> batch(int size) {
+        Map<Long, OutgoingMail> messages = new LinkedHashMap<>();
+        for (long id = 1; id <= size; id++) {
+            messages.put(id, new OutgoingMail("vet" + id + "@example.com", "finance@example.com",
+                    "noreply@example.com", "Rappel " + id, "<p>Votre abonnement expire bientôt.</p>"));
+        }
+        return messages;
+    }
+}
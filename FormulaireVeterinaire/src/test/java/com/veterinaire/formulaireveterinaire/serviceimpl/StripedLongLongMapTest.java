@@ -0,0 +1,55 @@
+package com.veterinaire.formulaireveterinaire.serviceimpl;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Random puts and removes checked against a HashMap, enough to grow the stripes and exercise
+ * backward-shift deletion across wrapped probe runs.
+ */
+class StripedLongLongMapTest {
+
+    @Test
+    void behavesLikeAHashMapUnderRandomOperations() {
+        StripedLongLongMap map = new StripedLongLongMap(4);
+        Map<Long, Long> reference = new HashMap<>();
+        Random random = new Random(42);
+
+        for (int i = 0; i < 200_000; i++) {
+            long key = random.nextInt(5_000);
+            if (random.nextInt(3) == 0) {
+                map.remove(key);
+                reference.remove(key);
+            } else {
+                long value = random.nextLong();
+                assertTrue(map.put(key, value, map.generation(key)));
+                reference.put(key, value);
+            }
+        }
+
+        assertEquals(reference.size(), map.size());
+        for (long key = 0; key < 5_000; key++) {
+            assertEquals(reference.getOrDefault(key, -1L), map.get(key, -1), "key " + key);
+        }
+    }
+
+    @Test
+    void putAfterARemovalInTheStripeIsRefused() {
+        StripedLongLongMap map = new StripedLongLongMap(1);
+        long generation = map.generation(Long.MIN_VALUE);
+
+        // Removing an absent key still invalidates loads started before
+        map.remove(Long.MIN_VALUE);
+
+        assertFalse(map.put(Long.MIN_VALUE, 3, generation));
+        assertEquals(-1, map.get(Long.MIN_VALUE, -1));
+        assertTrue(map.put(Long.MIN_VALUE, 3, map.generation(Long.MIN_VALUE)));
+        assertEquals(3, map.get(Long.MIN_VALUE, -1));
+        assertEquals(1, map.size());
+    }
+}
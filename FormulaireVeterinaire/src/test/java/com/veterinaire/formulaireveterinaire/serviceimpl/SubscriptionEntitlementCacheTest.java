@@ -0,0 +1,134 @@
+package com.veterinaire.formulaireveterinaire.serviceimpl;
+
+import com.veterinaire.formulaireveterinaire.DAO.SubscriptionRepository;
+import com.veterinaire.formulaireveterinaire.DAO.UserRepository;
+import com.veterinaire.formulaireveterinaire.DTO.AuthPrincipalDTO;
+import com.veterinaire.formulaireveterinaire.Enums.SubscriptionStatus;
+import com.veterinaire.formulaireveterinaire.Enums.SubscriptionType;
+import com.veterinaire.formulaireveterinaire.entity.Subscription;
+import com.veterinaire.formulaireveterinaire.entity.User;
+import com.veterinaire.formulaireveterinaire.serviceimpl.SubscriptionEntitlementCache.Entitlement;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+/**
+ * Entitlements served from memory until the TTL, an invalidation or an LRU eviction drops them.
+ */
+class SubscriptionEntitlementCacheTest {
+
+    private static final LocalDateTime END = LocalDateTime.of(2026, 12, 31, 0, 0);
+
+    private UserRepository userRepository;
+    // What the database currently says: email -> subscription end date
+    private final Map<String, LocalDateTime> subscriptionEnds = new HashMap<>();
+
+    @BeforeEach
+    void setUp() {
+        userRepository = mock(UserRepository.class);
+        when(userRepository.findAuthPrincipalByEmail(anyString())).thenAnswer(inv -> {
+            String email = inv.getArgument(0);
+            return Optional.of(new AuthPrincipalDTO(1L, email, "Ben Salah", "hash", false,
+                    SubscriptionStatus.ACTIVE, 0, subscriptionEnds.getOrDefault(email, END)));
+        });
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void servesFromMemoryUntilTheTtlExpires() throws Exception {
+        SubscriptionEntitlementCache cache = cache(1, 100);
+
+        Entitlement first = cache.get("vet@clinic.tn");
+        assertSame(first, cache.get("vet@clinic.tn"));
+        verify(userRepository, times(1)).findAuthPrincipalByEmail("vet@clinic.tn");
+
+        Thread.sleep(1100);
+
+        assertNotSame(first, cache.get("vet@clinic.tn"));
+        verify(userRepository, times(2)).findAuthPrincipalByEmail("vet@clinic.tn");
+    }
+
+    @Test
+    void fullCacheEvictsTheLeastRecentlyUsedUser() {
+        SubscriptionEntitlementCache cache = cache(300, 2);
+        Entitlement a = cache.get("a@clinic.tn");
+        Entitlement b = cache.get("b@clinic.tn");
+        cache.get("a@clinic.tn");
+
+        cache.get("c@clinic.tn");
+
+        assertEquals(2, cache.size());
+        assertSame(a, cache.get("a@clinic.tn"));
+        assertNotSame(b, cache.get("b@clinic.tn"));
+    }
+
+    @Test
+    void invalidationAgainAfterCommitDropsAValueReloadedMidTransaction() {
+        SubscriptionEntitlementCache cache = cache(300, 100);
+        cache.get("vet@clinic.tn");
+        TransactionSynchronizationManager.initSynchronization();
+
+        cache.invalidate("vet@clinic.tn");
+        // A concurrent request reloads before the commit and caches the old end date
+        Entitlement stale = cache.get("vet@clinic.tn");
+        subscriptionEnds.put("vet@clinic.tn", END.plusMonths(3));
+        TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+
+        Entitlement fresh = cache.get("vet@clinic.tn");
+        assertNotSame(stale, fresh);
+        assertEquals(subscriptionEnds.get("vet@clinic.tn").toLocalDate(),
+                fresh.principal().subscriptionEndDate().toLocalDate());
+    }
+
+    @Test
+    void subscriptionUpdateInvalidatesTheUsersEntry() {
+        SubscriptionEntitlementCache cache = cache(300, 100);
+        SubscriptionRepository subscriptionRepository = mock(SubscriptionRepository.class);
+        SubscriptionServiceImpl subscriptionService = new SubscriptionServiceImpl(userRepository, subscriptionRepository,
+                mock(MailOutboxService.class), new EmailTemplateEngine(), mock(FinanceDigestService.class),
+                cache, mock(TokenEpochRegistry.class));
+        ReflectionTestUtils.setField(subscriptionService, "financeEmail", "finance@vitalfeed.tn");
+
+        User user = new User();
+        user.setId(1L);
+        user.setEmail("vet@clinic.tn");
+        user.setNom("Ben Salah");
+        Subscription subscription = Subscription.builder().id(9L).user(user)
+                .subscriptionType(SubscriptionType.ONE_MONTH).startDate(END.minusMonths(1)).endDate(END).build();
+        when(subscriptionRepository.findById(9L)).thenReturn(Optional.of(subscription));
+        when(subscriptionRepository.save(any(Subscription.class))).thenAnswer(inv -> {
+            Subscription saved = inv.getArgument(0);
+            subscriptionEnds.put(saved.getUser().getEmail(), saved.getEndDate());
+            return saved;
+        });
+        assertEquals(END, cache.get("vet@clinic.tn").principal().subscriptionEndDate());
+
+        subscriptionService.updateSubscription(9L, SubscriptionType.SIX_MONTHS);
+
+        assertEquals(subscription.getEndDate(), cache.get("vet@clinic.tn").principal().subscriptionEndDate());
+        verify(userRepository, times(2)).findAuthPrincipalByEmail("vet@clinic.tn");
+    }
+
+    private SubscriptionEntitlementCache cache(long ttlSeconds, int maxSize) {
+        return new SubscriptionEntitlementCache(userRepository, new SimpleMeterRegistry(), ttlSeconds, maxSize);
+    }
+}
@@ -0,0 +1,181 @@
+package com.veterinaire.formulaireveterinaire.serviceimpl;
+
+import com.veterinaire.formulaireveterinaire.Config.AuthCookies;
+import com.veterinaire.formulaireveterinaire.Config.JwtAuthenticationFilter;
+import com.veterinaire.formulaireveterinaire.Config.JwtUtil;
+import com.veterinaire.formulaireveterinaire.Config.RoutePolicyConfig;
+import com.veterinaire.formulaireveterinaire.DAO.UserRepository;
+import com.veterinaire.formulaireveterinaire.DTO.AuthPrincipalDTO;
+import com.veterinaire.formulaireveterinaire.Enums.SubscriptionStatus;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.http.Cookie;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
+
+/**
+ * Bumping a user's epoch: tokens carrying an older epoch are rejected, re-issued ones pass, including when
+ * the bump races a load or happens on another instance.
+ */
+class TokenEpochRegistryTest {
+
+    private static final long USER_ID = 7L;
+
+    private UserRepository userRepository;
+    private TokenEpochRegistry registry;
+    // users.token_epoch for USER_ID
+    private final AtomicInteger storedEpoch = new AtomicInteger();
+
+    @BeforeEach
+    void setUp() {
+        userRepository = mock(UserRepository.class);
+        when(userRepository.findTokenEpochById(anyLong())).thenAnswer(inv -> Optional.of(storedEpoch.get()));
+        when(userRepository.incrementTokenEpoch(anyLong())).thenAnswer(inv -> {
+            storedEpoch.incrementAndGet();
+            return 1;
+        });
+        registry = new TokenEpochRegistry(userRepository, 300);
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void loadsOnceThenReloadsAfterABump() {
+        assertEquals(0, registry.current(USER_ID));
+        assertEquals(0, registry.current(USER_ID));
+        verify(userRepository, times(1)).findTokenEpochById(USER_ID);
+
+        registry.bump(USER_ID);
+
+        assertEquals(1, registry.current(USER_ID));
+        verify(userRepository, times(2)).findTokenEpochById(USER_ID);
+    }
+
+    @Test
+    void bumpedEpochRejectsOlderTokens() throws Exception {
+        JwtUtil jwtUtil = new JwtUtil();
+        ReflectionTestUtils.setField(jwtUtil, "secret", "0123456789abcdef0123456789abcdef0123456789abcdef");
+        ReflectionTestUtils.setField(jwtUtil, "claimsCacheMaxSize", 100);
+        ReflectionTestUtils.invokeMethod(jwtUtil, "init");
+        when(userRepository.findAuthPrincipalByEmail("vet@clinic.tn")).thenAnswer(inv -> Optional.of(
+                new AuthPrincipalDTO(USER_ID, "vet@clinic.tn", "Ben Salah", "hash", false,
+                        SubscriptionStatus.ACTIVE, storedEpoch.get(), LocalDateTime.now().plusMonths(1))));
+        JwtAuthenticationFilter filter = new JwtAuthenticationFilter(jwtUtil,
+                new SubscriptionEntitlementCache(userRepository, new SimpleMeterRegistry(), 300, 100),
+                registry, new RoutePolicyConfig().routePolicyRegistry());
+        String oldToken = jwtUtil.generateToken("vet@clinic.tn", false, 0);
+        assertEquals(200, request(filter, oldToken));
+
+        registry.bump(USER_ID);
+
+        assertEquals(401, request(filter, oldToken));
+        assertEquals(200, request(filter, jwtUtil.generateToken("vet@clinic.tn", false, 1)));
+    }
+
+    @Test
+    void valueReloadedBeforeTheCommitIsDroppedAfterIt() {
+        registry.current(USER_ID);
+        TransactionSynchronizationManager.initSynchronization();
+
+        registry.bump(USER_ID);
+        // A concurrent request reloads while the increment is not yet visible
+        storedEpoch.decrementAndGet();
+        assertEquals(0, registry.current(USER_ID));
+        storedEpoch.incrementAndGet();
+        TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+
+        assertEquals(1, registry.current(USER_ID));
+    }
+
+    @Test
+    void loadOverlappingABumpIsNotKept() {
+        // The bump commits and drops the entry while this load still holds the old value
+        when(userRepository.findTokenEpochById(USER_ID)).thenAnswer(inv -> {
+            int read = storedEpoch.get();
+            registry.bump(USER_ID);
+            return Optional.of(read);
+        }).thenAnswer(inv -> Optional.of(storedEpoch.get()));
+
+        assertEquals(0, registry.current(USER_ID));
+
+        assertEquals(1, registry.current(USER_ID));
+        assertEquals(1, registry.current(USER_ID));
+        verify(userRepository, times(2)).findTokenEpochById(USER_ID);
+    }
+
+    @Test
+    void concurrentLoadsAndBumpsEndOnTheStoredEpoch() throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<?>> tasks = new ArrayList<>();
+            for (int t = 0; t < 7; t++) {
+                tasks.add(pool.submit(() -> {
+                    for (int i = 0; i < 2_000; i++) {
+                        registry.current(USER_ID);
+                    }
+                }));
+            }
+            tasks.add(pool.submit(() -> {
+                for (int i = 0; i < 200; i++) {
+                    registry.bump(USER_ID);
+                    Thread.yield();
+                }
+            }));
+            for (Future<?> task : tasks) {
+                task.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+
+        assertEquals(200, registry.current(USER_ID));
+    }
+
+    @Test
+    void bumpOnAnotherInstanceIsSeenAfterTheTtl() throws Exception {
+        registry = new TokenEpochRegistry(userRepository, 1);
+        assertEquals(0, registry.current(USER_ID));
+
+        // Incremented in the database, this instance's entry is not dropped
+        storedEpoch.incrementAndGet();
+        assertEquals(0, registry.current(USER_ID));
+        Thread.sleep(1100);
+
+        assertEquals(1, registry.current(USER_ID));
+    }
+
+    private static int request(JwtAuthenticationFilter filter, String token) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/orders/history");
+        request.setCookies(new Cookie(AuthCookies.ACCESS_TOKEN, token));
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, (rq, rs) -> { });
+        SecurityContextHolder.clearContext();
+        return response.getStatus();
+    }
+}
@@ -0,0 +1,79 @@
+package com.veterinaire.formulaireveterinaire.serviceimpl;
+
+import com.veterinaire.formulaireveterinaire.DAO.OurVeterinaireRepository;
+import com.veterinaire.formulaireveterinaire.DAO.UserRepository;
+import com.veterinaire.formulaireveterinaire.Enums.SubscriptionStatus;
+import com.veterinaire.formulaireveterinaire.entity.OurVeterinaire;
+import com.veterinaire.formulaireveterinaire.entity.User;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Re-registering an existing matricule: new credentials revoke the tokens issued with the old ones.
+ */
+class UserServiceImplTest {
+
+    private UserRepository userRepository;
+    private MailOutboxService mailOutbox;
+    private TokenEpochRegistry tokenEpochRegistry;
+    private UserServiceImpl userService;
+    private User existing;
+
+    @BeforeEach
+    void setUp() {
+        userRepository = mock(UserRepository.class);
+        OurVeterinaireRepository ourVeterinaireRepository = mock(OurVeterinaireRepository.class);
+        PasswordEncoder passwordEncoder = mock(PasswordEncoder.class);
+        mailOutbox = mock(MailOutboxService.class);
+        tokenEpochRegistry = mock(TokenEpochRegistry.class);
+        userService = new UserServiceImpl(userRepository, ourVeterinaireRepository, passwordEncoder, mailOutbox,
+                new EmailTemplateEngine(), mock(SubscriptionEntitlementCache.class), tokenEpochRegistry);
+
+        existing = user("vet@clinic.tn");
+        existing.setId(12L);
+        existing.setPassword("old-hash");
+        when(ourVeterinaireRepository.findByMatricule("M-100")).thenReturn(Optional.of(new OurVeterinaire()));
+        when(userRepository.findByNumMatricule("M-100")).thenReturn(Optional.of(existing));
+        when(passwordEncoder.encode(anyString())).thenReturn("new-hash");
+    }
+
+    @Test
+    void regeneratedPasswordRevokesExistingTokens() {
+        existing.setStatus(SubscriptionStatus.ACTIVE);
+
+        userService.registerUser(user("new-address@clinic.tn"));
+
+        assertEquals("new-hash", existing.getPassword());
+        assertEquals(SubscriptionStatus.INACTIVE, existing.getStatus());
+        verify(tokenEpochRegistry).bump(12L);
+        verify(mailOutbox).enqueue(eq("new-address@clinic.tn"), isNull(), anyString(), anyString());
+    }
+
+    @Test
+    void activeUserWithSameEmailKeepsCredentialsAndTokens() {
+        existing.setStatus(SubscriptionStatus.ACTIVE);
+
+        userService.registerUser(user("VET@clinic.tn"));
+
+        assertEquals("old-hash", existing.getPassword());
+        verify(tokenEpochRegistry, never()).bump(anyLong());
+        verifyNoInteractions(mailOutbox);
+    }
+
+    private static User user(String email) {
+        User user = new User();
+        user.setNom("Ben Salah");
+        user.setPrenom("Sami");
+        user.setEmail(email);
+        user.setAdresseCabinet("Tunis");
+        user.setNumMatricule("M-100");
+        return user;
+    }
+}
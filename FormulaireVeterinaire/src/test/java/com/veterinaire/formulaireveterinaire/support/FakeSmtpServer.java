@@ -0,0 +1,198 @@
+package com.veterinaire.formulaireveterinaire.support;
+
+import jakarta.mail.Session;
+import jakarta.mail.internet.MimeMessage;
+
+import java.io.*;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Minimal in-process SMTP server for tests: accepts HELO/EHLO, MAIL, RCPT, DATA, RSET, NOOP and QUIT
+ * on a random local port and keeps every received message in memory. Connection and per-command
+ * delays stand in for the network and TLS costs of a real provider.
+ */
+public class FakeSmtpServer implements Closeable {
+
+    public record Received(String from, List<String> recipients, String data) {
+
+        public MimeMessage toMimeMessage() {
+            try {
+                return new MimeMessage(Session.getInstance(new Properties()),
+                        new ByteArrayInputStream(data.getBytes(StandardCharsets.ISO_8859_1)));
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+
+    private final ServerSocket serverSocket;
+    private final ExecutorService connections = Executors.newCachedThreadPool(r -> {
+        Thread t = new Thread(r, "fake-smtp");
+        t.setDaemon(true);
+        return t;
+    });
+    private final List<Received> messages = new CopyOnWriteArrayList<>();
+    private final AtomicInteger connectionCount = new AtomicInteger();
+    private final Map<String, AtomicInteger> commandCounts = new ConcurrentHashMap<>();
+    private volatile String recipientReply = "250 OK";
+    private volatile long greetingDelayMillis;
+    private volatile long commandDelayMillis;
+    private volatile int messagesPerConnection = Integer.MAX_VALUE;
+
+    public FakeSmtpServer() throws IOException {
+        serverSocket = new ServerSocket(0, 256, InetAddress.getLoopbackAddress());
+        connections.execute(this::acceptLoop);
+    }
+
+    public int getPort() {
+        return serverSocket.getLocalPort();
+    }
+
+    public List<Received> getMessages() {
+        return messages;
+    }
+
+    /** Number of SMTP connections opened so far. */
+    public int getConnectionCount() {
+        return connectionCount.get();
+    }
+
+    /** Reply sent to every RCPT TO, e.g. "451 4.3.0 Try again later" to simulate a failing server. */
+    public void setRecipientReply(String reply) {
+        this.recipientReply = reply;
+    }
+
+    /** Delay before the 220 greeting, to simulate the cost of opening a connection (TCP + TLS + AUTH). */
+    public void setGreetingDelayMillis(long greetingDelayMillis) {
+        this.greetingDelayMillis = greetingDelayMillis;
+    }
+
+    /** Delay before every reply after the greeting, to simulate the round trip of each SMTP command. */
+    public void setCommandDelayMillis(long commandDelayMillis) {
+        this.commandDelayMillis = commandDelayMillis;
+    }
+
+    /** Closes a connection without a word once it has delivered this many messages, like an idle-timeout drop. */
+    public void setMessagesPerConnection(int messagesPerConnection) {
+        this.messagesPerConnection = messagesPerConnection;
+    }
+
+    /** Number of times a command (e.g. "NOOP") was received, over all connections. */
+    public int getCommandCount(String command) {
+        AtomicInteger count = commandCounts.get(command);
+        return count != null ? count.get() : 0;
+    }
+
+    public boolean awaitMessages(int count, long timeoutMillis) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+        while (messages.size() < count) {
+            if (System.nanoTime() > deadline) {
+                return false;
+            }
+            Thread.sleep(5);
+        }
+        return true;
+    }
+
+    @Override
+    public void close() throws IOException {
+        serverSocket.close();
+        connections.shutdownNow();
+    }
+
+    private void acceptLoop() {
+        while (!serverSocket.isClosed()) {
+            try {
+                Socket socket = serverSocket.accept();
+                connectionCount.incrementAndGet();
+                connections.execute(() -> handle(socket));
+            } catch (IOException e) {
+                return;
+            }
+        }
+    }
+
+    private void handle(Socket socket) {
+        try (socket;
+             BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.ISO_8859_1));
+             Writer out = new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.ISO_8859_1)) {
+            if (greetingDelayMillis > 0) {
+                Thread.sleep(greetingDelayMillis);
+            }
+            reply(out, "220 localhost fake SMTP");
+            String from = null;
+            List<String> recipients = new ArrayList<>();
+            int delivered = 0;
+            String line;
+            while ((line = in.readLine()) != null) {
+                String command = line.length() >= 4 ? line.substring(0, 4).toUpperCase() : line.toUpperCase();
+                commandCounts.computeIfAbsent(command, c -> new AtomicInteger()).incrementAndGet();
+                if (commandDelayMillis > 0) {
+                    Thread.sleep(commandDelayMillis);
+                }
+                switch (command) {
+                    case "HELO", "EHLO" -> reply(out, "250 localhost");
+                    case "MAIL" -> {
+                        from = line.substring(line.indexOf(':') + 1).trim();
+                        recipients = new ArrayList<>();
+                        reply(out, "250 OK");
+                    }
+                    case "RCPT" -> {
+                        String reply = recipientReply;
+                        if (reply.startsWith("250")) {
+                            recipients.add(line.substring(line.indexOf(':') + 1).trim());
+                        }
+                        reply(out, reply);
+                    }
+                    case "DATA" -> {
+                        reply(out, "354 End data with <CR><LF>.<CR><LF>");
+                        StringBuilder data = new StringBuilder();
+                        String dataLine;
+                        while ((dataLine = in.readLine()) != null && !dataLine.equals(".")) {
+                            data.append(dataLine.startsWith("..") ? dataLine.substring(1) : dataLine).append("\r\n");
+                        }
+                        messages.add(new Received(from, List.copyOf(recipients), data.toString()));
+                        reply(out, "250 OK queued");
+                        if (++delivered >= messagesPerConnection) {
+                            return;
+                        }
+                    }
+                    case "RSET" -> {
+                        from = null;
+                        recipients = new ArrayList<>();
+                        reply(out, "250 OK");
+                    }
+                    case "NOOP" -> reply(out, "250 OK");
+                    case "QUIT" -> {
+                        reply(out, "221 Bye");
+                        return;
+                    }
+                    default -> reply(out, "502 Command not implemented");
+                }
+            }
+        } catch (IOException ignored) {
+            // client went away
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void reply(Writer out, String reply) throws IOException {
+        out.write(reply);
+        out.write("\r\n");
+        out.flush();
+    }
+}
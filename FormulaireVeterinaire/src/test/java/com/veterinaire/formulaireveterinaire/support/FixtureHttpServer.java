@@ -0,0 +1,149 @@
+package com.veterinaire.formulaireveterinaire.support;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * In-process HTTP server for tests: serves fixture pages by path on a random local port, with an ETag
+ * derived from the content (304 on a matching If-None-Match), can answer the next requests for a path
+ * with an error status, and records how many requests ran at once and over how many connections.
+ */
+public class FixtureHttpServer implements Closeable {
+
+    private record Failure(int status, AtomicInteger remaining) {
+    }
+
+    private final HttpServer server;
+    private final ExecutorService handlers = Executors.newCachedThreadPool(r -> {
+        Thread t = new Thread(r, "fixture-http");
+        t.setDaemon(true);
+        return t;
+    });
+    private final Map<String, String> pages = new ConcurrentHashMap<>();
+    private final Map<String, Failure> failures = new ConcurrentHashMap<>();
+    private final Map<String, AtomicInteger> hits = new ConcurrentHashMap<>();
+    private final Map<String, AtomicInteger> notModified = new ConcurrentHashMap<>();
+    private final Set<String> clientConnections = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger maxInFlight = new AtomicInteger();
+    private volatile long delayMillis;
+
+    public FixtureHttpServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 64);
+        server.setExecutor(handlers);
+        server.createContext("/", this::handle);
+        server.start();
+    }
+
+    /** The absolute URL of a path on this server, e.g. url("/p/1"). */
+    public String url(String path) {
+        return "http://127.0.0.1:" + server.getAddress().getPort() + path;
+    }
+
+    public FixtureHttpServer page(String path, String html) {
+        pages.put(path, html);
+        return this;
+    }
+
+    /** Answers the next {@code count} requests for the path with {@code status}. */
+    public FixtureHttpServer failNext(String path, int count, int status) {
+        failures.put(path, new Failure(status, new AtomicInteger(count)));
+        return this;
+    }
+
+    /** Holds every response this long, so concurrent requests overlap. */
+    public FixtureHttpServer delay(long millis) {
+        this.delayMillis = millis;
+        return this;
+    }
+
+    public int hits(String path) {
+        AtomicInteger count = hits.get(path);
+        return count != null ? count.get() : 0;
+    }
+
+    /** Requests for the path answered 304. */
+    public int notModified(String path) {
+        AtomicInteger count = notModified.get(path);
+        return count != null ? count.get() : 0;
+    }
+
+    /** Distinct client connections seen, by remote address and port. */
+    public int getConnectionCount() {
+        return clientConnections.size();
+    }
+
+    public int getMaxConcurrentRequests() {
+        return maxInFlight.get();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        int current = inFlight.incrementAndGet();
+        maxInFlight.accumulateAndGet(current, Math::max);
+        try {
+            String path = exchange.getRequestURI().getPath();
+            hits.computeIfAbsent(path, p -> new AtomicInteger()).incrementAndGet();
+            clientConnections.add(exchange.getRemoteAddress().toString());
+            if (delayMillis > 0) {
+                Thread.sleep(delayMillis);
+            }
+
+            Failure failure = failures.get(path);
+            if (failure != null && failure.remaining().getAndDecrement() > 0) {
+                respond(exchange, failure.status(), "HTTP " + failure.status());
+                return;
+            }
+            String html = pages.get(path);
+            if (html == null) {
+                respond(exchange, 404, "Not found");
+                return;
+            }
+            String etag = "\"" + Integer.toHexString(html.hashCode()) + "\"";
+            exchange.getResponseHeaders().set("ETag", etag);
+            exchange.getResponseHeaders().set("Last-Modified", "Mon, 04 May 2026 08:00:00 GMT");
+            if (etag.equals(exchange.getRequestHeaders().getFirst("If-None-Match"))) {
+                notModified.computeIfAbsent(path, p -> new AtomicInteger()).incrementAndGet();
+                respond(exchange, 304, "");
+                return;
+            }
+            exchange.getResponseHeaders().set("Content-Type", "text/html; charset=UTF-8");
+            respond(exchange, 200, html);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            respond(exchange, 503, "Interrupted");
+        } finally {
+            inFlight.decrementAndGet();
+        }
+    }
+
+    private static void respond(HttpExchange exchange, int status, String body) throws IOException {
+        // Error answers carry a body: without a Content-Length the client could not keep the connection
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.sendResponseHeaders(status, bytes.length == 0 ? -1 : bytes.length);
+        if (bytes.length > 0) {
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(bytes);
+            }
+        }
+        exchange.close();
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        handlers.shutdownNow();
+    }
+}
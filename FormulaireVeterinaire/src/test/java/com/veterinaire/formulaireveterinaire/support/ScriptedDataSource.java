@@ -0,0 +1,110 @@
+package com.veterinaire.formulaireveterinaire.support;
+
+import org.springframework.jdbc.datasource.AbstractDataSource;
+
+import java.math.BigDecimal;
+import java.sql.*;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.BiFunction;
+
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+/**
+ * JDBC stand-in for tests that need Hibernate but no database: each query answers with the rows the
+ * script returns for its SQL and bound parameters, columns read by position. Hibernate still generates,
+ * inspects and prepares every statement, so what a StatementInspector counts is what would hit PostgreSQL.
+ */
+public class ScriptedDataSource extends AbstractDataSource {
+
+    private final BiFunction<String, List<Object>, List<Object[]>> script;
+    private final List<String> prepared = new CopyOnWriteArrayList<>();
+
+    public ScriptedDataSource(BiFunction<String, List<Object>, List<Object[]>> script) {
+        this.script = script;
+    }
+
+    /** SQL of every statement prepared so far, in order. */
+    public List<String> prepared() {
+        return prepared;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        Connection connection = mock(Connection.class);
+        when(connection.getAutoCommit()).thenReturn(true);
+        when(connection.prepareStatement(anyString())).thenAnswer(inv -> statement(inv.getArgument(0)));
+        when(connection.prepareStatement(anyString(), anyInt(), anyInt()))
+                .thenAnswer(inv -> statement(inv.getArgument(0)));
+        return connection;
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return getConnection();
+    }
+
+    private PreparedStatement statement(String sql) {
+        prepared.add(sql);
+        List<Object> parameters = new ArrayList<>();
+        return mock(PreparedStatement.class, inv -> {
+            String name = inv.getMethod().getName();
+            if (name.startsWith("set") && inv.getArguments().length >= 2 && inv.getArgument(0) instanceof Integer index) {
+                while (parameters.size() < index) {
+                    parameters.add(null);
+                }
+                parameters.set(index - 1, name.equals("setNull") ? null : inv.getArgument(1));
+                return null;
+            }
+            if (name.equals("executeQuery")) {
+                return resultSet(script.apply(sql, parameters));
+            }
+            return RETURNS_DEFAULTS.answer(inv);
+        });
+    }
+
+    private static ResultSet resultSet(List<Object[]> rows) {
+        int[] row = {-1};
+        Object[] lastRead = {null};
+        return mock(ResultSet.class, inv -> {
+            String name = inv.getMethod().getName();
+            if (name.equals("next")) {
+                return ++row[0] < rows.size();
+            }
+            if (name.equals("wasNull")) {
+                return lastRead[0] == null;
+            }
+            if (name.startsWith("get") && inv.getArguments().length > 0 && inv.getArgument(0) instanceof Integer column) {
+                lastRead[0] = rows.get(row[0])[column - 1];
+                Class<?> type = inv.getArguments().length > 1 && inv.getArgument(1) instanceof Class<?> requested
+                        ? requested : inv.getMethod().getReturnType();
+                return convert(lastRead[0], type);
+            }
+            return RETURNS_DEFAULTS.answer(inv);
+        });
+    }
+
+    private static Object convert(Object value, Class<?> type) {
+        if (value == null) {
+            if (type == boolean.class) return false;
+            if (type == long.class) return 0L;
+            return type.isPrimitive() ? 0 : null;
+        }
+        if (type.isInstance(value)) {
+            return value;
+        }
+        if (value instanceof Number number) {
+            if (type == long.class || type == Long.class) return number.longValue();
+            if (type == int.class || type == Integer.class) return number.intValue();
+            if (type == BigDecimal.class) return new BigDecimal(number.toString());
+        }
+        if (value instanceof LocalDateTime dateTime && type == Timestamp.class) {
+            return Timestamp.valueOf(dateTime);
+        }
+        return type == String.class ? value.toString() : value;
+    }
+}